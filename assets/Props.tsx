@@ -1,4 +1,7 @@
 <?xml version="1.0" encoding="UTF-8"?>
 <tileset version="1.10" tiledversion="1.11.2" name="Props" tilewidth="32" tileheight="32" tilecount="256" columns="16">
+ <properties>
+  <property name="blocking" type="bool" value="true"/>
+ </properties>
  <image source="mapTextures/TX Props.png" width="512" height="512"/>
 </tileset>
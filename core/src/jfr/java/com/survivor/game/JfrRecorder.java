@@ -0,0 +1,319 @@
+package com.survivor.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Flight Recorder side of {@link GameEvents}. This source set is compiled
+ * against JDK 11, since jdk.jfr doesn't exist at the Java 8 level the rest of
+ * core is built for, and GameEvents only loads it on a JVM that has it.
+ *
+ * A listener keeps {@link #recording} up to date as recordings start and
+ * stop, so with none running no event object is even created. With one
+ * running, each event still asks the recording's settings whether it is
+ * enabled before filling in its fields. Events fired every frame or every tick
+ * are recorded without stack traces to keep them cheap.
+ */
+class JfrRecorder implements GameEvents.Recorder, FlightRecorderListener {
+    private volatile boolean recording = false;
+
+    JfrRecorder() {
+        FlightRecorder.addListener(this); // Calls recorderInitialized at once if a recording was started on the command line
+    }
+
+    @Override
+    public void recorderInitialized(FlightRecorder recorder) {
+        update(recorder);
+    }
+
+    @Override
+    public void recordingStateChanged(Recording changed) {
+        update(FlightRecorder.getFlightRecorder());
+    }
+
+    private void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording recording : recorder.getRecordings()) {
+            if (recording.getState() == RecordingState.RUNNING) running = true;
+        }
+        recording = running;
+    }
+
+    @Override
+    public GameEvents.Span frame(long frame) {
+        if (!recording) return GameEvents.NO_SPAN;
+        FrameEvent event = new FrameEvent();
+        if (!event.isEnabled()) return GameEvents.NO_SPAN;
+        event.frame = frame;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public GameEvents.Span framePhase(String phase, long frame) {
+        if (!recording) return GameEvents.NO_SPAN;
+        FramePhaseEvent event = new FramePhaseEvent();
+        if (!event.isEnabled()) return GameEvents.NO_SPAN;
+        event.phase = phase;
+        event.frame = frame;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public GameEvents.Span tick(int room, int tick) {
+        if (!recording) return GameEvents.NO_SPAN;
+        TickEvent event = new TickEvent();
+        if (!event.isEnabled()) return GameEvents.NO_SPAN;
+        event.room = room;
+        event.tick = tick;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public GameEvents.Span tickPhase(String phase, int room, int tick) {
+        if (!recording) return GameEvents.NO_SPAN;
+        TickPhaseEvent event = new TickPhaseEvent();
+        if (!event.isEnabled()) return GameEvents.NO_SPAN;
+        event.phase = phase;
+        event.room = room;
+        event.tick = tick;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void enemySpawn(String type, float x, float y) {
+        if (!recording) return;
+        EnemySpawnEvent event = new EnemySpawnEvent();
+        if (!event.shouldCommit()) return;
+        event.type = type;
+        event.x = x;
+        event.y = y;
+        event.commit();
+    }
+
+    @Override
+    public void enemyDeath(String type, float x, float y) {
+        if (!recording) return;
+        EnemyDeathEvent event = new EnemyDeathEvent();
+        if (!event.shouldCommit()) return;
+        event.type = type;
+        event.x = x;
+        event.y = y;
+        event.commit();
+    }
+
+    @Override
+    public void bossSpawn(float x, float y, int health) {
+        if (!recording) return;
+        BossSpawnEvent event = new BossSpawnEvent();
+        if (!event.shouldCommit()) return;
+        event.x = x;
+        event.y = y;
+        event.health = health;
+        event.commit();
+    }
+
+    @Override
+    public void damage(String target, int amount, int healthAfter) {
+        if (!recording) return;
+        DamageEvent event = new DamageEvent();
+        if (!event.shouldCommit()) return;
+        event.target = target;
+        event.amount = amount;
+        event.healthAfter = healthAfter;
+        event.commit();
+    }
+
+    @Override
+    public GameEvents.Span mapLoad(String path) {
+        if (!recording) return GameEvents.NO_SPAN;
+        MapLoadEvent event = new MapLoadEvent();
+        if (!event.isEnabled()) return GameEvents.NO_SPAN;
+        event.path = path;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public GameEvents.Span assetLoad(String path, String stage) {
+        if (!recording) return GameEvents.NO_SPAN;
+        AssetLoadEvent event = new AssetLoadEvent();
+        if (!event.isEnabled()) return GameEvents.NO_SPAN;
+        event.path = path;
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    @Name("survivor.Frame")
+    @Label("Frame")
+    @Description("One rendered frame, update and draw")
+    @Category({ "Survivor", "Frame" })
+    @StackTrace(false)
+    static class FrameEvent extends Event implements GameEvents.Span {
+        @Label("Frame")
+        long frame;
+
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+
+    @Name("survivor.FramePhase")
+    @Label("Frame Phase")
+    @Category({ "Survivor", "Frame" })
+    @StackTrace(false)
+    static class FramePhaseEvent extends Event implements GameEvents.Span {
+        @Label("Phase")
+        String phase;
+
+        @Label("Frame")
+        long frame;
+
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+
+    @Name("survivor.Tick")
+    @Label("Server Tick")
+    @Description("One tick of a room on the dedicated server")
+    @Category({ "Survivor", "Server" })
+    @StackTrace(false)
+    static class TickEvent extends Event implements GameEvents.Span {
+        @Label("Room")
+        int room;
+
+        @Label("Tick")
+        int tick;
+
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+
+    @Name("survivor.TickPhase")
+    @Label("Server Tick Phase")
+    @Category({ "Survivor", "Server" })
+    @StackTrace(false)
+    static class TickPhaseEvent extends Event implements GameEvents.Span {
+        @Label("Phase")
+        String phase;
+
+        @Label("Room")
+        int room;
+
+        @Label("Tick")
+        int tick;
+
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+
+    @Name("survivor.EnemySpawn")
+    @Label("Enemy Spawn")
+    @Category({ "Survivor", "Gameplay" })
+    @StackTrace(false)
+    static class EnemySpawnEvent extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("X")
+        float x;
+
+        @Label("Y")
+        float y;
+    }
+
+    @Name("survivor.EnemyDeath")
+    @Label("Enemy Death")
+    @Description("An enemy removed from the world after dying")
+    @Category({ "Survivor", "Gameplay" })
+    @StackTrace(false)
+    static class EnemyDeathEvent extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("X")
+        float x;
+
+        @Label("Y")
+        float y;
+    }
+
+    @Name("survivor.BossSpawn")
+    @Label("Boss Spawn")
+    @Category({ "Survivor", "Gameplay" })
+    static class BossSpawnEvent extends Event {
+        @Label("X")
+        float x;
+
+        @Label("Y")
+        float y;
+
+        @Label("Health")
+        int health;
+    }
+
+    @Name("survivor.Damage")
+    @Label("Damage")
+    @Description("Damage applied to the player or an enemy")
+    @Category({ "Survivor", "Gameplay" })
+    @StackTrace(false)
+    static class DamageEvent extends Event {
+        @Label("Target")
+        String target;
+
+        @Label("Amount")
+        int amount;
+
+        @Label("Health After")
+        int healthAfter;
+    }
+
+    @Name("survivor.MapLoad")
+    @Label("Map Load")
+    @Category({ "Survivor", "Loading" })
+    static class MapLoadEvent extends Event implements GameEvents.Span {
+        @Label("Path")
+        String path;
+
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+
+    @Name("survivor.AssetLoad")
+    @Label("Asset Load")
+    @Description("Decoding a texture on a loader thread or uploading it on the render thread")
+    @Category({ "Survivor", "Loading" })
+    static class AssetLoadEvent extends Event implements GameEvents.Span {
+        @Label("Path")
+        String path;
+
+        @Label("Stage")
+        String stage;
+
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+}
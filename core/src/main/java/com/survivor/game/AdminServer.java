@@ -0,0 +1,197 @@
+package com.survivor.game;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A small HTTP endpoint for looking inside a running game or server, bound to
+ * the loopback address so only this machine can reach it.
+ *
+ * {@code /metrics} serves {@link GameMetrics} in the Prometheus text format,
+ * for scraping. {@code /world} serves a JSON dump of the world from a
+ * {@link WorldSource}. Requests are answered one at a time on a single daemon
+ * thread of their own; a metrics scrape only reads atomics, and a world dump is
+ * written by whichever thread owns the world, when it next gets round to it,
+ * see {@link #dumpOn}.
+ *
+ * Off unless asked for: the game and the server start one when the
+ * {@value #PORT_PROPERTY} system property names a port.
+ */
+public class AdminServer {
+    private static final String TAG = "AdminServer";
+    public static final String PORT_PROPERTY = "survivor.adminPort";
+    private static final long DUMP_TIMEOUT_MILLIS = 1000; // The owner is stuck, or paused and not running its tasks
+
+    /**
+     * Writes the world as JSON for {@code /world}. Called on the admin thread,
+     * so implementations that touch live state must hand the work to the thread
+     * that owns it, e.g. with {@link #dumpOn}.
+     */
+    public interface WorldSource {
+        /**
+         * @param query the request's query string, or null
+         * @return the JSON text, or null if there is nothing by that name
+         */
+        String dump(String query) throws Exception;
+    }
+
+    /**
+     * Writes part of a world dump on the thread that owns the world.
+     */
+    public interface JsonDump {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final GameMetrics metrics;
+    private volatile WorldSource worldSource;
+
+    public AdminServer(int port, GameMetrics metrics) throws IOException {
+        this.metrics = metrics;
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+        http.setExecutor(executor);
+        http.createContext("/metrics", this::serveMetrics);
+        http.createContext("/world", this::serveWorld);
+        http.start();
+        Gdx.app.log(TAG, "Serving /metrics and /world on http://" + InetAddress.getLoopbackAddress().getHostAddress()
+            + ":" + getPort());
+    }
+
+    /**
+     * Starts an admin server if the {@value #PORT_PROPERTY} system property is set.
+     *
+     * @param portOffset added to the configured port, so several processes on one machine can share the setting
+     * @return the server, or null if none was asked for or it couldn't bind
+     */
+    public static AdminServer startIfConfigured(GameMetrics metrics, int portOffset) {
+        String port = System.getProperty(PORT_PROPERTY);
+        if (port == null || port.isEmpty()) return null;
+        try {
+            return new AdminServer(Integer.parseInt(port) + portOffset, metrics);
+        } catch (IOException | NumberFormatException e) {
+            Gdx.app.error(TAG, "Couldn't start the admin server on port " + port, e);
+            return null;
+        }
+    }
+
+    public synchronized void setWorldSource(WorldSource worldSource) {
+        this.worldSource = worldSource;
+    }
+
+    /**
+     * Stops serving {@code source}, unless another source has replaced it since.
+     */
+    public synchronized void removeWorldSource(WorldSource source) {
+        if (worldSource == source) worldSource = null;
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    public void stop() {
+        http.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs {@code dump} on the owner's thread and waits for its JSON. The owner
+     * only pays for the dump when somebody asks for one.
+     *
+     * @param owner runs tasks on the thread that owns the world, e.g. {@code Gdx.app::postRunnable}
+     * @throws TimeoutException if the owner didn't get to it within a second
+     */
+    public static String dumpOn(Executor owner, JsonDump dump) throws Exception {
+        StringWriter text = new StringWriter();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        owner.execute(() -> {
+            try {
+                JsonWriter json = new JsonWriter(text);
+                json.setOutputType(JsonWriter.OutputType.json);
+                dump.write(json);
+                json.flush();
+            } catch (Exception e) {
+                failure.set(e);
+            } finally {
+                done.countDown();
+            }
+        });
+        if (!done.await(DUMP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("The world's thread didn't answer within " + DUMP_TIMEOUT_MILLIS + " ms");
+        }
+        if (failure.get() != null) throw failure.get();
+        return text.toString();
+    }
+
+    /**
+     * @return the value of {@code name} in a query string like {@code room=3&x=1}, or null
+     */
+    public static String queryParameter(String query, String name) {
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) return pair.substring(equals + 1);
+        }
+        return null;
+    }
+
+    private void serveMetrics(HttpExchange exchange) throws IOException {
+        StringBuilder out = new StringBuilder(4096);
+        metrics.writePrometheus(out);
+        respond(exchange, 200, "text/plain; version=0.0.4; charset=utf-8", out.toString());
+    }
+
+    private void serveWorld(HttpExchange exchange) throws IOException {
+        WorldSource source = worldSource;
+        if (source == null) {
+            respond(exchange, 404, "text/plain; charset=utf-8", "No world is running\n");
+            return;
+        }
+        try {
+            String json = source.dump(exchange.getRequestURI().getQuery());
+            if (json == null) {
+                respond(exchange, 404, "text/plain; charset=utf-8", "Not found\n");
+            } else {
+                respond(exchange, 200, "application/json; charset=utf-8", json);
+            }
+        } catch (TimeoutException e) {
+            respond(exchange, 503, "text/plain; charset=utf-8", e.getMessage() + "\n");
+        } catch (Exception e) {
+            Gdx.app.error(TAG, "Couldn't dump the world", e);
+            respond(exchange, 500, "text/plain; charset=utf-8", e + "\n");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.survivor.game;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Read side of the pack file written by {@link AssetPacker}. The whole pack is
+ * memory-mapped once (or read in one go from a jar), and each asset is a slice of
+ * that buffer, so opening an asset costs a map lookup and no I/O.
+ *
+ * Layout, big-endian: magic, version, entry count, then one index entry per path
+ * (path, data offset, length), then the data. Paths with identical content point
+ * at the same data.
+ */
+public class AssetPack {
+    public static final String FILE_NAME = "assets.pack";
+    static final int MAGIC = 0x5356504B; // "SVPK"
+    static final int VERSION = 1;
+
+    private final ByteBuffer data;
+    private final ObjectMap<String, int[]> entries = new ObjectMap<>(); // path -> {offset, length}
+    private final ObjectSet<String> directories = new ObjectSet<>();
+
+    private AssetPack(ByteBuffer data) {
+        this.data = data;
+        data.order(ByteOrder.BIG_ENDIAN);
+        if (data.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not an asset pack");
+        }
+        int version = data.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Asset pack has version " + version + ", expected " + VERSION);
+        }
+
+        int count = data.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] pathBytes = new byte[data.getShort() & 0xFFFF];
+            data.get(pathBytes);
+            String path = new String(pathBytes, StandardCharsets.UTF_8);
+            entries.put(path, new int[] {data.getInt(), data.getInt()});
+
+            // Remember every parent folder so directory handles resolve too
+            for (int slash = path.lastIndexOf('/'); slash > 0; slash = path.lastIndexOf('/', slash - 1)) {
+                directories.add(path.substring(0, slash));
+            }
+        }
+    }
+
+    /**
+     * Maps the pack if it is a file on disk, otherwise reads it into memory.
+     */
+    public static AssetPack open(FileHandle file) {
+        ByteBuffer buffer = file.file().exists() ? file.map() : ByteBuffer.wrap(file.readBytes());
+        return new AssetPack(buffer);
+    }
+
+    public boolean contains(String path) {
+        return entries.containsKey(normalize(path));
+    }
+
+    public boolean isDirectory(String path) {
+        return directories.contains(normalize(path));
+    }
+
+    /**
+     * @return a handle reading from the pack, or null if the path is not packed
+     */
+    public FileHandle get(String path) {
+        String normalized = normalize(path);
+        if (!entries.containsKey(normalized) && !directories.contains(normalized)) return null;
+        return new PackedFileHandle(this, normalized);
+    }
+
+    /**
+     * @return a read-only view of the asset's bytes, sharing memory with the pack
+     */
+    ByteBuffer slice(String path) {
+        int[] entry = entries.get(path);
+        if (entry == null) {
+            throw new GdxRuntimeException("File not found in asset pack: " + path);
+        }
+        ByteBuffer view = data.asReadOnlyBuffer();
+        ((Buffer) view).limit(entry[0] + entry[1]);
+        ((Buffer) view).position(entry[0]);
+        return view.slice();
+    }
+
+    long length(String path) {
+        int[] entry = entries.get(path);
+        return entry != null ? entry[1] : 0;
+    }
+
+    /**
+     * @return paths of the files and folders directly inside a packed folder
+     */
+    Array<String> list(String directory) {
+        String prefix = directory.isEmpty() ? "" : directory + "/";
+        ObjectSet<String> children = new ObjectSet<>();
+        for (String path : entries.keys()) {
+            if (!path.startsWith(prefix)) continue;
+            int slash = path.indexOf('/', prefix.length());
+            children.add(slash < 0 ? path : path.substring(0, slash));
+        }
+        Array<String> result = new Array<>(children.size);
+        for (String child : children) {
+            result.add(child);
+        }
+        result.sort();
+        return result;
+    }
+
+    public int getEntryCount() {
+        return entries.size;
+    }
+
+    static String normalize(String path) {
+        path = path.replace('\\', '/');
+        while (path.startsWith("./")) path = path.substring(2);
+        while (path.startsWith("/")) path = path.substring(1);
+        while (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        return path;
+    }
+}
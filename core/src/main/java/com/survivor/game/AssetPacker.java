@@ -0,0 +1,152 @@
+package com.survivor.game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Build-time tool that packs the assets folder into one indexed file for
+ * {@link AssetPack}. Run by the {@code packAssets} Gradle task.
+ *
+ * Files are deduplicated by SHA-256, so copies of the same sprite sheet under
+ * different paths are stored once. Archives are left out since the game never
+ * opens them, and so is anything the game writes while running from assets/,
+ * like hitch reports. Paths keep their spaces and case; they are the same strings the
+ * code passes to {@code Gdx.files.internal}.
+ */
+public class AssetPacker {
+    private static final String[] EXCLUDED_EXTENSIONS = {".zip", ".pack"};
+    private static final String[] EXCLUDED_DIRECTORIES = {"hitches"};
+    private static final int DATA_ALIGNMENT = 8;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPacker <assets dir> <output file>");
+            System.exit(1);
+        }
+        pack(new File(args[0]), new File(args[1]));
+    }
+
+    public static void pack(File assetsDir, File output) throws Exception {
+        List<String> paths = new ArrayList<>();
+        collect(assetsDir, "", paths);
+        Collections.sort(paths);
+
+        // Give each distinct content one slot in the data section
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        Map<String, Integer> blobByHash = new HashMap<>();
+        List<File> blobs = new ArrayList<>();
+        int[] blobOfPath = new int[paths.size()];
+        long looseBytes = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            File file = new File(assetsDir, paths.get(i));
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            looseBytes += bytes.length;
+            String hash = toHex(digest.digest(bytes));
+            Integer blob = blobByHash.get(hash);
+            if (blob == null) {
+                blob = blobs.size();
+                blobByHash.put(hash, blob);
+                blobs.add(file);
+            }
+            blobOfPath[i] = blob;
+        }
+
+        int indexSize = 12;
+        for (String path : paths) {
+            indexSize += 2 + path.getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+        long[] blobOffsets = new long[blobs.size()];
+        long offset = align(indexSize);
+        for (int b = 0; b < blobs.size(); b++) {
+            blobOffsets[b] = offset;
+            offset = align(offset + blobs.get(b).length());
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Asset pack would exceed 2 GB");
+        }
+
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            out.writeInt(AssetPack.MAGIC);
+            out.writeInt(AssetPack.VERSION);
+            out.writeInt(paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                byte[] pathBytes = paths.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(pathBytes.length);
+                out.write(pathBytes);
+                out.writeInt((int) blobOffsets[blobOfPath[i]]);
+                out.writeInt((int) blobs.get(blobOfPath[i]).length());
+            }
+            pad(out, indexSize);
+
+            long written = align(indexSize);
+            for (File blob : blobs) {
+                byte[] bytes = Files.readAllBytes(blob.toPath());
+                out.write(bytes);
+                written += bytes.length;
+                pad(out, written);
+                written = align(written);
+            }
+        }
+
+        System.out.printf("Packed %d files (%d unique) into %s: %d KB loose -> %d KB%n", paths.size(), blobs.size(),
+            output.getName(), looseBytes / 1024, output.length() / 1024);
+    }
+
+    private static void collect(File dir, String prefix, List<String> out) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                if (!isExcludedDirectory(path)) collect(file, path + "/", out);
+            } else if (!isExcluded(file.getName())) {
+                out.add(path);
+            }
+        }
+    }
+
+    private static boolean isExcluded(String name) {
+        String lower = name.toLowerCase();
+        for (String extension : EXCLUDED_EXTENSIONS) {
+            if (lower.endsWith(extension)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isExcludedDirectory(String path) {
+        for (String directory : EXCLUDED_DIRECTORIES) {
+            if (path.equals(directory)) return true;
+        }
+        return false;
+    }
+
+    private static long align(long offset) {
+        return (offset + DATA_ALIGNMENT - 1) / DATA_ALIGNMENT * DATA_ALIGNMENT;
+    }
+
+    private static void pad(DataOutputStream out, long offset) throws IOException {
+        for (long i = offset; i < align(offset); i++) {
+            out.writeByte(0);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
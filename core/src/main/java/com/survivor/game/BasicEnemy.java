@@ -6,6 +6,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
@@ -13,10 +14,13 @@ import com.badlogic.gdx.utils.Array;
 
 public class BasicEnemy extends Enemy {
 
-    private static final float DEFAULT_SPEED = 100f;
-    private static final int DEFAULT_DAMAGE = 5;
-    private static final float ATTACK_RADIUS = 50f;
-    private static final float ATTACK_COOLDOWN = 1.0f;
+    // Public so the dedicated server's enemies play by the same numbers
+    public static final float DEFAULT_SPEED = 100f;
+    public static final int DEFAULT_HEALTH = 30;
+    public static final int DEFAULT_DAMAGE = 5;
+    public static final float ATTACK_RADIUS = 50f;
+    public static final float ATTACK_COOLDOWN = 1.0f;
+    public static final float SEPARATION = 20f; // Steps aside from another enemy closer than this
 
     private float lastAttackTime = 0f;
     private Animation<TextureRegion> deathAnimation, attackAnimation;
@@ -25,11 +29,17 @@ public class BasicEnemy extends Enemy {
     private float attackAnimTimer = 0f;
     private boolean isAttacking = false;
     private static final float DEATH_DURATION = 0.6f; // Duration of death animation
-    private final List<Obstacle> obstacles;
-
-    public BasicEnemy(float x, float y, List<Obstacle> obstacles) {
-        super(new Texture(Gdx.files.internal("Mushroom-Run.png")), x, y, DEFAULT_SPEED, DEFAULT_DAMAGE);
-        this.obstacles = obstacles; // 追加
+    private static final float LOSE_INTEREST_TIME = 3f; // Seconds an enemy keeps chasing after losing sight
+    private static final float RANGED_ATTACK_RANGE = 220f; // Shoots from beyond melee reach up to this distance
+    private static final float RANGED_ATTACK_COOLDOWN = 2.5f;
+    private static final int RANGED_DAMAGE = 5;
+    private float rangedCooldown = MathUtils.random(RANGED_ATTACK_COOLDOWN); // Random start so a group doesn't fire in sync
+    private boolean dormant = false;
+    private float timeSinceSeen = 0f;
+
+    public BasicEnemy(float x, float y) {
+        super(ParallelTextureLoader.getShared().get("Mushroom-Run.png"), x, y, DEFAULT_SPEED, DEFAULT_DAMAGE);
+        this.health = DEFAULT_HEALTH;
         initAnimation();
     }
 
@@ -50,7 +60,7 @@ public class BasicEnemy extends Enemy {
             if (tempFrames.length > 1 && tempFrames[1].length >= 4) {
                 deathAnimation = new Animation<>(0.15f, tempFrames[1][0], tempFrames[1][1], tempFrames[1][2], tempFrames[1][3]);
             }// Load attack sprite sheet separately
-            Texture attackSheet = new Texture(Gdx.files.internal("Mushroom-Attack.png"));
+            Texture attackSheet = ParallelTextureLoader.getShared().get("Mushroom-Attack.png");
             TextureRegion[][] attackFrames = TextureRegion.split(attackSheet, 80, 64); // adjust if necessary
 
             Array<TextureRegion> attackRegions = new Array<>();
@@ -70,17 +80,6 @@ public class BasicEnemy extends Enemy {
     }
 
 
-    private boolean isObstacleAt(Vector2 newPos) {
-        Rectangle futureBounds = new Rectangle(newPos.x, newPos.y, bounds.getWidth(), bounds.getHeight());
-
-        for (Obstacle obs : obstacles) {
-            if (obs.isCollidable() && obs.getBounds().overlaps(futureBounds)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @Override
     protected boolean isObstacle(int x, int y) {
         return false;
@@ -100,19 +99,38 @@ public class BasicEnemy extends Enemy {
             return;
         }
 
+        if (dormant) {
+            // Dormant enemies skip movement and animation until they can see the player again
+            if (!canSeePlayer) return;
+            dormant = false;
+            timeSinceSeen = 0f;
+        }
+
         // Center the hitbox around the enemy's position
         bounds.setPosition(position.x - bounds.getWidth() / 2, position.y - bounds.getHeight() / 2);
 
-        if (detectPlayer(player)) {
+        if (detectPlayer(delta)) {
             navigateTo(player, delta, allEnemies);
+        } else if (!isAttacking) {
+            dormant = true;
+            return;
         }
 
         updateAnimation(delta);
 
     }
 
-    private boolean detectPlayer(Player player) {
-        return true; // Always track the player (no line-of-sight logic yet)
+    /**
+     * Uses the line-of-sight result cached by {@link LineOfSight#refresh}. An enemy
+     * keeps chasing for a short while after losing sight of the player.
+     */
+    private boolean detectPlayer(float delta) {
+        if (canSeePlayer) {
+            timeSinceSeen = 0f;
+            return true;
+        }
+        timeSinceSeen += delta;
+        return timeSinceSeen < LOSE_INTEREST_TIME;
     }
 
     private void navigateTo(Player player, float delta, List<Enemy> allEnemies) {
@@ -122,7 +140,7 @@ public class BasicEnemy extends Enemy {
         Vector2 newPos = new Vector2(position).add(direction.x * speed * delta, direction.y * speed * delta);
 
         for (Enemy other : allEnemies) {
-            if (other != this && other.isAlive() && newPos.dst(other.getPosition()) < 20f) {
+            if (other != this && other.isAlive() && newPos.dst(other.getPosition()) < SEPARATION) {
                 // Adjust direction to avoid collision and surround the player
                 Vector2 avoidanceDirection = new Vector2(other.getPosition()).sub(position).nor().scl(-1);
                 direction.add(avoidanceDirection).nor();
@@ -133,9 +151,18 @@ public class BasicEnemy extends Enemy {
 
         position.set(newPos);
 
-        if (position.dst(playerPos) <= ATTACK_RADIUS && canAttack(delta)) {
+        float distance = position.dst(playerPos);
+        if (distance <= ATTACK_RADIUS && canAttack(delta)) {
             attack(player);
         }
+
+        // Shoot when the player is visible but out of melee reach
+        rangedCooldown -= delta;
+        if (rangedCooldown <= 0 && canSeePlayer && distance > ATTACK_RADIUS && distance <= RANGED_ATTACK_RANGE) {
+            GameScreen.getProjectiles().spawnAimed(position.x, position.y, playerPos.x, playerPos.y,
+                RANGED_DAMAGE, ProjectileSystem.HOSTILE);
+            rangedCooldown = RANGED_ATTACK_COOLDOWN;
+        }
     }
 
     private boolean canAttack(float delta) {
@@ -189,6 +216,7 @@ public class BasicEnemy extends Enemy {
             deathTimer = 0f;
             stateTime = 0f;
         }
+        GameEvents.damage("BasicEnemy", amount, health);
     }
 
     @Override
@@ -199,6 +227,10 @@ public class BasicEnemy extends Enemy {
     }
 
 
+    public boolean isDormant() {
+        return dormant;
+    }
+
     public boolean isDying() {
         return isDying;
     }
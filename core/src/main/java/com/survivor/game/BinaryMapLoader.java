@@ -0,0 +1,286 @@
+package com.survivor.game;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Reads maps written by {@link MapCompiler}. The file is memory-mapped when it
+ * lives on disk or in the {@link AssetPack}, or read in one go from the classpath
+ * otherwise, and decoded straight into a {@link TiledMap} with no XML or string
+ * lookups. Obstacles come out already merged. Tile set images decode in parallel
+ * through {@link ParallelTextureLoader}.
+ *
+ * Layout, big-endian: a header (magic, version, map and tile size), then the tile
+ * sets with their properties and region tables, then each layer as one short per
+ * cell starting from the bottom row, then the obstacle rectangles.
+ */
+public class BinaryMapLoader {
+    static final int MAGIC = 0x53564D50; // "SVMP"
+    static final int VERSION = 1;
+
+    // A cell is a 13-bit tile id plus Tiled's three flip flags
+    static final int CELL_ID_MASK = 0x1FFF;
+    static final int CELL_FLIP_DIAGONALLY = 0x2000;
+    static final int CELL_FLIP_VERTICALLY = 0x4000;
+    static final int CELL_FLIP_HORIZONTALLY = 0x8000;
+
+    static final int PROPERTY_STRING = 0;
+    static final int PROPERTY_INT = 1;
+    static final int PROPERTY_FLOAT = 2;
+    static final int PROPERTY_BOOLEAN = 3;
+
+    private BinaryMapLoader() {}
+
+    /**
+     * @param obstaclesOut receives the map's obstacle rectangles
+     */
+    public static TiledMap load(FileHandle file, Array<Rectangle> obstaclesOut) {
+        return load(file, obstaclesOut, true);
+    }
+
+    /**
+     * @param loadTextures false to leave every tile with an empty region, for a
+     * dedicated server that has no GL context but still needs the tile ids
+     */
+    public static TiledMap load(FileHandle file, Array<Rectangle> obstaclesOut, boolean loadTextures) {
+        ByteBuffer buffer = open(file);
+        TiledMap map = new TiledMap();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int tileWidth = buffer.getInt();
+        int tileHeight = buffer.getInt();
+        MapProperties mapProperties = map.getProperties();
+        mapProperties.put("orientation", "orthogonal");
+        mapProperties.put("width", width);
+        mapProperties.put("height", height);
+        mapProperties.put("tilewidth", tileWidth);
+        mapProperties.put("tileheight", tileHeight);
+
+        Array<Texture> ownTextures = readTileSets(buffer, file, loadTextures, map.getTileSets());
+        if (ownTextures.size > 0) {
+            map.setOwnedResources(ownTextures);
+        }
+
+        int layerCount = buffer.getInt();
+        short[] cells = new short[width * height];
+        for (int l = 0; l < layerCount; l++) {
+            TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+            layer.setName(readString(buffer));
+            layer.setOpacity(buffer.getFloat());
+            layer.setVisible(buffer.get() != 0);
+            layer.setOffsetX(buffer.getFloat());
+            layer.setOffsetY(buffer.getFloat());
+
+            buffer.asShortBuffer().get(cells);
+            ((Buffer) buffer).position(buffer.position() + cells.length * 2);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int packed = toPackedCell(cells[y * width + x] & 0xFFFF);
+                    TiledMapTile tile = map.getTileSets().getTile(WorldChunk.tileId(packed));
+                    if (tile == null) continue;
+                    TiledMapTileLayer.Cell mapCell = new TiledMapTileLayer.Cell();
+                    mapCell.setTile(tile);
+                    mapCell.setFlipHorizontally(WorldChunk.isFlippedHorizontally(packed));
+                    mapCell.setFlipVertically(WorldChunk.isFlippedVertically(packed));
+                    mapCell.setRotation(WorldChunk.rotation(packed));
+                    layer.setCell(x, y, mapCell);
+                }
+            }
+            map.getLayers().add(layer);
+        }
+
+        readObstacles(buffer, obstaclesOut);
+        return map;
+    }
+
+    /**
+     * Maps a compiled map and checks its header.
+     *
+     * @return the file's contents, positioned at the map size that follows the version
+     */
+    static ByteBuffer open(FileHandle file) {
+        ByteBuffer buffer = read(file);
+        if (buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException(file + " is not a compiled map");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException(file + " has format version " + version + ", expected " + VERSION);
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads the tile set table into {@code out} and moves the buffer past it.
+     *
+     * @return textures created for images outside the internal assets, which the caller must dispose
+     */
+    static Array<Texture> readTileSets(ByteBuffer buffer, FileHandle file, boolean loadTextures,
+                                       TiledMapTileSets out) {
+        // Read every tile set first so their images decode in parallel, then build the tiles
+        int tileSetCount = buffer.getInt();
+        TileSetRecord[] records = new TileSetRecord[tileSetCount];
+        ParallelTextureLoader textures = loadTextures ? ParallelTextureLoader.getShared() : null;
+        boolean internal = file.type() == Files.FileType.Internal;
+        for (int t = 0; t < tileSetCount; t++) {
+            TileSetRecord record = new TileSetRecord();
+            record.tileSet = new TiledMapTileSet();
+            record.tileSet.setName(readString(buffer));
+            record.firstGid = buffer.getInt();
+            String imagePath = readString(buffer);
+            record.tileWidth = buffer.getInt();
+            record.tileHeight = buffer.getInt();
+            record.offsetX = buffer.getInt();
+            record.offsetY = buffer.getInt();
+
+            MapProperties properties = record.tileSet.getProperties();
+            int propertyCount = buffer.getInt();
+            for (int p = 0; p < propertyCount; p++) {
+                String name = readString(buffer);
+                int type = buffer.get();
+                String value = readString(buffer);
+                properties.put(name, parseProperty(type, value));
+            }
+            properties.put("firstgid", record.firstGid);
+            properties.put("imagesource", imagePath);
+            properties.put("tilewidth", record.tileWidth);
+            properties.put("tileheight", record.tileHeight);
+
+            record.image = file.parent().child(imagePath);
+            if (loadTextures && internal) textures.load(record.image.path());
+
+            record.regions = new short[buffer.getInt() * 2];
+            buffer.asShortBuffer().get(record.regions);
+            ((Buffer) buffer).position(buffer.position() + record.regions.length * 2);
+            records[t] = record;
+        }
+
+        // Internal images are shared through the loader; anything else belongs to the caller
+        ObjectMap<String, Texture> ownTextures = new ObjectMap<>();
+        for (TileSetRecord record : records) {
+            Texture texture;
+            if (!loadTextures) {
+                texture = null;
+            } else if (internal) {
+                texture = textures.get(record.image.path());
+            } else {
+                texture = ownTextures.get(record.image.path());
+                if (texture == null) {
+                    texture = new Texture(record.image);
+                    ownTextures.put(record.image.path(), texture);
+                }
+            }
+
+            for (int i = 0; i < record.regions.length / 2; i++) {
+                StaticTiledMapTile tile = new StaticTiledMapTile(texture == null ? new TextureRegion()
+                    : new TextureRegion(texture, record.regions[i * 2], record.regions[i * 2 + 1],
+                        record.tileWidth, record.tileHeight));
+                tile.setId(record.firstGid + i);
+                tile.setOffsetX(record.offsetX);
+                tile.setOffsetY(-record.offsetY); // Tiled offsets point down, libGDX's up
+                record.tileSet.putTile(tile.getId(), tile);
+            }
+            out.addTileSet(record.tileSet);
+        }
+        return ownTextures.values().toArray();
+    }
+
+    /**
+     * Reads the obstacle table that ends the file.
+     */
+    static void readObstacles(ByteBuffer buffer, Array<Rectangle> out) {
+        int obstacleCount = buffer.getInt();
+        out.ensureCapacity(obstacleCount);
+        for (int i = 0; i < obstacleCount; i++) {
+            out.add(new Rectangle(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()));
+        }
+    }
+
+    private static class TileSetRecord {
+        TiledMapTileSet tileSet;
+        int firstGid;
+        FileHandle image;
+        int tileWidth;
+        int tileHeight;
+        int offsetX;
+        int offsetY;
+        short[] regions; // x, y pairs
+    }
+
+    private static ByteBuffer read(FileHandle file) {
+        // Packed and on-disk files are mapped; files inside a jar can only be read
+        if (file instanceof PackedFileHandle) {
+            return file.map().order(ByteOrder.BIG_ENDIAN);
+        }
+        if (file.file().exists()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file.file(), "r");
+                 FileChannel channel = raf.getChannel()) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Couldn't map " + file, e);
+            }
+        }
+        return ByteBuffer.wrap(file.readBytes());
+    }
+
+    /**
+     * Turns a compiled cell's Tiled flip flags into libGDX flips and rotations, the
+     * same way TmxMapLoader does, packed as in {@link WorldChunk#packCell}.
+     */
+    static int toPackedCell(int cell) {
+        int tileId = cell & CELL_ID_MASK;
+        boolean flipHorizontally = (cell & CELL_FLIP_HORIZONTALLY) != 0;
+        boolean flipVertically = (cell & CELL_FLIP_VERTICALLY) != 0;
+        if ((cell & CELL_FLIP_DIAGONALLY) == 0) {
+            return WorldChunk.packCell(tileId, flipHorizontally, flipVertically, 0);
+        }
+        if (flipHorizontally && flipVertically) {
+            return WorldChunk.packCell(tileId, true, false, TiledMapTileLayer.Cell.ROTATE_270);
+        } else if (flipHorizontally) {
+            return WorldChunk.packCell(tileId, false, false, TiledMapTileLayer.Cell.ROTATE_270);
+        } else if (flipVertically) {
+            return WorldChunk.packCell(tileId, false, false, TiledMapTileLayer.Cell.ROTATE_90);
+        }
+        return WorldChunk.packCell(tileId, false, true, TiledMapTileLayer.Cell.ROTATE_270);
+    }
+
+    private static Object parseProperty(int type, String value) {
+        switch (type) {
+            case PROPERTY_BOOLEAN:
+                return Boolean.valueOf(value);
+            case PROPERTY_INT:
+                return Integer.valueOf(value);
+            case PROPERTY_FLOAT:
+                return Float.valueOf(value);
+            default:
+                return value;
+        }
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,51 @@
+package com.survivor.game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads what {@link BitWriter} wrote. Reading past the end of the buffer throws
+ * BufferUnderflowException, so a truncated packet can't be mistaken for data.
+ */
+public class BitReader {
+    private ByteBuffer buffer;
+    private long accumulator;
+    private int available; // Bits in the accumulator not yet read
+
+    public BitReader begin(ByteBuffer buffer) {
+        this.buffer = buffer;
+        accumulator = 0;
+        available = 0;
+        return this;
+    }
+
+    /**
+     * @param bits 0 to 32
+     */
+    public int read(int bits) {
+        if (bits == 0) return 0;
+        while (available < bits) {
+            accumulator = (accumulator << 8) | (buffer.get() & 0xFF);
+            available += 8;
+        }
+        available -= bits;
+        return (int) ((accumulator >>> available) & (0xFFFFFFFFL >>> (32 - bits)));
+    }
+
+    public boolean readBoolean() {
+        return read(1) != 0;
+    }
+
+    public int readUnsigned() {
+        int zeros = 0;
+        while (read(1) == 0) {
+            zeros++;
+            if (zeros > 31) throw new IllegalStateException("Corrupt exponential-Golomb code");
+        }
+        return ((1 << zeros) | read(zeros)) - 1;
+    }
+
+    public int readSigned() {
+        int zigzag = readUnsigned();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.survivor.game;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes values of any bit width into a ByteBuffer, most significant bit first.
+ * Bits collect in a 64-bit accumulator and go out a byte at a time; call
+ * {@link #finish} to pad the last byte and leave the buffer positioned after it.
+ */
+public class BitWriter {
+    private ByteBuffer buffer;
+    private long accumulator;
+    private int pending; // Bits in the accumulator not yet written
+    private int written;
+
+    public BitWriter begin(ByteBuffer buffer) {
+        this.buffer = buffer;
+        accumulator = 0;
+        pending = 0;
+        written = 0;
+        return this;
+    }
+
+    /**
+     * @param bits 0 to 32; only the low {@code bits} bits of value are written
+     */
+    public void write(int value, int bits) {
+        if (bits == 0) return;
+        accumulator = (accumulator << bits) | (value & (0xFFFFFFFFL >>> (32 - bits)));
+        pending += bits;
+        written += bits;
+        while (pending >= 8) {
+            pending -= 8;
+            buffer.put((byte) (accumulator >>> pending));
+        }
+    }
+
+    public void writeBoolean(boolean value) {
+        write(value ? 1 : 0, 1);
+    }
+
+    /**
+     * Exponential-Golomb code for a non-negative value: small values take few
+     * bits (0 takes one, 1 to 2 take three), large ones about twice their width.
+     */
+    public void writeUnsigned(int value) {
+        int width = 32 - Integer.numberOfLeadingZeros(value + 1);
+        write(0, width - 1);
+        write(value + 1, width);
+    }
+
+    /**
+     * Zig-zag maps small negative and positive values alike to small codes.
+     */
+    public void writeSigned(int value) {
+        writeUnsigned((value << 1) ^ (value >> 31));
+    }
+
+    public static int unsignedBits(int value) {
+        return 2 * (32 - Integer.numberOfLeadingZeros(value + 1)) - 1;
+    }
+
+    public static int signedBits(int value) {
+        return unsignedBits((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Pads the final partial byte with zeros.
+     */
+    public void finish() {
+        if (pending > 0) {
+            buffer.put((byte) (accumulator << (8 - pending)));
+            pending = 0;
+        }
+    }
+
+    public int getBitsWritten() {
+        return written;
+    }
+}
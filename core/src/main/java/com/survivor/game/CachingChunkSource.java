@@ -0,0 +1,147 @@
+package com.survivor.game;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+
+/**
+ * Keeps recently built chunks of another source, so a player walking back and
+ * forth doesn't pay for generating the same chunks again.
+ *
+ * Entries are kept in least-recently-used order. When the estimated size of all
+ * cached chunks goes over the memory budget, the oldest are dropped. Any dropped
+ * chunk can be asked for again, and the wrapped source must then return exactly
+ * the same chunk. {@link ProceduralChunkSource} does, because its chunks depend
+ * only on the seed. Chunks are shared with the caller and must not be modified.
+ */
+public class CachingChunkSource implements ChunkSource {
+    private static final int CHUNK_OVERHEAD_BYTES = 128; // Object headers and array bookkeeping
+    private static final int RECTANGLE_BYTES = 36; // The rectangle plus its slot in the array
+
+    private final ChunkSource source;
+    private final long budgetBytes;
+    private final LinkedHashMap<Long, WorldChunk> chunks = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+    private int hits;
+    private int misses;
+
+    /**
+     * @param budgetBytes how much chunk data to keep before evicting the oldest chunks
+     */
+    public CachingChunkSource(ChunkSource source, long budgetBytes) {
+        this.source = source;
+        this.budgetBytes = budgetBytes;
+    }
+
+    @Override
+    public WorldChunk loadChunk(int chunkX, int chunkY) {
+        Long key = WorldChunk.key(chunkX, chunkY);
+        synchronized (chunks) {
+            WorldChunk cached = chunks.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        // Build outside the lock so other workers keep going
+        WorldChunk chunk = source.loadChunk(chunkX, chunkY);
+
+        synchronized (chunks) {
+            WorldChunk previous = chunks.put(key, chunk);
+            if (previous != null) {
+                usedBytes -= estimateBytes(previous);
+            }
+            usedBytes += estimateBytes(chunk);
+
+            Iterator<Map.Entry<Long, WorldChunk>> eldest = chunks.entrySet().iterator();
+            while (usedBytes > budgetBytes && eldest.hasNext()) {
+                WorldChunk evicted = eldest.next().getValue();
+                if (evicted == chunk) break; // Always keep the chunk just built
+                usedBytes -= estimateBytes(evicted);
+                eldest.remove();
+            }
+        }
+        return chunk;
+    }
+
+    private static long estimateBytes(WorldChunk chunk) {
+        long bytes = CHUNK_OVERHEAD_BYTES;
+        for (int[] layer : chunk.cells) {
+            bytes += layer.length * 4L;
+        }
+        bytes += chunk.blocked.length * 8L;
+        bytes += chunk.freeTiles.items.length * 4L;
+        bytes += chunk.obstacles.size * (long) RECTANGLE_BYTES;
+        return bytes;
+    }
+
+    public int getCachedChunkCount() {
+        synchronized (chunks) {
+            return chunks.size();
+        }
+    }
+
+    public long getUsedBytes() {
+        synchronized (chunks) {
+            return usedBytes;
+        }
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return share of loads served from the cache so far, 0 to 1
+     */
+    public float getHitRate() {
+        synchronized (chunks) {
+            int total = hits + misses;
+            return total == 0 ? 0f : (float) hits / total;
+        }
+    }
+
+    @Override
+    public int getChunkSize() {
+        return source.getChunkSize();
+    }
+
+    @Override
+    public int getTileWidth() {
+        return source.getTileWidth();
+    }
+
+    @Override
+    public int getTileHeight() {
+        return source.getTileHeight();
+    }
+
+    @Override
+    public int getWidthInChunks() {
+        return source.getWidthInChunks();
+    }
+
+    @Override
+    public int getHeightInChunks() {
+        return source.getHeightInChunks();
+    }
+
+    @Override
+    public String[] getLayerNames() {
+        return source.getLayerNames();
+    }
+
+    @Override
+    public float getLayerOpacity(int layer) {
+        return source.getLayerOpacity(layer);
+    }
+
+    @Override
+    public TiledMapTileSets getTileSets() {
+        return source.getTileSets();
+    }
+}
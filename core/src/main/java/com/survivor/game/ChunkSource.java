@@ -0,0 +1,46 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+
+/**
+ * Where the {@link WorldStreamer} gets chunks from. {@link #loadChunk} runs on
+ * the streamer's worker thread; everything else is called on the main thread.
+ */
+public interface ChunkSource {
+    /**
+     * @return chunk edge length in tiles
+     */
+    int getChunkSize();
+
+    int getTileWidth();
+
+    int getTileHeight();
+
+    /**
+     * @return world width in chunks, or -1 if the world has no horizontal end
+     */
+    int getWidthInChunks();
+
+    /**
+     * @return world height in chunks, or -1 if the world has no vertical end
+     */
+    int getHeightInChunks();
+
+    /**
+     * @return names of the tile layers, bottom to top, matching {@link WorldChunk#cells}
+     */
+    String[] getLayerNames();
+
+    float getLayerOpacity(int layer);
+
+    /**
+     * Tile sets the ids in {@link WorldChunk#cells} refer to. Their textures must
+     * already be uploaded.
+     */
+    TiledMapTileSets getTileSets();
+
+    /**
+     * Builds a chunk. Must be safe to call from a background thread and must not touch GL.
+     */
+    WorldChunk loadChunk(int chunkX, int chunkY);
+}
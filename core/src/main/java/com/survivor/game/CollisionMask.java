@@ -0,0 +1,181 @@
+package com.survivor.game;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * One bit per map tile, set when the tile blocks movement and sight.
+ *
+ * Rows are packed into 64-bit words, so a tile lookup is a shift and a mask, and
+ * testing a rectangle costs one AND per row per word it spans. This is the shared
+ * source of truth for pathfinding, line of sight and spawn placement.
+ *
+ * A mask may cover any window of the tile grid, not just one starting at tile
+ * (0, 0), so a streamed world can keep one around the player only. Tile
+ * coordinates passed in are always world tiles.
+ */
+public class CollisionMask {
+    private final int originX;
+    private final int originY;
+    private final int width;
+    private final int height;
+    private final float tileWidth;
+    private final float tileHeight;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    public CollisionMask(int width, int height, float tileWidth, float tileHeight) {
+        this(0, 0, width, height, tileWidth, tileHeight);
+    }
+
+    /**
+     * @param originX world tile of the mask's left column
+     * @param originY world tile of the mask's bottom row
+     */
+    public CollisionMask(int originX, int originY, int width, int height, float tileWidth, float tileHeight) {
+        this.originX = originX;
+        this.originY = originY;
+        this.width = width;
+        this.height = height;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * height];
+    }
+
+    public void setBlocked(int tileX, int tileY) {
+        if (!isInside(tileX, tileY)) return;
+        int x = tileX - originX;
+        bits[(tileY - originY) * wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+    }
+
+    public void clearBlocked(int tileX, int tileY) {
+        if (!isInside(tileX, tileY)) return;
+        int x = tileX - originX;
+        bits[(tileY - originY) * wordsPerRow + (x >>> 6)] &= ~(1L << (x & 63));
+    }
+
+    /**
+     * Marks every tile as blocked, so callers can open up only the ground they know.
+     */
+    public void blockAll() {
+        Arrays.fill(bits, -1L);
+        // Keep the padding past the last column clear so countBlocked stays exact
+        long lastWord = -1L >>> (63 - ((width - 1) & 63));
+        for (int row = 0; row < height; row++) {
+            bits[row * wordsPerRow + wordsPerRow - 1] = lastWord;
+        }
+    }
+
+    /**
+     * Marks every tile the rectangle touches, even partially.
+     */
+    public void markRect(Rectangle rect) {
+        int minX = Math.max(originX, toTileX(rect.x));
+        int minY = Math.max(originY, toTileY(rect.y));
+        int maxX = Math.min(originX + width - 1, (int) Math.ceil((rect.x + rect.width) / tileWidth) - 1);
+        int maxY = Math.min(originY + height - 1, (int) Math.ceil((rect.y + rect.height) / tileHeight) - 1);
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                setBlocked(x, y);
+            }
+        }
+    }
+
+    /**
+     * @return true if the tile is blocked or lies outside the map
+     */
+    public boolean isBlocked(int tileX, int tileY) {
+        if (!isInside(tileX, tileY)) return true;
+        int x = tileX - originX;
+        return (bits[(tileY - originY) * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+
+    /**
+     * Tests a world-space rectangle against the mask. Parts of the rectangle
+     * outside the map are ignored.
+     *
+     * @return true if any tile under the rectangle is blocked
+     */
+    public boolean overlaps(float x, float y, float rectWidth, float rectHeight) {
+        // Local to the mask from here on
+        int minX = Math.max(0, toTileX(x) - originX);
+        int minY = Math.max(0, toTileY(y) - originY);
+        int maxX = Math.min(width - 1, (int) Math.ceil((x + rectWidth) / tileWidth) - 1 - originX);
+        int maxY = Math.min(height - 1, (int) Math.ceil((y + rectHeight) / tileHeight) - 1 - originY);
+        if (minX > maxX || minY > maxY) return false;
+
+        int firstWord = minX >>> 6;
+        int lastWord = maxX >>> 6;
+        for (int tileY = minY; tileY <= maxY; tileY++) {
+            int rowStart = tileY * wordsPerRow;
+            for (int word = firstWord; word <= lastWord; word++) {
+                long mask = -1L;
+                if (word == firstWord) mask &= -1L << (minX & 63);
+                if (word == lastWord) mask &= -1L >>> (63 - (maxX & 63));
+                if ((bits[rowStart + word] & mask) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean overlaps(Rectangle rect) {
+        return overlaps(rect.x, rect.y, rect.width, rect.height);
+    }
+
+    public int countBlocked() {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isInside(int tileX, int tileY) {
+        return tileX >= originX && tileY >= originY && tileX < originX + width && tileY < originY + height;
+    }
+
+    public int toTileX(float worldX) {
+        return (int) Math.floor(worldX / tileWidth);
+    }
+
+    public int toTileY(float worldY) {
+        return (int) Math.floor(worldY / tileHeight);
+    }
+
+    public float tileCenterX(int tileX) {
+        return (tileX + 0.5f) * tileWidth;
+    }
+
+    public float tileCenterY(int tileY) {
+        return (tileY + 0.5f) * tileHeight;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getTileWidth() {
+        return tileWidth;
+    }
+
+    public float getTileHeight() {
+        return tileHeight;
+    }
+}
@@ -0,0 +1,264 @@
+package com.survivor.game;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Broadphase over the moving entities, for combat hit detection.
+ *
+ * Enemies are binned into a uniform grid once per frame with a counting sort,
+ * so the grid is two flat int arrays and rebuilding allocates nothing once it
+ * has grown to fit the horde. The grid spans only the area the enemies cover
+ * this frame, so it works the same on a small map and in an endless world. Queries only look at the cells they cover and
+ * test each enemy's bounds, so a large enemy like the boss is hit when any part
+ * of it is in reach, not just its centre. Results go into an array the caller
+ * owns and reuses. Not thread-safe.
+ */
+public class CombatQuery {
+    private static final int MAX_COLUMNS = 256; // A spread-out horde gets bigger cells instead of more of them
+
+    private final float minCellSize;
+    private float originX;
+    private float originY;
+    private float cellSize;
+    private int columns = 1;
+    private int rows = 1;
+    private int[] cellStart = new int[2]; // Entries of cell c are entries[cellStart[c] .. cellStart[c + 1])
+    private int[] entries = new int[64];
+    private Enemy[] entities = new Enemy[32];
+    private int[] visitStamp = new int[32];
+    private int entityCount = 0;
+    private int stamp = 0;
+
+    private final Rectangle area = new Rectangle();
+    private final Vector2 closest = new Vector2();
+
+    public CombatQuery(float cellSize) {
+        this.minCellSize = cellSize;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Re-bins every living enemy. Call once per frame after enemies have moved.
+     */
+    public void rebuild(List<Enemy> enemies) {
+        entityCount = 0;
+        for (int i = 0, n = enemies.size(); i < n; i++) {
+            Enemy enemy = enemies.get(i);
+            if (!enemy.isAlive()) continue;
+            if (entityCount == entities.length) {
+                entities = Arrays.copyOf(entities, entityCount * 2);
+                visitStamp = new int[entityCount * 2];
+                stamp = 0;
+            }
+            entities[entityCount++] = enemy;
+        }
+
+        // Fit the grid to the area the enemies cover
+        float left = Float.MAX_VALUE;
+        float bottom = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float top = -Float.MAX_VALUE;
+        for (int e = 0; e < entityCount; e++) {
+            Rectangle bounds = entities[e].getBounds();
+            left = Math.min(left, bounds.x);
+            bottom = Math.min(bottom, bounds.y);
+            right = Math.max(right, bounds.x + bounds.width);
+            top = Math.max(top, bounds.y + bounds.height);
+        }
+        if (entityCount == 0) {
+            left = bottom = right = top = 0;
+        }
+        originX = left;
+        originY = bottom;
+        cellSize = Math.max(minCellSize, Math.max(right - left, top - bottom) / (MAX_COLUMNS - 1));
+        columns = (int) ((right - left) / cellSize) + 1;
+        rows = (int) ((top - bottom) / cellSize) + 1;
+        if (cellStart.length < columns * rows + 1) {
+            cellStart = new int[columns * rows + 1];
+        }
+
+        // Count how many entries land in each cell
+        Arrays.fill(cellStart, 0, columns * rows + 1, 0);
+        int total = 0;
+        for (int e = 0; e < entityCount; e++) {
+            Rectangle bounds = entities[e].getBounds();
+            int minX = cellX(bounds.x);
+            int minY = cellY(bounds.y);
+            int maxX = cellX(bounds.x + bounds.width);
+            int maxY = cellY(bounds.y + bounds.height);
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    cellStart[y * columns + x + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int c = 1; c <= columns * rows; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+        if (entries.length < total) {
+            entries = new int[Math.max(total, entries.length * 2)];
+        }
+
+        // Scatter, using each cell's start as its write cursor
+        for (int e = 0; e < entityCount; e++) {
+            Rectangle bounds = entities[e].getBounds();
+            int minX = cellX(bounds.x);
+            int minY = cellY(bounds.y);
+            int maxX = cellX(bounds.x + bounds.width);
+            int maxY = cellY(bounds.y + bounds.height);
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    entries[cellStart[y * columns + x]++] = e;
+                }
+            }
+        }
+        // Each cursor now sits at the end of its cell, which is the start of the next one
+        System.arraycopy(cellStart, 0, cellStart, 1, columns * rows);
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Enemies whose bounds overlap the rectangle.
+     *
+     * @return the number of enemies written to {@code out}, which is cleared first
+     */
+    public int queryRect(float x, float y, float width, float height, Array<Enemy> out) {
+        out.clear();
+        area.set(x, y, width, height);
+        int minX = cellX(x);
+        int minY = cellY(y);
+        int maxX = cellX(x + width);
+        int maxY = cellY(y + height);
+        stamp++;
+
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                int cell = cy * columns + cx;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int e = entries[i];
+                    if (visitStamp[e] == stamp) continue;
+                    visitStamp[e] = stamp;
+
+                    Enemy enemy = entities[e];
+                    if (enemy.isAlive() && enemy.getBounds().overlaps(area)) {
+                        out.add(enemy);
+                    }
+                }
+            }
+        }
+        return out.size;
+    }
+
+    /**
+     * Enemies with any part of their bounds within {@code radius} of the point.
+     *
+     * @return the number of enemies written to {@code out}, which is cleared first
+     */
+    public int queryRadius(float x, float y, float radius, Array<Enemy> out) {
+        return queryArc(x, y, radius, 1, 0, 360f, out);
+    }
+
+    /**
+     * Enemies within {@code radius} of the point and inside the cone facing
+     * ({@code dirX}, {@code dirY}). An enemy counts as inside the cone if either its
+     * centre or its nearest point is, so wide enemies can't slip past the edges.
+     *
+     * @param dirX facing direction, need not be normalised
+     * @param dirY facing direction, need not be normalised
+     * @param arcDegrees full opening angle of the cone; 360 or more is a plain radius query
+     * @return the number of enemies written to {@code out}, which is cleared first
+     */
+    public int queryArc(float x, float y, float radius, float dirX, float dirY, float arcDegrees, Array<Enemy> out) {
+        out.clear();
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+        boolean fullCircle = arcDegrees >= 360f || length == 0;
+        if (!fullCircle) {
+            dirX /= length;
+            dirY /= length;
+        }
+        float minDot = MathUtils.cosDeg(arcDegrees / 2f);
+        float radius2 = radius * radius;
+
+        int minX = cellX(x - radius);
+        int minY = cellY(y - radius);
+        int maxX = cellX(x + radius);
+        int maxY = cellY(y + radius);
+        stamp++;
+
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                int cell = cy * columns + cx;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int e = entries[i];
+                    if (visitStamp[e] == stamp) continue;
+                    visitStamp[e] = stamp;
+
+                    Enemy enemy = entities[e];
+                    if (!enemy.isAlive()) continue;
+
+                    Rectangle bounds = enemy.getBounds();
+                    closest.set(
+                        MathUtils.clamp(x, bounds.x, bounds.x + bounds.width) - x,
+                        MathUtils.clamp(y, bounds.y, bounds.y + bounds.height) - y);
+                    if (closest.len2() > radius2) continue;
+
+                    if (fullCircle || closest.isZero()
+                        || inArc(closest.x, closest.y, dirX, dirY, minDot)
+                        || inArc(bounds.x + bounds.width / 2f - x, bounds.y + bounds.height / 2f - y, dirX, dirY, minDot)) {
+                        out.add(enemy);
+                    }
+                }
+            }
+        }
+        return out.size;
+    }
+
+    private static boolean inArc(float vx, float vy, float dirX, float dirY, float minDot) {
+        float length = (float) Math.sqrt(vx * vx + vy * vy);
+        return length == 0 || (vx * dirX + vy * dirY) / length >= minDot;
+    }
+
+    /**
+     * Unit vector the player is facing for a given animation state. "Back" faces
+     * up the screen, "front" faces down.
+     *
+     * @return {@code out}, or (0, 0) for states without a direction
+     */
+    public static Vector2 facing(Player.State state, Vector2 out) {
+        switch (state) {
+            case ATTACK_BACK:
+            case WALK_BACK:
+            case IDLE_BACK:
+                return out.set(0, 1);
+            case ATTACK_FRONT:
+            case WALK_FRONT:
+            case IDLE_FRONT:
+                return out.set(0, -1);
+            case ATTACK_LEFT:
+            case WALK_LEFT:
+            case IDLE_LEFT:
+                return out.set(-1, 0);
+            case ATTACK_RIGHT:
+            case WALK_RIGHT:
+            case IDLE_RIGHT:
+                return out.set(1, 0);
+            default:
+                return out.setZero();
+        }
+    }
+
+    private int cellX(float worldX) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((worldX - originX) / cellSize)));
+    }
+
+    private int cellY(float worldY) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((worldY - originY) / cellSize)));
+    }
+}
@@ -0,0 +1,226 @@
+package com.survivor.game;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntSet;
+
+/**
+ * Serves chunks straight out of a map compiled by {@link MapCompiler}, without
+ * ever building the whole map. The file is memory-mapped by {@link BinaryMapLoader}
+ * and only its header, tile sets and obstacle table are read up front; a chunk's
+ * cells are read from the mapped layers when the streamer asks for it.
+ *
+ * Blocked tiles are worked out per chunk the way {@link MapManager} does for a
+ * whole map: tiles under an obstacle, plus blocking tiles on the
+ * {@link MapManager#BLOCKING_TILE_LAYERS}. The part of the edge chunks that lies
+ * past the map is walled off. Safe to call from several threads at once.
+ */
+public class CompiledChunkSource implements ChunkSource, Disposable {
+    private static final String TAG = "CompiledChunkSource";
+
+    private final ByteBuffer buffer; // Only read with absolute gets, so workers can share it
+    private final int width;
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int chunkSize;
+    private final int widthInChunks;
+    private final int heightInChunks;
+    private final TiledMapTileSets tileSets = new TiledMapTileSets();
+    private final Array<Texture> ownTextures;
+    private final IntSet blockingTileIds;
+    private final String[] layerNames;
+    private final float[] layerOpacities;
+    private final int[] layerOffsets; // Byte position of each layer's first cell
+    private final boolean[] blockingLayers;
+    private final Array<Rectangle>[] chunkObstacles;
+
+    /**
+     * @param file a map written by {@link MapCompiler}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CompiledChunkSource(FileHandle file, int chunkSize) {
+        if (!file.exists()) {
+            throw new GdxRuntimeException(file.path() + " not found; run the compileMaps task first");
+        }
+        long start = System.nanoTime();
+        GameEvents.Span loadEvent = GameEvents.mapLoad(file.path());
+        this.chunkSize = chunkSize;
+        buffer = BinaryMapLoader.open(file);
+        width = buffer.getInt();
+        height = buffer.getInt();
+        tileWidth = buffer.getInt();
+        tileHeight = buffer.getInt();
+        widthInChunks = (width + chunkSize - 1) / chunkSize;
+        heightInChunks = (height + chunkSize - 1) / chunkSize;
+
+        ownTextures = BinaryMapLoader.readTileSets(buffer, file, true, tileSets);
+        blockingTileIds = MapManager.blockingTileIds(tileSets);
+
+        // Remember where each layer's cells start and skip over them
+        int layerCount = buffer.getInt();
+        layerNames = new String[layerCount];
+        layerOpacities = new float[layerCount];
+        layerOffsets = new int[layerCount];
+        blockingLayers = new boolean[layerCount];
+        for (int l = 0; l < layerCount; l++) {
+            layerNames[l] = BinaryMapLoader.readString(buffer);
+            layerOpacities[l] = buffer.getFloat();
+            buffer.get(); // Visibility; every layer is streamed, as before
+            buffer.getFloat(); // Offsets are applied per chunk by the streamer
+            buffer.getFloat();
+            layerOffsets[l] = buffer.position();
+            ((Buffer) buffer).position(buffer.position() + width * height * 2);
+            for (String name : MapManager.BLOCKING_TILE_LAYERS) {
+                blockingLayers[l] |= name.equals(layerNames[l]);
+            }
+        }
+
+        Array<Rectangle> obstacles = new Array<>();
+        BinaryMapLoader.readObstacles(buffer, obstacles);
+        float chunkWidth = chunkSize * tileWidth;
+        float chunkHeight = chunkSize * tileHeight;
+        float mapWidth = width * tileWidth;
+        float mapHeight = height * tileHeight;
+        if (widthInChunks * chunkWidth > mapWidth) {
+            obstacles.add(new Rectangle(mapWidth, 0, widthInChunks * chunkWidth - mapWidth, heightInChunks * chunkHeight));
+        }
+        if (heightInChunks * chunkHeight > mapHeight) {
+            obstacles.add(new Rectangle(0, mapHeight, mapWidth, heightInChunks * chunkHeight - mapHeight));
+        }
+
+        // Clip every obstacle to each chunk it overlaps
+        chunkObstacles = new Array[widthInChunks * heightInChunks];
+        for (Rectangle rect : obstacles) {
+            int minX = Math.max(0, (int) (rect.x / chunkWidth));
+            int minY = Math.max(0, (int) (rect.y / chunkHeight));
+            int maxX = Math.min(widthInChunks - 1, (int) Math.ceil((rect.x + rect.width) / chunkWidth) - 1);
+            int maxY = Math.min(heightInChunks - 1, (int) Math.ceil((rect.y + rect.height) / chunkHeight) - 1);
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cx = minX; cx <= maxX; cx++) {
+                    float x0 = Math.max(rect.x, cx * chunkWidth);
+                    float y0 = Math.max(rect.y, cy * chunkHeight);
+                    float x1 = Math.min(rect.x + rect.width, (cx + 1) * chunkWidth);
+                    float y1 = Math.min(rect.y + rect.height, (cy + 1) * chunkHeight);
+                    if (x1 <= x0 || y1 <= y0) continue;
+
+                    int index = cy * widthInChunks + cx;
+                    if (chunkObstacles[index] == null) {
+                        chunkObstacles[index] = new Array<>(false, 4);
+                    }
+                    chunkObstacles[index].add(new Rectangle(x0, y0, x1 - x0, y1 - y0));
+                }
+            }
+        }
+        loadEvent.close();
+        Gdx.app.log(TAG, String.format("Mapped %s in %.1f ms: %dx%d tiles, %d layers, %d obstacles", file.path(),
+            (System.nanoTime() - start) / 1e6f, width, height, layerCount, obstacles.size));
+    }
+
+    @Override
+    public WorldChunk loadChunk(int chunkX, int chunkY) {
+        WorldChunk chunk = new WorldChunk(chunkX, chunkY, chunkSize, layerOffsets.length);
+        int baseX = chunkX * chunkSize;
+        int baseY = chunkY * chunkSize;
+        int columns = Math.min(chunkSize, width - baseX);
+        int rows = Math.min(chunkSize, height - baseY);
+
+        for (int l = 0; l < layerOffsets.length; l++) {
+            int[] cells = chunk.cells[l];
+            for (int y = 0; y < rows; y++) {
+                int rowStart = layerOffsets[l] + ((baseY + y) * width + baseX) * 2;
+                for (int x = 0; x < columns; x++) {
+                    int packed = BinaryMapLoader.toPackedCell(buffer.getShort(rowStart + x * 2) & 0xFFFF);
+                    cells[y * chunkSize + x] = packed;
+                    if (blockingLayers[l] && blockingTileIds.contains(WorldChunk.tileId(packed))) {
+                        chunk.setBlocked(x, y);
+                    }
+                }
+            }
+        }
+
+        Array<Rectangle> obstacles = chunkObstacles[chunkY * widthInChunks + chunkX];
+        if (obstacles != null) {
+            for (Rectangle rect : obstacles) {
+                chunk.obstacles.add(rect);
+                chunk.blockRect(rect, tileWidth, tileHeight);
+            }
+        }
+        chunk.collectFreeTiles();
+        return chunk;
+    }
+
+    /**
+     * @return map width in tiles; the last column of chunks may reach past it
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return map height in tiles; the top row of chunks may reach past it
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    @Override
+    public int getWidthInChunks() {
+        return widthInChunks;
+    }
+
+    @Override
+    public int getHeightInChunks() {
+        return heightInChunks;
+    }
+
+    @Override
+    public String[] getLayerNames() {
+        return layerNames;
+    }
+
+    @Override
+    public float getLayerOpacity(int layer) {
+        return layerOpacities[layer];
+    }
+
+    @Override
+    public TiledMapTileSets getTileSets() {
+        return tileSets;
+    }
+
+    /**
+     * Frees textures of tile set images that don't live in the internal assets;
+     * shared images stay with the {@link ParallelTextureLoader}.
+     */
+    @Override
+    public void dispose() {
+        for (Texture texture : ownTextures) {
+            texture.dispose();
+        }
+    }
+}
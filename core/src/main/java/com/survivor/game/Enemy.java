@@ -28,6 +28,11 @@ public abstract class Enemy extends Entity{
     protected float attackCooldown = 1.0f; // Time between attacks in seconds
     protected float lastAttackTime = 0f;
 
+    // Line-of-sight cache, maintained by LineOfSight.refresh
+    int losEnemyTile = Integer.MIN_VALUE;
+    int losPlayerTile = Integer.MIN_VALUE;
+    boolean canSeePlayer = true;
+
     public Enemy(Texture spriteSheet, float x, float y, float speed, int damage) {
         super(x, y, 32, 32); // Call the appropriate Entity constructor with required arguments
         this.spriteSheet = spriteSheet;
@@ -109,6 +114,7 @@ public abstract class Enemy extends Entity{
             health = 0;
             isAlive = false;
         }
+        GameEvents.damage(getClass().getSimpleName(), amount, health);
     }
 
     public boolean isAlive() {
@@ -141,9 +147,8 @@ public abstract class Enemy extends Entity{
     }
 
     public void dispose() {
-        if (spriteSheet != null) {
-            spriteSheet.dispose();
-        }
+        // Sprite sheets are shared through ParallelTextureLoader and released with it
+        spriteSheet = null;
     }
 
     public Vector2 getPosition() {
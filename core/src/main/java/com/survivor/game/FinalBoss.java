@@ -9,6 +9,7 @@ import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
@@ -29,6 +30,14 @@ public class FinalBoss extends Enemy {
     private static final float ATTACK_INTERVAL = 4f;
     private boolean isAttacking = false;
 
+    // Ranged volley: a fan of arrows aimed at the player
+    private static final float VOLLEY_INTERVAL = 3f;
+    private static final float VOLLEY_RANGE = 450f;
+    private static final int VOLLEY_SIZE = 5;
+    private static final float VOLLEY_SPREAD = 40f; // Degrees between the outermost arrows
+    private static final int VOLLEY_DAMAGE = 10;
+    private float volleyCooldown = VOLLEY_INTERVAL;
+
     private static Texture pixelTexture;
     private BitmapFont font = new BitmapFont();
     private boolean isDying = false;
@@ -37,8 +46,22 @@ public class FinalBoss extends Enemy {
 
     private Vector2 direction;
 
+    // Pathfinding
+    private static final float WAYPOINT_REACHED_DISTANCE = 16f;
+    private static final float DIRECT_CHASE_DISTANCE = 96f; // Close enough to ignore the path
+    private PathPlanner pathPlanner;
+    private PathPlanner.PathRequest pendingRequest;
+    private float[] path;
+    private int waypointIndex = 0;
+    private int targetRegion = -1;
+    private int requiredClearance = 1;
+
     public FinalBoss(float x, float y) {
-        super(new Texture(Gdx.files.internal("FinalBoss-Run.png")), x, y, DEFAULT_SPEED, DEFAULT_DAMAGE);
+        this(x, y, null);
+    }
+
+    public FinalBoss(float x, float y, PathPlanner pathPlanner) {
+        super(ParallelTextureLoader.getShared().get("FinalBoss-Run.png"), x, y, DEFAULT_SPEED, DEFAULT_DAMAGE);
         loadAnimations();
         setSpawnPosition(611, 1094); // Set default spawn position
         bounds.setSize(150 * BOSS_SCALE, 150 * BOSS_SCALE);
@@ -46,6 +69,12 @@ public class FinalBoss extends Enemy {
         // Initialize direction vector to avoid null issues
         direction = new Vector2(0, 0);
 
+        this.pathPlanner = pathPlanner;
+        if (pathPlanner != null) {
+            // Clearance (in tiles) needed so the whole boss footprint fits around a tile
+            requiredClearance = (int) Math.ceil(bounds.getWidth() / 2f / pathPlanner.getGrid().getTileWidth());
+        }
+
         if (pixelTexture == null) {
             Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
             pixmap.setColor(1, 1, 1, 1);
@@ -56,10 +85,11 @@ public class FinalBoss extends Enemy {
     }
 
     private void loadAnimations() {
-        TextureRegion[][] runFrames = TextureRegion.split(new Texture(Gdx.files.internal("FinalBoss-Run.png")), 150, 150);
-        TextureRegion[][] attackFrames = TextureRegion.split(new Texture(Gdx.files.internal("FinalBoss-Attack.png")), 150, 150);
-        TextureRegion[][] deathFrames = TextureRegion.split(new Texture(Gdx.files.internal("FinalBoss-Death.png")), 150, 150);
-        TextureRegion[][] hitFrames = TextureRegion.split(new Texture(Gdx.files.internal("FinalBoss-Take-Hit.png")), 150, 150);
+        ParallelTextureLoader textures = ParallelTextureLoader.getShared();
+        TextureRegion[][] runFrames = TextureRegion.split(textures.get("FinalBoss-Run.png"), 150, 150);
+        TextureRegion[][] attackFrames = TextureRegion.split(textures.get("FinalBoss-Attack.png"), 150, 150);
+        TextureRegion[][] deathFrames = TextureRegion.split(textures.get("FinalBoss-Death.png"), 150, 150);
+        TextureRegion[][] hitFrames = TextureRegion.split(textures.get("FinalBoss-Take-Hit.png"), 150, 150);
 
         walkAnimation = new Animation<>(0.3f, flatten(runFrames));
         attackAnimation = new Animation<>(0.2f, flatten(attackFrames));
@@ -99,8 +129,12 @@ public class FinalBoss extends Enemy {
             return;
         }
 
-        // Movement logic: Always move towards the player
+        // Movement logic: follow the planned path, or head straight for the player
         if (!isAttacking) {
+            updatePath(playerPos);
+            if (position.dst(playerPos) > DIRECT_CHASE_DISTANCE) {
+                steerAlongPath();
+            }
             position.add(direction.x * speed * delta, direction.y * speed * delta);
         }
 
@@ -126,9 +160,69 @@ public class FinalBoss extends Enemy {
             currentFrame = walkAnimation.getKeyFrame(stateTimer, true);
         }
 
+        volleyCooldown -= delta;
+        if (!isAttacking && volleyCooldown <= 0f && distance > 60 && distance <= VOLLEY_RANGE) {
+            fireVolley(playerPos);
+            volleyCooldown = VOLLEY_INTERVAL;
+        }
+
         bounds.setPosition(position.x - bounds.getWidth() / 2, position.y - bounds.getHeight() / 2);
     }
 
+    private void fireVolley(Vector2 playerPos) {
+        ProjectileSystem projectiles = GameScreen.getProjectiles();
+        float aim = MathUtils.atan2(playerPos.y - position.y, playerPos.x - position.x) * MathUtils.radiansToDegrees;
+        for (int i = 0; i < VOLLEY_SIZE; i++) {
+            float angle = aim - VOLLEY_SPREAD / 2f + VOLLEY_SPREAD * i / (VOLLEY_SIZE - 1);
+            projectiles.spawn(position.x, position.y,
+                MathUtils.cosDeg(angle) * ProjectileSystem.ARROW_SPEED, MathUtils.sinDeg(angle) * ProjectileSystem.ARROW_SPEED,
+                VOLLEY_DAMAGE, ProjectileSystem.HOSTILE);
+        }
+    }
+
+    /**
+     * Picks up finished path searches and asks for a new one whenever the player
+     * moves into a different region. Requests may be refused when the planner's
+     * per-frame budget is spent, in which case we simply try again next frame.
+     */
+    private void updatePath(Vector2 playerPos) {
+        if (pathPlanner == null) return;
+
+        if (pendingRequest != null && pendingRequest.isDone()) {
+            path = pendingRequest.getWaypoints();
+            waypointIndex = 0;
+            pendingRequest = null;
+        }
+
+        int playerRegion = pathPlanner.regionOf(playerPos.x, playerPos.y);
+        if (playerRegion != targetRegion && pendingRequest == null) {
+            PathPlanner.PathRequest request = pathPlanner.requestPath(
+                position.x, position.y, playerPos.x, playerPos.y, requiredClearance);
+            if (request != null) {
+                pendingRequest = request;
+                targetRegion = playerRegion;
+            }
+        }
+    }
+
+    /**
+     * Points the direction vector at the next waypoint. Leaves it aimed at the
+     * player when there is no path or the path has been walked to the end.
+     */
+    private void steerAlongPath() {
+        if (path == null) return;
+
+        while (waypointIndex < path.length) {
+            float waypointX = path[waypointIndex];
+            float waypointY = path[waypointIndex + 1];
+            if (position.dst(waypointX, waypointY) > WAYPOINT_REACHED_DISTANCE) {
+                direction.set(waypointX, waypointY).sub(position).nor();
+                return;
+            }
+            waypointIndex += 2;
+        }
+    }
+
     @Override
     public void render(SpriteBatch batch) {
         if (currentFrame != null) {
@@ -178,6 +272,7 @@ public class FinalBoss extends Enemy {
             deathTimer = 0f;
             stateTimer = 0f;
         }
+        GameEvents.damage("FinalBoss", damage, health);
     }
 
     public int getHealth() {
@@ -188,6 +283,13 @@ public class FinalBoss extends Enemy {
         return health > 0 || isDying;
     }
 
+    /**
+     * @return clearance in tiles the boss needs around its centre tile
+     */
+    public int getRequiredClearance() {
+        return requiredClearance;
+    }
+
     public void setSpawnPosition(float x, float y) {
         position.set(x, y);
         bounds.setPosition(x - bounds.getWidth() / 2f, y - bounds.getHeight() / 2f);
@@ -195,7 +297,10 @@ public class FinalBoss extends Enemy {
 
     @Override
     protected boolean isObstacle(int x, int y) {
-        return false; // Allow the boss to walk through obstacles
+        if (pathPlanner == null) {
+            return false; // Without a planner the boss walks straight at the player
+        }
+        return pathPlanner.getGrid().getClearance(x, y) < requiredClearance;
     }
 
     @Override
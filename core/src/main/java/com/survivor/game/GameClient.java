@@ -0,0 +1,297 @@
+package com.survivor.game;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Client side of the dedicated server protocol, see {@link NetProtocol}. Runs on
+ * the render thread: {@link #update} polls the non-blocking socket once per
+ * frame and {@link #sendInput} sends that frame's buttons. Both reuse the same
+ * two direct buffers, so nothing is allocated per packet.
+ *
+ * Snapshots are decoded into a ring of the last
+ * {@link NetProtocol#SNAPSHOT_HISTORY}, indexed by tick, since the server
+ * encodes each one against whichever of them it last heard we received. Every
+ * input carries that acknowledgement.
+ *
+ * Our own player is predicted by a {@link PlayerPredictor}: inputs move it as
+ * they are sent and each snapshot header corrects it, whether or not the rest
+ * of the snapshot could be decoded. Draw it from {@link #getPredictor}, not the
+ * snapshot.
+ *
+ * Told to go to another zone's server, the client reconnects there and starts
+ * over from full snapshots, since ticks there count from a different start. The
+ * prediction carries on; inputs the old server never got show up as one
+ * correction once the new one answers.
+ */
+public class GameClient implements Disposable {
+    private static final String TAG = "GameClient";
+    private static final long CONNECT_RETRY_NANOS = 250_000_000L;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_SIZE);
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_SIZE);
+    private final WorldSnapshot[] snapshots = new WorldSnapshot[NetProtocol.SNAPSHOT_HISTORY];
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private final PlayerPredictor predictor = new PlayerPredictor();
+    private final GameMetrics.Counter bytesSent = GameMetrics.getShared()
+        .counter("survivor_bytes_sent_total", "Bytes sent over the network", "side=\"client\"");
+    private final int roomId;
+    private int handoffToken = 0;
+    private int redirects = 0;
+    private int reconciledTick = -1;
+    private WorldSnapshot snapshot = new WorldSnapshot(); // Newest decoded, or an empty one before that
+
+    private int playerId = -1;
+    private int tickRate;
+    private boolean rejected = false;
+    private int inputSequence = 0;
+    private long lastConnectAttempt = Long.MIN_VALUE / 2;
+    private int snapshotsReceived = 0;
+    private int snapshotsDropped = 0;
+
+    public GameClient(InetSocketAddress server) {
+        this(server, 0);
+    }
+
+    /**
+     * @param roomId which of the server's rooms to join; the first client to name a room opens it
+     */
+    public GameClient(InetSocketAddress server, int roomId) {
+        this.roomId = roomId;
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(server);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't open a socket to " + server, e);
+        }
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = new WorldSnapshot();
+        }
+    }
+
+    /**
+     * Sends a connect request while waiting to be welcomed and reads every packet
+     * that has arrived.
+     *
+     * @return true if a newer snapshot was read
+     */
+    public boolean update() {
+        if (!isConnected() && !rejected && System.nanoTime() - lastConnectAttempt >= CONNECT_RETRY_NANOS) {
+            lastConnectAttempt = System.nanoTime();
+            send(NetProtocol.begin(sendBuffer, NetProtocol.CONNECT).putInt(roomId).putInt(handoffToken));
+        }
+
+        boolean updated = false;
+        while (true) {
+            ((Buffer) receiveBuffer).clear();
+            try {
+                if (channel.read(receiveBuffer) <= 0) break;
+            } catch (PortUnreachableException e) {
+                break; // Nobody is listening yet; keep retrying
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Couldn't read from the server", e);
+            }
+            ((Buffer) receiveBuffer).flip();
+            switch (NetProtocol.readHeader(receiveBuffer)) {
+                case NetProtocol.WELCOME:
+                    if (!isConnected()) {
+                        playerId = receiveBuffer.getShort();
+                        tickRate = receiveBuffer.get();
+                        Gdx.app.log(TAG, "Joined as player " + playerId + " at " + tickRate + " ticks per second");
+                    }
+                    break;
+                case NetProtocol.REJECT:
+                    rejected = true;
+                    Gdx.app.error(TAG, "Server is full");
+                    break;
+                case NetProtocol.SNAPSHOT:
+                    if (readSnapshot(receiveBuffer)) {
+                        snapshotsReceived++;
+                        updated = true;
+                    }
+                    break;
+                case NetProtocol.REDIRECT:
+                    redirect(receiveBuffer.getShort() & 0xFFFF, receiveBuffer.getInt());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Moves to another zone's server, which is expecting us under the token.
+     */
+    private void redirect(int port, int token) {
+        if (!isConnected()) return;
+        send(NetProtocol.begin(sendBuffer, NetProtocol.DISCONNECT));
+        InetSocketAddress server = null;
+        try {
+            server = new InetSocketAddress(((InetSocketAddress) channel.getRemoteAddress()).getAddress(), port);
+            channel.disconnect();
+            channel.connect(server);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't reconnect to " + server, e);
+        }
+        handoffToken = token;
+        playerId = -1;
+        lastConnectAttempt = Long.MIN_VALUE / 2;
+        reconciledTick = -1;
+        for (WorldSnapshot ringSnapshot : snapshots) {
+            ringSnapshot.clear(-1);
+        }
+        snapshot = snapshots[0];
+        redirects++;
+        Gdx.app.log(TAG, "Handed over to the server on port " + port);
+    }
+
+    private boolean readSnapshot(ByteBuffer packet) {
+        if (packet.remaining() < NetProtocol.SNAPSHOT_HEADER_SIZE) return false;
+        int tick = packet.getInt();
+        int baselineTick = packet.getInt();
+        int ackedInput = packet.getInt();
+        int id = packet.getShort();
+        float ownX = packet.getFloat();
+        float ownY = packet.getFloat();
+        float ownVelocityX = packet.getFloat();
+        float ownVelocityY = packet.getFloat();
+        int ownFlags = packet.get();
+
+        // Datagrams can arrive out of order; only newer ticks correct the prediction or replace what we have
+        if (tick > reconciledTick) {
+            reconciledTick = tick;
+            predictor.reconcile(ackedInput, ownX, ownY, ownVelocityX, ownVelocityY,
+                (ownFlags & NetProtocol.FLAG_DEAD) == 0);
+        }
+        if (tick <= snapshot.tick) return false;
+        WorldSnapshot baseline = null;
+        if (baselineTick >= 0) {
+            baseline = snapshots[baselineTick % snapshots.length];
+            if (baseline.tick != baselineTick || tick - baselineTick >= snapshots.length) {
+                // Already overwritten; the server falls back to a full snapshot once our acks stop matching
+                snapshotsDropped++;
+                return false;
+            }
+        }
+
+        WorldSnapshot decoded = snapshots[tick % snapshots.length];
+        try {
+            codec.decode(packet, baseline, decoded, tick);
+        } catch (RuntimeException e) {
+            // Truncated or corrupt; the slot no longer holds its old tick either
+            decoded.clear(-1);
+            snapshotsDropped++;
+            Gdx.app.error(TAG, "Dropped unreadable snapshot " + tick, e);
+            return false;
+        }
+        decoded.ackedInput = ackedInput;
+        decoded.playerId = id;
+        snapshot = decoded;
+        return true;
+    }
+
+    /**
+     * Sends this frame's input and applies it to the predicted player. Ignored
+     * until the server has welcomed us.
+     *
+     * @param buttons {@link NetProtocol} button bits
+     * @param delta the frame time the input is held for, in seconds
+     * @param aimX world point the player is aiming at
+     * @param aimY world point the player is aiming at
+     * @return the sequence number given to the input, or -1 if not connected
+     */
+    public int sendInput(int buttons, float delta, float aimX, float aimY) {
+        if (!isConnected()) return -1;
+        inputSequence++;
+        NetProtocol.begin(sendBuffer, NetProtocol.INPUT)
+            .putInt(inputSequence).putInt(snapshot.tick).put((byte) buttons).putFloat(delta)
+            .putFloat(aimX).putFloat(aimY);
+        send(sendBuffer);
+        predictor.predict(inputSequence, buttons, delta);
+        return inputSequence;
+    }
+
+    private void send(ByteBuffer buffer) {
+        ((Buffer) buffer).flip();
+        try {
+            bytesSent.add(channel.write(buffer));
+        } catch (PortUnreachableException e) {
+            // Server not up yet; the datagram is simply lost
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't send to the server", e);
+        }
+    }
+
+    public boolean isConnected() {
+        return playerId >= 0;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * @return how many times the player walked into another zone's server
+     */
+    public int getRedirects() {
+        return redirects;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * @return the newest snapshot, tick -1 until the first one arrives; valid until
+     *     {@link NetProtocol#SNAPSHOT_HISTORY} more have been read
+     */
+    public WorldSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public PlayerPredictor getPredictor() {
+        return predictor;
+    }
+
+    public int getSnapshotsReceived() {
+        return snapshotsReceived;
+    }
+
+    /**
+     * @return snapshots that arrived but couldn't be decoded, because their baseline was gone or they were corrupt
+     */
+    public int getSnapshotsDropped() {
+        return snapshotsDropped;
+    }
+
+    @Override
+    public void dispose() {
+        if (isConnected()) {
+            send(NetProtocol.begin(sendBuffer, NetProtocol.DISCONNECT));
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Couldn't close the socket", e);
+        }
+    }
+}
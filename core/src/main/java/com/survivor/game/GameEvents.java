@@ -0,0 +1,173 @@
+package com.survivor.game;
+
+/**
+ * Game-level events for Java Flight Recorder, so a recording shows frames,
+ * ticks, spawns, kills, damage and loading on the same timeline as GC,
+ * allocation and lock events.
+ *
+ * The events themselves are {@code jdk.jfr.Event}s in {@code JfrRecorder},
+ * which is built from its own source set against JDK 11 and loaded here by
+ * name; on a JVM without Flight Recorder, or a build without that class, every
+ * method is an empty one. While no recording is running, each call is a read
+ * of one volatile flag and nothing is allocated, so call sites don't need to
+ * guard them. Which events a running recording keeps is up to its settings, as
+ * for the JDK's own events; they are under the "Survivor" category.
+ *
+ * Spans time a stretch of work from when they are opened until {@link Span#close}.
+ */
+public final class GameEvents {
+    private static final Recorder RECORDER = load();
+
+    /**
+     * An event that is being timed; closing it commits it.
+     */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    static final Span NO_SPAN = () -> {};
+
+    /**
+     * What {@code JfrRecorder} implements. Each method returns at once, or
+     * returns {@link #NO_SPAN}, when nothing is recording.
+     */
+    interface Recorder {
+        Span frame(long frame);
+
+        Span framePhase(String phase, long frame);
+
+        Span tick(int room, int tick);
+
+        Span tickPhase(String phase, int room, int tick);
+
+        void enemySpawn(String type, float x, float y);
+
+        void enemyDeath(String type, float x, float y);
+
+        void bossSpawn(float x, float y, int health);
+
+        void damage(String target, int amount, int healthAfter);
+
+        Span mapLoad(String path);
+
+        Span assetLoad(String path, String stage);
+    }
+
+    private GameEvents() {
+    }
+
+    private static Recorder load() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (Recorder) Class.forName("com.survivor.game.JfrRecorder").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Disabled();
+        }
+    }
+
+    /**
+     * @return whether events go to Flight Recorder at all, i.e. the JVM and the build support it
+     */
+    public static boolean isAvailable() {
+        return !(RECORDER instanceof Disabled);
+    }
+
+    /** One rendered frame, update and draw. */
+    public static Span frame(long frame) {
+        return RECORDER.frame(frame);
+    }
+
+    /** One part of a frame, e.g. "enemies" or "draw". */
+    public static Span framePhase(String phase, long frame) {
+        return RECORDER.framePhase(phase, frame);
+    }
+
+    /** One server tick of a room. */
+    public static Span tick(int room, int tick) {
+        return RECORDER.tick(room, tick);
+    }
+
+    /** One part of a server tick, e.g. "simulate" or "send". */
+    public static Span tickPhase(String phase, int room, int tick) {
+        return RECORDER.tickPhase(phase, room, tick);
+    }
+
+    public static void enemySpawn(String type, float x, float y) {
+        RECORDER.enemySpawn(type, x, y);
+    }
+
+    public static void enemyDeath(String type, float x, float y) {
+        RECORDER.enemyDeath(type, x, y);
+    }
+
+    public static void bossSpawn(float x, float y, int health) {
+        RECORDER.bossSpawn(x, y, health);
+    }
+
+    /**
+     * @param target what was hurt, e.g. "Player" or an enemy's class name
+     */
+    public static void damage(String target, int amount, int healthAfter) {
+        RECORDER.damage(target, amount, healthAfter);
+    }
+
+    public static Span mapLoad(String path) {
+        return RECORDER.mapLoad(path);
+    }
+
+    /**
+     * @param stage e.g. "decode" on a loader thread or "upload" on the render thread
+     */
+    public static Span assetLoad(String path, String stage) {
+        return RECORDER.assetLoad(path, stage);
+    }
+
+    private static class Disabled implements Recorder {
+        @Override
+        public Span frame(long frame) {
+            return NO_SPAN;
+        }
+
+        @Override
+        public Span framePhase(String phase, long frame) {
+            return NO_SPAN;
+        }
+
+        @Override
+        public Span tick(int room, int tick) {
+            return NO_SPAN;
+        }
+
+        @Override
+        public Span tickPhase(String phase, int room, int tick) {
+            return NO_SPAN;
+        }
+
+        @Override
+        public void enemySpawn(String type, float x, float y) {
+        }
+
+        @Override
+        public void enemyDeath(String type, float x, float y) {
+        }
+
+        @Override
+        public void bossSpawn(float x, float y, int health) {
+        }
+
+        @Override
+        public void damage(String target, int amount, int healthAfter) {
+        }
+
+        @Override
+        public Span mapLoad(String path) {
+            return NO_SPAN;
+        }
+
+        @Override
+        public Span assetLoad(String path, String stage) {
+            return NO_SPAN;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.survivor.game;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Live counters, gauges and histograms, written by the game loop and read by
+ * {@link AdminServer} in the Prometheus text format.
+ *
+ * Registering a metric takes a map lookup, so callers do it once and keep the
+ * object. Recording into one is a handful of atomic operations with no locks
+ * and no allocation, and a scrape only reads them, so it never makes the loop
+ * wait. A scrape may see one metric a frame newer than the next, which
+ * dashboards don't mind.
+ *
+ * Metrics are named families with optional labels, written without braces,
+ * e.g. {@code phase="draw"}. A family has one type; asking for it again with
+ * other labels adds a series to it.
+ */
+public class GameMetrics {
+    /** Upper bounds for timings in milliseconds; a 60 Hz frame is 16.7. */
+    public static final double[] MILLIS_BUCKETS = { 0.25, 0.5, 1, 2, 4, 8, 16, 33, 50, 100, 250, 1000 };
+    private static final int RECENT_GC_COUNT = 32;
+
+    private static GameMetrics shared;
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+    private final LongAdder gcPauses = new LongAdder();
+    private final LongAdder gcPauseNanos = new LongAdder();
+    private volatile boolean watchingGc = false;
+    // The last few collections, for hitch reports; written by the JVM's notification thread
+    private final String[] recentGcNames = new String[RECENT_GC_COUNT];
+    private final long[] recentGcReported = new long[RECENT_GC_COUNT]; // System.nanoTime when the notification came
+    private final long[] recentGcDurations = new long[RECENT_GC_COUNT];
+    private int recentGcCount = 0;
+
+    /**
+     * @return the registry for the whole process, created on first use
+     */
+    public static synchronized GameMetrics getShared() {
+        if (shared == null) shared = new GameMetrics();
+        return shared;
+    }
+
+    public Counter counter(String name, String help, String labels) {
+        return (Counter) family(name, help, "counter").series(labels, Counter::new);
+    }
+
+    public Gauge gauge(String name, String help, String labels) {
+        return (Gauge) family(name, help, "gauge").series(labels, Gauge::new);
+    }
+
+    /**
+     * A gauge worked out when scraped, for values something else already keeps.
+     * The supplier runs on the scraping thread, so it must only read state that
+     * is safe to read from there.
+     */
+    public void gauge(String name, String help, String labels, DoubleSupplier value) {
+        family(name, help, "gauge").series(labels, () -> new SampledGauge(value));
+    }
+
+    public Histogram histogram(String name, String help, String labels, double[] buckets) {
+        return (Histogram) family(name, help, "histogram").series(labels, () -> new Histogram(buckets));
+    }
+
+    /**
+     * Drops one series, e.g. for a room that closed. The family stays.
+     */
+    public void remove(String name, String labels) {
+        Family family = families.get(name);
+        if (family != null) family.series.remove(labels == null ? "" : labels);
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(name + " is a " + family.type + ", not a " + type);
+        }
+        return family;
+    }
+
+    /**
+     * Times every garbage collection from now on into a pause histogram, from
+     * the JVM's own notifications. Does nothing on a JVM that doesn't send them.
+     */
+    public synchronized void watchGarbageCollection() {
+        if (watchingGc) return;
+        watchingGc = true;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(bean instanceof NotificationEmitter)) continue;
+            Histogram pauses = histogram("survivor_gc_pause_millis",
+                "Garbage collection pauses by collector", "collector=\"" + bean.getName() + "\"", MILLIS_BUCKETS);
+            ((NotificationEmitter) bean).addNotificationListener((Notification notification, Object handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                long millis = info.getGcInfo().getDuration();
+                pauses.record(millis);
+                gcPauses.increment();
+                gcPauseNanos.add(millis * 1_000_000L);
+                rememberGc(info.getGcName() + ", " + info.getGcAction() + ", " + info.getGcCause(), millis);
+            }, null, null);
+        }
+    }
+
+    /**
+     * @return collections seen since {@link #watchGarbageCollection}
+     */
+    public long getGcPauseCount() {
+        return gcPauses.sum();
+    }
+
+    public long getGcPauseNanos() {
+        return gcPauseNanos.sum();
+    }
+
+    private synchronized void rememberGc(String name, long durationMillis) {
+        // The times in GcInfo count from a different origin than System.nanoTime, so note when the news came
+        int slot = recentGcCount++ % RECENT_GC_COUNT;
+        recentGcNames[slot] = name;
+        recentGcReported[slot] = System.nanoTime();
+        recentGcDurations[slot] = durationMillis;
+    }
+
+    /**
+     * Lists the remembered collections reported within a stretch of time, one per
+     * line. The JVM reports a collection some milliseconds, occasionally tens of
+     * them, after its pause ended, so callers should let the stretch run on a bit.
+     *
+     * @param fromNanos {@link System#nanoTime} at the start of the stretch
+     * @return how many there were; only the last few dozen collections are remembered
+     */
+    public synchronized int describeGcBetween(long fromNanos, long toNanos, StringBuilder out) {
+        int found = 0;
+        for (int i = Math.max(0, recentGcCount - RECENT_GC_COUNT); i < recentGcCount; i++) {
+            int slot = i % RECENT_GC_COUNT;
+            long reported = recentGcReported[slot];
+            if (reported < fromNanos || reported > toNanos) continue;
+            out.append(String.format("  %s: %d ms pause, reported %.1f ms after the start%n", recentGcNames[slot],
+                recentGcDurations[slot], (reported - fromNanos) / 1e6));
+            found++;
+        }
+        return found;
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format, version 0.0.4.
+     */
+    public void writePrometheus(StringBuilder out) {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            if (family.series.isEmpty()) continue;
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Metric> series : family.series.entrySet()) {
+                series.getValue().write(out, name, series.getKey());
+            }
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String extraLabel, double value) {
+        out.append(name);
+        if (!labels.isEmpty() || extraLabel != null) {
+            out.append('{').append(labels);
+            if (extraLabel != null) {
+                if (!labels.isEmpty()) out.append(',');
+                out.append(extraLabel);
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == (long) value) {
+            out.append((long) value);
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static class Family {
+        final String help;
+        final String type;
+        final Map<String, Metric> series = new ConcurrentSkipListMap<>();
+
+        Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+
+        Metric series(String labels, Supplier<Metric> create) {
+            return series.computeIfAbsent(labels == null ? "" : labels, key -> create.get());
+        }
+    }
+
+    private interface Metric {
+        void write(StringBuilder out, String name, String labels);
+    }
+
+    /**
+     * Only goes up. Safe to add to from any number of threads.
+     */
+    public static class Counter implements Metric {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            sample(out, name, labels, null, value.sum());
+        }
+    }
+
+    /**
+     * The latest value someone set. Meant for one writer.
+     */
+    public static class Gauge implements Metric {
+        private volatile double value;
+
+        public void set(double value) {
+            this.value = value;
+        }
+
+        public double get() {
+            return value;
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            sample(out, name, labels, null, value);
+        }
+    }
+
+    private static class SampledGauge implements Metric {
+        private final DoubleSupplier value;
+
+        SampledGauge(DoubleSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            sample(out, name, labels, null, value.getAsDouble());
+        }
+    }
+
+    /**
+     * Counts values into fixed buckets, as Prometheus histograms do, plus their
+     * sum. Each bucket only counts its own range; the cumulative counts
+     * Prometheus wants are added up when scraped.
+     */
+    public static class Histogram implements Metric {
+        private final double[] bounds;
+        private final AtomicLongArray counts;
+        private final AtomicLong sumMicros = new AtomicLong(); // Sum in thousandths, to keep it a long
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.counts = new AtomicLongArray(bounds.length + 1); // The last one is +Inf
+        }
+
+        public void record(double value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) bucket++;
+            counts.incrementAndGet(bucket);
+            sumMicros.addAndGet((long) (value * 1000));
+        }
+
+        public long getCount() {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                cumulative += counts.get(i);
+                String bound = i < bounds.length ? String.valueOf(bounds[i]) : "+Inf";
+                sample(out, name + "_bucket", labels, "le=\"" + bound + "\"", cumulative);
+            }
+            sample(out, name + "_sum", labels, null, sumMicros.get() / 1000.0);
+            sample(out, name + "_count", labels, null, cumulative);
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package com.survivor.game;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
@@ -16,11 +17,13 @@ import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.objects.RectangleMapObject;
-import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonWriter;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
@@ -32,9 +35,9 @@ public class GameScreen implements Screen {
     private final List<Enemy> enemies;
     private FinalBoss boss;
     private final BitmapFont font;
-    private final Random random;
-    private float enemySpawnTimer = 0;
-    private static final float ENEMY_SPAWN_INTERVAL = 3f;
+    private final SpawnDirector spawnDirector;
+    private final PopulationGovernor populationGovernor;
+    private final Vector2 spawnPoint = new Vector2();
     private boolean bossSpawned = false;
     private ShapeRenderer shapeRenderer; // New field for drawing shapes
     private Sound swordSound; // New field for sword sound
@@ -46,9 +49,26 @@ public class GameScreen implements Screen {
     private final float worldHeight;
     private boolean showFPS = false;
 
-    private final TiledMap map;
     private final OrthogonalTiledMapRenderer mapRenderer;
-    private final MapManager mapManager;
+    private final CompiledChunkSource mapSource;
+    private final WorldStreamer worldStreamer;
+    private final Array<WorldChunk> loadedChunks = new Array<>();
+    private final Array<Rectangle> worldObstacles = new Array<>(); // Reused for hitboxes and physics walls
+    private static final int CHUNK_SIZE = 16; // Tiles per chunk edge
+    private static final int CHUNK_LOAD_RADIUS = 2; // Chunks kept loaded around the player's chunk
+    // -Dsurvivor.endless=true generates the world from a seed instead of stopping at the edge of map.tmx
+    public static final String ENDLESS_PROPERTY = "survivor.endless";
+    private static final long WORLD_SEED = 1337L;
+    private static final int GENERATOR_THREADS = 2;
+    private static final long CHUNK_CACHE_BYTES = 4L * 1024 * 1024; // Generated chunks kept for backtracking
+    private final PathPlanner pathPlanner;
+    private final LineOfSight lineOfSight;
+    private final CombatQuery combatQuery;
+    private final Array<Enemy> attackTargets = new Array<>(false, 16); // Reused for every melee query
+    private final Vector2 attackDirection = new Vector2();
+    private PhysicsWorld physicsWorld; // Created the first time Box2D mode is switched on
+    private boolean usePhysics = false;
+    private float enemyPhaseMillis = 0; // Smoothed cost of enemy update + collision, for comparing modes
 
     private boolean wPressed = false;
     private boolean aPressed = false;
@@ -57,8 +77,6 @@ public class GameScreen implements Screen {
 
     private String lastMovementDirection = "none";
 
-    private final List<Obstacle> obstacles;
-
     private boolean showCoordinates = true;
     private boolean logCoordinatesWhileMoving = false;
     private float coordinateLogTimer = 0;
@@ -71,7 +89,7 @@ public class GameScreen implements Screen {
 
     // Add a TAG constant for logging purposes
     private static final String TAG = "GameScreen";
-    private List<Arrow> arrows = new ArrayList<>();
+    private final ProjectileSystem projectiles;
     private PauseMenu pauseMenu;
     private boolean isPaused = false;
 
@@ -85,6 +103,31 @@ public class GameScreen implements Screen {
     private boolean finalBossObjective = false; // Track if the objective is for the final boss
     private float attackCooldownTimer = 0; // Timer to track attack cooldown
     private static final float ATTACK_COOLDOWN = 0.5f; // Cooldown duration in seconds
+    private static final float PLAYER_ATTACK_RANGE = 40f; // Reach from the player's centre to an enemy's bounds
+    private static final float PLAYER_ATTACK_ARC = 120f; // Opening angle of the swing, in degrees
+    private static final int PLAYER_ATTACK_DAMAGE = 50;
+    private static final float SHOOT_COOLDOWN = 0.4f; // Seconds between player arrows
+    private static final int PLAYER_ARROW_DAMAGE = 25;
+    private float shootCooldownTimer = 0;
+    private final Vector3 aimPoint = new Vector3();
+
+    // Published for the admin endpoint; see GameMetrics
+    private final GameMetrics.Histogram frameMetric;
+    private final GameMetrics.Histogram updatePhaseMetric;
+    private final GameMetrics.Histogram enemyPhaseMetric;
+    private final GameMetrics.Histogram worldPhaseMetric;
+    private final GameMetrics.Histogram drawPhaseMetric;
+    private final GameMetrics.Gauge enemyCountMetric;
+    private final GameMetrics.Gauge enemyCapMetric;
+    private final GameMetrics.Gauge headroomMetric;
+    private final GameMetrics.Gauge projectileCountMetric;
+    private long frameNumber = 0;
+    private final AdminServer.WorldSource worldSource;
+
+    // Frame history for hitch reports; the phases and input bits are the ones recorded at the end of render
+    private static final String[] FRAME_PHASES = {"update", "enemies", "world", "draw"};
+    private static final String[] FRAME_INPUTS = {"W", "A", "S", "D", "attack", "shoot", "key"};
+    private final HitchWatchdog.Heartbeat heartbeat;
 
     public GameScreen(Main game) {
         this.game = game; // Initialize the game instance
@@ -101,16 +144,17 @@ public class GameScreen implements Screen {
 
         worldWidth = Gdx.graphics.getWidth();
         worldHeight = Gdx.graphics.getHeight();
-        mapManager = new MapManager("map.tmx");
-        map = mapManager.getMap();
-        mapRenderer = new OrthogonalTiledMapRenderer(map);
-
-        float mapWidth = map.getProperties().get("width", Integer.class) *
-            map.getProperties().get("tilewidth", Integer.class);
-        float mapHeight = map.getProperties().get("height", Integer.class) *
-            map.getProperties().get("tileheight", Integer.class);
-        float mapCenterX = mapWidth / 2;
-        float mapCenterY = mapHeight / 2;
+        // Chunks are read from the compiled map as the player walks; nothing holds the whole map
+        FileHandle compiledMap = MapManager.compiledMap(Gdx.files.internal("map.tmx"));
+        if (compiledMap == null) {
+            throw new GdxRuntimeException("No up-to-date compiled map.tmx; run the compileMaps task first");
+        }
+        mapSource = new CompiledChunkSource(compiledMap, CHUNK_SIZE);
+        int tileWidth = mapSource.getTileWidth();
+        int tileHeight = mapSource.getTileHeight();
+        float mapCenterX = mapSource.getWidth() * tileWidth / 2f;
+        float mapCenterY = mapSource.getHeight() * tileHeight / 2f;
+        combatQuery = new CombatQuery(64f);
 
         // Update viewport to better handle fullscreen
         camera = new OrthographicCamera();
@@ -119,30 +163,63 @@ public class GameScreen implements Screen {
         camera.update();
         viewport.apply();
 
+        // Stream the map in chunks around the player; the renderer and player collision only see loaded chunks
+        if (Boolean.getBoolean(ENDLESS_PROPERTY)) {
+            Gdx.app.log(TAG, "Endless world, seed " + WORLD_SEED);
+            ChunkSource generator = new ProceduralChunkSource(mapSource.getTileSets(), WORLD_SEED, CHUNK_SIZE,
+                (int) (mapCenterX / tileWidth), (int) (mapCenterY / tileHeight));
+            worldStreamer = new WorldStreamer(new CachingChunkSource(generator, CHUNK_CACHE_BYTES),
+                CHUNK_LOAD_RADIUS, GENERATOR_THREADS);
+        } else {
+            worldStreamer = new WorldStreamer(mapSource, CHUNK_LOAD_RADIUS);
+        }
+        worldStreamer.preload(mapCenterX, mapCenterY);
+        mapRenderer = new OrthogonalTiledMapRenderer(worldStreamer.getMap());
+
+        // Paths, sight and arrows only know the loaded chunks; see syncWorldLayout
+        pathPlanner = new PathPlanner(worldStreamer.getNavGrid());
+        lineOfSight = new LineOfSight(worldStreamer.getCollisionMask());
+        projectiles = new ProjectileSystem(worldStreamer, worldStreamer.getWorldWidth(), worldStreamer.getWorldHeight());
+
         // Initialize player at map center
         player = new Player(mapCenterX, mapCenterY);
+        player.setCollider(new SweptAabbSolver(worldStreamer));
+        player.setWorldBounds(worldStreamer.getWorldWidth(), worldStreamer.getWorldHeight());
         enemies = new ArrayList<>();
         font = new BitmapFont();
         font.setColor(Color.WHITE);
-        random = new Random();
-
-        obstacles = new ArrayList<>();
-        Array<Rectangle> mapObstacles = mapManager.getObstacles();
-        for (Rectangle rect : mapObstacles) {
-            obstacles.add(new Obstacle(
-                rect.x, rect.y,
-                rect.width, rect.height,
-                null, true
-            ));
-        }
 
-        for (int i = 0; i < 5; i++) {
-            spawnEnemy();
-        }
+        // The director starts with enough budget for the opening group
+        spawnDirector = new SpawnDirector(worldStreamer);
+        populationGovernor = new PopulationGovernor(spawnDirector);
+        spawnBasicEnemies();
 
-        // Initialize mini map
-        miniMap = new MiniMap(map, mapWidth, mapHeight);
+        // Initialize mini map, showing the loaded chunks around the player
+        miniMap = new MiniMap((2 * CHUNK_LOAD_RADIUS + 1) * CHUNK_SIZE * tileWidth);
         pauseMenu = new PauseMenu(game); // Pass the game instance to PauseMenu
+
+        GameMetrics metrics = GameMetrics.getShared();
+        String phase = "survivor_frame_phase_millis";
+        String phaseHelp = "Time spent in each part of a frame";
+        frameMetric = metrics.histogram("survivor_frame_millis",
+            "Time from the start of a frame's update to the end of its drawing", null, GameMetrics.MILLIS_BUCKETS);
+        updatePhaseMetric = metrics.histogram(phase, phaseHelp, "phase=\"update\"", GameMetrics.MILLIS_BUCKETS);
+        enemyPhaseMetric = metrics.histogram(phase, phaseHelp, "phase=\"enemies\"", GameMetrics.MILLIS_BUCKETS);
+        worldPhaseMetric = metrics.histogram(phase, phaseHelp, "phase=\"world\"", GameMetrics.MILLIS_BUCKETS);
+        drawPhaseMetric = metrics.histogram(phase, phaseHelp, "phase=\"draw\"", GameMetrics.MILLIS_BUCKETS);
+        enemyCountMetric = metrics.gauge("survivor_enemies", "Enemies alive in the world", null);
+        enemyCapMetric = metrics.gauge("survivor_enemy_cap", "Enemies the population governor currently allows", null);
+        headroomMetric = metrics.gauge("survivor_frame_headroom",
+            "Fraction of the frame budget the population governor sees left over; negative when over budget", null);
+        projectileCountMetric = metrics.gauge("survivor_pool_in_use", "Slots taken in fixed-size pools",
+            "pool=\"projectiles\"");
+        metrics.gauge("survivor_pool_size", "Slots in fixed-size pools", "pool=\"projectiles\"",
+            () -> ProjectileSystem.MAX_PROJECTILES);
+        heartbeat = HitchWatchdog.getShared().watch("render", FRAME_PHASES, FRAME_INPUTS);
+        worldSource = query -> AdminServer.dumpOn(Gdx.app::postRunnable, this::writeWorld);
+        if (game.getAdminServer() != null) {
+            game.getAdminServer().setWorldSource(worldSource);
+        }
     }
 
     @Override
@@ -167,8 +244,17 @@ public class GameScreen implements Screen {
             return; // Skip the rest of the game rendering and updates
         }
 
+        long frameStart = System.nanoTime();
+        frameNumber++;
+        heartbeat.beginFrame(frameStart);
+        GameEvents.Span frameEvent = GameEvents.frame(frameNumber);
+        GameEvents.Span phaseEvent = GameEvents.framePhase("update", frameNumber);
         ScreenUtils.clear(0.15f, 0.15f, 0.2f, 1f);
 
+        // Reset the per-frame replan budget before anyone asks for a path
+        pathPlanner.beginFrame();
+        ParallelTextureLoader.getShared().update(); // Finish any sheets still uploading
+
         // Update
         player.update(delta);
 
@@ -176,14 +262,21 @@ public class GameScreen implements Screen {
         camera.position.set(player.getPosition().x, player.getPosition().y, 0);
         camera.update();
 
-        // Render the tiled map
+        // Stream chunks in and out around the player, then render the tiled map
+        worldStreamer.update(player.getPosition().x, player.getPosition().y);
+        if (worldStreamer.getNavGrid() != pathPlanner.getGrid()) {
+            syncWorldLayout();
+        }
         mapRenderer.setView(camera);
         mapRenderer.render();
 
-        // Update the attack cooldown timer
+        // Update the attack cooldown timers
         if (attackCooldownTimer > 0) {
             attackCooldownTimer -= delta;
         }
+        if (shootCooldownTimer > 0) {
+            shootCooldownTimer -= delta;
+        }
 
         // Set camera for batch
         batch.setProjectionMatrix(camera.combined);
@@ -194,7 +287,14 @@ public class GameScreen implements Screen {
         // Log coordinates periodically if enabled and moving
         updateCoordinateTracking(delta);
 
-        // Update enemies and check for dead ones
+        // Batch line-of-sight checks; only enemies that crossed a tile are recast
+        lineOfSight.refresh(enemies, player);
+
+        long enemyPhaseStart = System.nanoTime();
+        phaseEvent.close();
+        phaseEvent = GameEvents.framePhase("enemies", frameNumber);
+
+        // Update enemies and check for dead ones; the boss lives in this list once spawned
         for (int i = enemies.size() - 1; i >= 0; i--) {
             Enemy enemy = enemies.get(i);
             enemy.update(delta, player, enemies);
@@ -204,27 +304,31 @@ public class GameScreen implements Screen {
                 if (enemy instanceof BasicEnemy) {
                     killedBasicEnemyCount++;  // Increment kill count when BasicEnemy is killed
                 }
+                GameEvents.enemyDeath(enemy.getClass().getSimpleName(), enemy.getPosition().x, enemy.getPosition().y);
+                if (physicsWorld != null) {
+                    physicsWorld.removeEnemy(enemy);
+                }
                 enemies.remove(i).dispose();
-                continue;
             }
-
-            resolveObstacleCollisionsForEntity(enemy);
         }
 
-        // Update boss if spawned
-        if (boss != null && boss.isAlive()) {
-            boss.update(delta, player, enemies);
-
-        } else if (boss != null) {
-            // Boss is dead, you win!
-            // Could transition to a win screen
+        // In Box2D mode, bodies resolve enemy separation and walls after the AI has moved
+        if (usePhysics) {
+            physicsWorld.step(delta, player, enemies);
         }
+        long enemyPhaseEnd = System.nanoTime();
+        phaseEvent.close();
+        phaseEvent = GameEvents.framePhase("world", frameNumber);
+        float enemyPhase = (enemyPhaseEnd - enemyPhaseStart) / 1_000_000f;
+
+        // Re-bin enemies for next frame's hit detection
+        combatQuery.rebuild(enemies);
+        enemyPhaseMillis += (enemyPhase - enemyPhaseMillis) * 0.05f;
 
-        // Spawn enemies periodically
-        enemySpawnTimer += delta;
-        if (enemySpawnTimer >= ENEMY_SPAWN_INTERVAL && enemies.size() < 20) { // Limit max enemies
-            spawnEnemy();
-            enemySpawnTimer = 0;
+        // Spawn BasicEnemies from the wave budget until 20 have been killed
+        if (killedBasicEnemyCount < 20) {
+            spawnDirector.update(delta);
+            spawnBasicEnemies();
         }
 
         // Spawn boss after killing 20 BasicEnemies
@@ -232,24 +336,8 @@ public class GameScreen implements Screen {
             spawnBoss();  // Spawn the final boss after 20 kills
         }
 
-        // Prevent spawning BasicEnemy after 20 kills
-        if (killedBasicEnemyCount < 20) {
-            enemySpawnTimer += delta;
-            if (enemySpawnTimer >= ENEMY_SPAWN_INTERVAL && enemies.size() < 20) {
-                spawnBasicEnemy();  // Spawn BasicEnemy if less than 20 kills
-                enemySpawnTimer = 0;
-            }
-        }
-
-        for (int i = arrows.size() - 1; i >= 0; i--) {
-            Arrow arrow = arrows.get(i);
-            arrow.update(delta);
-            arrow.checkCollision(player);
-
-            if (!arrow.isActive()) {
-                arrows.remove(i);
-            }
-        }
+        // Move arrows and resolve hits against walls, the player and enemies
+        projectiles.update(delta, player, combatQuery);
 
         // Update objective progress
         if (!finalBossObjective) {
@@ -258,6 +346,11 @@ public class GameScreen implements Screen {
             objectiveProgress = 1f; // Final boss defeated
         }
 
+        long simulationEnd = System.nanoTime();
+        phaseEvent.close();
+        phaseEvent = GameEvents.framePhase("draw", frameNumber);
+        float simulationMillis = (simulationEnd - frameStart) / 1_000_000f;
+
         // Draw the objective bar
         renderObjectiveBar();
 
@@ -265,17 +358,6 @@ public class GameScreen implements Screen {
         try {
             batch.begin();
 
-            // Draw obstacles (if they have textures)
-            for (Obstacle obstacle : obstacles) {
-                if (obstacle != null) {
-                    try {
-                        obstacle.render(batch);
-                    } catch (Exception e) {
-                        Gdx.app.error(TAG, "Error rendering obstacle: " + e.getMessage());
-                    }
-                }
-            }
-
             // Draw enemies - they move relative to player
             for (Enemy enemy : enemies) {
                 if (enemy != null) {
@@ -296,9 +378,9 @@ public class GameScreen implements Screen {
                 }
             }
 
-            for (Arrow arrow : arrows) {
-                arrow.render(batch);
-            }
+            projectiles.render(batch,
+                camera.position.x - camera.viewportWidth / 2, camera.position.y - camera.viewportHeight / 2,
+                camera.viewportWidth, camera.viewportHeight);
 
             // Draw player at its actual position, not centered at (0,0)
             if (player != null) {
@@ -355,10 +437,18 @@ public class GameScreen implements Screen {
             font.draw(batch, killCountText, uiX - font.getCache().addText(killCountText, 0, 0).width - 20, uiY - 100);
 
             if (showFPS) {
-                String fpsText = "FPS: " + Gdx.graphics.getFramesPerSecond();
+                String fpsText = String.format("FPS: %d  Enemies: %.2f ms (%s)",
+                    Gdx.graphics.getFramesPerSecond(), enemyPhaseMillis, usePhysics
+                        ? "Box2D, " + physicsWorld.getAwakeBodyCount() + "/" + physicsWorld.getBodyCount() + " awake"
+                        : "custom");
                 float fpsX = camera.position.x - camera.viewportWidth / 2 + 10; // Position near the top-left corner
                 float fpsY = camera.position.y + camera.viewportHeight / 2 - 10;
                 font.draw(batch, fpsText, fpsX, fpsY);
+                String budgetText = String.format("Enemy cap: %d%s  Headroom: %.0f%% (%.1f / %.1f ms)",
+                    populationGovernor.getCap(), populationGovernor.isThrottled() ? " (throttled)" : "",
+                    populationGovernor.getHeadroom() * 100f, populationGovernor.getFrameMillis(),
+                    populationGovernor.getTargetMillis());
+                font.draw(batch, budgetText, fpsX, fpsY - 20);
             }
 
             batch.end();
@@ -375,6 +465,31 @@ public class GameScreen implements Screen {
             Gdx.app.error(TAG, "Error during rendering", e);
         }
 
+        // Let the governor resize the enemy cap to fit this machine's frame budget
+        long frameEnd = System.nanoTime();
+        phaseEvent.close();
+        frameEvent.close();
+        populationGovernor.sample(delta, simulationMillis, (frameEnd - frameStart) / 1_000_000f, enemies.size());
+
+        updatePhaseMetric.record((enemyPhaseStart - frameStart) / 1e6);
+        enemyPhaseMetric.record(enemyPhase);
+        worldPhaseMetric.record((simulationEnd - enemyPhaseEnd) / 1e6);
+        drawPhaseMetric.record((frameEnd - simulationEnd) / 1e6);
+        frameMetric.record((frameEnd - frameStart) / 1e6);
+        enemyCountMetric.set(enemies.size());
+        enemyCapMetric.set(populationGovernor.getCap());
+        headroomMetric.set(populationGovernor.getHeadroom());
+        projectileCountMetric.set(projectiles.getCount());
+        heartbeat.phase(0, enemyPhaseStart - frameStart);
+        heartbeat.phase(1, enemyPhaseEnd - enemyPhaseStart);
+        heartbeat.phase(2, simulationEnd - enemyPhaseEnd);
+        heartbeat.phase(3, frameEnd - simulationEnd);
+        int input = (wPressed ? 1 : 0) | (aPressed ? 2 : 0) | (sPressed ? 4 : 0) | (dPressed ? 8 : 0)
+            | (Gdx.input.isButtonJustPressed(com.badlogic.gdx.Input.Buttons.LEFT) ? 16 : 0)
+            | (Gdx.input.isButtonPressed(com.badlogic.gdx.Input.Buttons.RIGHT) ? 32 : 0)
+            | (Gdx.input.isKeyJustPressed(com.badlogic.gdx.Input.Keys.ANY_KEY) ? 64 : 0);
+        heartbeat.endFrame(frameEnd, enemies.size() + projectiles.getCount(), input);
+
         // Debug info
         if (Gdx.input.isKeyJustPressed(com.badlogic.gdx.Input.Keys.F1)) {
             Gdx.app.log(TAG, "Player position: " + player.getPosition());
@@ -407,6 +522,18 @@ public class GameScreen implements Screen {
             Gdx.app.log(TAG, "FPS display " + (showFPS ? "enabled" : "disabled"));
         }
 
+        // Toggle Box2D physics mode with F7
+        if (Gdx.input.isKeyJustPressed(com.badlogic.gdx.Input.Keys.F7)) {
+            usePhysics = !usePhysics;
+            if (usePhysics) {
+                if (physicsWorld == null) {
+                    physicsWorld = new PhysicsWorld(loadedObstacles(), player);
+                }
+                physicsWorld.syncBodies(player, enemies);
+            }
+            Gdx.app.log(TAG, "Physics mode: " + (usePhysics ? "Box2D" : "custom"));
+        }
+
         // Check game over
         if (!player.isAlive()) {
             if (runningSoundId != -1) {
@@ -442,37 +569,35 @@ public class GameScreen implements Screen {
 
     }
 
-    // Method to spawn BasicEnemy
-    private void spawnBasicEnemy() {
-        float x, y;
-        float spawnDistance = 150;
-        float halfWidth = worldWidth / 4;
-        float halfHeight = worldHeight / 4;
-        int side = random.nextInt(4);
-
-        switch (side) {
-            case 0:
-                x = -halfWidth + random.nextFloat() * worldWidth / 2;
-                y = halfHeight + spawnDistance;
-                break;
-            case 1:
-                x = halfWidth + spawnDistance;
-                y = -halfHeight + random.nextFloat() * worldHeight / 2;
-                break;
-            case 2:
-                x = -halfWidth + random.nextFloat() * worldWidth / 2;
-                y = -halfHeight - spawnDistance;
-                break;
-            case 3:
-                x = -halfWidth - spawnDistance;
-                y = -halfHeight + random.nextFloat() * worldHeight / 2;
-                break;
-            default:
-                x = 0;
-                y = 0;
+    /**
+     * Points paths, line of sight and Box2D walls at the streamer's current
+     * chunks. Runs whenever chunks have been loaded or dropped.
+     */
+    private void syncWorldLayout() {
+        pathPlanner.setGrid(worldStreamer.getNavGrid());
+        lineOfSight.setMask(worldStreamer.getCollisionMask());
+        if (physicsWorld != null) {
+            physicsWorld.setObstacles(loadedObstacles());
+        }
+    }
+
+    private Array<Rectangle> loadedObstacles() {
+        loadedChunks.clear();
+        worldObstacles.clear();
+        for (WorldChunk chunk : worldStreamer.getLoadedChunks(loadedChunks)) {
+            worldObstacles.addAll(chunk.obstacles);
         }
+        return worldObstacles;
+    }
 
-        enemies.add(new BasicEnemy(x, y, obstacles));
+    // Spawn as many BasicEnemies as the director allows this frame, off-screen around the player
+    private void spawnBasicEnemies() {
+        Vector2 playerPos = player.getPosition();
+        while (spawnDirector.nextSpawn(playerPos.x, playerPos.y,
+            camera.viewportWidth / 2, camera.viewportHeight / 2, enemies.size(), spawnPoint)) {
+            enemies.add(new BasicEnemy(spawnPoint.x, spawnPoint.y));
+            GameEvents.enemySpawn("BasicEnemy", spawnPoint.x, spawnPoint.y);
+        }
     }
 
     private void toggleFullscreen() {
@@ -513,8 +638,6 @@ public class GameScreen implements Screen {
         boolean prevA = aPressed;
         boolean prevS = sPressed;
         boolean prevD = dPressed;
-        // Store original position for collision handling
-        Vector2 originalPosition = new Vector2(player.getPosition());
 
         // Update key states
         wPressed = Gdx.input.isKeyPressed(com.badlogic.gdx.Input.Keys.W);
@@ -525,41 +648,11 @@ public class GameScreen implements Screen {
         boolean anyKeyPressed = wPressed || aPressed || sPressed || dPressed;
 
         if (anyKeyPressed) {
-            // First, check if the player is already inside an object and push them out if necessary
-            checkAndResolveExistingCollisions();
-
-            // Apply movement one direction at a time and check for collisions
-            // This helps prevent walking through corners
-            if (wPressed) {
-                player.moveUp(delta);
-                if (resolveObstacleCollisionsForEntity(player)) {
-                    player.stopMovingUp();
-                }
-            }
-
-            if (sPressed) {
-                player.moveDown(delta);
-                if (resolveObstacleCollisionsForEntity(player)) {
-                    player.stopMovingDown();
-                }
-            }
-
-            if (aPressed) {
-                player.moveLeft(delta);
-                if (resolveObstacleCollisionsForEntity(player)) {
-                    player.stopMovingLeft();
-                }
-            }
-
-            if (dPressed) {
-                player.moveRight(delta);
-                if (resolveObstacleCollisionsForEntity(player)) {
-                    player.stopMovingRight();
-                }
-            }
-
-            // Final collision check and resolution
-            resolveObstacleCollisionsForEntity(player);
+            // Keys only steer the velocity; Player.update sweeps the actual move against obstacles
+            if (wPressed) player.moveUp(delta);
+            if (sPressed) player.moveDown(delta);
+            if (aPressed) player.moveLeft(delta);
+            if (dPressed) player.moveRight(delta);
         } else {
             // If no keys are pressed, handle key releases
             if (prevW) player.stopMovingUp();
@@ -586,28 +679,23 @@ public class GameScreen implements Screen {
             swordSound.play(0.5f);
             attackCooldownTimer = ATTACK_COOLDOWN; // Reset the cooldown timer
 
-            for (Enemy enemy : enemies) {
-                if (!enemy.isAlive()) continue;
-
-                float attackRange = 40f;
-                Vector2 enemyPos = enemy.getPosition();
-                Vector2 playerPos = player.getPosition();
-                float distance = playerPos.dst(enemyPos);
-                if (distance <= attackRange) {
-                    enemy.takeDamage(50); //Final boss deduct 50 hp 
-                }
+            // Only enemies in front of the player within reach are hit; the boss is in the enemy list too
+            Vector2 playerPos = player.getPosition();
+            CombatQuery.facing(player.getCurrentState(), attackDirection);
+            combatQuery.queryArc(playerPos.x, playerPos.y, PLAYER_ATTACK_RANGE,
+                attackDirection.x, attackDirection.y, PLAYER_ATTACK_ARC, attackTargets);
+            for (Enemy enemy : attackTargets) {
+                enemy.takeDamage(PLAYER_ATTACK_DAMAGE);
             }
         }
 
-        if (boss != null && boss.isAlive() && player.isAttacking()) {
-            float attackRange = 40f;
-            Vector2 bossPos = boss.getPosition();
+        // Handle right click to shoot an arrow towards the cursor
+        if (Gdx.input.isButtonPressed(com.badlogic.gdx.Input.Buttons.RIGHT) && shootCooldownTimer <= 0 && player.isAlive()) {
+            camera.unproject(aimPoint.set(Gdx.input.getX(), Gdx.input.getY(), 0));
             Vector2 playerPos = player.getPosition();
-            float distance = playerPos.dst(bossPos);
-            if (distance <= attackRange) {
-                // Remove this line to avoid double-deducting HP
-                // boss.takeDamage(15);
-            }
+            projectiles.spawnAimed(playerPos.x, playerPos.y, aimPoint.x, aimPoint.y,
+                PLAYER_ARROW_DAMAGE, ProjectileSystem.FRIENDLY);
+            shootCooldownTimer = SHOOT_COOLDOWN;
         }
 
         // Debug - show movement direction when pressing F2
@@ -629,114 +717,6 @@ public class GameScreen implements Screen {
         }
     }
 
-    private void checkAndResolveExistingCollisions() {
-        Rectangle playerBounds = player.getBounds();
-        Vector2 pushVector = new Vector2(0, 0);
-        boolean needsPush = false;
-
-        for (Obstacle obstacle : obstacles) {
-            if (obstacle.isCollidable() && obstacle.getBounds().overlaps(playerBounds)) {
-                // Player is inside an object - calculate push direction
-                Rectangle obstacleBounds = obstacle.getBounds();
-
-                // Find shortest way out
-                float leftPush = playerBounds.x + playerBounds.width - obstacleBounds.x;
-                float rightPush = obstacleBounds.x + obstacleBounds.width - playerBounds.x;
-                float topPush = obstacleBounds.y + obstacleBounds.height - playerBounds.y;
-                float bottomPush = playerBounds.y + playerBounds.height - obstacleBounds.y;
-
-                // Find minimum push distance
-                float minPush = Math.min(Math.min(leftPush, rightPush), Math.min(topPush, bottomPush));
-
-                if (minPush == leftPush) {
-                    pushVector.x -= leftPush;
-                } else if (minPush == rightPush) {
-                    pushVector.x += rightPush;
-                } else if (minPush == bottomPush) {
-                    pushVector.y -= bottomPush;
-                } else if (minPush == topPush) {
-                    pushVector.y += topPush;
-                }
-                needsPush = true;
-                break; // Handle one collision at a time
-            }
-        }
-
-        // Apply push if needed
-        if (needsPush) {
-            Vector2 currentPos = player.getPosition();
-            player.setPosition(currentPos.x + pushVector.x, currentPos.y + pushVector.y);
-            Gdx.app.debug(TAG, "Pushed player out of object by: " + pushVector);
-        }
-    }
-
-    private boolean resolveObstacleCollisionsForEntity(Entity entity) {
-        boolean collisionOccurred = false;
-        // Get the entity's collision box
-        Rectangle entityBounds = entity.getBounds();
-
-        // Store the entity's initial position if it's the player
-        Vector2 initialPosition = null;
-        if (entity instanceof Player) {
-            initialPosition = new Vector2(((Player)entity).getPosition());
-        }
-
-        for (Obstacle obstacle : obstacles) {
-            if (obstacle.isCollidable() && obstacle.getBounds().overlaps(entityBounds)) {
-                collisionOccurred = true;
-                if (entity instanceof Player) {
-                    // If it's the player, handle collision properly to prevent passing through
-                    Player player = (Player)entity;
-                    // Calculate the penetration depth in both axes
-                    Rectangle obstacleBounds = obstacle.getBounds();
-                    float centerX = player.getPosition().x;
-                    float centerY = player.getPosition().y;
-                    // Calculate overlapX and overlapY with a small buffer for better detection
-                    float overlapX, overlapY;
-                    if (centerX < obstacleBounds.x) {
-                        overlapX = player.getBounds().x + player.getBounds().width - obstacleBounds.x;
-                    } else {
-                        overlapX = obstacleBounds.x + obstacleBounds.width - player.getBounds().x;
-                    }
-                    if (centerY < obstacleBounds.y) {
-                        overlapY = player.getBounds().y + player.getBounds().height - obstacleBounds.y;
-                    } else {
-                        overlapY = obstacleBounds.y + obstacleBounds.height - player.getBounds().y;
-                    }
-                    // Add a small buffer to prevent getting stuck on edges
-                    overlapX += 0.5f;
-                    overlapY += 0.5f;
-
-                    // Resolve collision by moving back the minimum distance needed
-                    if (overlapX < overlapY) {
-                        // Resolve horizontally
-                        if (centerX < obstacleBounds.x) {
-                            player.setPosition(player.getPosition().x - overlapX, player.getPosition().y);
-                        } else {
-                            player.setPosition(player.getPosition().x + overlapX, player.getPosition().y);
-                        }
-                    } else {
-                        // Resolve vertically
-                        if (centerY < obstacleBounds.y) {
-                            player.setPosition(player.getPosition().x, player.getPosition().y - overlapY);
-                        } else {
-                            player.setPosition(player.getPosition().x, player.getPosition().y + overlapY);
-                        }
-                    }
-
-                    // Make sure player's velocity components are zeroed appropriately
-                    // to prevent continued movement in collision direction
-                    player.stopVelocityInCollisionDirection(overlapX < overlapY,
-                        centerX < obstacleBounds.x || centerY < obstacleBounds.y);
-                }
-                // Handle one collision per frame to prevent jitter
-                break;
-            }
-        }
-
-        return collisionOccurred;
-    }
-
     private void renderHitboxes() {
         HitboxRenderer.begin(camera);
         // Draw player hitbox
@@ -752,9 +732,12 @@ public class GameScreen implements Screen {
             HitboxRenderer.drawRect(boss.getBounds(), ENEMY_HITBOX_COLOR);
         }
 
-        // Draw obstacle hitboxes
-        for (Obstacle obstacle : obstacles) {
-            HitboxRenderer.drawRect(obstacle.getBounds(), OBSTACLE_HITBOX_COLOR);
+        // Draw hitboxes of the obstacles in view
+        worldObstacles.clear();
+        worldStreamer.query(camera.position.x - camera.viewportWidth / 2, camera.position.y - camera.viewportHeight / 2,
+            camera.viewportWidth, camera.viewportHeight, worldObstacles);
+        for (Rectangle obstacle : worldObstacles) {
+            HitboxRenderer.drawRect(obstacle, OBSTACLE_HITBOX_COLOR);
         }
 
         HitboxRenderer.end();
@@ -901,6 +884,10 @@ public class GameScreen implements Screen {
 
     @Override
     public void dispose() {
+        HitchWatchdog.getShared().unwatch(heartbeat);
+        if (game.getAdminServer() != null) {
+            game.getAdminServer().removeWorldSource(worldSource); // Don't dump a screen that is gone
+        }
         batch.dispose();
         player.dispose();
         font.dispose();
@@ -913,12 +900,15 @@ public class GameScreen implements Screen {
         if (boss != null) {
             boss.dispose();
         }
-        for (Obstacle obstacle : obstacles) {
-            obstacle.dispose();
-        }
         // Dispose TiledMap resources
-        map.dispose();
         mapRenderer.dispose();
+        worldStreamer.dispose();
+        mapSource.dispose();
+        pathPlanner.dispose();
+        projectiles.dispose();
+        if (physicsWorld != null) {
+            physicsWorld.dispose();
+        }
 
         // Clean up static resources correctly
         try {
@@ -932,72 +922,66 @@ public class GameScreen implements Screen {
         miniMap.dispose();
     }
 
-    private void spawnEnemy() {
-        float x, y;
-        float spawnDistance = 150;
-        float halfWidth = worldWidth / 4;
-        float halfHeight = worldHeight / 4;
-        int side = random.nextInt(4);
-
-        switch (side) {
-            case 0: x = -halfWidth + random.nextFloat() * worldWidth / 2; y = halfHeight + spawnDistance; break;
-            case 1: x = halfWidth + spawnDistance; y = -halfHeight + random.nextFloat() * worldHeight / 2; break;
-            case 2: x = -halfWidth + random.nextFloat() * worldWidth / 2; y = -halfHeight - spawnDistance; break;
-            case 3: x = -halfWidth - spawnDistance; y = -halfHeight + random.nextFloat() * worldHeight / 2; break;
-            default: x = 0; y = 0;
+    /**
+     * Writes what is in the world for the admin endpoint's /world. Runs on the render thread.
+     */
+    private void writeWorld(JsonWriter json) throws IOException {
+        Vector2 position = player.getPosition();
+        json.object()
+            .set("frame", frameNumber)
+            .set("paused", isPaused)
+            .set("kills", killedBasicEnemyCount)
+            .set("enemyCap", populationGovernor.getCap())
+            .set("projectiles", projectiles.getCount());
+        json.object("player")
+            .set("x", position.x).set("y", position.y)
+            .set("health", player.getHealth())
+            .set("state", player.getCurrentState().name())
+            .pop();
+        json.array("enemies");
+        for (Enemy enemy : enemies) {
+            Vector2 enemyPosition = enemy.getPosition();
+            json.object()
+                .set("type", enemy.getClass().getSimpleName())
+                .set("x", enemyPosition.x).set("y", enemyPosition.y)
+                .set("health", enemy.getHealth())
+                .pop();
+        }
+        json.pop();
+        if (boss != null) {
+            Vector2 bossPosition = boss.getPosition();
+            json.object("boss")
+                .set("x", bossPosition.x).set("y", bossPosition.y)
+                .set("health", boss.getHealth())
+                .set("alive", boss.isAlive())
+                .pop();
         }
-        enemies.add(new BasicEnemy(x, y, obstacles)); // obstacles を渡す
+        json.pop();
     }
 
     // Method to spawn the Final Boss
     private void spawnBoss() {
-        float spawnDistance = 200;
+        boss = new FinalBoss(0, 0, pathPlanner);
+        // Find an off-screen spot with room for the boss; otherwise keep its default spawn position
         Vector2 playerPos = player.getPosition();
-        int attempts = 10;
-
-        for (int i = 0; i < attempts; i++) {
-            float angle = (float) (Math.random() * Math.PI * 2);
-            float x = playerPos.x + spawnDistance * (float) Math.cos(angle);
-            float y = playerPos.y + spawnDistance * (float) Math.sin(angle);
-            Rectangle futureBounds = new Rectangle(x - 75, y - 75, 150, 150); // Adjusted for center-based bounds
-
-            boolean collides = false;
-            for (Obstacle obs : obstacles) {
-                if (obs.getBounds().overlaps(futureBounds)) {
-                    collides = true;
-                    break;
-                }
-            }
-
-            if (!collides) {
-                boss = new FinalBoss(x, y);
-                enemies.add(boss);
-                bossSpawned = true;
-                finalBossObjective = true; // Switch to final boss objective
-                objectiveProgress = 0; // Reset the progression bar
-                return;
-            }
+        if (spawnDirector.pickLargeSpawn(playerPos.x, playerPos.y, camera.viewportWidth / 2,
+            camera.viewportHeight / 2, boss.getRequiredClearance(), spawnPoint)) {
+            boss.setSpawnPosition(spawnPoint.x, spawnPoint.y);
         }
-
-        // Fallback: place near player with no check (not recommended long-term)
-        boss = new FinalBoss(playerPos.x + 150, playerPos.y + 150);
         enemies.add(boss);
+        GameEvents.bossSpawn(boss.getPosition().x, boss.getPosition().y, boss.getHealth());
         bossSpawned = true;
         finalBossObjective = true; // Switch to final boss objective
         objectiveProgress = 0; // Reset the progression bar
     }
 
-    public static List<Obstacle> getStaticObstacles() {
-        return GameScreenHolder.instance.obstacles;
-    }
-
     private static class GameScreenHolder {
         static GameScreen instance;
     }
 
     private void checkMapObjectCollisions() {
         // Get the objects layer - replace "Objects" with your layer name
-        MapLayer objectsLayer = map.getLayers().get("Objects");
+        MapLayer objectsLayer = worldStreamer.getMap().getLayers().get("Objects");
         if (objectsLayer == null) {
             return; // No objects layer found
         }
@@ -1047,4 +1031,8 @@ public class GameScreen implements Screen {
     public static Player getPlayer() {
         return GameScreenHolder.instance.player;
     }
+
+    public static ProjectileSystem getProjectiles() {
+        return GameScreenHolder.instance.projectiles;
+    }
 }
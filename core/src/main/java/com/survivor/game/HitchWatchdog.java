@@ -0,0 +1,396 @@
+package com.survivor.game;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * A daemon thread that watches the game's loops for hitches. Each loop, like
+ * the render thread or a server worker, marks the start and end of every frame
+ * on its own {@link Heartbeat}, along with the frame's phase timings, entity
+ * count and input, and the heartbeat keeps the last few seconds of those in a
+ * ring.
+ *
+ * Every few milliseconds the watchdog looks at each heartbeat. Once a frame has
+ * run past the threshold it samples the stalled thread's stack while it is still
+ * stuck, and copies the ring, which the loop doesn't write to mid-frame. When
+ * the frame ends it waits a moment for the JVM to report any garbage
+ * collections, then writes a report to the hitches directory: the stacks, the
+ * frames leading up to the hitch and the hitch itself, and the collections
+ * reported since the frame started. Reports of hitches with a collection in
+ * them have "-gc" in their name.
+ *
+ * The threshold is 50 ms unless the {@value #THRESHOLD_PROPERTY} system property
+ * says otherwise; 0 turns the watchdog off. Reports go to {@code .survivor/hitches}
+ * in the user's home, rather than the working directory, which for the Gradle
+ * run tasks is assets/; {@value #DIRECTORY_PROPERTY} names another directory.
+ * Reports are rate limited, so a machine that hitches all the time doesn't fill
+ * the disk.
+ */
+public class HitchWatchdog implements Runnable {
+    private static final String TAG = "HitchWatchdog";
+    public static final String THRESHOLD_PROPERTY = "survivor.hitchMillis";
+    public static final String DIRECTORY_PROPERTY = "survivor.hitchDir";
+    private static final float DEFAULT_THRESHOLD_MILLIS = 50f;
+    private static final String DEFAULT_DIRECTORY = ".survivor/hitches"; // Under external storage, the user's home
+    private static final long POLL_MILLIS = 5;
+    private static final int RING_FRAMES = 300; // Five seconds at 60 Hz, ten at the server's tick rate
+    private static final int MAX_STACK_SAMPLES = 4;
+    private static final long GC_SETTLE_NANOS = 100_000_000L; // GC notifications arrive a little after the pause
+    private static final long GIVE_UP_NANOS = 5_000_000_000L; // Report a frame that never ends anyway
+    private static final long MIN_REPORT_INTERVAL_NANOS = 5_000_000_000L;
+    private static final int MAX_REPORTS = 50;
+    private static final long NOT_IN_FRAME = Long.MIN_VALUE;
+
+    private static HitchWatchdog shared;
+
+    private final long thresholdNanos;
+    private final File directory;
+    private final List<Heartbeat> heartbeats = new CopyOnWriteArrayList<>();
+    private final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+    private Thread thread;
+    private long lastReportNanos = Long.MIN_VALUE / 2;
+    private int reports = 0;
+
+    /**
+     * @param thresholdMillis frames longer than this are reported; 0 or less watches nothing
+     * @param directory where reports are written, created on the first one
+     */
+    public HitchWatchdog(float thresholdMillis, File directory) {
+        this.thresholdNanos = (long) (thresholdMillis * 1_000_000L);
+        this.directory = directory;
+    }
+
+    /**
+     * @return the watchdog for the whole process, configured from system properties on first use
+     */
+    public static synchronized HitchWatchdog getShared() {
+        if (shared == null) {
+            float threshold = DEFAULT_THRESHOLD_MILLIS;
+            String property = System.getProperty(THRESHOLD_PROPERTY);
+            if (property != null && !property.isEmpty()) {
+                try {
+                    threshold = Float.parseFloat(property);
+                } catch (NumberFormatException e) {
+                    Gdx.app.error(TAG, THRESHOLD_PROPERTY + " should be a number of milliseconds, not \"" + property
+                        + "\"; using " + DEFAULT_THRESHOLD_MILLIS);
+                }
+            }
+            String directory = System.getProperty(DIRECTORY_PROPERTY);
+            shared = new HitchWatchdog(threshold, directory != null && !directory.isEmpty()
+                ? new File(directory) : Gdx.files.external(DEFAULT_DIRECTORY).file());
+            GameMetrics.getShared().watchGarbageCollection();
+        }
+        return shared;
+    }
+
+    /**
+     * Starts watching the calling thread, which from now on marks its frames on
+     * the returned heartbeat. The watchdog thread starts with the first one.
+     *
+     * @param name what the report calls the loop, e.g. "render"
+     * @param phaseNames the parts of a frame, timed with {@link Heartbeat#phase}
+     * @param inputNames what each bit of the input passed to {@link Heartbeat#endFrame} means,
+     *                   or null if it is a count
+     */
+    public synchronized Heartbeat watch(String name, String[] phaseNames, String[] inputNames) {
+        Heartbeat heartbeat = new Heartbeat(name, Thread.currentThread(), phaseNames, inputNames);
+        if (thresholdNanos <= 0) return heartbeat; // Still works, just nobody looks at it
+        heartbeats.add(heartbeat);
+        if (thread == null) {
+            thread = new Thread(this, TAG);
+            thread.setDaemon(true);
+            thread.start();
+            Gdx.app.log(TAG, String.format("Reporting frames over %.0f ms to %s", thresholdNanos / 1e6,
+                directory.getAbsolutePath()));
+        }
+        return heartbeat;
+    }
+
+    public void unwatch(Heartbeat heartbeat) {
+        heartbeats.remove(heartbeat);
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (Heartbeat heartbeat : heartbeats) {
+                check(heartbeat, now);
+            }
+        }
+    }
+
+    private void check(Heartbeat heartbeat, long now) {
+        Stall stall = heartbeat.stall;
+        long frameStart = heartbeat.frameStartNanos;
+        if (stall == null) {
+            if (frameStart == NOT_IN_FRAME || now - frameStart <= thresholdNanos) return;
+            stall = new Stall(heartbeat, frameStart, now);
+            // If the frame ended while that was copied, the copy may be torn; it wasn't much of a stall anyway
+            if (heartbeat.frameStartNanos != frameStart) return;
+            heartbeat.stall = stall;
+        }
+
+        if (stall.endedNanos == 0) {
+            if (heartbeat.published > stall.published) {
+                stall.end(now);
+            } else if (now - stall.frameStartNanos > GIVE_UP_NANOS) {
+                stall.givenUp = true;
+                report(stall, now);
+                stall.endedNanos = now; // Wait for it to end before watching this loop again
+            } else if (stall.stacks.size() < MAX_STACK_SAMPLES
+                && now - stall.lastSampleNanos >= thresholdNanos) {
+                stall.sample(now);
+            }
+            return;
+        }
+        if (stall.givenUp) {
+            if (heartbeat.published > stall.published) heartbeat.stall = null;
+            return;
+        }
+        if (now - stall.endedNanos >= GC_SETTLE_NANOS) {
+            report(stall, now);
+            heartbeat.stall = null;
+        }
+    }
+
+    private void report(Stall stall, long now) {
+        if (reports >= MAX_REPORTS || now - lastReportNanos < MIN_REPORT_INTERVAL_NANOS) return;
+        lastReportNanos = now;
+        reports++;
+
+        Heartbeat heartbeat = stall.heartbeat;
+        long uptime = runtime.getUptime();
+        // Collections are reported a little late, so anything reported up to now may have paused the frame
+        StringBuilder gc = new StringBuilder();
+        int collections = GameMetrics.getShared().describeGcBetween(stall.frameStartNanos, now, gc);
+
+        StringBuilder out = new StringBuilder(16 * 1024);
+        if (stall.givenUp) {
+            out.append(String.format("Hitch on %s: frame %d still running after %.1f ms (threshold %.0f ms)%n",
+                heartbeat.name, stall.frame, (now - stall.frameStartNanos) / 1e6, thresholdNanos / 1e6));
+        } else {
+            out.append(String.format("Hitch on %s: frame %d took %.1f ms (threshold %.0f ms)%n",
+                heartbeat.name, stall.frame, stall.finalDurationNanos / 1e6, thresholdNanos / 1e6));
+        }
+        out.append(String.format("At %s, JVM uptime %.3f s, thread \"%s\"%n",
+            new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()), uptime / 1000.0,
+            heartbeat.thread.getName()));
+        out.append(collections == 0 ? String.format("No garbage collection during the frame%n")
+            : String.format("%d garbage collections during the frame or just after:%n", collections));
+        out.append(gc);
+        for (String stack : stall.stacks) {
+            out.append('\n').append(stack);
+        }
+        out.append('\n');
+        stall.writeFrames(out);
+
+        String name = "hitch-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()) + "-"
+            + heartbeat.name.replaceAll("[^A-Za-z0-9_-]", "_") + (collections > 0 ? "-gc" : "") + ".txt";
+        File file = new File(directory, name);
+        directory.mkdirs();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(out.toString());
+            Gdx.app.log(TAG, String.format("Frame %d on %s took over %.0f ms%s; wrote %s", stall.frame,
+                heartbeat.name, thresholdNanos / 1e6, collections > 0 ? " with a GC in it" : "", file.getPath()));
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Couldn't write " + file, e);
+        }
+    }
+
+    /**
+     * One loop's frames. Only the thread that was watched may call its methods;
+     * the watchdog reads what it publishes.
+     */
+    public static class Heartbeat {
+        final String name;
+        final Thread thread;
+        final String[] phaseNames;
+        final String[] inputNames;
+
+        // Ring of finished frames, indexed by published % RING_FRAMES
+        private final long[] frames = new long[RING_FRAMES];
+        private final long[] starts = new long[RING_FRAMES];
+        private final long[] durations = new long[RING_FRAMES];
+        private final long[] phases; // RING_FRAMES * phase count
+        private final int[] entities = new int[RING_FRAMES];
+        private final int[] inputs = new int[RING_FRAMES];
+        private long frame = 0;
+        volatile long published = 0; // Frames in the ring so far
+        volatile long frameStartNanos = NOT_IN_FRAME;
+
+        Stall stall; // Watchdog thread
+
+        Heartbeat(String name, Thread thread, String[] phaseNames, String[] inputNames) {
+            this.name = name;
+            this.thread = thread;
+            this.phaseNames = phaseNames;
+            this.inputNames = inputNames;
+            this.phases = new long[RING_FRAMES * phaseNames.length];
+        }
+
+        public void beginFrame(long startNanos) {
+            frame++;
+            frameStartNanos = startNanos;
+        }
+
+        /**
+         * Records how long one phase of the current frame took. Call before {@link #endFrame}.
+         */
+        public void phase(int index, long nanos) {
+            phases[(int) (published % RING_FRAMES) * phaseNames.length + index] = nanos;
+        }
+
+        /**
+         * @param entityCount what the frame had to simulate
+         * @param input bits as named to {@link HitchWatchdog#watch}, or a count
+         */
+        public void endFrame(long endNanos, int entityCount, int input) {
+            long start = frameStartNanos;
+            if (start == NOT_IN_FRAME) return;
+            int slot = (int) (published % RING_FRAMES);
+            frames[slot] = frame;
+            starts[slot] = start;
+            durations[slot] = endNanos - start;
+            entities[slot] = entityCount;
+            inputs[slot] = input;
+            // Out of the frame before it is published, so the watchdog never sees a frame as both
+            frameStartNanos = NOT_IN_FRAME;
+            published = published + 1; // Only this thread writes it
+        }
+    }
+
+    /**
+     * A frame that ran over, as the watchdog caught it.
+     */
+    private static class Stall {
+        final Heartbeat heartbeat;
+        final long frameStartNanos;
+        final long published;
+        final long frame;
+        final List<String> stacks = new ArrayList<>(MAX_STACK_SAMPLES);
+        long lastSampleNanos;
+        long endedNanos = 0;
+        long finalDurationNanos;
+        boolean givenUp = false;
+
+        // The frames before this one, oldest first, copied while the loop was stuck
+        final int count;
+        final long[] frames;
+        final long[] starts;
+        final long[] durations;
+        final long[] phases;
+        final int[] entities;
+        final int[] inputs;
+
+        Stall(Heartbeat heartbeat, long frameStartNanos, long now) {
+            this.heartbeat = heartbeat;
+            this.frameStartNanos = frameStartNanos;
+            this.published = heartbeat.published;
+            this.frame = heartbeat.frame;
+            sample(now);
+
+            // The slot the loop writes next is left out, in case the frame ends while this copies
+            int phaseCount = heartbeat.phaseNames.length;
+            count = (int) Math.min(published, RING_FRAMES - 1) + 1; // Plus the stalled frame, filled in when it ends
+            frames = new long[count];
+            starts = new long[count];
+            durations = new long[count];
+            phases = new long[count * phaseCount];
+            entities = new int[count];
+            inputs = new int[count];
+            for (int i = 0; i < count - 1; i++) {
+                int slot = (int) ((published - (count - 1) + i) % RING_FRAMES);
+                frames[i] = heartbeat.frames[slot];
+                starts[i] = heartbeat.starts[slot];
+                durations[i] = heartbeat.durations[slot];
+                System.arraycopy(heartbeat.phases, slot * phaseCount, phases, i * phaseCount, phaseCount);
+                entities[i] = heartbeat.entities[slot];
+                inputs[i] = heartbeat.inputs[slot];
+            }
+            frames[count - 1] = frame;
+            starts[count - 1] = frameStartNanos;
+            durations[count - 1] = -1;
+        }
+
+        void sample(long now) {
+            lastSampleNanos = now;
+            Thread thread = heartbeat.thread;
+            StackTraceElement[] stack = thread.getStackTrace();
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Stack of \"%s\" (%s) %.1f ms into the frame:%n", thread.getName(),
+                thread.getState(), (now - frameStartNanos) / 1e6));
+            for (StackTraceElement element : stack) {
+                out.append("    at ").append(element).append('\n');
+            }
+            stacks.add(out.toString());
+        }
+
+        /**
+         * Picks up the stalled frame's own record, which the loop wrote when it ended.
+         */
+        void end(long now) {
+            endedNanos = now;
+            int slot = (int) (published % RING_FRAMES);
+            int last = count - 1;
+            int phaseCount = heartbeat.phaseNames.length;
+            durations[last] = heartbeat.durations[slot];
+            System.arraycopy(heartbeat.phases, slot * phaseCount, phases, last * phaseCount, phaseCount);
+            entities[last] = heartbeat.entities[slot];
+            inputs[last] = heartbeat.inputs[slot];
+            finalDurationNanos = durations[last];
+        }
+
+        void writeFrames(StringBuilder out) {
+            String[] phaseNames = heartbeat.phaseNames;
+            out.append(String.format("Last %d frames, oldest first; times in ms, start relative to the hitch%n",
+                count));
+            out.append(String.format("%10s %10s %8s", "frame", "start", "total"));
+            for (String phase : phaseNames) {
+                out.append(String.format(" %8s", phase));
+            }
+            out.append(String.format(" %8s  %s%n", "entities", "input"));
+            for (int i = 0; i < count; i++) {
+                out.append(String.format("%10d %10.1f ", frames[i], (starts[i] - frameStartNanos) / 1e6));
+                out.append(durations[i] < 0 ? String.format("%8s", "-") : String.format("%8.2f", durations[i] / 1e6));
+                for (int p = 0; p < phaseNames.length; p++) {
+                    long nanos = durations[i] < 0 ? 0 : phases[i * phaseNames.length + p];
+                    out.append(String.format(" %8.2f", nanos / 1e6));
+                }
+                out.append(String.format(" %8d  %s", entities[i], describeInput(inputs[i])));
+                if (i == count - 1) out.append("  <- hitch");
+                out.append('\n');
+            }
+        }
+
+        private String describeInput(int input) {
+            String[] names = heartbeat.inputNames;
+            if (names == null) return String.valueOf(input);
+            StringBuilder out = new StringBuilder();
+            for (int bit = 0; bit < names.length; bit++) {
+                if ((input & (1 << bit)) == 0) continue;
+                if (out.length() > 0) out.append('+');
+                out.append(names[bit]);
+            }
+            return out.length() > 0 ? out.toString() : "-";
+        }
+    }
+}
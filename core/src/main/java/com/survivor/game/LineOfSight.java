@@ -0,0 +1,105 @@
+package com.survivor.game;
+
+import java.util.List;
+
+/**
+ * Tile-grid line-of-sight checks using a DDA (Amanatides-Woo) walk over the
+ * map's {@link CollisionMask}.
+ *
+ * Results are cached on each enemy and only recomputed when the enemy or the
+ * player moves into a different tile, so a frame where nobody crosses a tile
+ * boundary costs one integer comparison per enemy.
+ */
+public class LineOfSight {
+    private CollisionMask mask;
+    private boolean maskChanged = false;
+
+    public LineOfSight(CollisionMask mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Tests against a different mask from now on, e.g. after a streamed world
+     * loaded chunks. Every enemy is recast on the next {@link #refresh}.
+     */
+    public void setMask(CollisionMask mask) {
+        this.mask = mask;
+        maskChanged = true;
+    }
+
+    /**
+     * Refreshes the cached visibility of the player for every enemy in the list.
+     * Call once per frame before the enemies update.
+     */
+    public void refresh(List<Enemy> enemies, Player player) {
+        float playerX = player.getPosition().x;
+        float playerY = player.getPosition().y;
+        int playerTile = tileKey(playerX, playerY);
+
+        for (int i = 0, n = enemies.size(); i < n; i++) {
+            Enemy enemy = enemies.get(i);
+            float enemyX = enemy.getPosition().x;
+            float enemyY = enemy.getPosition().y;
+            int enemyTile = tileKey(enemyX, enemyY);
+
+            if (maskChanged || enemyTile != enemy.losEnemyTile || playerTile != enemy.losPlayerTile) {
+                enemy.losEnemyTile = enemyTile;
+                enemy.losPlayerTile = playerTile;
+                enemy.canSeePlayer = hasLineOfSight(enemyX, enemyY, playerX, playerY);
+            }
+        }
+        maskChanged = false;
+    }
+
+    /**
+     * Walks every tile the segment passes through. The tiles holding the two end
+     * points are ignored so an entity brushing against a wall can still see out,
+     * and tiles outside the map count as open ground.
+     *
+     * @return true if no blocked tile lies between the two points
+     */
+    public boolean hasLineOfSight(float fromX, float fromY, float toX, float toY) {
+        float tileWidth = mask.getTileWidth();
+        float tileHeight = mask.getTileHeight();
+        int tileX = mask.toTileX(fromX);
+        int tileY = mask.toTileY(fromY);
+        int endX = mask.toTileX(toX);
+        int endY = mask.toTileY(toY);
+
+        float dx = toX - fromX;
+        float dy = toY - fromY;
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+
+        // Parametric distance (0..1 along the segment) to the next vertical/horizontal grid line
+        float tMaxX = stepX > 0 ? ((tileX + 1) * tileWidth - fromX) / dx
+            : stepX < 0 ? (tileX * tileWidth - fromX) / dx : Float.MAX_VALUE;
+        float tMaxY = stepY > 0 ? ((tileY + 1) * tileHeight - fromY) / dy
+            : stepY < 0 ? (tileY * tileHeight - fromY) / dy : Float.MAX_VALUE;
+        float tDeltaX = stepX != 0 ? tileWidth / Math.abs(dx) : Float.MAX_VALUE;
+        float tDeltaY = stepY != 0 ? tileHeight / Math.abs(dy) : Float.MAX_VALUE;
+
+        int steps = Math.abs(endX - tileX) + Math.abs(endY - tileY);
+        for (int i = 0; i < steps; i++) {
+            if (tMaxX < tMaxY) {
+                tMaxX += tDeltaX;
+                tileX += stepX;
+            } else {
+                tMaxY += tDeltaY;
+                tileY += stepY;
+            }
+            if (tileX == endX && tileY == endY) {
+                return true;
+            }
+            if (mask.isInside(tileX, tileY) && mask.isBlocked(tileX, tileY)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int tileKey(float worldX, float worldY) {
+        // Packed rather than row-major so tiles outside the map still get distinct keys
+        return (mask.toTileY(worldY) << 16) | (mask.toTileX(worldX) & 0xFFFF);
+    }
+}
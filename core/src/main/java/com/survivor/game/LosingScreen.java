@@ -25,7 +25,7 @@ public class LosingScreen implements Screen {
         this.gameScreen = gameScreen; // Initialize the GameScreen
         this.stage = new Stage(new FitViewport(800, 600));
         this.batch = new SpriteBatch();
-        this.lostImage = new Texture(Gdx.files.internal("lost.png"));
+        this.lostImage = ParallelTextureLoader.getShared().get("lost.png");
 
         Gdx.input.setInputProcessor(stage);
         createUI();
@@ -36,8 +36,8 @@ public class LosingScreen implements Screen {
         table.setFillParent(true);
         stage.addActor(table);
 
-        Texture retryTexture = new Texture(Gdx.files.internal("retry.png"));
-        Texture returnTexture = new Texture(Gdx.files.internal("return_to_main_menu.png"));
+        Texture retryTexture = ParallelTextureLoader.getShared().get("retry.png");
+        Texture returnTexture = ParallelTextureLoader.getShared().get("return_to_main_menu.png");
 
         ImageButton retryButton = new ImageButton(new TextureRegionDrawable(retryTexture));
         retryButton.addListener(new ChangeListener() {
@@ -92,8 +92,7 @@ public class LosingScreen implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
-        batch.dispose();
-        lostImage.dispose();
+        batch.dispose(); // Textures are shared through ParallelTextureLoader
     }
 
     @Override
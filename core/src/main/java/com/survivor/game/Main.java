@@ -3,10 +3,37 @@ package com.survivor.game;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.files.FileHandle;
 
 public class Main extends Game {
+    private static final String[] PRELOADED_TEXTURES = {
+        "background.png", "The_Survivor.png", "play_button.png", "quit_button.png",
+        "player_spritesheet.png", "Mushroom-Run.png", "Mushroom-Attack.png",
+        "FinalBoss-Run.png", "FinalBoss-Attack.png", "FinalBoss-Death.png", "FinalBoss-Take-Hit.png",
+        "Arrow01(32x32).png", "pause_menu.png", "resume_button.png", "return_to_main_menu.png", "Play_Again.png"
+    };
+
+    private AdminServer adminServer;
+
     @Override
     public void create() {
+        // Serve assets from the pack built by packAssets when one ships with the game
+        FileHandle pack = Gdx.files.local(AssetPack.FILE_NAME);
+        if (pack.exists()) {
+            Gdx.files = new PackedFiles(Gdx.files, AssetPack.open(pack));
+            Gdx.app.log("Main", "Loading assets from " + AssetPack.FILE_NAME);
+        }
+
+        // Live metrics and a world dump over HTTP, when a port is given with -Dsurvivor.adminPort
+        GameMetrics metrics = GameMetrics.getShared();
+        metrics.watchGarbageCollection();
+        metrics.gauge("survivor_texture_bytes", "Estimated video memory of the textures loaded so far", null,
+            ParallelTextureLoader::sharedTextureBytes);
+        adminServer = AdminServer.startIfConfigured(metrics, 0);
+
+        // Start decoding every sheet the game uses; the menu uploads them a few per frame
+        ParallelTextureLoader.getShared().load(PRELOADED_TEXTURES);
+
         // Set the game to full-screen mode
         Graphics.DisplayMode displayMode = Gdx.graphics.getDisplayMode();
         Gdx.graphics.setFullscreenMode(displayMode);
@@ -19,5 +46,14 @@ public class Main extends Game {
         if (getScreen() != null) {
             getScreen().dispose();
         }
+        ParallelTextureLoader.disposeShared();
+        if (adminServer != null) adminServer.stop();
+    }
+
+    /**
+     * @return the admin endpoint, or null if the game was started without one
+     */
+    public AdminServer getAdminServer() {
+        return adminServer;
     }
 }
@@ -1,5 +1,7 @@
 package com.survivor.game;
 
+import java.net.InetSocketAddress;
+
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.GL20;
@@ -34,8 +36,8 @@ public class MainMenuScreen implements Screen {
 
         Gdx.input.setInputProcessor(stage);
 
-        backgroundTexture = new Texture(Gdx.files.internal("background.png"));
-        titleTexture = new Texture(Gdx.files.internal("The_Survivor.png")); // Load the title texture
+        backgroundTexture = ParallelTextureLoader.getShared().get("background.png");
+        titleTexture = ParallelTextureLoader.getShared().get("The_Survivor.png"); // Load the title texture
 
         createUI();
     }
@@ -47,14 +49,20 @@ public class MainMenuScreen implements Screen {
 
         table.left().padLeft(50);
 
-        Texture playTexture = new Texture(Gdx.files.internal("play_button.png"));
-        Texture quitTexture = new Texture(Gdx.files.internal("quit_button.png"));
+        Texture playTexture = ParallelTextureLoader.getShared().get("play_button.png");
+        Texture quitTexture = ParallelTextureLoader.getShared().get("quit_button.png");
 
         ImageButton playButton = new ImageButton(new TextureRegionDrawable(playTexture));
         playButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
-                game.setScreen(new GameScreen(game)); // Pass the Main instance to GameScreen
+                // Join a dedicated server when one is configured, otherwise play locally
+                InetSocketAddress server = NetworkGameScreen.configuredServer();
+                if (server != null) {
+                    game.setScreen(new NetworkGameScreen(game, server, NetworkGameScreen.configuredRoom()));
+                } else {
+                    game.setScreen(new GameScreen(game)); // Pass the Main instance to GameScreen
+                }
                 dispose();
             }
         });
@@ -73,6 +81,8 @@ public class MainMenuScreen implements Screen {
 
     @Override
     public void render(float delta) {
+        ParallelTextureLoader.getShared().update(); // Upload preloaded sheets while the menu is up
+
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
@@ -109,9 +119,7 @@ public class MainMenuScreen implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
-        batch.dispose();
-        backgroundTexture.dispose();
-        titleTexture.dispose(); // Dispose of the title texture
+        batch.dispose(); // Textures are shared through ParallelTextureLoader
     }
 
     @Override
@@ -0,0 +1,360 @@
+package com.survivor.game;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Build-time tool that turns a Tiled map into the binary format read by
+ * {@link BinaryMapLoader}. Run by the {@code compileMaps} Gradle task for every
+ * .tmx under assets; each map is written next to its source as a .bin file.
+ *
+ * Everything the game would otherwise work out at launch is done here: external
+ * tile sets are resolved and cut into region tables, CSV layers become rows of
+ * packed shorts in libGDX order (bottom row first), and the object layer is
+ * reduced to merged obstacle rectangles using the same rules as {@link MapManager}.
+ * Only plain Java is used, so the tool runs without a GL context or natives.
+ *
+ * Supported: orthogonal maps, tile sets with a single image (embedded or .tsx),
+ * CSV tile layers and one "Objects" object group. Anything else fails the build
+ * rather than producing a map that silently differs from the .tmx.
+ */
+public class MapCompiler {
+    private static final int FLIPPED_HORIZONTALLY = 0x80000000;
+    private static final int FLIPPED_VERTICALLY = 0x40000000;
+    private static final int FLIPPED_DIAGONALLY = 0x20000000;
+    private static final int GID_MASK = 0x1FFFFFFF;
+
+    private static class TileSetData {
+        String name;
+        int firstGid;
+        String imagePath; // Relative to the map's folder
+        int tileWidth;
+        int tileHeight;
+        int offsetX;
+        int offsetY;
+        short[] regions; // x, y of each tile in the image
+        final List<String[]> properties = new ArrayList<>(); // name, type, value
+    }
+
+    private static class LayerData {
+        String name;
+        float opacity;
+        boolean visible;
+        float offsetX;
+        float offsetY;
+        short[] cells;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: MapCompiler <map.tmx>...");
+            System.exit(1);
+        }
+        for (String path : args) {
+            File source = new File(path).getAbsoluteFile();
+            File target = new File(source.getParentFile(), compiledName(source.getName()));
+            long start = System.nanoTime();
+            compile(source, target);
+            System.out.printf("Compiled %s -> %s (%d bytes, %.1f ms)%n", source.getName(), target.getName(),
+                target.length(), (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * @return the file name the compiled form of a map is stored under, e.g. map.tmx -> map.bin
+     */
+    public static String compiledName(String mapName) {
+        int dot = mapName.lastIndexOf('.');
+        return (dot >= 0 ? mapName.substring(0, dot) : mapName) + ".bin";
+    }
+
+    public static void compile(File source, File target) throws Exception {
+        Element map = parse(source);
+        if (!"orthogonal".equals(map.getAttribute("orientation"))) {
+            throw new IOException(source + ": only orthogonal maps are supported");
+        }
+        int width = intAttribute(map, "width", 0);
+        int height = intAttribute(map, "height", 0);
+        int tileWidth = intAttribute(map, "tilewidth", 0);
+        int tileHeight = intAttribute(map, "tileheight", 0);
+
+        List<TileSetData> tileSets = new ArrayList<>();
+        List<LayerData> layers = new ArrayList<>();
+        Array<Rectangle> obstacles = new Array<>();
+
+        NodeList children = map.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node node = children.item(i);
+            if (!(node instanceof Element)) continue;
+            Element element = (Element) node;
+            switch (element.getTagName()) {
+                case "tileset":
+                    tileSets.add(readTileSet(source, element));
+                    break;
+                case "layer":
+                    layers.add(readLayer(source, element, width, height));
+                    break;
+                case "objectgroup":
+                    if ("Objects".equals(element.getAttribute("name"))) {
+                        readObstacles(element, height * tileHeight, obstacles);
+                    }
+                    break;
+                case "properties":
+                case "editorsettings":
+                    break;
+                default:
+                    throw new IOException(source + ": unsupported element <" + element.getTagName() + ">");
+            }
+        }
+        obstacles = ObstacleOptimizer.optimize(obstacles, MapManager.OBSTACLE_SNAP);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)))) {
+            out.writeInt(BinaryMapLoader.MAGIC);
+            out.writeInt(BinaryMapLoader.VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(tileWidth);
+            out.writeInt(tileHeight);
+
+            out.writeInt(tileSets.size());
+            for (TileSetData tileSet : tileSets) {
+                writeString(out, tileSet.name);
+                out.writeInt(tileSet.firstGid);
+                writeString(out, tileSet.imagePath);
+                out.writeInt(tileSet.tileWidth);
+                out.writeInt(tileSet.tileHeight);
+                out.writeInt(tileSet.offsetX);
+                out.writeInt(tileSet.offsetY);
+                out.writeInt(tileSet.properties.size());
+                for (String[] property : tileSet.properties) {
+                    writeString(out, property[0]);
+                    out.writeByte(propertyType(property[1]));
+                    writeString(out, property[2]);
+                }
+                out.writeInt(tileSet.regions.length / 2);
+                for (short value : tileSet.regions) {
+                    out.writeShort(value);
+                }
+            }
+
+            out.writeInt(layers.size());
+            for (LayerData layer : layers) {
+                writeString(out, layer.name);
+                out.writeFloat(layer.opacity);
+                out.writeBoolean(layer.visible);
+                out.writeFloat(layer.offsetX);
+                out.writeFloat(layer.offsetY);
+                for (short cell : layer.cells) {
+                    out.writeShort(cell);
+                }
+            }
+
+            out.writeInt(obstacles.size);
+            for (Rectangle rect : obstacles) {
+                out.writeFloat(rect.x);
+                out.writeFloat(rect.y);
+                out.writeFloat(rect.width);
+                out.writeFloat(rect.height);
+            }
+        }
+    }
+
+    private static TileSetData readTileSet(File mapFile, Element element) throws Exception {
+        TileSetData tileSet = new TileSetData();
+        tileSet.firstGid = intAttribute(element, "firstgid", 1);
+
+        // External tile sets keep their image path relative to the .tsx
+        File base = mapFile.getParentFile();
+        String sourcePath = element.getAttribute("source");
+        if (!sourcePath.isEmpty()) {
+            File tsx = new File(base, sourcePath);
+            element = parse(tsx);
+            base = tsx.getParentFile();
+        }
+
+        tileSet.name = element.getAttribute("name");
+        tileSet.tileWidth = intAttribute(element, "tilewidth", 0);
+        tileSet.tileHeight = intAttribute(element, "tileheight", 0);
+        int spacing = intAttribute(element, "spacing", 0);
+        int margin = intAttribute(element, "margin", 0);
+
+        Element offset = firstChild(element, "tileoffset");
+        if (offset != null) {
+            tileSet.offsetX = intAttribute(offset, "x", 0);
+            tileSet.offsetY = intAttribute(offset, "y", 0);
+        }
+        readProperties(firstChild(element, "properties"), tileSet.properties);
+        if (firstChild(element, "tile") != null) {
+            throw new IOException(mapFile + ": per-tile data in tile set " + tileSet.name + " is not supported");
+        }
+
+        Element image = firstChild(element, "image");
+        if (image == null) {
+            throw new IOException(mapFile + ": tile set " + tileSet.name + " has no single image");
+        }
+        File imageFile = new File(base, image.getAttribute("source"));
+        tileSet.imagePath = relativePath(mapFile.getParentFile(), imageFile);
+        int imageWidth = intAttribute(image, "width", 0);
+        int imageHeight = intAttribute(image, "height", 0);
+
+        // Same walk over the image as TmxMapLoader, so tile ids line up
+        List<Short> regions = new ArrayList<>();
+        for (int y = margin; y <= imageHeight - tileSet.tileHeight; y += tileSet.tileHeight + spacing) {
+            for (int x = margin; x <= imageWidth - tileSet.tileWidth; x += tileSet.tileWidth + spacing) {
+                regions.add((short) x);
+                regions.add((short) y);
+            }
+        }
+        tileSet.regions = new short[regions.size()];
+        for (int i = 0; i < tileSet.regions.length; i++) {
+            tileSet.regions[i] = regions.get(i);
+        }
+        return tileSet;
+    }
+
+    private static LayerData readLayer(File mapFile, Element element, int width, int height) throws IOException {
+        LayerData layer = new LayerData();
+        layer.name = element.getAttribute("name");
+        layer.opacity = floatAttribute(element, "opacity", 1f);
+        layer.visible = intAttribute(element, "visible", 1) == 1;
+        layer.offsetX = floatAttribute(element, "offsetx", 0f);
+        layer.offsetY = floatAttribute(element, "offsety", 0f);
+        if (intAttribute(element, "width", width) != width || intAttribute(element, "height", height) != height) {
+            throw new IOException(mapFile + ": layer " + layer.name + " does not match the map size");
+        }
+
+        Element data = firstChild(element, "data");
+        if (data == null || !"csv".equals(data.getAttribute("encoding"))) {
+            throw new IOException(mapFile + ": layer " + layer.name + " must use CSV encoding");
+        }
+        String[] values = data.getTextContent().trim().split("\\s*,\\s*");
+        if (values.length != width * height) {
+            throw new IOException(mapFile + ": layer " + layer.name + " has " + values.length + " tiles");
+        }
+
+        layer.cells = new short[width * height];
+        for (int i = 0; i < values.length; i++) {
+            int gid = (int) Long.parseLong(values[i]);
+            int id = gid & GID_MASK;
+            if (id > BinaryMapLoader.CELL_ID_MASK) {
+                throw new IOException(mapFile + ": tile id " + id + " does not fit the binary format");
+            }
+            int cell = id;
+            if ((gid & FLIPPED_HORIZONTALLY) != 0) cell |= BinaryMapLoader.CELL_FLIP_HORIZONTALLY;
+            if ((gid & FLIPPED_VERTICALLY) != 0) cell |= BinaryMapLoader.CELL_FLIP_VERTICALLY;
+            if ((gid & FLIPPED_DIAGONALLY) != 0) cell |= BinaryMapLoader.CELL_FLIP_DIAGONALLY;
+
+            // Tiled stores the top row first, libGDX the bottom row
+            int x = i % width;
+            int y = height - 1 - i / width;
+            layer.cells[y * width + x] = (short) cell;
+        }
+        return layer;
+    }
+
+    /**
+     * Same selection and y flip as MapManager applies to the objects TmxMapLoader
+     * creates, so both paths end up with identical colliders.
+     */
+    private static void readObstacles(Element group, float mapHeight, Array<Rectangle> out) {
+        NodeList objects = group.getElementsByTagName("object");
+        for (int i = 0; i < objects.getLength(); i++) {
+            Element object = (Element) objects.item(i);
+            String name = object.hasAttribute("name") ? object.getAttribute("name") : null;
+            String type = object.hasAttribute("type") ? object.getAttribute("type") : null;
+
+            List<String[]> properties = new ArrayList<>();
+            readProperties(firstChild(object, "properties"), properties);
+            for (String[] property : properties) {
+                if ("type".equals(property[0])) type = property[2];
+            }
+            if (!MapManager.isObstacle(name, type)) continue;
+
+            float x = floatAttribute(object, "x", 0f);
+            float y = floatAttribute(object, "y", 0f);
+            float width = floatAttribute(object, "width", 0f);
+            float height = floatAttribute(object, "height", 0f);
+            out.add(new Rectangle(x, mapHeight - y - height, width, height));
+        }
+    }
+
+    private static void readProperties(Element properties, List<String[]> out) {
+        if (properties == null) return;
+        NodeList list = properties.getElementsByTagName("property");
+        for (int i = 0; i < list.getLength(); i++) {
+            Element property = (Element) list.item(i);
+            String value = property.hasAttribute("value") ? property.getAttribute("value") : property.getTextContent();
+            out.add(new String[] {property.getAttribute("name"), property.getAttribute("type"), value});
+        }
+    }
+
+    private static int propertyType(String type) {
+        switch (type) {
+            case "bool":
+                return BinaryMapLoader.PROPERTY_BOOLEAN;
+            case "int":
+                return BinaryMapLoader.PROPERTY_INT;
+            case "float":
+                return BinaryMapLoader.PROPERTY_FLOAT;
+            default:
+                return BinaryMapLoader.PROPERTY_STRING;
+        }
+    }
+
+    private static Element parse(File file) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+        return document.getDocumentElement();
+    }
+
+    private static Element firstChild(Element parent, String tag) {
+        NodeList children = parent.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node node = children.item(i);
+            if (node instanceof Element && ((Element) node).getTagName().equals(tag)) {
+                return (Element) node;
+            }
+        }
+        return null;
+    }
+
+    private static int intAttribute(Element element, String name, int defaultValue) {
+        String value = element.getAttribute(name);
+        return value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static float floatAttribute(Element element, String name, float defaultValue) {
+        String value = element.getAttribute(name);
+        return value.isEmpty() ? defaultValue : Float.parseFloat(value);
+    }
+
+    private static String relativePath(File base, File file) throws IOException {
+        String basePath = base.getCanonicalFile().toURI().getPath();
+        String filePath = file.getCanonicalFile().toURI().getPath();
+        if (!filePath.startsWith(basePath)) {
+            throw new IOException(file + " is outside of " + base);
+        }
+        return filePath.substring(basePath.length());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
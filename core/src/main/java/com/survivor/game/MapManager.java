@@ -1,23 +1,154 @@
 package com.survivor.game;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.MapObject;
 import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntSet;
 
 public class MapManager {
+    private static final String TAG = "MapManager";
     private TiledMap map;
     private Array<Rectangle> obstacles;
+    private ObstacleIndex obstacleIndex;
+    private CollisionMask collisionMask;
+    private NavGrid navGrid;
+
+    // Cell size of the obstacle index; about twice the size of the player
+    private static final float OBSTACLE_CELL_SIZE = 64f;
+
+    // Obstacle edges are rounded to this many pixels before merging, closing hairline gaps
+    static final float OBSTACLE_SNAP = 2f;
+
+    // Tile layers whose tiles can block movement, if their tileset says so
+    static final String[] BLOCKING_TILE_LAYERS = {"Props", "Stairs"};
 
     public MapManager(String mapPath) {
-        // Load the Tiled map
-        map = new TmxMapLoader().load(mapPath);
-        
-        // Load obstacles
+        this(mapPath, true);
+    }
+
+    /**
+     * @param loadTextures false for the dedicated server, which has no GL context.
+     * Only compiled maps can be loaded that way, since TmxMapLoader always creates textures.
+     */
+    public MapManager(String mapPath, boolean loadTextures) {
         obstacles = new Array<>();
-        loadObstacles();
+
+        // Prefer the compiled map from the compileMaps task, recompiled if the .tmx was edited after it
+        FileHandle compiled = compiledMap(Gdx.files.internal(mapPath));
+        long start = System.nanoTime();
+        GameEvents.Span loadEvent = GameEvents.mapLoad(mapPath);
+        boolean precompiled;
+        if (compiled == null && !loadTextures) {
+            throw new GdxRuntimeException("No up-to-date compiled " + mapPath + "; run the compileMaps task first");
+        }
+        if (compiled != null) {
+            map = BinaryMapLoader.load(compiled, obstacles, loadTextures);
+            precompiled = true;
+        } else {
+            // Load the Tiled map
+            map = new TmxMapLoader().load(mapPath);
+
+            // Load obstacles
+            loadObstacles();
+            precompiled = false;
+        }
+        loadEvent.close();
+        float loadMillis = (System.nanoTime() - start) / 1e6f;
+
+        float mapWidth = map.getProperties().get("width", Integer.class) *
+            map.getProperties().get("tilewidth", Integer.class);
+        float mapHeight = map.getProperties().get("height", Integer.class) *
+            map.getProperties().get("tileheight", Integer.class);
+        obstacleIndex = new ObstacleIndex(obstacles, mapWidth, mapHeight, OBSTACLE_CELL_SIZE);
+
+        // Bake obstacles and blocking tiles into one bitmask, then build the tile graph on top
+        buildCollisionMask();
+        navGrid = new NavGrid(collisionMask);
+        Gdx.app.log(TAG, String.format("Loaded %s%s in %.1f ms: %d obstacles, %d blocked tiles", mapPath,
+            precompiled ? " (precompiled)" : "", loadMillis, obstacles.size, collisionMask.countBlocked()));
+    }
+
+    /**
+     * Finds the compiled form of a map written by the compileMaps task. When it is
+     * missing or older than the .tmx, and the .tmx is a file on disk, as when the
+     * game runs from an IDE or after editing the map, it is compiled again in place.
+     *
+     * @return the compiled map, or null if there is no up-to-date one and it couldn't be written
+     */
+    static FileHandle compiledMap(FileHandle tmx) {
+        FileHandle compiled = tmx.sibling(MapCompiler.compiledName(tmx.name()));
+        if (compiled.exists() && (!tmx.exists() || compiled.lastModified() >= tmx.lastModified())) {
+            return compiled;
+        }
+        if (!tmx.exists() || !tmx.file().exists()) {
+            return null;
+        }
+        try {
+            long start = System.nanoTime();
+            MapCompiler.compile(tmx.file().getAbsoluteFile(), compiled.file().getAbsoluteFile());
+            Gdx.app.log(TAG, String.format("Recompiled %s in %.1f ms", tmx.path(), (System.nanoTime() - start) / 1e6f));
+            return compiled;
+        } catch (Exception e) {
+            Gdx.app.error(TAG, "Couldn't compile " + tmx.path(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Combines the obstacle rectangles with every tile on {@link #BLOCKING_TILE_LAYERS}
+     * whose tileset has the boolean property "blocking" set.
+     */
+    private void buildCollisionMask() {
+        collisionMask = new CollisionMask(
+            map.getProperties().get("width", Integer.class),
+            map.getProperties().get("height", Integer.class),
+            map.getProperties().get("tilewidth", Integer.class),
+            map.getProperties().get("tileheight", Integer.class));
+
+        for (Rectangle obstacle : obstacles) {
+            collisionMask.markRect(obstacle);
+        }
+
+        IntSet blockingTileIds = blockingTileIds(map.getTileSets());
+        for (String layerName : BLOCKING_TILE_LAYERS) {
+            MapLayer layer = map.getLayers().get(layerName);
+            if (!(layer instanceof TiledMapTileLayer)) continue;
+
+            TiledMapTileLayer tileLayer = (TiledMapTileLayer) layer;
+            for (int y = 0; y < tileLayer.getHeight(); y++) {
+                for (int x = 0; x < tileLayer.getWidth(); x++) {
+                    TiledMapTileLayer.Cell cell = tileLayer.getCell(x, y);
+                    if (cell != null && cell.getTile() != null && blockingTileIds.contains(cell.getTile().getId())) {
+                        collisionMask.setBlocked(x, y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the ids of all tiles belonging to tilesets with the "blocking" property
+     */
+    static IntSet blockingTileIds(TiledMapTileSets tileSets) {
+        IntSet ids = new IntSet();
+        for (TiledMapTileSet tileSet : tileSets) {
+            if (Boolean.TRUE.equals(tileSet.getProperties().get("blocking"))) {
+                for (TiledMapTile tile : tileSet) {
+                    ids.add(tile.getId());
+                }
+            }
+        }
+        return ids;
     }
 
     private void loadObstacles() {
@@ -29,26 +160,8 @@ public class MapManager {
                 // Get object name (may be null if not set)
                 String objectName = object.getName();
                 
-                // Check if this object should be an obstacle based on its name
-                boolean isObstacle = false;
-                if (objectName != null) {
-                    // Make obstacles from objects with specific names (customize this list)
-                    isObstacle = objectName.contains("Wall") || 
-                                 objectName.contains("Obstacle");
-                }
-                
-                // You can also check the object's type property
                 String objectType = object.getProperties().get("type", String.class);
-                if (objectType != null && objectType.equals("obstacle")) {
-                    isObstacle = true;
-                }
-                
-                // If we couldn't determine by name/type, assume all objects are obstacles
-                if (objectName == null && objectType == null) {
-                    isObstacle = true;
-                }
-                
-                if (isObstacle) {
+                if (isObstacle(objectName, objectType)) {
                     float x = object.getProperties().get("x", Float.class);
                     float y = object.getProperties().get("y", Float.class);
                     float width = object.getProperties().get("width", Float.class);
@@ -66,20 +179,37 @@ public class MapManager {
         }
         
         System.out.println("Total obstacles loaded: " + obstacles.size);
+
+        // Merge touching and overlapping rectangles into fewer, larger colliders
+        obstacles = ObstacleOptimizer.optimize(obstacles, OBSTACLE_SNAP);
     }
     
+    /**
+     * Decides which map objects become obstacles. Shared with {@link MapCompiler}
+     * so compiled maps get the same colliders.
+     */
+    static boolean isObstacle(String objectName, String objectType) {
+        // Make obstacles from objects with specific names (customize this list)
+        if (objectName != null && (objectName.contains("Wall") || objectName.contains("Obstacle"))) {
+            return true;
+        }
+
+        // You can also check the object's type property
+        if ("obstacle".equals(objectType)) {
+            return true;
+        }
+
+        // If we couldn't determine by name/type, assume all objects are obstacles
+        return objectName == null && objectType == null;
+    }
+
     /**
      * Checks if a rectangle (player) collides with any obstacle
      * @param rectangle The rectangle representing the player's bounds
      * @return true if collision detected, false otherwise
      */
     public boolean collidesWithObstacle(Rectangle rectangle) {
-        for (Rectangle obstacle : obstacles) {
-            if (rectangle.overlaps(obstacle)) {
-                return true;
-            }
-        }
-        return false;
+        return obstacleIndex.overlapsAny(rectangle.x, rectangle.y, rectangle.width, rectangle.height);
     }
     
     /**
@@ -102,4 +232,16 @@ public class MapManager {
     public Array<Rectangle> getObstacles() {
         return obstacles;
     }
+
+    public ObstacleIndex getObstacleIndex() {
+        return obstacleIndex;
+    }
+
+    public CollisionMask getCollisionMask() {
+        return collisionMask;
+    }
+
+    public NavGrid getNavGrid() {
+        return navGrid;
+    }
 }
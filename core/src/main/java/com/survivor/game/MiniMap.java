@@ -8,7 +8,6 @@ import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.math.Vector2;
 
 public class MiniMap {
@@ -18,22 +17,17 @@ public class MiniMap {
     private static final Color BORDER_COLOR = Color.WHITE;
     private static final float DOT_SIZE = 4f;
     
-    private final OrthographicCamera minimapCamera;
     private final SpriteBatch batch;
     private final ShapeRenderer shapeRenderer;
-    private final TiledMap map;
     private final Texture minimapTexture;
-    private final float mapWidth;
-    private final float mapHeight;
+    private final float range;
     
-    public MiniMap(TiledMap map, float mapWidth, float mapHeight) {
-        this.map = map;
-        this.mapWidth = mapWidth;
-        this.mapHeight = mapHeight;
-        
-        minimapCamera = new OrthographicCamera(MINIMAP_SIZE, MINIMAP_SIZE);
-        minimapCamera.position.set(mapWidth / 2, mapHeight / 2, 0);
-        minimapCamera.update();
+    /**
+     * @param range world units shown across the minimap, centred on the player;
+     * the world may be far larger, or have no edge at all
+     */
+    public MiniMap(float range) {
+        this.range = range;
         
         batch = new SpriteBatch();
         shapeRenderer = new ShapeRenderer();
@@ -79,8 +73,9 @@ public class MiniMap {
         batch.end();
         
         // Calculate scaling factor between world coordinates and minimap coordinates
-        float scaleX = MINIMAP_SIZE / mapWidth;
-        float scaleY = MINIMAP_SIZE / mapHeight;
+        float scale = MINIMAP_SIZE / range;
+        float centerX = mapX + MINIMAP_SIZE / 2;
+        float centerY = mapY + MINIMAP_SIZE / 2;
         
         // Draw dots with ShapeRenderer - ensure we're not already in a batch
         try {
@@ -89,16 +84,17 @@ public class MiniMap {
             
             // Draw player dot (blue)
             shapeRenderer.setColor(PLAYER_DOT_COLOR);
-            float playerX = mapX + playerPosition.x * scaleX - DOT_SIZE/2;
-            float playerY = mapY + playerPosition.y * scaleY - DOT_SIZE/2;
-            shapeRenderer.rect(playerX, playerY, DOT_SIZE, DOT_SIZE);
+            shapeRenderer.rect(centerX - DOT_SIZE/2, centerY - DOT_SIZE/2, DOT_SIZE, DOT_SIZE);
             
             // Draw enemy dots (red)
             shapeRenderer.setColor(ENEMY_DOT_COLOR);
             for (Enemy enemy : enemies) {
                 Vector2 enemyPos = enemy.getPosition();
-                float enemyX = mapX + enemyPos.x * scaleX - DOT_SIZE/2;
-                float enemyY = mapY + enemyPos.y * scaleY - DOT_SIZE/2;
+                float dx = enemyPos.x - playerPosition.x;
+                float dy = enemyPos.y - playerPosition.y;
+                if (Math.abs(dx) > range / 2 || Math.abs(dy) > range / 2) continue; // Off the minimap
+                float enemyX = centerX + dx * scale - DOT_SIZE/2;
+                float enemyY = centerY + dy * scale - DOT_SIZE/2;
                 shapeRenderer.rect(enemyX, enemyY, DOT_SIZE, DOT_SIZE);
             }
             
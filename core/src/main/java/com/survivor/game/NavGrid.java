@@ -0,0 +1,129 @@
+package com.survivor.game;
+
+/**
+ * Tile graph used for pathfinding, built from the map's {@link CollisionMask}.
+ * Every tile also stores its clearance: the Chebyshev distance (in tiles) to the
+ * nearest blocked tile or map border, so large agents can test whether their
+ * footprint fits around a tile with a single lookup.
+ *
+ * The grid covers the same window of tiles as its mask; tile coordinates are
+ * world tiles. Instances never change after construction, so a planner thread
+ * can keep searching one while a newer grid is built.
+ */
+public class NavGrid {
+    private final CollisionMask mask;
+    private final int originX;
+    private final int originY;
+    private final int width;
+    private final int height;
+    private final int[] clearance;
+
+    public NavGrid(CollisionMask mask) {
+        this.mask = mask;
+        this.originX = mask.getOriginX();
+        this.originY = mask.getOriginY();
+        this.width = mask.getWidth();
+        this.height = mask.getHeight();
+        this.clearance = new int[width * height];
+
+        computeClearance();
+    }
+
+    /**
+     * Two-pass chamfer distance transform with the Chebyshev metric. Blocked tiles
+     * get 0, tiles next to a wall or the map edge get 1, and so on.
+     */
+    private void computeClearance() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (mask.isBlocked(originX + x, originY + y)) {
+                    clearance[i] = 0;
+                    continue;
+                }
+                int best = Math.min(Math.min(x + 1, y + 1), Math.min(width - x, height - y));
+                if (x > 0) best = Math.min(best, clearance[i - 1] + 1);
+                if (y > 0) {
+                    best = Math.min(best, clearance[i - width] + 1);
+                    if (x > 0) best = Math.min(best, clearance[i - width - 1] + 1);
+                    if (x < width - 1) best = Math.min(best, clearance[i - width + 1] + 1);
+                }
+                clearance[i] = best;
+            }
+        }
+
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                int i = y * width + x;
+                if (clearance[i] == 0) continue;
+                int best = clearance[i];
+                if (x < width - 1) best = Math.min(best, clearance[i + 1] + 1);
+                if (y < height - 1) {
+                    best = Math.min(best, clearance[i + width] + 1);
+                    if (x < width - 1) best = Math.min(best, clearance[i + width + 1] + 1);
+                    if (x > 0) best = Math.min(best, clearance[i + width - 1] + 1);
+                }
+                clearance[i] = best;
+            }
+        }
+    }
+
+    public boolean isInside(int tileX, int tileY) {
+        return mask.isInside(tileX, tileY);
+    }
+
+    public boolean isBlocked(int tileX, int tileY) {
+        return mask.isBlocked(tileX, tileY);
+    }
+
+    /**
+     * @return how many tiles of free space surround the tile (0 if blocked or outside the map)
+     */
+    public int getClearance(int tileX, int tileY) {
+        return isInside(tileX, tileY) ? clearance[(tileY - originY) * width + tileX - originX] : 0;
+    }
+
+    public int toTileX(float worldX) {
+        return mask.toTileX(worldX);
+    }
+
+    public int toTileY(float worldY) {
+        return mask.toTileY(worldY);
+    }
+
+    public float tileCenterX(int tileX) {
+        return mask.tileCenterX(tileX);
+    }
+
+    public float tileCenterY(int tileY) {
+        return mask.tileCenterY(tileY);
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getTileWidth() {
+        return mask.getTileWidth();
+    }
+
+    public float getTileHeight() {
+        return mask.getTileHeight();
+    }
+
+    public CollisionMask getMask() {
+        return mask;
+    }
+}
@@ -0,0 +1,72 @@
+package com.survivor.game;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Packet layouts shared by {@link GameClient} and the dedicated server. Every
+ * datagram starts with {@link #PROTOCOL_ID} and a packet type byte; values are
+ * big-endian, the ByteBuffer default.
+ *
+ * A client sends CONNECT, naming the room it wants to play in, until it gets
+ * WELCOME (its player id and the tick rate) or REJECT, then one INPUT per frame, which the server applies with the frame
+ * time it was predicted with. The server answers every tick with a SNAPSHOT of
+ * the world, delta-encoded against the newest snapshot the client acknowledged
+ * in its input, see {@link SnapshotCodec}. Its header has the exact state of the
+ * client's own player for {@link PlayerPredictor}.
+ *
+ * On a map sharded across several server processes, a player crossing into
+ * another zone is sent REDIRECT instead of snapshots, and reconnects to that
+ * zone's server with the token it was given to carry on as the same player.
+ */
+public final class NetProtocol {
+    public static final int PROTOCOL_ID = 0x53565631; // "SVV1"
+    public static final int DEFAULT_PORT = 27960;
+    public static final int MAX_PACKET_SIZE = 1200; // Stays under a typical MTU, so packets are never fragmented
+    public static final int HEADER_SIZE = 5;
+    public static final int INPUT_SIZE = 21;
+    public static final int SNAPSHOT_HEADER_SIZE = 31;
+    public static final int SNAPSHOT_HISTORY = 32; // Snapshots both sides keep as possible baselines
+
+    // Packet types
+    public static final byte CONNECT = 1; // Room id (int), handoff token (int, 0 for a fresh join); without them the client joins room 0
+    public static final byte WELCOME = 2; // Player id (short), tick rate (byte)
+    public static final byte REJECT = 3; // Room or server is full
+    public static final byte INPUT = 4; // Sequence (int), newest snapshot tick received (int), buttons (byte), frame time (float, seconds), aim point x, y (floats, world units)
+    public static final byte SNAPSHOT = 5; // Tick (int), baseline tick or -1 (int), acked input (int), player id (short), own player x, y, velocity x, y (floats), own flags (byte), then the codec's bits
+    public static final byte DISCONNECT = 6;
+    public static final byte REDIRECT = 7; // Port (unsigned short), handoff token (int): the player walked into another zone's server on the same host
+
+    // Input buttons
+    public static final int BUTTON_UP = 1;
+    public static final int BUTTON_DOWN = 1 << 1;
+    public static final int BUTTON_LEFT = 1 << 2;
+    public static final int BUTTON_RIGHT = 1 << 3;
+    public static final int BUTTON_ATTACK = 1 << 4;
+
+    // Entity kinds
+    public static final byte KIND_PLAYER = 0;
+    public static final byte KIND_ENEMY = 1;
+
+    // Entity flags
+    public static final int FLAG_ATTACKING = 1;
+    public static final int FLAG_DEAD = 1 << 1;
+
+    private NetProtocol() {}
+
+    /**
+     * Clears the buffer and writes the packet header.
+     */
+    public static ByteBuffer begin(ByteBuffer buffer, byte type) {
+        ((Buffer) buffer).clear();
+        return buffer.putInt(PROTOCOL_ID).put(type);
+    }
+
+    /**
+     * @return the packet type, or -1 if the datagram isn't one of ours
+     */
+    public static int readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != PROTOCOL_ID) return -1;
+        return buffer.get();
+    }
+}
@@ -0,0 +1,191 @@
+package com.survivor.game;
+
+import java.net.InetSocketAddress;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+/**
+ * Plays on a dedicated server instead of simulating the world locally. Started
+ * from the menu when {@value #SERVER_PROPERTY} names a server, for example
+ * {@code -Dsurvivor.server=localhost:27960}, and {@value #ROOM_PROPERTY} picks
+ * the room.
+ *
+ * Each frame the keys are sent to the server through a {@link GameClient}. Our
+ * own player is drawn where its {@link PlayerPredictor} puts it, everything else
+ * where the newest snapshot says. The map is only drawn and used for prediction;
+ * the server decides what happens. ESC goes back to the menu.
+ */
+public class NetworkGameScreen implements Screen {
+    private static final String TAG = "NetworkGameScreen";
+    public static final String SERVER_PROPERTY = "survivor.server";
+    public static final String ROOM_PROPERTY = "survivor.room";
+    private static final float SPRITE_SIZE = 32f;
+
+    private final Main game;
+    private final GameClient client;
+    private final MapManager mapManager;
+    private final OrthogonalTiledMapRenderer mapRenderer;
+    private final OrthographicCamera camera = new OrthographicCamera();
+    private final Viewport viewport;
+    private final SpriteBatch batch = new SpriteBatch();
+    private final BitmapFont font = new BitmapFont();
+    private final TextureRegion playerFrame;
+    private final TextureRegion enemyFrame;
+    private final Vector3 mouse = new Vector3();
+
+    public NetworkGameScreen(Main game, InetSocketAddress server, int roomId) {
+        this.game = game;
+        mapManager = new MapManager("map.tmx");
+        mapRenderer = new OrthogonalTiledMapRenderer(mapManager.getMap());
+
+        // Predict against the same obstacles and bounds the server moves us with
+        CollisionMask mask = mapManager.getCollisionMask();
+        client = new GameClient(server, roomId);
+        client.getPredictor().setWorld(new SweptAabbSolver(mapManager.getObstacleIndex()),
+            mask.getWidth() * mask.getTileWidth(), mask.getHeight() * mask.getTileHeight());
+
+        viewport = new FitViewport(Gdx.graphics.getWidth() / 2f, Gdx.graphics.getHeight() / 2f, camera);
+        viewport.apply();
+
+        ParallelTextureLoader textures = ParallelTextureLoader.getShared();
+        playerFrame = new TextureRegion(textures.get("player_spritesheet.png"), 0, 2 * 32, 32, 32); // Idle, facing front
+        enemyFrame = TextureRegion.split(textures.get("Mushroom-Run.png"), 80, 64)[0][0];
+        Gdx.app.log(TAG, "Connecting to " + server + ", room " + roomId);
+    }
+
+    /**
+     * Reads {@value #SERVER_PROPERTY} as {@code host} or {@code host:port}.
+     *
+     * @return the server to join, or null to play offline
+     */
+    public static InetSocketAddress configuredServer() {
+        String server = System.getProperty(SERVER_PROPERTY);
+        if (server == null || server.isEmpty()) return null;
+        int colon = server.lastIndexOf(':');
+        try {
+            if (colon < 0) return new InetSocketAddress(server, NetProtocol.DEFAULT_PORT);
+            return new InetSocketAddress(server.substring(0, colon), Integer.parseInt(server.substring(colon + 1)));
+        } catch (IllegalArgumentException e) {
+            Gdx.app.error(TAG, "Ignoring " + SERVER_PROPERTY + "=" + server, e);
+            return null;
+        }
+    }
+
+    public static int configuredRoom() {
+        try {
+            return Integer.parseInt(System.getProperty(ROOM_PROPERTY, "0"));
+        } catch (NumberFormatException e) {
+            Gdx.app.error(TAG, "Ignoring " + ROOM_PROPERTY + "=" + System.getProperty(ROOM_PROPERTY), e);
+            return 0;
+        }
+    }
+
+    @Override
+    public void show() {}
+
+    @Override
+    public void render(float delta) {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+            game.setScreen(new MainMenuScreen(game));
+            dispose();
+            return;
+        }
+
+        ParallelTextureLoader.getShared().update();
+        client.update();
+
+        // Aim where the mouse points, as the local game's swing does
+        mouse.set(Gdx.input.getX(), Gdx.input.getY(), 0);
+        viewport.unproject(mouse);
+        client.sendInput(readButtons(), delta, mouse.x, mouse.y);
+
+        PlayerPredictor predictor = client.getPredictor();
+        if (predictor.isPlaced()) {
+            camera.position.set(predictor.getX(), predictor.getY(), 0);
+        }
+        camera.update();
+
+        ScreenUtils.clear(0.15f, 0.15f, 0.2f, 1f);
+        mapRenderer.setView(camera);
+        mapRenderer.render();
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        WorldSnapshot snapshot = client.getSnapshot();
+        for (int i = 0; i < snapshot.count; i++) {
+            // Our own entity is drawn from the prediction below
+            if (snapshot.ids[i] == client.getPlayerId()) continue;
+            boolean dead = (snapshot.flags[i] & NetProtocol.FLAG_DEAD) != 0;
+            boolean attacking = (snapshot.flags[i] & NetProtocol.FLAG_ATTACKING) != 0;
+            batch.setColor(1, attacking ? 0.6f : 1, attacking ? 0.6f : 1, dead ? 0.4f : 1);
+            TextureRegion frame = snapshot.kinds[i] == NetProtocol.KIND_PLAYER ? playerFrame : enemyFrame;
+            batch.draw(frame, snapshot.x[i] - SPRITE_SIZE / 2f, snapshot.y[i] - SPRITE_SIZE / 2f, SPRITE_SIZE, SPRITE_SIZE);
+        }
+        batch.setColor(1, 1, 1, 1);
+        if (predictor.isPlaced()) {
+            batch.draw(playerFrame, predictor.getX() - SPRITE_SIZE / 2f, predictor.getY() - SPRITE_SIZE / 2f,
+                SPRITE_SIZE, SPRITE_SIZE);
+        }
+        batch.end();
+
+        batch.setProjectionMatrix(batch.getProjectionMatrix().setToOrtho2D(0, 0,
+            Gdx.graphics.getWidth(), Gdx.graphics.getHeight()));
+        batch.begin();
+        font.draw(batch, status(), 10, Gdx.graphics.getHeight() - 10);
+        batch.end();
+    }
+
+    private int readButtons() {
+        return (Gdx.input.isKeyPressed(Input.Keys.W) ? NetProtocol.BUTTON_UP : 0)
+            | (Gdx.input.isKeyPressed(Input.Keys.S) ? NetProtocol.BUTTON_DOWN : 0)
+            | (Gdx.input.isKeyPressed(Input.Keys.A) ? NetProtocol.BUTTON_LEFT : 0)
+            | (Gdx.input.isKeyPressed(Input.Keys.D) ? NetProtocol.BUTTON_RIGHT : 0)
+            | (Gdx.input.isButtonPressed(Input.Buttons.LEFT) ? NetProtocol.BUTTON_ATTACK : 0);
+    }
+
+    private String status() {
+        if (client.isRejected()) return "Server is full";
+        if (!client.isConnected()) return "Connecting...";
+        WorldSnapshot snapshot = client.getSnapshot();
+        for (int i = 0; i < snapshot.count; i++) {
+            if (snapshot.ids[i] == client.getPlayerId()) {
+                return "HP: " + snapshot.health[i] + "   Room " + client.getRoomId();
+            }
+        }
+        return "Room " + client.getRoomId();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height, true);
+    }
+
+    @Override
+    public void pause() {}
+
+    @Override
+    public void resume() {}
+
+    @Override
+    public void hide() {}
+
+    @Override
+    public void dispose() {
+        client.dispose();
+        mapRenderer.dispose();
+        mapManager.getMap().dispose();
+        batch.dispose();
+        font.dispose();
+    }
+}
@@ -0,0 +1,117 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Uniform grid over the static obstacle rectangles. Each cell lists the
+ * obstacles touching it, so area queries only visit obstacles nearby instead of
+ * the whole list. Not thread-safe: queries share a visit stamp.
+ */
+public class ObstacleIndex implements ObstacleQuery {
+    private final Array<Rectangle> obstacles;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+    private final IntArray[] cells;
+    private final int[] visitStamp;
+    private int stamp = 0;
+
+    public ObstacleIndex(Array<Rectangle> obstacles, float worldWidth, float worldHeight, float cellSize) {
+        this.obstacles = obstacles;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(worldWidth / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(worldHeight / cellSize));
+        this.cells = new IntArray[columns * rows];
+        this.visitStamp = new int[obstacles.size];
+
+        for (int i = 0; i < obstacles.size; i++) {
+            Rectangle rect = obstacles.get(i);
+            int minX = cellX(rect.x);
+            int minY = cellY(rect.y);
+            int maxX = cellX(rect.x + rect.width);
+            int maxY = cellY(rect.y + rect.height);
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int cell = y * columns + x;
+                    if (cells[cell] == null) {
+                        cells[cell] = new IntArray(4);
+                    }
+                    cells[cell].add(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends every obstacle overlapping or touching the area to {@code out}, each once.
+     *
+     * @return the same array, for chaining
+     */
+    @Override
+    public Array<Rectangle> query(float x, float y, float width, float height, Array<Rectangle> out) {
+        stamp++;
+        int minX = cellX(x);
+        int minY = cellY(y);
+        int maxX = cellX(x + width);
+        int maxY = cellY(y + height);
+
+        for (int cellY = minY; cellY <= maxY; cellY++) {
+            for (int cellX = minX; cellX <= maxX; cellX++) {
+                IntArray cell = cells[cellY * columns + cellX];
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    int index = cell.get(i);
+                    if (visitStamp[index] == stamp) continue;
+                    visitStamp[index] = stamp;
+
+                    Rectangle rect = obstacles.get(index);
+                    if (rect.x <= x + width && rect.x + rect.width >= x
+                        && rect.y <= y + height && rect.y + rect.height >= y) {
+                        out.add(rect);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @return true if any obstacle overlaps the area (touching edges don't count)
+     */
+    @Override
+    public boolean overlapsAny(float x, float y, float width, float height) {
+        int minX = cellX(x);
+        int minY = cellY(y);
+        int maxX = cellX(x + width);
+        int maxY = cellY(y + height);
+
+        for (int cellY = minY; cellY <= maxY; cellY++) {
+            for (int cellX = minX; cellX <= maxX; cellX++) {
+                IntArray cell = cells[cellY * columns + cellX];
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    Rectangle rect = obstacles.get(cell.get(i));
+                    if (rect.x < x + width && rect.x + rect.width > x
+                        && rect.y < y + height && rect.y + rect.height > y) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public Array<Rectangle> getObstacles() {
+        return obstacles;
+    }
+
+    private int cellX(float worldX) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(worldX / cellSize)));
+    }
+
+    private int cellY(float worldY) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(worldY / cellSize)));
+    }
+}
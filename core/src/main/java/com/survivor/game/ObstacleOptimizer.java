@@ -0,0 +1,124 @@
+package com.survivor.game;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Load-time pass that turns hand-drawn obstacle rectangles into a small set of
+ * non-overlapping axis-aligned rectangles covering the same area.
+ *
+ * Edges are first snapped to a coarse grid so slivers that almost touch become
+ * one shape. The union is then rasterised on the compressed grid formed by all
+ * distinct edge coordinates and split back into rectangles greedily, once
+ * growing each rectangle along x first and once along y first. The split with
+ * fewer rectangles wins.
+ */
+public final class ObstacleOptimizer {
+    private ObstacleOptimizer() {}
+
+    /**
+     * @param obstacles the original rectangles (left untouched)
+     * @param snap grid size in pixels that edges are rounded to; 0 disables snapping
+     * @return merged rectangles with no overlaps between them
+     */
+    public static Array<Rectangle> optimize(Array<Rectangle> obstacles, float snap) {
+        // Snapped edges as x0, x1 and y0, y1 pairs
+        FloatArray edgesX = new FloatArray(obstacles.size * 2);
+        FloatArray edgesY = new FloatArray(obstacles.size * 2);
+        for (Rectangle rect : obstacles) {
+            float x0 = snap(rect.x, snap);
+            float y0 = snap(rect.y, snap);
+            float x1 = snap(rect.x + rect.width, snap);
+            float y1 = snap(rect.y + rect.height, snap);
+            if (x1 > x0 && y1 > y0) {
+                edgesX.add(x0, x1);
+                edgesY.add(y0, y1);
+            }
+        }
+
+        if (edgesX.size == 0) {
+            return new Array<>();
+        }
+
+        float[] xs = distinct(edgesX);
+        float[] ys = distinct(edgesY);
+        int columns = xs.length - 1;
+        int rows = ys.length - 1;
+
+        // Rasterise the union onto the compressed grid
+        boolean[] covered = new boolean[columns * rows];
+        for (int i = 0; i < edgesX.size; i += 2) {
+            int minX = Arrays.binarySearch(xs, edgesX.get(i));
+            int maxX = Arrays.binarySearch(xs, edgesX.get(i + 1));
+            int minY = Arrays.binarySearch(ys, edgesY.get(i));
+            int maxY = Arrays.binarySearch(ys, edgesY.get(i + 1));
+            for (int y = minY; y < maxY; y++) {
+                Arrays.fill(covered, y * columns + minX, y * columns + maxX, true);
+            }
+        }
+
+        Array<Rectangle> widthFirst = decompose(covered.clone(), xs, ys, true);
+        Array<Rectangle> heightFirst = decompose(covered, xs, ys, false);
+        return widthFirst.size <= heightFirst.size ? widthFirst : heightFirst;
+    }
+
+    /**
+     * Splits the covered cells into rectangles, consuming the covered array.
+     */
+    private static Array<Rectangle> decompose(boolean[] covered, float[] xs, float[] ys, boolean widthFirst) {
+        int columns = xs.length - 1;
+        int rows = ys.length - 1;
+        Array<Rectangle> result = new Array<>();
+
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (!covered[y * columns + x]) continue;
+
+                int endX = x + 1;
+                int endY = y + 1;
+                if (widthFirst) {
+                    while (endX < columns && covered[y * columns + endX]) endX++;
+                    while (endY < rows && isCovered(covered, columns, x, endX, endY, endY + 1)) endY++;
+                } else {
+                    while (endY < rows && covered[endY * columns + x]) endY++;
+                    while (endX < columns && isCovered(covered, columns, endX, endX + 1, y, endY)) endX++;
+                }
+
+                for (int row = y; row < endY; row++) {
+                    Arrays.fill(covered, row * columns + x, row * columns + endX, false);
+                }
+                result.add(new Rectangle(xs[x], ys[y], xs[endX] - xs[x], ys[endY] - ys[y]));
+            }
+        }
+        return result;
+    }
+
+    private static float snap(float value, float snap) {
+        return snap > 0 ? Math.round(value / snap) * snap : value;
+    }
+
+    private static boolean isCovered(boolean[] covered, int columns, int fromX, int toX, int fromY, int toY) {
+        for (int y = fromY; y < toY; y++) {
+            for (int x = fromX; x < toX; x++) {
+                if (!covered[y * columns + x]) return false;
+            }
+        }
+        return true;
+    }
+
+    private static float[] distinct(FloatArray values) {
+        float[] sorted = values.toArray();
+        Arrays.sort(sorted);
+
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+}
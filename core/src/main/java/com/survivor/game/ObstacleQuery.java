@@ -0,0 +1,22 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Area queries over static obstacle rectangles, implemented by the whole-map
+ * {@link ObstacleIndex} and by the chunk-streamed {@link WorldStreamer}.
+ */
+public interface ObstacleQuery {
+    /**
+     * Appends every obstacle overlapping or touching the area to {@code out}, each once.
+     *
+     * @return the same array, for chaining
+     */
+    Array<Rectangle> query(float x, float y, float width, float height, Array<Rectangle> out);
+
+    /**
+     * @return true if any obstacle overlaps the area (touching edges don't count)
+     */
+    boolean overlapsAny(float x, float y, float width, float height);
+}
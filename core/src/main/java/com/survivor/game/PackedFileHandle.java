@@ -0,0 +1,150 @@
+package com.survivor.game;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * An internal file served from an {@link AssetPack}. Streams and {@link #map()}
+ * read straight from the pack's mapped memory; relative lookups such as
+ * {@link #child} go back through {@code Gdx.files}, so tile sets and images
+ * referenced by packed files resolve the same way they do on disk.
+ */
+public class PackedFileHandle extends FileHandle {
+    private final AssetPack pack;
+    private final String packPath;
+
+    PackedFileHandle(AssetPack pack, String path) {
+        super(new File(path), FileType.Internal);
+        this.pack = pack;
+        this.packPath = path;
+    }
+
+    @Override
+    public InputStream read() {
+        if (isDirectory()) {
+            throw new GdxRuntimeException("Cannot open a stream to a directory: " + packPath);
+        }
+        return new BufferInputStream(pack.slice(packPath));
+    }
+
+    @Override
+    public byte[] readBytes() {
+        ByteBuffer slice = pack.slice(packPath);
+        byte[] bytes = new byte[slice.remaining()];
+        slice.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public int readBytes(byte[] bytes, int offset, int size) {
+        ByteBuffer slice = pack.slice(packPath);
+        int count = Math.min(size, slice.remaining());
+        slice.get(bytes, offset, count);
+        return count;
+    }
+
+    /**
+     * @return the asset's bytes without copying, in native order like {@link FileHandle#map}
+     */
+    @Override
+    public ByteBuffer map(FileChannel.MapMode mode) {
+        if (mode != FileChannel.MapMode.READ_ONLY) {
+            throw new GdxRuntimeException("Cannot map a packed file for writing: " + packPath);
+        }
+        return pack.slice(packPath).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public boolean exists() {
+        return pack.contains(packPath) || pack.isDirectory(packPath);
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return pack.isDirectory(packPath);
+    }
+
+    @Override
+    public long length() {
+        return pack.length(packPath);
+    }
+
+    @Override
+    public long lastModified() {
+        return 0;
+    }
+
+    @Override
+    public FileHandle[] list() {
+        Array<String> children = pack.list(packPath);
+        FileHandle[] handles = new FileHandle[children.size];
+        for (int i = 0; i < children.size; i++) {
+            handles[i] = new PackedFileHandle(pack, children.get(i));
+        }
+        return handles;
+    }
+
+    @Override
+    public FileHandle child(String name) {
+        return Gdx.files.internal(packPath.isEmpty() ? name : packPath + "/" + name);
+    }
+
+    @Override
+    public FileHandle sibling(String name) {
+        int slash = packPath.lastIndexOf('/');
+        return Gdx.files.internal(slash < 0 ? name : packPath.substring(0, slash + 1) + name);
+    }
+
+    @Override
+    public FileHandle parent() {
+        int slash = packPath.lastIndexOf('/');
+        return Gdx.files.internal(slash < 0 ? "" : packPath.substring(0, slash));
+    }
+
+    /**
+     * Stream over a slice of the pack; no copy beyond what the caller reads.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.min(count, buffer.remaining());
+            ((Buffer) buffer).position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Wraps the backend's {@link Files} so internal paths found in an
+ * {@link AssetPack} are served from the pack. Anything not packed, and every
+ * other file type, goes to the backend as before.
+ */
+public class PackedFiles implements Files {
+    private final Files files;
+    private final AssetPack pack;
+
+    public PackedFiles(Files files, AssetPack pack) {
+        this.files = files;
+        this.pack = pack;
+    }
+
+    @Override
+    public FileHandle getFileHandle(String path, FileType type) {
+        return type == FileType.Internal ? internal(path) : files.getFileHandle(path, type);
+    }
+
+    @Override
+    public FileHandle internal(String path) {
+        FileHandle packed = pack.get(path);
+        return packed != null ? packed : files.internal(path);
+    }
+
+    @Override
+    public FileHandle classpath(String path) {
+        return files.classpath(path);
+    }
+
+    @Override
+    public FileHandle external(String path) {
+        return files.external(path);
+    }
+
+    @Override
+    public FileHandle absolute(String path) {
+        return files.absolute(path);
+    }
+
+    @Override
+    public FileHandle local(String path) {
+        return files.local(path);
+    }
+
+    @Override
+    public String getExternalStoragePath() {
+        return files.getExternalStoragePath();
+    }
+
+    @Override
+    public boolean isExternalStorageAvailable() {
+        return files.isExternalStorageAvailable();
+    }
+
+    @Override
+    public String getLocalStoragePath() {
+        return files.getLocalStoragePath();
+    }
+
+    @Override
+    public boolean isLocalStorageAvailable() {
+        return files.isLocalStorageAvailable();
+    }
+}
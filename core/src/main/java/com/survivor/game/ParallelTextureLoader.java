@@ -0,0 +1,228 @@
+package com.survivor.game;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Decodes PNGs on a pool of worker threads and uploads them to GL on the render
+ * thread, a few milliseconds per frame.
+ *
+ * {@link #load} queues a decode and returns at once; {@link #update} uploads
+ * finished decodes until its time budget is spent. {@link #get} always returns
+ * a texture: uploaded if ready, otherwise it finishes that one texture right away,
+ * waiting for its decode if needed. Each file is decoded once and the texture is
+ * shared, so callers must not dispose textures they get from here. Decode and
+ * upload times are logged per asset, and the GPU memory the textures take is
+ * kept for {@link GameMetrics}.
+ */
+public class ParallelTextureLoader implements Disposable {
+    private static final String TAG = "TextureLoader";
+    private static final float DEFAULT_UPLOAD_BUDGET_MS = 4f;
+
+    private static volatile ParallelTextureLoader shared; // Volatile for sharedTextureBytes
+
+    private final ExecutorService workers;
+    private final ObjectMap<String, Entry> entries = new ObjectMap<>();
+    private final Array<Entry> pendingUploads = new Array<>(false, 16);
+    private volatile long textureBytes = 0; // Written on the render thread, read by metrics scrapes
+
+    private static class Entry {
+        final String path;
+        Future<TextureData> decode;
+        Texture texture;
+        long decodeNanos; // Written by the worker, read after the future completes
+        long uploadNanos;
+
+        Entry(String path) {
+            this.path = path;
+        }
+    }
+
+    public ParallelTextureLoader(int threads) {
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the loader shared by the whole game, created on first use with one
+     * worker per spare core
+     */
+    public static ParallelTextureLoader getShared() {
+        if (shared == null) {
+            shared = new ParallelTextureLoader(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        return shared;
+    }
+
+    public static void disposeShared() {
+        if (shared != null) {
+            shared.dispose();
+            shared = null;
+        }
+    }
+
+    /**
+     * Starts decoding the given internal files in the background. Files already
+     * requested are skipped.
+     */
+    public void load(String... paths) {
+        for (String path : paths) {
+            if (entries.containsKey(path)) continue;
+            Entry entry = new Entry(path);
+            entry.decode = workers.submit(() -> decode(entry));
+            entries.put(path, entry);
+            pendingUploads.add(entry);
+        }
+    }
+
+    private static TextureData decode(Entry entry) {
+        long start = System.nanoTime();
+        GameEvents.Span loadEvent = GameEvents.assetLoad(entry.path, "decode");
+        TextureData data = TextureData.Factory.loadFromFile(Gdx.files.internal(entry.path), false);
+        data.prepare();
+        loadEvent.close();
+        entry.decodeNanos = System.nanoTime() - start;
+        return data;
+    }
+
+    /**
+     * Uploads finished decodes until the budget is used up. Call once per frame on the render thread.
+     *
+     * @return true when nothing is left to upload
+     */
+    public boolean update(float budgetMillis) {
+        long deadline = System.nanoTime() + (long) (budgetMillis * 1_000_000L);
+        for (int i = 0; i < pendingUploads.size; i++) {
+            Entry entry = pendingUploads.get(i);
+            if (!entry.decode.isDone()) continue;
+            pendingUploads.removeIndex(i--);
+            try {
+                upload(entry);
+            } catch (GdxRuntimeException e) {
+                // Leave the failure to whoever asks for the texture; get() rethrows it
+                Gdx.app.error(TAG, e.getMessage(), e.getCause());
+            }
+            if (System.nanoTime() >= deadline) break;
+        }
+        return pendingUploads.size == 0;
+    }
+
+    public boolean update() {
+        return update(DEFAULT_UPLOAD_BUDGET_MS);
+    }
+
+    /**
+     * @return the texture for an internal file, loading it now if it isn't uploaded yet
+     */
+    public Texture get(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            load(path);
+            entry = entries.get(path);
+        }
+        if (entry.texture == null) {
+            pendingUploads.removeValue(entry, true);
+            upload(entry);
+        }
+        return entry.texture;
+    }
+
+    public boolean isLoaded(String path) {
+        Entry entry = entries.get(path);
+        return entry != null && entry.texture != null;
+    }
+
+    /**
+     * @return files requested but not yet uploaded
+     */
+    public int getPendingCount() {
+        return pendingUploads.size;
+    }
+
+    private void upload(Entry entry) {
+        TextureData data;
+        try {
+            data = entry.decode.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while loading " + entry.path, e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Couldn't decode " + entry.path, e.getCause());
+        }
+
+        long start = System.nanoTime();
+        GameEvents.Span loadEvent = GameEvents.assetLoad(entry.path, "upload");
+        entry.texture = new Texture(data);
+        loadEvent.close();
+        entry.uploadNanos = System.nanoTime() - start;
+        textureBytes += (long) data.getWidth() * data.getHeight() * bytesPerPixel(data.getFormat());
+        Gdx.app.log(TAG, String.format("%s: decoded in %.1f ms, uploaded in %.1f ms",
+            entry.path, entry.decodeNanos / 1e6, entry.uploadNanos / 1e6));
+    }
+
+    /**
+     * @return an estimate of the video memory held by uploaded textures, without mipmaps or driver padding
+     */
+    public long getTextureBytes() {
+        return textureBytes;
+    }
+
+    /**
+     * @return {@link #getTextureBytes} of the shared loader, 0 if there is none; safe from any thread
+     */
+    public static long sharedTextureBytes() {
+        ParallelTextureLoader loader = shared;
+        return loader != null ? loader.textureBytes : 0;
+    }
+
+    private static int bytesPerPixel(Pixmap.Format format) {
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        workers.shutdownNow();
+        for (Entry entry : entries.values()) {
+            if (entry.texture != null) {
+                entry.texture.dispose();
+            } else if (entry.decode.isDone() && !entry.decode.isCancelled()) {
+                try {
+                    TextureData data = entry.decode.get();
+                    Pixmap pixmap = data.consumePixmap();
+                    if (data.disposePixmap()) pixmap.dispose();
+                } catch (Exception ignored) {
+                    // Decode failed; nothing to free
+                }
+            }
+        }
+        entries.clear();
+        pendingUploads.clear();
+        textureBytes = 0;
+    }
+}
@@ -0,0 +1,395 @@
+package com.survivor.game;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * A* planner over a {@link NavGrid} for agents of any size.
+ *
+ * Searches run on a single background thread so a long replan never stalls the
+ * render loop. Agents may only submit {@link #MAX_REPLANS_PER_FRAME} new searches
+ * per frame; everything else is served from a small cache keyed by the start
+ * region, goal region and required clearance.
+ *
+ * The grid can be swapped for a newer one, e.g. when a streamed world loads
+ * chunks. Searches already running finish on the grid they started with, and
+ * their paths are handed out but not cached.
+ */
+public class PathPlanner implements Disposable {
+    private static final String TAG = "PathPlanner";
+    private static final int REGION_SIZE = 4; // Tiles per side of a cache region
+    private static final int MAX_REPLANS_PER_FRAME = 1;
+    private static final int MAX_CACHED_PATHS = 64;
+    private static final float STRAIGHT_COST = 1f;
+    private static final float DIAGONAL_COST = 1.41421356f;
+
+    private volatile NavGrid grid;
+    private final ExecutorService worker;
+    private final Map<Long, float[]> cache;
+    private int replansThisFrame = 0;
+
+    // Search scratch space, only touched by the worker thread
+    private NavGrid searchGrid;
+    private float[] gScore = new float[0];
+    private float[] fScore;
+    private int[] parent;
+    private int[] visitStamp;
+    private int[] closedStamp;
+    private int[] heap;
+    private int[] heapIndex;
+    private int heapSize;
+    private int stamp = 0;
+
+    /**
+     * Handle for a path that is being computed or has been served from the cache.
+     */
+    public static class PathRequest {
+        private volatile boolean done = false;
+        private volatile float[] waypoints;
+
+        private void complete(float[] waypoints) {
+            this.waypoints = waypoints;
+            this.done = true;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return flat x,y pairs of world-space waypoints, or null if no path was found
+         */
+        public float[] getWaypoints() {
+            return waypoints;
+        }
+    }
+
+    public PathPlanner(NavGrid grid) {
+        this.grid = grid;
+        cache = new LinkedHashMap<Long, float[]>(MAX_CACHED_PATHS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, float[]> eldest) {
+                return size() > MAX_CACHED_PATHS;
+            }
+        };
+
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PathPlanner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Resets the per-frame replan budget. Call once at the start of every frame.
+     */
+    public void beginFrame() {
+        replansThisFrame = 0;
+    }
+
+    /**
+     * Requests a path for an agent whose footprint needs the given tile clearance.
+     *
+     * @return a request handle, or null if this frame's replan budget is used up
+     */
+    public PathRequest requestPath(float startX, float startY, float goalX, float goalY, int clearance) {
+        final NavGrid requestGrid = grid;
+        final int startTile = tileIndex(requestGrid, startX, startY);
+        final int goalTile = tileIndex(requestGrid, goalX, goalY);
+        final int requiredClearance = Math.max(1, clearance);
+        final long key = cacheKey(regionOf(startX, startY), regionOf(goalX, goalY), requiredClearance);
+
+        final PathRequest request = new PathRequest();
+        synchronized (cache) {
+            if (cache.containsKey(key)) {
+                request.complete(cache.get(key));
+                return request;
+            }
+        }
+
+        if (replansThisFrame >= MAX_REPLANS_PER_FRAME) {
+            return null;
+        }
+        replansThisFrame++;
+
+        worker.execute(() -> {
+            float[] waypoints = null;
+            try {
+                useGrid(requestGrid);
+                waypoints = findPath(startTile, goalTile, requiredClearance);
+            } catch (Exception e) {
+                Gdx.app.error(TAG, "Path search failed", e);
+            }
+            synchronized (cache) {
+                // Regions of an older grid may mean different places in the current one
+                if (requestGrid == grid) {
+                    cache.put(key, waypoints);
+                }
+            }
+            request.complete(waypoints);
+        });
+        return request;
+    }
+
+    /**
+     * @return an id for the coarse region containing the point; paths are reused while it stays the same
+     */
+    public int regionOf(float worldX, float worldY) {
+        NavGrid grid = this.grid;
+        int regionX = localTileX(grid, grid.toTileX(worldX)) / REGION_SIZE;
+        int regionY = localTileY(grid, grid.toTileY(worldY)) / REGION_SIZE;
+        int regionsPerRow = (grid.getWidth() + REGION_SIZE - 1) / REGION_SIZE;
+        return regionY * regionsPerRow + regionX;
+    }
+
+    public NavGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Plans on a new grid from now on and drops the cached paths, whose regions
+     * were numbered on the old one.
+     */
+    public void setGrid(NavGrid grid) {
+        this.grid = grid;
+        clearCache();
+    }
+
+    private long cacheKey(int startRegion, int goalRegion, int clearance) {
+        return ((long) startRegion << 40) | ((long) goalRegion << 16) | (clearance & 0xFFFF);
+    }
+
+    /**
+     * @return the grid-local index of the tile under the point, clamped into the grid
+     */
+    private static int tileIndex(NavGrid grid, float worldX, float worldY) {
+        return localTileY(grid, grid.toTileY(worldY)) * grid.getWidth() + localTileX(grid, grid.toTileX(worldX));
+    }
+
+    private static int localTileX(NavGrid grid, int tileX) {
+        return Math.max(0, Math.min(grid.getWidth() - 1, tileX - grid.getOriginX()));
+    }
+
+    private static int localTileY(NavGrid grid, int tileY) {
+        return Math.max(0, Math.min(grid.getHeight() - 1, tileY - grid.getOriginY()));
+    }
+
+    /**
+     * Points the search at a grid, growing the scratch space if it is bigger than any before.
+     */
+    private void useGrid(NavGrid grid) {
+        searchGrid = grid;
+        int size = grid.getWidth() * grid.getHeight();
+        if (gScore.length < size) {
+            gScore = new float[size];
+            fScore = new float[size];
+            parent = new int[size];
+            visitStamp = new int[size];
+            closedStamp = new int[size];
+            heap = new int[size];
+            heapIndex = new int[size];
+            stamp = 0;
+        }
+    }
+
+    /**
+     * Runs A* with the requested clearance, relaxing it when the goal can't be
+     * reached at full size. Returns the path that gets closest to the goal.
+     */
+    private float[] findPath(int startTile, int goalTile, int clearance) {
+        int width = searchGrid.getWidth();
+        int goalX = goalTile % width;
+        int goalY = goalTile / width;
+        float[] bestPath = null;
+        float bestRemaining = Float.MAX_VALUE;
+
+        for (int c = clearance; c >= 1; c = c / 2) {
+            int endTile = search(startTile, goalTile, c);
+            float remaining = heuristic(endTile % width, endTile / width, goalX, goalY);
+            if (endTile != startTile && remaining < bestRemaining) {
+                bestRemaining = remaining;
+                bestPath = buildWaypoints(startTile, endTile);
+            }
+            if (endTile == goalTile || c == 1) break;
+        }
+        return bestPath;
+    }
+
+    /**
+     * @return the goal tile, or the reachable tile closest to it if the goal is unreachable
+     */
+    private int search(int startTile, int goalTile, int clearance) {
+        int width = searchGrid.getWidth();
+        int originX = searchGrid.getOriginX();
+        int originY = searchGrid.getOriginY();
+        int goalX = goalTile % width;
+        int goalY = goalTile / width;
+
+        stamp++;
+        heapSize = 0;
+
+        gScore[startTile] = 0;
+        parent[startTile] = -1;
+        visitStamp[startTile] = stamp;
+        fScore[startTile] = heuristic(startTile % width, startTile / width, goalX, goalY);
+        heapPush(startTile);
+
+        int bestTile = startTile;
+        float bestH = fScore[startTile];
+
+        while (heapSize > 0) {
+            int current = heapPop();
+            if (current == goalTile) {
+                return goalTile;
+            }
+            closedStamp[current] = stamp;
+
+            int cx = current % width;
+            int cy = current / width;
+            float h = heuristic(cx, cy, goalX, goalY);
+            if (h < bestH) {
+                bestH = h;
+                bestTile = current;
+            }
+
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx == 0 && dy == 0) continue;
+                    int nx = cx + dx;
+                    int ny = cy + dy;
+                    if (searchGrid.getClearance(originX + nx, originY + ny) < clearance) continue;
+                    // Don't cut corners past blocked tiles
+                    if (dx != 0 && dy != 0
+                        && (searchGrid.getClearance(originX + cx + dx, originY + cy) < clearance
+                            || searchGrid.getClearance(originX + cx, originY + cy + dy) < clearance)) {
+                        continue;
+                    }
+
+                    int next = ny * width + nx;
+                    if (closedStamp[next] == stamp) continue;
+
+                    float tentative = gScore[current] + (dx != 0 && dy != 0 ? DIAGONAL_COST : STRAIGHT_COST);
+                    if (visitStamp[next] != stamp) {
+                        visitStamp[next] = stamp;
+                        gScore[next] = tentative;
+                        parent[next] = current;
+                        fScore[next] = tentative + heuristic(nx, ny, goalX, goalY);
+                        heapPush(next);
+                    } else if (tentative < gScore[next]) {
+                        gScore[next] = tentative;
+                        parent[next] = current;
+                        fScore[next] = tentative + heuristic(nx, ny, goalX, goalY);
+                        heapSiftUp(heapIndex[next]);
+                    }
+                }
+            }
+        }
+        return bestTile;
+    }
+
+    private float heuristic(int x, int y, int goalX, int goalY) {
+        int dx = Math.abs(x - goalX);
+        int dy = Math.abs(y - goalY);
+        return STRAIGHT_COST * (dx + dy) + (DIAGONAL_COST - 2 * STRAIGHT_COST) * Math.min(dx, dy);
+    }
+
+    /**
+     * Walks the parent links back from the end tile, dropping waypoints that lie on
+     * a straight line so agents only steer at actual turns.
+     */
+    private float[] buildWaypoints(int startTile, int endTile) {
+        int width = searchGrid.getWidth();
+        FloatArray reversed = new FloatArray();
+        int lastDx = Integer.MIN_VALUE;
+        int lastDy = Integer.MIN_VALUE;
+
+        int tile = endTile;
+        while (tile != startTile && tile != -1) {
+            int previous = parent[tile];
+            int dx = previous == -1 ? 0 : tile % width - previous % width;
+            int dy = previous == -1 ? 0 : tile / width - previous / width;
+            if (dx != lastDx || dy != lastDy || tile == endTile) {
+                reversed.add(searchGrid.tileCenterY(searchGrid.getOriginY() + tile / width));
+                reversed.add(searchGrid.tileCenterX(searchGrid.getOriginX() + tile % width));
+            }
+            lastDx = dx;
+            lastDy = dy;
+            tile = previous;
+        }
+
+        float[] waypoints = new float[reversed.size];
+        for (int i = 0; i < reversed.size; i++) {
+            waypoints[i] = reversed.get(reversed.size - 1 - i);
+        }
+        return waypoints;
+    }
+
+    private void heapPush(int tile) {
+        heap[heapSize] = tile;
+        heapIndex[tile] = heapSize;
+        heapSize++;
+        heapSiftUp(heapSize - 1);
+    }
+
+    private int heapPop() {
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            heapSiftDown(0);
+        }
+        return top;
+    }
+
+    private void heapSiftUp(int index) {
+        int tile = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >> 1;
+            int parentTile = heap[parentIndex];
+            if (fScore[parentTile] <= fScore[tile]) break;
+            heap[index] = parentTile;
+            heapIndex[parentTile] = index;
+            index = parentIndex;
+        }
+        heap[index] = tile;
+        heapIndex[tile] = index;
+    }
+
+    private void heapSiftDown(int index) {
+        int tile = heap[index];
+        while (true) {
+            int child = (index << 1) + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && fScore[heap[child + 1]] < fScore[heap[child]]) {
+                child++;
+            }
+            if (fScore[heap[child]] >= fScore[tile]) break;
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = tile;
+        heapIndex[tile] = index;
+    }
+
+    /**
+     * Drops all cached paths, e.g. after the obstacle layout changes.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        worker.shutdownNow();
+    }
+}
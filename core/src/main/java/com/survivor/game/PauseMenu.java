@@ -17,9 +17,9 @@ public class PauseMenu {
     public PauseMenu(Main game) {
         this.game = game; // Initialize the game instance
         batch = new SpriteBatch();
-        backgroundTexture = new Texture(Gdx.files.internal("pause_menu.png"));
-        resumeButtonTexture = new Texture(Gdx.files.internal("resume_button.png"));
-        quitButtonTexture = new Texture(Gdx.files.internal("return_to_main_menu.png"));
+        backgroundTexture = ParallelTextureLoader.getShared().get("pause_menu.png");
+        resumeButtonTexture = ParallelTextureLoader.getShared().get("resume_button.png");
+        quitButtonTexture = ParallelTextureLoader.getShared().get("return_to_main_menu.png");
     }
 
     public void render() {
@@ -77,10 +77,7 @@ public class PauseMenu {
     }
 
     public void dispose() {
-        batch.dispose();
-        backgroundTexture.dispose();
-        resumeButtonTexture.dispose();
-        quitButtonTexture.dispose();
+        batch.dispose(); // Textures are shared through ParallelTextureLoader
     }
 
     public boolean handleSelection() {
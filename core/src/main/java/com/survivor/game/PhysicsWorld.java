@@ -0,0 +1,225 @@
+package com.survivor.game;
+
+import java.util.List;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Optional Box2D backend for entity collision and separation.
+ *
+ * The game logic still decides where everyone wants to go: each step, the
+ * distance an entity moved this frame is turned into a body velocity, Box2D
+ * resolves it against walls and other bodies, and the result is written back.
+ * Enemies that stop moving fall asleep and cost nothing until something wakes them.
+ *
+ * Arrows get no bodies in either mode: {@link ProjectileSystem} sweeps them
+ * against the walls and finds the enemies they hit through the {@link CombatQuery}.
+ */
+public class PhysicsWorld implements Disposable {
+    public static final float PPM = 100f; // Pixels per meter, same as Player
+
+    // Contact filtering categories
+    public static final short CATEGORY_OBSTACLE = 0x0001;
+    public static final short CATEGORY_PLAYER = 0x0002;
+    public static final short CATEGORY_ENEMY = 0x0004;
+
+    public static final short MASK_OBSTACLE = CATEGORY_PLAYER | CATEGORY_ENEMY;
+    public static final short MASK_PLAYER = CATEGORY_OBSTACLE | CATEGORY_ENEMY;
+    public static final short MASK_ENEMY = CATEGORY_OBSTACLE | CATEGORY_PLAYER | CATEGORY_ENEMY;
+
+    private static final float MAX_STEP = 1 / 30f; // Longer frames are clamped to keep the solver stable
+    private static final int VELOCITY_ITERATIONS = 6;
+    private static final int POSITION_ITERATIONS = 2;
+    private static final float MAX_ENEMY_DIAMETER = 64f; // The boss collides with its feet, not its sprite
+
+    private static boolean box2dInitialized = false;
+
+    private final World world;
+    private Body obstacleBody;
+    private final Body playerBody;
+    private final ObjectMap<Enemy, Body> enemyBodies = new ObjectMap<>();
+    private final Vector2 target = new Vector2();
+
+    public PhysicsWorld(Array<Rectangle> obstacles, Player player) {
+        if (!box2dInitialized) {
+            Box2D.init();
+            box2dInitialized = true;
+        }
+
+        // Top-down game: no gravity, sleeping enabled
+        world = new World(new Vector2(0, 0), true);
+        obstacleBody = createObstacleBody(obstacles);
+        playerBody = createPlayerBody(player);
+    }
+
+    /**
+     * Replaces the walls, e.g. after a streamed world loaded or dropped chunks.
+     */
+    public void setObstacles(Array<Rectangle> obstacles) {
+        world.destroyBody(obstacleBody);
+        obstacleBody = createObstacleBody(obstacles);
+    }
+
+    private Body createObstacleBody(Array<Rectangle> obstacles) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        Body body = world.createBody(bodyDef);
+
+        PolygonShape shape = new PolygonShape();
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.filter.categoryBits = CATEGORY_OBSTACLE;
+        fixtureDef.filter.maskBits = MASK_OBSTACLE;
+
+        for (Rectangle rect : obstacles) {
+            shape.setAsBox(rect.width / 2f / PPM, rect.height / 2f / PPM,
+                target.set((rect.x + rect.width / 2f) / PPM, (rect.y + rect.height / 2f) / PPM), 0);
+            body.createFixture(fixtureDef);
+        }
+        shape.dispose();
+        return body;
+    }
+
+    /**
+     * The player keeps its own swept collision against walls, so its body is
+     * kinematic: it pushes enemies aside but is never pushed back.
+     */
+    private Body createPlayerBody(Player player) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.KinematicBody;
+        bodyDef.position.set(player.getPosition().x / PPM, player.getPosition().y / PPM);
+        bodyDef.fixedRotation = true;
+        Body body = world.createBody(bodyDef);
+
+        CircleShape shape = new CircleShape();
+        shape.setRadius(player.getBounds().width / 2f / PPM);
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.filter.categoryBits = CATEGORY_PLAYER;
+        fixtureDef.filter.maskBits = MASK_PLAYER;
+        body.createFixture(fixtureDef);
+        shape.dispose();
+        return body;
+    }
+
+    private Body createEnemyBody(Enemy enemy) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.DynamicBody;
+        bodyDef.position.set(enemy.position.x / PPM, enemy.position.y / PPM);
+        bodyDef.fixedRotation = true;
+        bodyDef.allowSleep = true;
+        Body body = world.createBody(bodyDef);
+
+        CircleShape shape = new CircleShape();
+        shape.setRadius(Math.min(enemy.bounds.getWidth(), MAX_ENEMY_DIAMETER) / 2f / PPM);
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.density = 1f;
+        fixtureDef.friction = 0f;
+        fixtureDef.filter.categoryBits = CATEGORY_ENEMY;
+        fixtureDef.filter.maskBits = MASK_ENEMY;
+        body.createFixture(fixtureDef);
+        shape.dispose();
+        return body;
+    }
+
+    /**
+     * Teleports every body to its entity's current position. Call when switching
+     * into physics mode after entities have been moving without it.
+     */
+    public void syncBodies(Player player, List<Enemy> enemies) {
+        playerBody.setTransform(player.getPosition().x / PPM, player.getPosition().y / PPM, 0);
+        for (int i = 0, n = enemies.size(); i < n; i++) {
+            Enemy enemy = enemies.get(i);
+            Body body = enemyBodies.get(enemy);
+            if (body != null) {
+                body.setTransform(enemy.position.x / PPM, enemy.position.y / PPM, 0);
+                body.setLinearVelocity(0, 0);
+            }
+        }
+    }
+
+    /**
+     * Resolves this frame's movement. Call after the player and enemies have updated.
+     */
+    public void step(float delta, Player player, List<Enemy> enemies) {
+        if (delta <= 0) return;
+        float step = Math.min(delta, MAX_STEP);
+
+        // The player body follows the player exactly
+        Vector2 playerBodyPos = playerBody.getPosition();
+        playerBody.setLinearVelocity(
+            (player.getPosition().x / PPM - playerBodyPos.x) / step,
+            (player.getPosition().y / PPM - playerBodyPos.y) / step);
+
+        // Enemy AI already moved each enemy; turn that move into a velocity for Box2D
+        for (int i = 0, n = enemies.size(); i < n; i++) {
+            Enemy enemy = enemies.get(i);
+            Body body = enemyBodies.get(enemy);
+            if (body == null) {
+                body = createEnemyBody(enemy);
+                enemyBodies.put(enemy, body);
+            }
+            Vector2 bodyPos = body.getPosition();
+            target.set(enemy.position.x / PPM - bodyPos.x, enemy.position.y / PPM - bodyPos.y);
+            if (target.isZero()) {
+                // Leave resting bodies alone so they can fall asleep
+                continue;
+            }
+            body.setLinearVelocity(target.scl(1f / step));
+        }
+
+        world.step(step, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+
+        // Write the resolved positions back
+        for (int i = 0, n = enemies.size(); i < n; i++) {
+            Enemy enemy = enemies.get(i);
+            Body body = enemyBodies.get(enemy);
+            if (!body.isAwake()) continue;
+
+            body.setLinearVelocity(0, 0);
+            enemy.position.set(body.getPosition().x * PPM, body.getPosition().y * PPM);
+            enemy.bounds.setPosition(enemy.position.x - enemy.bounds.getWidth() / 2f,
+                enemy.position.y - enemy.bounds.getHeight() / 2f);
+        }
+    }
+
+    /**
+     * Destroys the body of an enemy that has been removed from the game.
+     */
+    public void removeEnemy(Enemy enemy) {
+        Body body = enemyBodies.remove(enemy);
+        if (body != null) {
+            world.destroyBody(body);
+        }
+    }
+
+    public int getAwakeBodyCount() {
+        int awake = 0;
+        for (Body body : enemyBodies.values()) {
+            if (body.isAwake()) awake++;
+        }
+        return awake;
+    }
+
+    public int getBodyCount() {
+        return enemyBodies.size;
+    }
+
+    @Override
+    public void dispose() {
+        world.dispose();
+        enemyBodies.clear();
+    }
+}
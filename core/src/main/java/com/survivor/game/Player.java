@@ -23,8 +23,7 @@ public class Player extends Entity {
     private static final float ATTACK_DURATION = FRAME_DURATION * FRAMES_PER_ANIMATION;
     private static final float PPM = 100f; // Pixels per meter for physics calculations
     private Vector2 velocity = new Vector2(0, 0);
-    private float maxSpeed = 100f;
-    private float friction = 0.85f;
+    private float maxSpeed = PlayerMotion.MAX_SPEED;
     private boolean showCollisionMessage = false;
     private String collisionMessage = "";
     private float messageTimer = 0f;
@@ -48,16 +47,19 @@ public class Player extends Entity {
 
     // Resources
     private static Texture spriteSheet;
+    private static boolean ownsSpriteSheet; // True for the placeholder, which isn't shared
     private TextureRegion[][] animations;
 
     // Physics
     private Body body;
     private World world;
     private Rectangle bounds;
+    private SweptAabbSolver collider;
+    private final Vector2 resolvedMove = new Vector2();
 
     // Player properties
     private Vector2 position;
-    private float speed = 100f;
+    private float speed = PlayerMotion.SPEED;
     private int health = 100;
     private boolean alive = true;
 
@@ -78,8 +80,8 @@ public class Player extends Entity {
     private boolean isMovingRight = false;
 
     // Define map boundaries
-    private static final float MAP_WIDTH = 1600f; // Replace with your map's width
-    private static final float MAP_HEIGHT = 1600f; // Replace with your map's height
+    private float worldWidth = 1600f; // Movement is clamped to the world, see setWorldBounds
+    private float worldHeight = 1600f;
 
     // Constructors
     public Player() {
@@ -141,19 +143,23 @@ public class Player extends Entity {
             if (spriteSheet == null || !spriteSheet.getTextureData().isPrepared()) {
                 String fileName = "player_spritesheet.png";
                 if (Gdx.files.internal(fileName).exists()) {
-                    spriteSheet = new Texture(Gdx.files.internal(fileName));
+                    spriteSheet = ParallelTextureLoader.getShared().get(fileName);
+                    ownsSpriteSheet = false;
                     logger.debug("Loaded spritesheet from: " + fileName);
                 } else if (Gdx.files.internal("assets/" + fileName).exists()) {
-                    spriteSheet = new Texture(Gdx.files.internal("assets/" + fileName));
+                    spriteSheet = ParallelTextureLoader.getShared().get("assets/" + fileName);
+                    ownsSpriteSheet = false;
                     logger.debug("Loaded spritesheet from: assets/" + fileName);
                 } else {
                     logger.error("Player spritesheet not found! Creating placeholder texture.");
                     spriteSheet = new Texture(2, 2, com.badlogic.gdx.graphics.Pixmap.Format.RGB888);
+                    ownsSpriteSheet = true;
                 }
             }
         } catch (Exception e) {
             logger.error("Failed to load player spritesheet: " + e.getMessage());
             spriteSheet = new Texture(2, 2, com.badlogic.gdx.graphics.Pixmap.Format.RGB888);
+            ownsSpriteSheet = true;
         }
     }
 
@@ -236,25 +242,9 @@ public class Player extends Entity {
     }
 
     private void updatePosition(float deltaTime) {
-        // Calculate potential new position based on velocity
-        float newX = position.x + velocity.x * deltaTime;
-        float newY = position.y + velocity.y * deltaTime;
-
-        // Apply the movement only if it doesn't cause a collision
-        position.x = newX;
-        position.y = newY;
-
-        // Apply friction
-        if (!isMovingUp && !isMovingDown && !isMovingLeft && !isMovingRight) {
-            velocity.x *= friction;
-            velocity.y *= friction;
-            if (Math.abs(velocity.x) < 1) velocity.x = 0;
-            if (Math.abs(velocity.y) < 1) velocity.y = 0;
-        }
-
-        // Clamp position to map boundaries
-        position.x = Math.max(TILE_WIDTH / 2, Math.min(position.x, MAP_WIDTH - TILE_WIDTH / 2));
-        position.y = Math.max(TILE_HEIGHT / 2, Math.min(position.y, MAP_HEIGHT - TILE_HEIGHT / 2));
+        // Same steps the server runs for networked players, see PlayerMotion
+        boolean steering = isMovingUp || isMovingDown || isMovingLeft || isMovingRight;
+        PlayerMotion.move(position, velocity, steering, bounds, collider, worldWidth, worldHeight, deltaTime, resolvedMove);
     }
 
     private void updateAttackState(float deltaTime) {
@@ -423,6 +413,7 @@ public class Player extends Entity {
 
         health -= amount;
         Gdx.app.log("Player", "Took " + amount + " damage. Health now: " + health);
+        GameEvents.damage("Player", amount, Math.max(health, 0));
 
         isHit = true;
         hitTimer = 0f;
@@ -450,7 +441,7 @@ public class Player extends Entity {
 
         isMovingUp = true;
         isMovingDown = false;
-        velocity.y = Math.min(velocity.y + speed * 5 * deltaTime, maxSpeed);
+        PlayerMotion.steer(velocity, NetProtocol.BUTTON_UP, speed, maxSpeed, deltaTime);
 
         if (body != null) {
             body.setLinearVelocity(body.getLinearVelocity().x, speed / PPM);
@@ -468,7 +459,7 @@ public class Player extends Entity {
 
         isMovingDown = true;
         isMovingUp = false;
-        velocity.y = Math.max(velocity.y - speed * 5 * deltaTime, -maxSpeed);
+        PlayerMotion.steer(velocity, NetProtocol.BUTTON_DOWN, speed, maxSpeed, deltaTime);
 
         if (body != null) {
             body.setLinearVelocity(body.getLinearVelocity().x, -speed / PPM);
@@ -486,7 +477,7 @@ public class Player extends Entity {
 
         isMovingLeft = true;
         isMovingRight = false;
-        velocity.x = Math.max(velocity.x - speed * 5 * deltaTime, -maxSpeed);
+        PlayerMotion.steer(velocity, NetProtocol.BUTTON_LEFT, speed, maxSpeed, deltaTime);
 
         if (body != null) {
             body.setLinearVelocity(-speed / PPM, body.getLinearVelocity().y);
@@ -504,7 +495,7 @@ public class Player extends Entity {
 
         isMovingRight = true;
         isMovingLeft = false;
-        velocity.x = Math.min(velocity.x + speed * 5 * deltaTime, maxSpeed);
+        PlayerMotion.steer(velocity, NetProtocol.BUTTON_RIGHT, speed, maxSpeed, deltaTime);
 
         if (body != null) {
             body.setLinearVelocity(speed / PPM, body.getLinearVelocity().y);
@@ -660,6 +651,22 @@ public class Player extends Entity {
         return body;
     }
 
+    /**
+     * Sets the solver used to sweep movement against obstacles. Without one the
+     * player moves freely.
+     */
+    public void setCollider(SweptAabbSolver collider) {
+        this.collider = collider;
+    }
+
+    /**
+     * Sets the area the player is kept inside; pass infinity for a world without edges.
+     */
+    public void setWorldBounds(float width, float height) {
+        this.worldWidth = width;
+        this.worldHeight = height;
+    }
+
     /**
      * Check collision with a map object
      * @param objectBounds Rectangle representing the object's bounds
@@ -728,10 +735,11 @@ public class Player extends Entity {
 
     // Resource management
     public void dispose() {
-        if (spriteSheet != null) {
+        // The loaded sheet is shared through ParallelTextureLoader; only a placeholder is ours
+        if (spriteSheet != null && ownsSpriteSheet) {
             spriteSheet.dispose();
-            spriteSheet = null;
         }
+        spriteSheet = null;
         // Note: Box2D bodies should be disposed by the World
     }
 }
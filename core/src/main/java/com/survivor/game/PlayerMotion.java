@@ -0,0 +1,93 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * How the player moves, shared by {@link Player}, the dedicated server and
+ * {@link PlayerPredictor}, so a networked client runs exactly the steps the
+ * server will. Held direction keys accelerate the velocity up to a top speed,
+ * friction slows it once no key is held, and the move is swept against the
+ * obstacles and kept inside the world.
+ *
+ * The result depends only on the position, velocity, keys and frame time, so
+ * replaying the same inputs from the same state lands in the same place.
+ */
+public final class PlayerMotion {
+    public static final float SIZE = 32f; // Player bounds, one tile square
+    public static final float SPEED = 100f;
+    public static final float MAX_SPEED = 100f;
+    public static final float FRICTION = 0.85f; // Velocity kept each frame once no key is held
+    private static final float ACCELERATION = 5f; // Times the speed, per second
+    private static final float STOP_SPEED = 1f;
+    private static final int DIRECTION_BUTTONS =
+        NetProtocol.BUTTON_UP | NetProtocol.BUTTON_DOWN | NetProtocol.BUTTON_LEFT | NetProtocol.BUTTON_RIGHT;
+
+    private PlayerMotion() {}
+
+    public static boolean isSteering(int buttons) {
+        return (buttons & DIRECTION_BUTTONS) != 0;
+    }
+
+    /**
+     * One input: steers by the held keys, then moves for the same time.
+     *
+     * @param bounds the player's box; left at the new position
+     * @param collider null to move freely
+     * @param scratch overwritten
+     */
+    public static void step(Vector2 position, Vector2 velocity, int buttons, Rectangle bounds, SweptAabbSolver collider,
+            float worldWidth, float worldHeight, float delta, Vector2 scratch) {
+        steer(velocity, buttons, SPEED, MAX_SPEED, delta);
+        move(position, velocity, isSteering(buttons), bounds, collider, worldWidth, worldHeight, delta, scratch);
+    }
+
+    /**
+     * Accelerates towards every held direction key ({@link NetProtocol} button bits).
+     */
+    public static void steer(Vector2 velocity, int buttons, float speed, float maxSpeed, float delta) {
+        float acceleration = speed * ACCELERATION * delta;
+        if ((buttons & NetProtocol.BUTTON_UP) != 0) velocity.y = Math.min(velocity.y + acceleration, maxSpeed);
+        if ((buttons & NetProtocol.BUTTON_DOWN) != 0) velocity.y = Math.max(velocity.y - acceleration, -maxSpeed);
+        if ((buttons & NetProtocol.BUTTON_LEFT) != 0) velocity.x = Math.max(velocity.x - acceleration, -maxSpeed);
+        if ((buttons & NetProtocol.BUTTON_RIGHT) != 0) velocity.x = Math.min(velocity.x + acceleration, maxSpeed);
+    }
+
+    /**
+     * Moves by the velocity, sliding along anything in the way and losing the
+     * velocity into it, then applies friction unless the player is steering.
+     * Pass infinity for a world without edges.
+     */
+    public static void move(Vector2 position, Vector2 velocity, boolean steering, Rectangle bounds,
+            SweptAabbSolver collider, float worldWidth, float worldHeight, float delta, Vector2 scratch) {
+        float moveX = velocity.x * delta;
+        float moveY = velocity.y * delta;
+
+        if (collider != null) {
+            bounds.setPosition(position.x - bounds.width / 2f, position.y - bounds.height / 2f);
+            int blocked = collider.move(bounds, moveX, moveY, scratch);
+            moveX = scratch.x;
+            moveY = scratch.y;
+            if ((blocked & SweptAabbSolver.BLOCKED_X) != 0) velocity.x = 0;
+            if ((blocked & SweptAabbSolver.BLOCKED_Y) != 0) velocity.y = 0;
+        }
+
+        position.x += moveX;
+        position.y += moveY;
+
+        if (!steering) {
+            velocity.x *= FRICTION;
+            velocity.y *= FRICTION;
+            if (Math.abs(velocity.x) < STOP_SPEED) velocity.x = 0;
+            if (Math.abs(velocity.y) < STOP_SPEED) velocity.y = 0;
+        }
+
+        if (worldWidth != Float.POSITIVE_INFINITY) {
+            position.x = Math.max(bounds.width / 2f, Math.min(position.x, worldWidth - bounds.width / 2f));
+        }
+        if (worldHeight != Float.POSITIVE_INFINITY) {
+            position.y = Math.max(bounds.height / 2f, Math.min(position.y, worldHeight - bounds.height / 2f));
+        }
+        bounds.setPosition(position.x - bounds.width / 2f, position.y - bounds.height / 2f);
+    }
+}
@@ -0,0 +1,185 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Client-side prediction for the networked player. Every input is applied
+ * locally with {@link PlayerMotion} the moment it is sent, so the player moves
+ * on the frame the key goes down instead of a round trip later, and is kept in
+ * a ring until the server acknowledges it.
+ *
+ * Each snapshot carries the server's state for our player as of the last input
+ * it applied. If that differs from what we predicted at the same input, because
+ * an input was lost or the server knew something we didn't, we rewind to the
+ * server's state and replay the inputs it hasn't seen yet. The jump that causes
+ * is not shown at once: the difference is kept as a visual offset that decays
+ * over {@link #SMOOTHING_TIME}, unless it is big enough to be a respawn.
+ */
+public class PlayerPredictor {
+    private static final int CAPACITY = 128; // Two seconds of unacknowledged 60 fps input
+    private static final float TOLERANCE = 0.01f; // World units; anything closer counts as agreeing
+    private static final float SMOOTHING_TIME = 0.1f; // Seconds for the visual error to fall by two thirds
+    private static final float SNAP_DISTANCE = 4 * SnapshotCodec.TILE_SIZE;
+
+    private final int[] sequences = new int[CAPACITY];
+    private final int[] buttons = new int[CAPACITY];
+    private final float[] deltas = new float[CAPACITY];
+    private final float[] predictedX = new float[CAPACITY]; // State after applying the input
+    private final float[] predictedY = new float[CAPACITY];
+    private final float[] predictedVelocityX = new float[CAPACITY];
+    private final float[] predictedVelocityY = new float[CAPACITY];
+    private int head = 0; // Oldest unacknowledged input
+    private int size = 0;
+
+    private final Vector2 position = new Vector2();
+    private final Vector2 velocity = new Vector2();
+    private final Vector2 error = new Vector2(); // Added to the position when drawing, shrinks to zero
+    private final Rectangle bounds = new Rectangle(0, 0, PlayerMotion.SIZE, PlayerMotion.SIZE);
+    private final Vector2 scratch = new Vector2();
+    private SweptAabbSolver collider;
+    private float worldWidth = Float.POSITIVE_INFINITY;
+    private float worldHeight = Float.POSITIVE_INFINITY;
+    private boolean alive = true;
+    private boolean placed = false;
+
+    private int corrections = 0;
+    private float largestCorrection = 0;
+
+    /**
+     * Sets the obstacles and world size to move against; they must match the
+     * server's map or every move near a wall is mispredicted.
+     */
+    public void setWorld(SweptAabbSolver collider, float worldWidth, float worldHeight) {
+        this.collider = collider;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    /**
+     * Applies an input the moment it is sent. Until the first snapshot places
+     * the player, or while the server says it is dead, it is only remembered.
+     */
+    public void predict(int sequence, int inputButtons, float delta) {
+        error.scl((float) Math.exp(-delta / SMOOTHING_TIME));
+        if (placed && alive) {
+            PlayerMotion.step(position, velocity, inputButtons, bounds, collider, worldWidth, worldHeight, delta, scratch);
+        }
+
+        if (size == CAPACITY) {
+            // The server has gone quiet; forget the oldest, its correction will snap instead
+            head = (head + 1) % CAPACITY;
+            size--;
+        }
+        int slot = (head + size) % CAPACITY;
+        sequences[slot] = sequence;
+        buttons[slot] = inputButtons;
+        deltas[slot] = delta;
+        predictedX[slot] = position.x;
+        predictedY[slot] = position.y;
+        predictedVelocityX[slot] = velocity.x;
+        predictedVelocityY[slot] = velocity.y;
+        size++;
+    }
+
+    /**
+     * Checks the prediction against the server's state for our player.
+     *
+     * @param ackedSequence the last input the server applied to produce that state
+     * @param serverAlive false while the player is dead, which stops prediction
+     */
+    public void reconcile(int ackedSequence, float x, float y, float velocityX, float velocityY, boolean serverAlive) {
+        // Acknowledged inputs are done with; remember what we predicted for the newest of them
+        boolean matched = false;
+        float expectedX = 0;
+        float expectedY = 0;
+        float expectedVelocityX = 0;
+        float expectedVelocityY = 0;
+        while (size > 0 && sequences[head] <= ackedSequence) {
+            if (sequences[head] == ackedSequence) {
+                matched = true;
+                expectedX = predictedX[head];
+                expectedY = predictedY[head];
+                expectedVelocityX = predictedVelocityX[head];
+                expectedVelocityY = predictedVelocityY[head];
+            }
+            head = (head + 1) % CAPACITY;
+            size--;
+        }
+
+        boolean wasAlive = alive;
+        alive = serverAlive;
+        if (matched && placed && wasAlive && alive
+            && Math.abs(expectedX - x) <= TOLERANCE && Math.abs(expectedY - y) <= TOLERANCE
+            && Math.abs(expectedVelocityX - velocityX) <= TOLERANCE
+            && Math.abs(expectedVelocityY - velocityY) <= TOLERANCE) {
+            return;
+        }
+
+        // Rewind to the server's state and replay what it hasn't applied yet
+        float shownX = position.x + error.x;
+        float shownY = position.y + error.y;
+        position.set(x, y);
+        velocity.set(velocityX, velocityY);
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % CAPACITY;
+            if (alive) {
+                PlayerMotion.step(position, velocity, buttons[slot], bounds, collider, worldWidth, worldHeight,
+                    deltas[slot], scratch);
+            }
+            predictedX[slot] = position.x;
+            predictedY[slot] = position.y;
+            predictedVelocityX[slot] = velocity.x;
+            predictedVelocityY[slot] = velocity.y;
+        }
+
+        if (!placed) {
+            placed = true;
+            return;
+        }
+        error.set(shownX - position.x, shownY - position.y);
+        float distance = error.len();
+        if (distance > SNAP_DISTANCE) error.setZero(); // Respawned or teleported; sliding there would look wrong
+        if (distance > TOLERANCE) {
+            corrections++;
+            largestCorrection = Math.max(largestCorrection, distance);
+        }
+    }
+
+    /**
+     * @return where to draw the player: the prediction plus what is left of the smoothed error
+     */
+    public float getX() {
+        return position.x + error.x;
+    }
+
+    public float getY() {
+        return position.y + error.y;
+    }
+
+    /**
+     * @return the predicted position itself, without smoothing
+     */
+    public Vector2 getPosition() {
+        return position;
+    }
+
+    public boolean isPlaced() {
+        return placed;
+    }
+
+    public int getPendingInputs() {
+        return size;
+    }
+
+    /**
+     * @return how many times the server disagreed and the prediction was replayed
+     */
+    public int getCorrections() {
+        return corrections;
+    }
+
+    public float getLargestCorrection() {
+        return largestCorrection;
+    }
+}
@@ -0,0 +1,105 @@
+package com.survivor.game;
+
+/**
+ * Scales the enemy population to what the machine can afford.
+ *
+ * Every frame it is told how long the frame's CPU work and the simulation part
+ * of it took; both are smoothed. Frame time is used rather than the frame delta
+ * because with vsync on, the delta sits at the refresh interval no matter how
+ * much time is left over. About once a second the smoothed frame time is
+ * compared with the target. Above the upper threshold the cap is cut
+ * multiplicatively and spawning pauses. Below the lower threshold, and only
+ * while the population is actually pressing against the cap, the cap grows by a
+ * small step and spawning resumes. Between the two thresholds nothing changes,
+ * so the cap doesn't oscillate around the target.
+ */
+public class PopulationGovernor {
+    public static final float DEFAULT_TARGET_MS = 1000f / 60f;
+
+    private static final float SMOOTHING = 0.1f; // Weight of the newest sample in the moving averages
+    private static final float GROW_BELOW = 0.75f; // Fraction of the target under which the cap may grow
+    private static final float SHRINK_ABOVE = 0.95f; // Fraction of the target over which the cap shrinks
+    private static final float ADJUST_INTERVAL = 1f; // Seconds between decisions, so changes can take effect
+    private static final float GROW_STEP = 0.1f;
+    private static final float SHRINK_FACTOR = 0.8f;
+    private static final float FULL_FRACTION = 0.9f; // Only grow when the population is this close to the cap
+    private static final int MIN_CAP = 10;
+    private static final int MAX_CAP = 2000;
+    private static final int INITIAL_CAP = 20;
+
+    private final SpawnDirector director;
+    private final float targetMillis;
+    private float frameMillis;
+    private float simulationMillis;
+    private float adjustTimer = 0f;
+    private int cap = INITIAL_CAP;
+    private boolean throttled = false;
+
+    public PopulationGovernor(SpawnDirector director) {
+        this(director, DEFAULT_TARGET_MS);
+    }
+
+    public PopulationGovernor(SpawnDirector director, float targetMillis) {
+        this.director = director;
+        this.targetMillis = targetMillis;
+        this.frameMillis = targetMillis * GROW_BELOW;
+        this.simulationMillis = 0f;
+        director.setMaxAlive(cap);
+    }
+
+    /**
+     * @param delta frame delta in seconds, only used to pace decisions
+     * @param simulationTime milliseconds spent updating the game this frame
+     * @param frameTime milliseconds of CPU work for the whole frame, simulation included
+     * @param alive enemies currently alive
+     */
+    public void sample(float delta, float simulationTime, float frameTime, int alive) {
+        frameMillis += (frameTime - frameMillis) * SMOOTHING;
+        simulationMillis += (simulationTime - simulationMillis) * SMOOTHING;
+
+        adjustTimer += delta;
+        if (adjustTimer < ADJUST_INTERVAL) return;
+        adjustTimer = 0f;
+
+        if (frameMillis > targetMillis * SHRINK_ABOVE) {
+            // Over budget: back off hard, based on what is actually alive
+            cap = Math.max(MIN_CAP, (int) (Math.min(cap, alive) * SHRINK_FACTOR));
+            throttled = true;
+        } else if (frameMillis < targetMillis * GROW_BELOW) {
+            throttled = false;
+            if (alive >= cap * FULL_FRACTION) {
+                cap = Math.min(MAX_CAP, cap + Math.max(1, (int) (cap * GROW_STEP)));
+            }
+        }
+
+        director.setMaxAlive(cap);
+        director.setRateScale(throttled ? 0f : 1f);
+    }
+
+    /**
+     * @return fraction of the frame budget left over; negative when over budget
+     */
+    public float getHeadroom() {
+        return 1f - frameMillis / targetMillis;
+    }
+
+    public int getCap() {
+        return cap;
+    }
+
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    public float getFrameMillis() {
+        return frameMillis;
+    }
+
+    public float getSimulationMillis() {
+        return simulationMillis;
+    }
+
+    public float getTargetMillis() {
+        return targetMillis;
+    }
+}
@@ -0,0 +1,247 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Generates an endless world from a seed, using the tile sets of map.tmx.
+ *
+ * Every chunk is a pure function of the seed and its coordinates. Ground is
+ * grass, with stone patches taken from value noise in world space, so patches
+ * continue across chunk borders. Each chunk then scatters a few wall segments and
+ * props from its own random stream, kept one tile inside the chunk so nothing is
+ * ever cut in half. Tiles under a wall or prop are marked blocked, so the
+ * streamer's grids and the spawn director see them like the compiled map's
+ * walls. The same chunk always comes out the same, which lets caches throw
+ * chunks away and rebuild them later. Safe to call from several threads at once.
+ */
+public class ProceduralChunkSource implements ChunkSource {
+    private static final String[] LAYER_NAMES = {"Ground", "Objects"};
+    private static final int GROUND = 0;
+    private static final int OBJECTS = 1;
+
+    // Local tile ids inside each tile set, matching the tiles used in map.tmx
+    private static final int[] GRASS_TILES = {0, 0, 0, 0, 0, 0, 7, 9, 11};
+    private static final int[] STONE_TILES = {9, 28, 40};
+    private static final int WALL_TOP_LEFT = 97, WALL_TOP_MIDDLE = 98, WALL_TOP_RIGHT = 100;
+    private static final int WALL_BOTTOM_LEFT = 113, WALL_BOTTOM_MIDDLE = 114, WALL_BOTTOM_RIGHT = 116;
+    private static final int[][] PROPS = {{5, 21}, {69, 85}, {151, 167}}; // {top, bottom}
+
+    private static final float STONE_SCALE = 12f; // Tiles per noise cell
+    private static final float STONE_THRESHOLD = 0.68f;
+    private static final int MAX_WALLS = 2;
+    private static final int MIN_WALL_LENGTH = 3;
+    private static final int MAX_WALL_LENGTH = 7;
+    private static final int MAX_PROPS = 4;
+    private static final int SAFE_RADIUS = 6; // Tiles around the spawn tile kept free of walls and props
+
+    private final TiledMapTileSets tileSets;
+    private final long seed;
+    private final int chunkSize;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int grassFirstId;
+    private final int stoneFirstId;
+    private final int wallFirstId;
+    private final int propsFirstId;
+    private final int spawnTileX;
+    private final int spawnTileY;
+
+    /**
+     * @param tileSets tile sets of a loaded map containing Base (grass), Stone Ground, Wall and Props
+     * @param spawnTileX tile the player starts on, kept clear so they never start inside a wall
+     */
+    public ProceduralChunkSource(TiledMapTileSets tileSets, long seed, int chunkSize, int spawnTileX, int spawnTileY) {
+        this.tileSets = tileSets;
+        this.seed = seed;
+        this.chunkSize = chunkSize;
+        this.spawnTileX = spawnTileX;
+        this.spawnTileY = spawnTileY;
+        this.grassFirstId = firstId(tileSets, "Base");
+        this.stoneFirstId = firstId(tileSets, "Stone Ground");
+        this.wallFirstId = firstId(tileSets, "Wall");
+        this.propsFirstId = firstId(tileSets, "Props");
+        this.tileWidth = tileSets.getTileSet("Base").getProperties().get("tilewidth", Integer.class);
+        this.tileHeight = tileSets.getTileSet("Base").getProperties().get("tileheight", Integer.class);
+    }
+
+    private static int firstId(TiledMapTileSets tileSets, String name) {
+        TiledMapTileSet tileSet = tileSets.getTileSet(name);
+        if (tileSet == null) {
+            throw new IllegalArgumentException("Tile set not found: " + name);
+        }
+        return tileSet.getProperties().get("firstgid", Integer.class);
+    }
+
+    @Override
+    public WorldChunk loadChunk(int chunkX, int chunkY) {
+        WorldChunk chunk = new WorldChunk(chunkX, chunkY, chunkSize, LAYER_NAMES.length);
+        RandomXS128 random = new RandomXS128(mix(seed, chunkX, chunkY));
+        int baseX = chunkX * chunkSize;
+        int baseY = chunkY * chunkSize;
+        boolean[] occupied = new boolean[chunkSize * chunkSize];
+
+        int[] ground = chunk.cells[GROUND];
+        for (int y = 0; y < chunkSize; y++) {
+            for (int x = 0; x < chunkSize; x++) {
+                boolean stone = valueNoise((baseX + x) / STONE_SCALE, (baseY + y) / STONE_SCALE) > STONE_THRESHOLD;
+                int tile = stone
+                    ? stoneFirstId + STONE_TILES[random.nextInt(STONE_TILES.length)]
+                    : grassFirstId + GRASS_TILES[random.nextInt(GRASS_TILES.length)];
+                ground[y * chunkSize + x] = WorldChunk.packCell(tile, false, false, 0);
+            }
+        }
+
+        // Keep the area around the spawn open so the player never starts inside a wall
+        for (int y = 0; y < chunkSize; y++) {
+            for (int x = 0; x < chunkSize; x++) {
+                if (Math.abs(baseX + x - spawnTileX) <= SAFE_RADIUS && Math.abs(baseY + y - spawnTileY) <= SAFE_RADIUS) {
+                    occupied[y * chunkSize + x] = true;
+                }
+            }
+        }
+
+        int walls = random.nextInt(MAX_WALLS + 1);
+        for (int i = 0; i < walls; i++) {
+            int length = MIN_WALL_LENGTH + random.nextInt(MAX_WALL_LENGTH - MIN_WALL_LENGTH + 1);
+            int x = 1 + random.nextInt(chunkSize - length - 1);
+            int y = 1 + random.nextInt(chunkSize - 3);
+            if (!isFree(occupied, x, y, length, 2)) continue;
+            placeWall(chunk, occupied, x, y, length);
+        }
+
+        int props = random.nextInt(MAX_PROPS + 1);
+        for (int i = 0; i < props; i++) {
+            int x = 1 + random.nextInt(chunkSize - 2);
+            int y = 1 + random.nextInt(chunkSize - 3);
+            if (!isFree(occupied, x, y, 1, 2)) continue;
+            placeProp(chunk, occupied, x, y, PROPS[random.nextInt(PROPS.length)]);
+        }
+
+        // Walls and props block the tiles they stand on, for the streamer's grids and for spawning
+        for (Rectangle rect : chunk.obstacles) {
+            chunk.blockRect(rect, tileWidth, tileHeight);
+        }
+        chunk.collectFreeTiles();
+        return chunk;
+    }
+
+    /**
+     * A wall two tiles high: the top row is the wall's cap, the bottom row its face.
+     */
+    private void placeWall(WorldChunk chunk, boolean[] occupied, int x, int y, int length) {
+        int[] objects = chunk.cells[OBJECTS];
+        for (int i = 0; i < length; i++) {
+            int top = i == 0 ? WALL_TOP_LEFT : i == length - 1 ? WALL_TOP_RIGHT : WALL_TOP_MIDDLE + (i & 1);
+            int bottom = i == 0 ? WALL_BOTTOM_LEFT : i == length - 1 ? WALL_BOTTOM_RIGHT : WALL_BOTTOM_MIDDLE + (i & 1);
+            objects[(y + 1) * chunkSize + x + i] = WorldChunk.packCell(wallFirstId + top, false, false, 0);
+            objects[y * chunkSize + x + i] = WorldChunk.packCell(wallFirstId + bottom, false, false, 0);
+        }
+        markOccupied(occupied, x, y, length, 2);
+        chunk.obstacles.add(tileRect(chunk, x, y, length, 2));
+    }
+
+    private void placeProp(WorldChunk chunk, boolean[] occupied, int x, int y, int[] prop) {
+        int[] objects = chunk.cells[OBJECTS];
+        objects[(y + 1) * chunkSize + x] = WorldChunk.packCell(propsFirstId + prop[0], false, false, 0);
+        objects[y * chunkSize + x] = WorldChunk.packCell(propsFirstId + prop[1], false, false, 0);
+        markOccupied(occupied, x, y, 1, 2);
+        chunk.obstacles.add(tileRect(chunk, x, y, 1, 2));
+    }
+
+    private Rectangle tileRect(WorldChunk chunk, int x, int y, int width, int height) {
+        return new Rectangle((chunk.chunkX * chunkSize + x) * tileWidth, (chunk.chunkY * chunkSize + y) * tileHeight,
+            width * tileWidth, height * tileHeight);
+    }
+
+    private boolean isFree(boolean[] occupied, int x, int y, int width, int height) {
+        // One tile of margin around the footprint so objects never touch
+        for (int ty = Math.max(0, y - 1); ty <= Math.min(chunkSize - 1, y + height); ty++) {
+            for (int tx = Math.max(0, x - 1); tx <= Math.min(chunkSize - 1, x + width); tx++) {
+                if (occupied[ty * chunkSize + tx]) return false;
+            }
+        }
+        return true;
+    }
+
+    private void markOccupied(boolean[] occupied, int x, int y, int width, int height) {
+        for (int ty = y; ty < y + height; ty++) {
+            for (int tx = x; tx < x + width; tx++) {
+                occupied[ty * chunkSize + tx] = true;
+            }
+        }
+    }
+
+    /**
+     * Smoothly interpolated lattice noise in [0, 1), continuous across chunk borders.
+     */
+    private float valueNoise(float x, float y) {
+        int x0 = MathUtils.floor(x);
+        int y0 = MathUtils.floor(y);
+        float fx = x - x0;
+        float fy = y - y0;
+        float sx = fx * fx * (3 - 2 * fx);
+        float sy = fy * fy * (3 - 2 * fy);
+
+        float bottom = MathUtils.lerp(lattice(x0, y0), lattice(x0 + 1, y0), sx);
+        float top = MathUtils.lerp(lattice(x0, y0 + 1), lattice(x0 + 1, y0 + 1), sx);
+        return MathUtils.lerp(bottom, top, sy);
+    }
+
+    private float lattice(int x, int y) {
+        return (mix(seed ^ 0x5DEECE66DL, x, y) >>> 40) / (float) (1L << 24);
+    }
+
+    /**
+     * SplitMix64-style hash of the seed and a pair of coordinates.
+     */
+    private static long mix(long seed, int x, int y) {
+        long h = seed + x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    @Override
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    @Override
+    public int getWidthInChunks() {
+        return -1;
+    }
+
+    @Override
+    public int getHeightInChunks() {
+        return -1;
+    }
+
+    @Override
+    public String[] getLayerNames() {
+        return LAYER_NAMES;
+    }
+
+    @Override
+    public float getLayerOpacity(int layer) {
+        return 1f;
+    }
+
+    @Override
+    public TiledMapTileSets getTileSets() {
+        return tileSets;
+    }
+}
@@ -0,0 +1,219 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * All arrows in flight, stored as parallel arrays (structure of arrays) in a
+ * fixed pool.
+ *
+ * Live projectiles are packed at the front of the arrays. Spawning takes the
+ * next free slot. A projectile that dies is overwritten by the last live one.
+ * Nothing is allocated after construction, and the update loop walks plain float
+ * arrays. Walls are found by sweeping the segment an arrow covered this frame
+ * against the obstacles near it, so fast arrows cannot skip through thin walls
+ * between frames. Hostile arrows are tested against the player's box. Friendly
+ * arrows ask the {@link CombatQuery} grid for enemies under them.
+ */
+public class ProjectileSystem implements Disposable {
+    public static final byte HOSTILE = 0;  // Fired by enemies, hurts the player
+    public static final byte FRIENDLY = 1; // Fired by the player, hurts enemies
+
+    public static final float ARROW_SPEED = 250f;
+    static final int MAX_PROJECTILES = 8192;
+    private static final float LIFETIME = 4f; // Seconds before an arrow that hit nothing disappears
+    private static final float SPRITE_SIZE = 32f;
+    private static final float HIT_SIZE = 8f; // Only the arrow head hits things
+
+    private final ObstacleQuery obstacles;
+    private final float minX; // Minus infinity along an axis the world never ends on
+    private final float minY;
+    private final float worldWidth;
+    private final float worldHeight;
+    private final Texture texture;
+    private final TextureRegion region;
+
+    private final float[] x = new float[MAX_PROJECTILES];
+    private final float[] y = new float[MAX_PROJECTILES];
+    private final float[] vx = new float[MAX_PROJECTILES];
+    private final float[] vy = new float[MAX_PROJECTILES];
+    private final float[] rotation = new float[MAX_PROJECTILES];
+    private final float[] life = new float[MAX_PROJECTILES];
+    private final int[] damage = new int[MAX_PROJECTILES];
+    private final byte[] team = new byte[MAX_PROJECTILES];
+    private int count = 0;
+
+    private final Array<Enemy> hits = new Array<>(false, 4);
+    private final Array<Rectangle> nearbyObstacles = new Array<>(false, 8);
+
+    /**
+     * @param worldWidth arrows leaving the world are dropped; pass infinity for an unbounded world
+     */
+    public ProjectileSystem(ObstacleQuery obstacles, float worldWidth, float worldHeight) {
+        this.obstacles = obstacles;
+        this.minX = worldWidth == Float.POSITIVE_INFINITY ? Float.NEGATIVE_INFINITY : 0;
+        this.minY = worldHeight == Float.POSITIVE_INFINITY ? Float.NEGATIVE_INFINITY : 0;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.texture = ParallelTextureLoader.getShared().get("Arrow01(32x32).png");
+        this.region = new TextureRegion(texture);
+    }
+
+    /**
+     * @return false if the pool is full and the arrow was dropped
+     */
+    public boolean spawn(float startX, float startY, float velocityX, float velocityY, int amount, byte owner) {
+        if (count == MAX_PROJECTILES) return false;
+
+        int i = count++;
+        x[i] = startX;
+        y[i] = startY;
+        vx[i] = velocityX;
+        vy[i] = velocityY;
+        rotation[i] = MathUtils.atan2(velocityY, velocityX) * MathUtils.radiansToDegrees;
+        life[i] = LIFETIME;
+        damage[i] = amount;
+        team[i] = owner;
+        return true;
+    }
+
+    /**
+     * Fires an arrow from the start point towards the target at {@link #ARROW_SPEED}.
+     */
+    public boolean spawnAimed(float startX, float startY, float targetX, float targetY, int amount, byte owner) {
+        float dx = targetX - startX;
+        float dy = targetY - startY;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) return false;
+        return spawn(startX, startY, dx / length * ARROW_SPEED, dy / length * ARROW_SPEED, amount, owner);
+    }
+
+    /**
+     * Moves every arrow and resolves hits. The combat query must have been rebuilt
+     * this frame for friendly arrows to find enemies.
+     */
+    public void update(float delta, Player player, CombatQuery combatQuery) {
+        Rectangle playerBounds = player.getBounds();
+        boolean playerHittable = player.isAlive();
+        float half = HIT_SIZE / 2f;
+
+        // Walk backwards so the arrow swapped into a dead slot has already been updated
+        for (int i = count - 1; i >= 0; i--) {
+            float startX = x[i];
+            float startY = y[i];
+            float px = startX + vx[i] * delta;
+            float py = startY + vy[i] * delta;
+            x[i] = px;
+            y[i] = py;
+            life[i] -= delta;
+
+            // Out of time, off the map or into a wall somewhere along this frame's path
+            if (life[i] <= 0 || px < minX || py < minY || px >= worldWidth || py >= worldHeight
+                || hitsWall(startX, startY, px, py)) {
+                kill(i);
+                continue;
+            }
+
+            if (team[i] == HOSTILE) {
+                if (playerHittable
+                    && px + half > playerBounds.x && px - half < playerBounds.x + playerBounds.width
+                    && py + half > playerBounds.y && py - half < playerBounds.y + playerBounds.height) {
+                    player.takeDamage(damage[i]);
+                    kill(i);
+                }
+            } else if (combatQuery.queryRect(px - half, py - half, HIT_SIZE, HIT_SIZE, hits) > 0) {
+                hits.first().takeDamage(damage[i]);
+                kill(i);
+            }
+        }
+    }
+
+    /**
+     * Slab test of the segment against every obstacle whose box overlaps the
+     * segment's bounding box.
+     */
+    private boolean hitsWall(float x0, float y0, float x1, float y1) {
+        float minX = Math.min(x0, x1);
+        float minY = Math.min(y0, y1);
+        nearbyObstacles.clear();
+        obstacles.query(minX, minY, Math.abs(x1 - x0), Math.abs(y1 - y0), nearbyObstacles);
+
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        for (int i = 0; i < nearbyObstacles.size; i++) {
+            Rectangle rect = nearbyObstacles.get(i);
+            float enter = 0f;
+            float exit = 1f;
+
+            if (dx == 0) {
+                if (x0 <= rect.x || x0 >= rect.x + rect.width) continue;
+            } else {
+                float t0 = (rect.x - x0) / dx;
+                float t1 = (rect.x + rect.width - x0) / dx;
+                enter = Math.max(enter, Math.min(t0, t1));
+                exit = Math.min(exit, Math.max(t0, t1));
+            }
+            if (dy == 0) {
+                if (y0 <= rect.y || y0 >= rect.y + rect.height) continue;
+            } else {
+                float t0 = (rect.y - y0) / dy;
+                float t1 = (rect.y + rect.height - y0) / dy;
+                enter = Math.max(enter, Math.min(t0, t1));
+                exit = Math.min(exit, Math.max(t0, t1));
+            }
+            if (enter < exit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void kill(int i) {
+        int last = --count;
+        if (i == last) return;
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        rotation[i] = rotation[last];
+        life[i] = life[last];
+        damage[i] = damage[last];
+        team[i] = team[last];
+    }
+
+    /**
+     * Draws the arrows that fall inside the visible area.
+     */
+    public void render(SpriteBatch batch, float viewX, float viewY, float viewWidth, float viewHeight) {
+        float half = SPRITE_SIZE / 2f;
+        float minX = viewX - half;
+        float minY = viewY - half;
+        float maxX = viewX + viewWidth + half;
+        float maxY = viewY + viewHeight + half;
+
+        for (int i = 0; i < count; i++) {
+            float px = x[i];
+            float py = y[i];
+            if (px < minX || px > maxX || py < minY || py > maxY) continue;
+            batch.draw(region, px - half, py - half, half, half, SPRITE_SIZE, SPRITE_SIZE, 1f, 1f, rotation[i]);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void dispose() {
+        // The arrow texture is shared through ParallelTextureLoader and released with it
+    }
+}
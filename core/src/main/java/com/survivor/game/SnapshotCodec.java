@@ -0,0 +1,414 @@
+package com.survivor.game;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Delta-compressed, bit-packed encoding of {@link WorldSnapshot}s. Each packet
+ * describes the current snapshot relative to a baseline the client has already
+ * acknowledged: the ids that went away, and for every entity that changed a
+ * set of dirty bits followed by only the fields that changed. Entities that
+ * didn't change cost nothing; new ones are sent in full.
+ *
+ * Positions are quantised to the tile grid, {@link #POSITION_STEPS_PER_TILE}
+ * steps per tile, and sent as deltas from the baseline. Health takes 10 bits,
+ * animation flags 2 and the kind 2; ids and counts use exponential-Golomb codes.
+ *
+ * Packets never exceed the bit budget the caller gives. When more entities
+ * changed than fit, removals and players go first and the rest are ranked by
+ * priority accumulated over the ticks they have waited, so entities the caller
+ * rates higher update more often without starving the others. Whatever doesn't
+ * fit stays dirty against the baseline and is sent later, so bandwidth per
+ * client stays flat however big the horde gets. The encoder fills in the snapshot the client will
+ * decode, which is what the server must keep as the next baseline.
+ *
+ * One instance per client on the server, since it remembers how long each
+ * entity has waited; clients need one for decoding.
+ */
+public class SnapshotCodec {
+    public static final float TILE_SIZE = 32f; // Tile edge of map.tmx and the generated world
+    public static final int POSITION_STEPS_PER_TILE = 256;
+    private static final float POSITION_SCALE = POSITION_STEPS_PER_TILE / TILE_SIZE;
+
+    private static final int KIND_BITS = 2;
+    private static final int HEALTH_BITS = 10;
+    private static final int HEALTH_MAX = (1 << HEALTH_BITS) - 1;
+    private static final int FLAG_BITS = 2;
+    private static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+    // Dirty bits of an entity that was already in the baseline
+    private static final int DIRTY_POSITION = 1;
+    private static final int DIRTY_HEALTH = 1 << 1;
+    private static final int DIRTY_FLAGS = 1 << 2;
+    private static final int DIRTY_BITS = 3;
+    private static final int NEW_ENTITY = -1; // Sent in full instead of as dirty fields
+
+    private static final WorldSnapshot EMPTY = new WorldSnapshot(0);
+
+    private final BitWriter writer = new BitWriter();
+    private final BitReader reader = new BitReader();
+
+    // Diff between the current snapshot and the baseline, rebuilt every encode
+    private int changeCount;
+    private int[] changeIndex = new int[64]; // Index in the current snapshot
+    private int[] changeBaseline = new int[64]; // Index in the baseline, or -1
+    private int[] changeMask = new int[64]; // Dirty bits, or NEW_ENTITY
+    private int[] changeCost = new int[64]; // Bits, not counting the id
+    private boolean[] changeSelected = new boolean[64];
+    private int removedCount;
+    private int[] removedIndex = new int[64]; // Index in the baseline
+    private boolean[] removedSelected = new boolean[64];
+    private int[] selectionOrder = new int[64]; // Changes in the order they were picked; removals are never dropped
+
+    // What the packet carries, in the form the decoder rebuilds it
+    private final WorldSnapshot changes = new WorldSnapshot();
+    private int[] removedIds = new int[64];
+    private int removedIdCount;
+
+    private float[] waiting; // Priority each entity id has accumulated since it was last sent; server side only
+    private long[] order = new long[64]; // Accumulated priority and change index, for ranking
+
+    /**
+     * Writes {@code current} as a delta from {@code baseline}, using at most
+     * {@code budgetBits} bits of {@code out}.
+     *
+     * @param baseline the snapshot the client acknowledged, or null to send everything
+     * @param priorities send priority of each entity in {@code current}, positive; null treats all alike
+     * @param sent receives the snapshot the client will hold after decoding this packet
+     * @return the number of changed entities left for later ticks
+     */
+    public int encode(WorldSnapshot current, WorldSnapshot baseline, float[] priorities, ByteBuffer out, int budgetBits,
+            WorldSnapshot sent) {
+        if (baseline == null) baseline = EMPTY;
+        diff(current, baseline);
+
+        // Reserve room for both counts at their largest, so the selection below can't overrun
+        int remaining = budgetBits - BitWriter.unsignedBits(removedCount) - BitWriter.unsignedBits(changeCount);
+
+        // Removals first: they are a few bits each and leave the client drawing ghosts otherwise
+        int previousId = -1;
+        for (int r = 0; r < removedCount; r++) {
+            int id = baseline.ids[removedIndex[r]];
+            int cost = BitWriter.unsignedBits(id - previousId - 1);
+            removedSelected[r] = cost <= remaining;
+            if (removedSelected[r]) {
+                remaining -= cost;
+                previousId = id;
+            }
+        }
+
+        // Players next, then the rest by accumulated priority: every tick a change waits adds its priority, so
+        // urgent entities go out often and the rest still get their turn
+        if (waiting == null) waiting = new float[Short.MAX_VALUE + 1];
+        int selected = 0;
+        int candidates = 0;
+        for (int c = 0; c < changeCount; c++) {
+            changeSelected[c] = false;
+            int i = changeIndex[c];
+            if (current.kinds[i] == NetProtocol.KIND_PLAYER) {
+                int cost = estimatedCost(current, c);
+                if (cost <= remaining) {
+                    remaining -= cost;
+                    changeSelected[c] = true;
+                    selectionOrder[selected++] = c;
+                }
+                continue;
+            }
+            int id = current.ids[i];
+            waiting[id] += priorities != null ? priorities[i] : 1f;
+            // Positive floats order like their bits, so one long sort ranks changes by priority
+            order[candidates++] = ((long) Float.floatToIntBits(waiting[id]) << 32) | c;
+        }
+        Arrays.sort(order, 0, candidates);
+        int deferred = 0;
+        for (int k = candidates - 1; k >= 0; k--) {
+            int c = (int) order[k];
+            int cost = estimatedCost(current, c);
+            if (cost > remaining) {
+                deferred++;
+                continue;
+            }
+            remaining -= cost;
+            changeSelected[c] = true;
+            selectionOrder[selected++] = c;
+        }
+
+        // Skipped entities widen the id gaps a little; drop the lowest priority picks until the exact size fits
+        while (selected > 0 && exactBits(current, baseline) > budgetBits) {
+            changeSelected[selectionOrder[--selected]] = false;
+            deferred++;
+        }
+        for (int s = 0; s < selected; s++) {
+            waiting[current.ids[changeIndex[selectionOrder[s]]]] = 0;
+        }
+
+        write(current, baseline, out);
+        merge(baseline, sent, current.tick);
+        return deferred;
+    }
+
+    /**
+     * Rebuilds the snapshot the server encoded, from the packet and the same baseline.
+     *
+     * @param baseline the snapshot the packet names as its baseline, or null if it has none
+     * @param out receives the decoded snapshot; must not be the baseline
+     */
+    public void decode(ByteBuffer in, WorldSnapshot baseline, WorldSnapshot out, int tick) {
+        if (baseline == null) baseline = EMPTY;
+        reader.begin(in);
+
+        removedIdCount = reader.readUnsigned();
+        if (removedIds.length < removedIdCount) removedIds = new int[removedIdCount];
+        int id = -1;
+        for (int r = 0; r < removedIdCount; r++) {
+            id += 1 + reader.readUnsigned();
+            removedIds[r] = id;
+        }
+
+        int count = reader.readUnsigned();
+        changes.clear(tick);
+        changes.ensureCapacity(count);
+        id = -1;
+        int b = 0;
+        for (int c = 0; c < count; c++) {
+            id += 1 + reader.readUnsigned();
+            if (reader.readBoolean()) {
+                int kind = reader.read(KIND_BITS);
+                float x = reader.readSigned() / POSITION_SCALE;
+                float y = reader.readSigned() / POSITION_SCALE;
+                changes.add(id, kind, x, y, reader.read(HEALTH_BITS), reader.read(FLAG_BITS));
+            } else {
+                // Baseline and changes are both sorted, so the baseline entry is found by walking forward
+                while (b < baseline.count && baseline.ids[b] < id) b++;
+                if (b == baseline.count || baseline.ids[b] != id) {
+                    throw new IllegalStateException("Delta for entity " + id + " missing from the baseline");
+                }
+                int mask = reader.read(DIRTY_BITS);
+                float x = baseline.x[b];
+                float y = baseline.y[b];
+                if ((mask & DIRTY_POSITION) != 0) {
+                    x = (quantise(x) + reader.readSigned()) / POSITION_SCALE;
+                    y = (quantise(y) + reader.readSigned()) / POSITION_SCALE;
+                }
+                int health = (mask & DIRTY_HEALTH) != 0 ? reader.read(HEALTH_BITS) : baseline.health[b];
+                int flags = (mask & DIRTY_FLAGS) != 0 ? reader.read(FLAG_BITS) : baseline.flags[b];
+                changes.add(id, baseline.kinds[b], x, y, health, flags);
+            }
+        }
+        merge(baseline, out, tick);
+    }
+
+    private void diff(WorldSnapshot current, WorldSnapshot baseline) {
+        changeCount = 0;
+        removedCount = 0;
+        int i = 0;
+        int j = 0;
+        while (i < current.count || j < baseline.count) {
+            int currentId = i < current.count ? current.ids[i] : Integer.MAX_VALUE;
+            int baselineId = j < baseline.count ? baseline.ids[j] : Integer.MAX_VALUE;
+            if (currentId == baselineId) {
+                // A reused id with a different kind is a new entity, not a delta
+                int mask = current.kinds[i] != baseline.kinds[j] ? NEW_ENTITY : dirtyMask(current, i, baseline, j);
+                if (mask != 0) {
+                    addChange(current, i, baseline, j, mask);
+                } else if (waiting != null) {
+                    waiting[current.ids[i]] = 0; // The client is up to date
+                }
+                i++;
+                j++;
+            } else if (currentId < baselineId) {
+                addChange(current, i, baseline, -1, NEW_ENTITY);
+                i++;
+            } else {
+                if (removedCount == removedIndex.length) {
+                    removedIndex = Arrays.copyOf(removedIndex, removedCount * 2);
+                    removedSelected = Arrays.copyOf(removedSelected, removedCount * 2);
+                }
+                removedIndex[removedCount++] = j;
+                j++;
+            }
+        }
+    }
+
+    private static int dirtyMask(WorldSnapshot current, int i, WorldSnapshot baseline, int j) {
+        int mask = 0;
+        if (quantise(current.x[i]) != quantise(baseline.x[j]) || quantise(current.y[i]) != quantise(baseline.y[j])) {
+            mask |= DIRTY_POSITION;
+        }
+        if (clampHealth(current.health[i]) != baseline.health[j]) mask |= DIRTY_HEALTH;
+        if ((current.flags[i] & FLAG_MASK) != baseline.flags[j]) mask |= DIRTY_FLAGS;
+        return mask;
+    }
+
+    private void addChange(WorldSnapshot current, int i, WorldSnapshot baseline, int j, int mask) {
+        if (changeCount == changeIndex.length) {
+            int size = changeCount * 2;
+            changeIndex = Arrays.copyOf(changeIndex, size);
+            changeBaseline = Arrays.copyOf(changeBaseline, size);
+            changeMask = Arrays.copyOf(changeMask, size);
+            changeCost = Arrays.copyOf(changeCost, size);
+            changeSelected = Arrays.copyOf(changeSelected, size);
+            selectionOrder = Arrays.copyOf(selectionOrder, size);
+            order = Arrays.copyOf(order, size);
+        }
+        int cost = 1; // New-entity bit
+        if (mask == NEW_ENTITY) {
+            cost += KIND_BITS + BitWriter.signedBits(quantise(current.x[i])) + BitWriter.signedBits(quantise(current.y[i]))
+                + HEALTH_BITS + FLAG_BITS;
+        } else {
+            cost += DIRTY_BITS;
+            if ((mask & DIRTY_POSITION) != 0) {
+                cost += BitWriter.signedBits(quantise(current.x[i]) - quantise(baseline.x[j]))
+                    + BitWriter.signedBits(quantise(current.y[i]) - quantise(baseline.y[j]));
+            }
+            if ((mask & DIRTY_HEALTH) != 0) cost += HEALTH_BITS;
+            if ((mask & DIRTY_FLAGS) != 0) cost += FLAG_BITS;
+        }
+        changeIndex[changeCount] = i;
+        changeBaseline[changeCount] = j;
+        changeMask[changeCount] = mask;
+        changeCost[changeCount] = cost;
+        changeCount++;
+    }
+
+    /**
+     * Cost of a change with its id coded as the gap from the previous change,
+     * which is exact when every change is sent.
+     */
+    private int estimatedCost(WorldSnapshot current, int c) {
+        int previousId = c > 0 ? current.ids[changeIndex[c - 1]] : -1;
+        return changeCost[c] + BitWriter.unsignedBits(current.ids[changeIndex[c]] - previousId - 1);
+    }
+
+    private int exactBits(WorldSnapshot current, WorldSnapshot baseline) {
+        int bits = 0;
+        int count = 0;
+        int previousId = -1;
+        for (int r = 0; r < removedCount; r++) {
+            if (!removedSelected[r]) continue;
+            int id = baseline.ids[removedIndex[r]];
+            bits += BitWriter.unsignedBits(id - previousId - 1);
+            previousId = id;
+            count++;
+        }
+        bits += BitWriter.unsignedBits(count);
+        count = 0;
+        previousId = -1;
+        for (int c = 0; c < changeCount; c++) {
+            if (!changeSelected[c]) continue;
+            int id = current.ids[changeIndex[c]];
+            bits += changeCost[c] + BitWriter.unsignedBits(id - previousId - 1);
+            previousId = id;
+            count++;
+        }
+        return bits + BitWriter.unsignedBits(count);
+    }
+
+    /**
+     * Writes the selected removals and changes, and records them in
+     * {@link #removedIds} and {@link #changes} exactly as the decoder will read them.
+     */
+    private void write(WorldSnapshot current, WorldSnapshot baseline, ByteBuffer out) {
+        writer.begin(out);
+
+        removedIdCount = 0;
+        for (int r = 0; r < removedCount; r++) {
+            if (removedSelected[r]) removedIdCount++;
+        }
+        if (removedIds.length < removedIdCount) removedIds = new int[removedIdCount];
+        writer.writeUnsigned(removedIdCount);
+        int previousId = -1;
+        int n = 0;
+        for (int r = 0; r < removedCount; r++) {
+            if (!removedSelected[r]) continue;
+            int id = baseline.ids[removedIndex[r]];
+            writer.writeUnsigned(id - previousId - 1);
+            removedIds[n++] = id;
+            previousId = id;
+        }
+
+        int count = 0;
+        for (int c = 0; c < changeCount; c++) {
+            if (changeSelected[c]) count++;
+        }
+        writer.writeUnsigned(count);
+        changes.clear(current.tick);
+        changes.ensureCapacity(count);
+        previousId = -1;
+        for (int c = 0; c < changeCount; c++) {
+            if (!changeSelected[c]) continue;
+            int i = changeIndex[c];
+            int id = current.ids[i];
+            writer.writeUnsigned(id - previousId - 1);
+            previousId = id;
+
+            int qx = quantise(current.x[i]);
+            int qy = quantise(current.y[i]);
+            int health = clampHealth(current.health[i]);
+            int flags = current.flags[i] & FLAG_MASK;
+            int mask = changeMask[c];
+            if (mask == NEW_ENTITY) {
+                writer.writeBoolean(true);
+                writer.write(current.kinds[i], KIND_BITS);
+                writer.writeSigned(qx);
+                writer.writeSigned(qy);
+                writer.write(health, HEALTH_BITS);
+                writer.write(flags, FLAG_BITS);
+                changes.add(id, current.kinds[i], qx / POSITION_SCALE, qy / POSITION_SCALE, health, flags);
+            } else {
+                int b = changeBaseline[c];
+                writer.writeBoolean(false);
+                writer.write(mask, DIRTY_BITS);
+                float x = baseline.x[b];
+                float y = baseline.y[b];
+                if ((mask & DIRTY_POSITION) != 0) {
+                    writer.writeSigned(qx - quantise(baseline.x[b]));
+                    writer.writeSigned(qy - quantise(baseline.y[b]));
+                    x = qx / POSITION_SCALE;
+                    y = qy / POSITION_SCALE;
+                }
+                if ((mask & DIRTY_HEALTH) != 0) writer.write(health, HEALTH_BITS);
+                if ((mask & DIRTY_FLAGS) != 0) writer.write(flags, FLAG_BITS);
+                changes.add(id, baseline.kinds[b], x, y,
+                    (mask & DIRTY_HEALTH) != 0 ? health : baseline.health[b],
+                    (mask & DIRTY_FLAGS) != 0 ? flags : baseline.flags[b]);
+            }
+        }
+        writer.finish();
+    }
+
+    /**
+     * Baseline minus the removed ids, with changed and new entities taking their
+     * new values. Shared by both sides so they end up with identical snapshots.
+     */
+    private void merge(WorldSnapshot baseline, WorldSnapshot out, int tick) {
+        out.clear(tick);
+        out.ensureCapacity(baseline.count + changes.count);
+        int b = 0;
+        int c = 0;
+        int r = 0;
+        while (b < baseline.count || c < changes.count) {
+            int baselineId = b < baseline.count ? baseline.ids[b] : Integer.MAX_VALUE;
+            int changeId = c < changes.count ? changes.ids[c] : Integer.MAX_VALUE;
+            if (changeId <= baselineId) {
+                out.add(changes, c++);
+                if (changeId == baselineId) b++;
+            } else {
+                if (r < removedIdCount && removedIds[r] == baselineId) {
+                    r++;
+                } else {
+                    out.add(baseline, b);
+                }
+                b++;
+            }
+        }
+    }
+
+    private static int quantise(float position) {
+        return Math.round(position * POSITION_SCALE);
+    }
+
+    private static int clampHealth(int health) {
+        return Math.max(0, Math.min(HEALTH_MAX, health));
+    }
+}
@@ -0,0 +1,321 @@
+package com.survivor.game;
+
+import java.util.Random;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Decides when and where enemies appear.
+ *
+ * On a fixed map every walkable tile is put into a pool at load time, bucketed
+ * by coarse sector. To place an enemy, a point is thrown onto a ring just
+ * outside the camera view, and a random free tile is taken from the sector
+ * under it. In a streamed world the loaded chunk under the point takes the
+ * sector's place, with its {@link WorldChunk#freeTiles}. Each attempt is
+ * constant time, and only a handful are made per spawn.
+ *
+ * How many enemies appear is driven by a budget that fills at a per-second rate.
+ * The rate grows with each wave, and each enemy spends one point. Unspent budget
+ * carries over (up to a limit), so a spawn that fails this frame happens next frame.
+ */
+public class SpawnDirector {
+    private static final int SECTOR_TILES = 8; // Sector edge length in tiles
+    private static final float SPAWN_MARGIN = 48f; // Distance beyond the view edge where the ring starts
+    private static final float SPAWN_DEPTH = 160f; // Thickness of the ring
+    private static final int MAX_ATTEMPTS = 8;
+
+    private static final float WAVE_DURATION = 30f;
+    private static final float BASE_SPAWN_RATE = 0.5f; // Enemies per second in the first wave
+    private static final float SPAWN_RATE_GROWTH = 0.25f; // Extra enemies per second with every wave
+    private static final float INITIAL_BUDGET = 5f; // The opening group
+    private static final float MAX_BANKED_BUDGET = 6f;
+    private static final int MAX_SPAWNS_PER_FRAME = 4;
+    private static final int DEFAULT_MAX_ALIVE = 60;
+
+    private final NavGrid grid; // Null when spawning from a streamer
+    private final WorldStreamer streamer;
+    private final int sectorColumns;
+    private final int sectorRows;
+    private final int[] sectorStart; // Free tiles of sector s are freeTiles[sectorStart[s] .. sectorStart[s + 1])
+    private final int[] freeTiles;
+
+    private float budget = INITIAL_BUDGET;
+    private float elapsed = 0f;
+    private int wave = 1;
+    private int spawnedThisFrame = 0;
+    private int maxAlive = DEFAULT_MAX_ALIVE;
+    private float rateScale = 1f;
+    private Random random = MathUtils.random;
+
+    // Best candidates of the current pickLargeSpawn, as tile coordinates
+    private final Array<WorldChunk> loadedChunks = new Array<>();
+    private int bestX;
+    private int bestY;
+    private float bestDistance;
+    private int roomiestX;
+    private int roomiestY;
+    private int roomiestClearance;
+
+    public SpawnDirector(NavGrid grid) {
+        this.grid = grid;
+        this.streamer = null;
+        this.sectorColumns = (grid.getWidth() + SECTOR_TILES - 1) / SECTOR_TILES;
+        this.sectorRows = (grid.getHeight() + SECTOR_TILES - 1) / SECTOR_TILES;
+        this.sectorStart = new int[sectorColumns * sectorRows + 1];
+
+        // Counting sort of walkable tiles into sectors
+        int total = 0;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (grid.getClearance(grid.getOriginX() + x, grid.getOriginY() + y) > 0) {
+                    sectorStart[sectorOf(x, y) + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int s = 1; s < sectorStart.length; s++) {
+            sectorStart[s] += sectorStart[s - 1];
+        }
+        freeTiles = new int[total];
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (grid.getClearance(grid.getOriginX() + x, grid.getOriginY() + y) > 0) {
+                    freeTiles[sectorStart[sectorOf(x, y)]++] = y * grid.getWidth() + x;
+                }
+            }
+        }
+        System.arraycopy(sectorStart, 0, sectorStart, 1, sectorStart.length - 1);
+        sectorStart[0] = 0;
+    }
+
+    /**
+     * Spawns on the free tiles of whatever chunks the streamer has loaded, so
+     * nothing about the world needs to be known up front.
+     */
+    public SpawnDirector(WorldStreamer streamer) {
+        this.grid = null;
+        this.streamer = streamer;
+        this.sectorColumns = 0;
+        this.sectorRows = 0;
+        this.sectorStart = null;
+        this.freeTiles = null;
+    }
+
+    /**
+     * Advances the wave clock and fills the spawn budget. Call once per frame
+     * before {@link #nextSpawn}.
+     */
+    public void update(float delta) {
+        elapsed += delta;
+        wave = 1 + (int) (elapsed / WAVE_DURATION);
+        budget = Math.min(budget + getSpawnRate() * rateScale * delta, Math.max(budget, MAX_BANKED_BUDGET));
+        spawnedThisFrame = 0;
+    }
+
+    /**
+     * Spends one point of budget on a spawn position, if there is budget, room
+     * under the population cap and a free off-screen tile near the player.
+     *
+     * @param halfViewWidth half the visible width, in world units
+     * @param halfViewHeight half the visible height, in world units
+     * @param out receives the spawn position
+     * @return true if an enemy should be spawned at {@code out}
+     */
+    public boolean nextSpawn(float playerX, float playerY, float halfViewWidth, float halfViewHeight,
+                             int alive, Vector2 out) {
+        if (budget < 1f || alive >= maxAlive || spawnedThisFrame >= MAX_SPAWNS_PER_FRAME) return false;
+        if (!pickOffscreen(playerX, playerY, halfViewWidth, halfViewHeight, out)) return false;
+
+        budget -= 1f;
+        spawnedThisFrame++;
+        return true;
+    }
+
+    private boolean pickOffscreen(float playerX, float playerY, float halfViewWidth, float halfViewHeight, Vector2 out) {
+        float ringWidth = halfViewWidth + SPAWN_MARGIN;
+        float ringHeight = halfViewHeight + SPAWN_MARGIN;
+        NavGrid tiles = currentGrid();
+        float tileWidth = tiles.getTileWidth();
+        float tileHeight = tiles.getTileHeight();
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            // Random point on the ring around the view, weighted by side length
+            float depth = random.nextFloat() * SPAWN_DEPTH;
+            float along = random.nextFloat() * 2f - 1f;
+            float x, y;
+            if (random.nextFloat() * (ringWidth + ringHeight) < ringWidth) {
+                x = playerX + along * (ringWidth + depth);
+                y = playerY + (random.nextBoolean() ? 1 : -1) * (ringHeight + depth);
+            } else {
+                x = playerX + (random.nextBoolean() ? 1 : -1) * (ringWidth + depth);
+                y = playerY + along * (ringHeight + depth);
+            }
+
+            if (!pickFreeTileNear(x, y, out)) continue;
+
+            // The sector may straddle the view edge; the chosen tile itself must be hidden
+            if (Math.abs(out.x - playerX) < halfViewWidth + tileWidth / 2f
+                && Math.abs(out.y - playerY) < halfViewHeight + tileHeight / 2f) {
+                continue;
+            }
+
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes a random free tile from the sector, or loaded chunk, under the point.
+     *
+     * @return false if there is none
+     */
+    private boolean pickFreeTileNear(float x, float y, Vector2 out) {
+        if (streamer != null) {
+            WorldChunk chunk = streamer.getChunk(streamer.toChunkX(x), streamer.toChunkY(y));
+            if (chunk == null || chunk.freeTiles.size == 0) return false;
+
+            int tile = chunk.freeTiles.get(random.nextInt(chunk.freeTiles.size));
+            NavGrid tiles = streamer.getNavGrid();
+            out.set(tiles.tileCenterX(chunk.chunkX * chunk.size + tile % chunk.size),
+                tiles.tileCenterY(chunk.chunkY * chunk.size + tile / chunk.size));
+            return true;
+        }
+
+        int tileX = grid.toTileX(x);
+        int tileY = grid.toTileY(y);
+        if (!grid.isInside(tileX, tileY)) return false;
+
+        int sector = sectorOf(tileX - grid.getOriginX(), tileY - grid.getOriginY());
+        int count = sectorStart[sector + 1] - sectorStart[sector];
+        if (count == 0) return false;
+
+        int tile = freeTiles[sectorStart[sector] + random.nextInt(count)];
+        out.set(grid.tileCenterX(grid.getOriginX() + tile % grid.getWidth()),
+            grid.tileCenterY(grid.getOriginY() + tile / grid.getWidth()));
+        return true;
+    }
+
+    /**
+     * Finds a spot for a large enemy: a free tile with at least the given
+     * clearance, off-screen and as close to the player as possible. Falls back
+     * to the roomiest tile on the map, or in the loaded chunks, if nothing has
+     * enough clearance.
+     *
+     * @return false only if there are no free tiles at all
+     */
+    public boolean pickLargeSpawn(float playerX, float playerY, float halfViewWidth, float halfViewHeight,
+                                  int clearance, Vector2 out) {
+        NavGrid tiles = currentGrid();
+        bestDistance = Float.MAX_VALUE;
+        roomiestClearance = 0;
+
+        if (streamer != null) {
+            loadedChunks.clear();
+            for (WorldChunk chunk : streamer.getLoadedChunks(loadedChunks)) {
+                for (int i = 0; i < chunk.freeTiles.size; i++) {
+                    int tile = chunk.freeTiles.get(i);
+                    considerLarge(tiles, chunk.chunkX * chunk.size + tile % chunk.size,
+                        chunk.chunkY * chunk.size + tile / chunk.size,
+                        playerX, playerY, halfViewWidth, halfViewHeight, clearance);
+                }
+            }
+        } else {
+            for (int tile : freeTiles) {
+                considerLarge(tiles, grid.getOriginX() + tile % grid.getWidth(),
+                    grid.getOriginY() + tile / grid.getWidth(),
+                    playerX, playerY, halfViewWidth, halfViewHeight, clearance);
+            }
+        }
+
+        if (bestDistance < Float.MAX_VALUE) {
+            out.set(tiles.tileCenterX(bestX), tiles.tileCenterY(bestY));
+        } else if (roomiestClearance > 0) {
+            out.set(tiles.tileCenterX(roomiestX), tiles.tileCenterY(roomiestY));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void considerLarge(NavGrid tiles, int tileX, int tileY, float playerX, float playerY,
+                               float halfViewWidth, float halfViewHeight, int clearance) {
+        int tileClearance = tiles.getClearance(tileX, tileY);
+        if (tileClearance > roomiestClearance) {
+            roomiestX = tileX;
+            roomiestY = tileY;
+            roomiestClearance = tileClearance;
+        }
+        if (tileClearance < clearance) return;
+
+        float dx = tiles.tileCenterX(tileX) - playerX;
+        float dy = tiles.tileCenterY(tileY) - playerY;
+        if (Math.abs(dx) < halfViewWidth && Math.abs(dy) < halfViewHeight) return;
+
+        float distance = dx * dx + dy * dy;
+        if (distance < bestDistance) {
+            bestX = tileX;
+            bestY = tileY;
+            bestDistance = distance;
+        }
+    }
+
+    /**
+     * @return the grid tiles are looked up in; a streamer's changes as chunks load
+     */
+    private NavGrid currentGrid() {
+        return streamer != null ? streamer.getNavGrid() : grid;
+    }
+
+    private int sectorOf(int tileX, int tileY) {
+        return (tileY / SECTOR_TILES) * sectorColumns + tileX / SECTOR_TILES;
+    }
+
+    /**
+     * @return enemies per second for the current wave
+     */
+    public float getSpawnRate() {
+        return BASE_SPAWN_RATE + SPAWN_RATE_GROWTH * (wave - 1);
+    }
+
+    public int getWave() {
+        return wave;
+    }
+
+    public int getMaxAlive() {
+        return maxAlive;
+    }
+
+    public void setMaxAlive(int maxAlive) {
+        this.maxAlive = maxAlive;
+    }
+
+    /**
+     * @param rateScale multiplier on the wave's spawn rate; 0 pauses spawning
+     */
+    public void setRateScale(float rateScale) {
+        this.rateScale = rateScale;
+    }
+
+    /**
+     * @param random where spawn points are drawn from; defaults to the shared
+     *     MathUtils generator, which is only safe on one thread
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * @return free tiles on the map, or in the chunks loaded right now
+     */
+    public int getFreeTileCount() {
+        if (streamer == null) return freeTiles.length;
+        int count = 0;
+        loadedChunks.clear();
+        for (WorldChunk chunk : streamer.getLoadedChunks(loadedChunks)) {
+            count += chunk.freeTiles.size;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,145 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Moves an axis-aligned box through the static obstacles in one pass.
+ *
+ * The obstacles the move could possibly touch are fetched with a single index
+ * query over the swept area. The box is then pushed out of anything it already
+ * overlaps, and swept against the candidates: it advances to the earliest time of
+ * impact, drops the velocity component into the surface it hit and slides along
+ * it with the remaining movement. Because impact times are computed analytically,
+ * fast movement can't tunnel through thin walls no matter how large the delta.
+ */
+public class SweptAabbSolver {
+    public static final int BLOCKED_X = 1;
+    public static final int BLOCKED_Y = 2;
+
+    private static final int MAX_SLIDES = 3;
+    private static final float SKIN = 0.01f; // Gap kept from surfaces to absorb float error
+
+    private final ObstacleQuery index;
+    private final Array<Rectangle> candidates = new Array<>(false, 16);
+    private final Rectangle box = new Rectangle();
+
+    public SweptAabbSolver(ObstacleQuery index) {
+        this.index = index;
+    }
+
+    /**
+     * @param bounds the box at its current position (not modified)
+     * @param dx desired movement along x
+     * @param dy desired movement along y
+     * @param out receives the movement that was actually possible
+     * @return a combination of {@link #BLOCKED_X} and {@link #BLOCKED_Y} for the axes that hit something
+     */
+    public int move(Rectangle bounds, float dx, float dy, Vector2 out) {
+        box.set(bounds);
+        candidates.clear();
+        index.query(
+            Math.min(box.x, box.x + dx) - SKIN, Math.min(box.y, box.y + dy) - SKIN,
+            box.width + Math.abs(dx) + 2 * SKIN, box.height + Math.abs(dy) + 2 * SKIN,
+            candidates);
+
+        int blocked = depenetrate();
+
+        float remainingX = dx;
+        float remainingY = dy;
+        for (int slide = 0; slide < MAX_SLIDES && (remainingX != 0 || remainingY != 0); slide++) {
+            float earliest = 1f;
+            boolean hitX = false;
+            for (int i = 0; i < candidates.size; i++) {
+                Rectangle obstacle = candidates.get(i);
+                float entryX = entryTime(box.x, box.width, obstacle.x, obstacle.width, remainingX);
+                float entryY = entryTime(box.y, box.height, obstacle.y, obstacle.height, remainingY);
+                float exitX = exitTime(box.x, box.width, obstacle.x, obstacle.width, remainingX);
+                float exitY = exitTime(box.y, box.height, obstacle.y, obstacle.height, remainingY);
+
+                float entry = Math.max(entryX, entryY);
+                float exit = Math.min(exitX, exitY);
+                if (entry >= exit || entry < 0 || entry >= earliest) continue;
+
+                earliest = entry;
+                hitX = entryX > entryY;
+            }
+
+            if (earliest >= 1f) {
+                box.x += remainingX;
+                box.y += remainingY;
+                break;
+            }
+
+            // Advance to the contact point, backing off a hair along the blocked axis
+            float moveX = remainingX * earliest;
+            float moveY = remainingY * earliest;
+            if (hitX) {
+                moveX -= Math.signum(remainingX) * Math.min(SKIN, Math.abs(moveX));
+            } else {
+                moveY -= Math.signum(remainingY) * Math.min(SKIN, Math.abs(moveY));
+            }
+            box.x += moveX;
+            box.y += moveY;
+
+            // Slide: keep the tangential part of what's left, drop the part into the surface
+            remainingX -= remainingX * earliest;
+            remainingY -= remainingY * earliest;
+            if (hitX) {
+                remainingX = 0;
+                blocked |= BLOCKED_X;
+            } else {
+                remainingY = 0;
+                blocked |= BLOCKED_Y;
+            }
+        }
+
+        out.set(box.x - bounds.x, box.y - bounds.y);
+        return blocked;
+    }
+
+    /**
+     * Pushes the box out of any candidate it already overlaps, along the axis of
+     * least penetration. Only happens if something moved the box without sweeping.
+     */
+    private int depenetrate() {
+        int blocked = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            Rectangle obstacle = candidates.get(i);
+            if (!box.overlaps(obstacle)) continue;
+
+            float pushLeft = box.x + box.width - obstacle.x;
+            float pushRight = obstacle.x + obstacle.width - box.x;
+            float pushDown = box.y + box.height - obstacle.y;
+            float pushUp = obstacle.y + obstacle.height - box.y;
+            float pushX = pushLeft < pushRight ? -pushLeft : pushRight;
+            float pushY = pushDown < pushUp ? -pushDown : pushUp;
+
+            if (Math.abs(pushX) < Math.abs(pushY)) {
+                box.x += pushX + Math.signum(pushX) * SKIN;
+                blocked |= BLOCKED_X;
+            } else {
+                box.y += pushY + Math.signum(pushY) * SKIN;
+                blocked |= BLOCKED_Y;
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Fraction of the move at which the moving span starts overlapping the static
+     * span along one axis. Touching spans don't count as overlapping.
+     */
+    private static float entryTime(float min, float size, float otherMin, float otherSize, float delta) {
+        if (delta > 0) return (otherMin - (min + size)) / delta;
+        if (delta < 0) return (otherMin + otherSize - min) / delta;
+        return min < otherMin + otherSize && min + size > otherMin ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+    }
+
+    private static float exitTime(float min, float size, float otherMin, float otherSize, float delta) {
+        if (delta > 0) return (otherMin + otherSize - min) / delta;
+        if (delta < 0) return (otherMin - (min + size)) / delta;
+        return min < otherMin + otherSize && min + size > otherMin ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+    }
+}
@@ -25,7 +25,7 @@ public class WinningScreen implements Screen {
         this.gameScreen = gameScreen; // Initialize the GameScreen
         this.stage = new Stage(new FitViewport(800, 600));
         this.batch = new SpriteBatch();
-        this.congratulationImage = new Texture(Gdx.files.internal("congratulation.png"));
+        this.congratulationImage = ParallelTextureLoader.getShared().get("congratulation.png");
 
         Gdx.input.setInputProcessor(stage);
         createUI();
@@ -36,8 +36,8 @@ public class WinningScreen implements Screen {
         table.setFillParent(true);
         stage.addActor(table);
 
-        Texture playAgainTexture = new Texture(Gdx.files.internal("Play_Again.png"));
-        Texture returnTexture = new Texture(Gdx.files.internal("return_to_main_menu.png"));
+        Texture playAgainTexture = ParallelTextureLoader.getShared().get("Play_Again.png");
+        Texture returnTexture = ParallelTextureLoader.getShared().get("return_to_main_menu.png");
 
         ImageButton playAgainButton = new ImageButton(new TextureRegionDrawable(playAgainTexture));
         playAgainButton.addListener(new ChangeListener() {
@@ -92,8 +92,7 @@ public class WinningScreen implements Screen {
     @Override
     public void dispose() {
         stage.dispose();
-        batch.dispose();
-        congratulationImage.dispose();
+        batch.dispose(); // Textures are shared through ParallelTextureLoader
     }
 
     @Override
@@ -0,0 +1,121 @@
+package com.survivor.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * One square piece of the world as plain data: the tiles of every layer, the
+ * obstacle rectangles inside it, which tiles block movement and sight, and the
+ * tiles enemies may spawn on. Chunks are
+ * built off the main thread by a {@link ChunkSource}, so nothing here touches GL.
+ *
+ * Chunk (0, 0) starts at world position (0, 0) and chunk y grows upwards, like
+ * libGDX tile rows. Cells are stored row by row from the bottom, with the tile id
+ * and its flip and rotation flags packed into one int (see {@link #packCell}).
+ */
+public class WorldChunk {
+    private static final int TILE_ID_MASK = 0x00FFFFFF;
+    private static final int FLIP_HORIZONTALLY = 1 << 24;
+    private static final int FLIP_VERTICALLY = 1 << 25;
+    private static final int ROTATION_SHIFT = 26;
+
+    public final int chunkX;
+    public final int chunkY;
+    public final int size;
+    public final int[][] cells; // [layer][y * size + x], 0 for an empty cell
+    public final Array<Rectangle> obstacles; // World coordinates, clipped to the chunk
+    public final long[] blocked; // One bit per local tile index, see isBlocked
+    public final IntArray freeTiles; // Local tile indices (y * size + x) where enemies may spawn
+
+    public WorldChunk(int chunkX, int chunkY, int size, int layerCount) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.size = size;
+        this.cells = new int[layerCount][size * size];
+        this.obstacles = new Array<>(false, 8);
+        this.blocked = new long[(size * size + 63) >>> 6];
+        this.freeTiles = new IntArray(false, size * size);
+    }
+
+    /**
+     * @param x local tile column, 0 to size - 1
+     * @param y local tile row, 0 to size - 1
+     */
+    public boolean isBlocked(int x, int y) {
+        int i = y * size + x;
+        return (blocked[i >>> 6] & (1L << (i & 63))) != 0;
+    }
+
+    public void setBlocked(int x, int y) {
+        int i = y * size + x;
+        blocked[i >>> 6] |= 1L << (i & 63);
+    }
+
+    /**
+     * Blocks every tile of this chunk that a world-space rectangle touches, even
+     * partially, the same way {@link CollisionMask#markRect} does.
+     */
+    public void blockRect(Rectangle rect, float tileWidth, float tileHeight) {
+        int baseX = chunkX * size;
+        int baseY = chunkY * size;
+        int minX = Math.max(0, (int) Math.floor(rect.x / tileWidth) - baseX);
+        int minY = Math.max(0, (int) Math.floor(rect.y / tileHeight) - baseY);
+        int maxX = Math.min(size - 1, (int) Math.ceil((rect.x + rect.width) / tileWidth) - 1 - baseX);
+        int maxY = Math.min(size - 1, (int) Math.ceil((rect.y + rect.height) / tileHeight) - 1 - baseY);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                setBlocked(x, y);
+            }
+        }
+    }
+
+    /**
+     * Adds every tile that isn't blocked to {@link #freeTiles}. Sources call this
+     * once the chunk's blocked tiles are final.
+     */
+    public void collectFreeTiles() {
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (!isBlocked(x, y)) {
+                    freeTiles.add(y * size + x);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param tileId tile id in the source's tile sets, 0 for no tile
+     * @param rotation one of the {@code Cell.ROTATE_*} constants
+     */
+    public static int packCell(int tileId, boolean flipHorizontally, boolean flipVertically, int rotation) {
+        if (tileId == 0) return 0;
+        return (tileId & TILE_ID_MASK)
+            | (flipHorizontally ? FLIP_HORIZONTALLY : 0)
+            | (flipVertically ? FLIP_VERTICALLY : 0)
+            | (rotation << ROTATION_SHIFT);
+    }
+
+    public static int tileId(int packed) {
+        return packed & TILE_ID_MASK;
+    }
+
+    public static boolean isFlippedHorizontally(int packed) {
+        return (packed & FLIP_HORIZONTALLY) != 0;
+    }
+
+    public static boolean isFlippedVertically(int packed) {
+        return (packed & FLIP_VERTICALLY) != 0;
+    }
+
+    public static int rotation(int packed) {
+        return (packed >>> ROTATION_SHIFT) & 3;
+    }
+
+    /**
+     * @return a key unique to the chunk coordinates, for hash lookups
+     */
+    public static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,148 @@
+package com.survivor.game;
+
+import java.util.Arrays;
+
+/**
+ * The state of every networked entity at one server tick, kept as parallel
+ * arrays sorted by entity id, so the server can fill one per tick, clients can
+ * decode into the same instances every frame, and {@link SnapshotCodec} can
+ * diff two snapshots in a single merge pass. The arrays grow as needed and are
+ * never shrunk.
+ */
+public class WorldSnapshot {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    public int tick = -1;
+    public int ackedInput; // Sequence of the last input the server applied for this client
+    public int playerId = -1; // The receiving client's own entity
+    public int count;
+    public short[] ids;
+    public byte[] kinds;
+    public float[] x;
+    public float[] y;
+    public short[] health;
+    public byte[] flags;
+
+    public WorldSnapshot() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public WorldSnapshot(int capacity) {
+        ids = new short[capacity];
+        kinds = new byte[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        health = new short[capacity];
+        flags = new byte[capacity];
+    }
+
+    public void clear(int tick) {
+        this.tick = tick;
+        count = 0;
+    }
+
+    /**
+     * Appends an entity. Call {@link #sortById} afterwards unless ids are added in order.
+     */
+    public void add(int id, int kind, float x, float y, int health, int flags) {
+        ensureCapacity(count + 1);
+        ids[count] = (short) id;
+        kinds[count] = (byte) kind;
+        this.x[count] = x;
+        this.y[count] = y;
+        this.health[count] = (short) health;
+        this.flags[count] = (byte) flags;
+        count++;
+    }
+
+    /**
+     * Copies entity {@code index} of another snapshot onto the end of this one.
+     */
+    public void add(WorldSnapshot other, int index) {
+        add(other.ids[index], other.kinds[index], other.x[index], other.y[index], other.health[index], other.flags[index]);
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int size = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, size);
+        kinds = Arrays.copyOf(kinds, size);
+        x = Arrays.copyOf(x, size);
+        y = Arrays.copyOf(y, size);
+        health = Arrays.copyOf(health, size);
+        flags = Arrays.copyOf(flags, size);
+    }
+
+    /**
+     * Insertion sort on the id. Captures come out nearly sorted, since ids are
+     * handed out in order, so this is close to linear; only the rare wrap of the
+     * id counter costs more.
+     */
+    public void sortById() {
+        for (int i = 1; i < count; i++) {
+            short id = ids[i];
+            if (ids[i - 1] <= id) continue;
+            byte kind = kinds[i];
+            float entityX = x[i];
+            float entityY = y[i];
+            short entityHealth = health[i];
+            byte entityFlags = flags[i];
+            int j = i - 1;
+            while (j >= 0 && ids[j] > id) {
+                ids[j + 1] = ids[j];
+                kinds[j + 1] = kinds[j];
+                x[j + 1] = x[j];
+                y[j + 1] = y[j];
+                health[j + 1] = health[j];
+                flags[j + 1] = flags[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            kinds[j + 1] = kind;
+            x[j + 1] = entityX;
+            y[j + 1] = entityY;
+            health[j + 1] = entityHealth;
+            flags[j + 1] = entityFlags;
+        }
+    }
+
+    /**
+     * Keeps only the first entity of each id. Call after {@link #sortById},
+     * which keeps entities with equal ids in the order they were added.
+     */
+    public void dropRepeatedIds() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (kept > 0 && ids[kept - 1] == ids[i]) continue;
+            if (kept != i) {
+                ids[kept] = ids[i];
+                kinds[kept] = kinds[i];
+                x[kept] = x[i];
+                y[kept] = y[i];
+                health[kept] = health[i];
+                flags[kept] = flags[i];
+            }
+            kept++;
+        }
+        count = kept;
+    }
+
+    /**
+     * @return the index of the entity with this id, or -1
+     */
+    public int indexOf(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] < id) {
+                low = mid + 1;
+            } else if (ids[mid] > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
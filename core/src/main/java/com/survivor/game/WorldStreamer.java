@@ -0,0 +1,422 @@
+package com.survivor.game;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.maps.MapGroupLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Keeps only the chunks around the player in memory.
+ *
+ * Chunks within the load radius are requested from the {@link ChunkSource} on
+ * background worker threads, nearest first. Finished chunks are installed on the
+ * main thread, a few per frame, into pooled tile layers. Each source layer gets
+ * one group layer in {@link #getMap()}, so a normal tiled map renderer draws the
+ * streamed world with the original layer order. Chunks beyond the unload radius
+ * (one ring wider, so a player walking along a border doesn't thrash) are
+ * removed and their layers returned to the pool. The obstacles of loaded chunks
+ * answer collision queries.
+ *
+ * The blocked tiles of loaded chunks are also kept in a {@link CollisionMask}
+ * and {@link NavGrid} covering the unload radius around the player's chunk, for
+ * line of sight and pathfinding. Tiles of chunks that aren't loaded count as
+ * blocked. Both are rebuilt as new instances whenever the loaded chunks change,
+ * so a planner thread can finish searching the old grid.
+ */
+public class WorldStreamer implements ObstacleQuery, Disposable {
+    private static final String TAG = "WorldStreamer";
+    private static final int MAX_INSTALLS_PER_FRAME = 2; // Spreads layer building over several frames
+
+    private final ChunkSource source;
+    private final int loadRadius;
+    private final int unloadRadius;
+    private final float chunkWidth;
+    private final float chunkHeight;
+    private final int chunkSize;
+    private final TiledMapTileSets tileSets;
+    private final TiledMap map = new TiledMap();
+    private final MapGroupLayer[] groups;
+
+    private final LongMap<ChunkView> loaded = new LongMap<>();
+    private final LongMap<Boolean> pending = new LongMap<>(); // Main-thread bookkeeping of queued loads
+    private final ConcurrentLinkedQueue<WorldChunk> completed = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> failed = new ConcurrentLinkedQueue<>();
+    private final LongArray unloadKeys = new LongArray();
+    private final ExecutorService workers;
+    private int centerX = Integer.MIN_VALUE;
+    private int centerY = Integer.MIN_VALUE;
+    private CollisionMask collisionMask;
+    private NavGrid navGrid;
+    private boolean gridsDirty = true;
+
+    private final Pool<ChunkView> viewPool = new Pool<ChunkView>() {
+        @Override
+        protected ChunkView newObject() {
+            return new ChunkView();
+        }
+    };
+
+    /**
+     * Render state of an installed chunk. Layers and cells are reused between chunks.
+     */
+    private class ChunkView {
+        final TiledMapTileLayer[] layers = new TiledMapTileLayer[groups.length];
+        final TiledMapTileLayer.Cell[][] cells = new TiledMapTileLayer.Cell[groups.length][];
+        WorldChunk chunk;
+
+        ChunkView() {
+            int size = source.getChunkSize();
+            for (int l = 0; l < layers.length; l++) {
+                layers[l] = new TiledMapTileLayer(size, size, source.getTileWidth(), source.getTileHeight());
+                layers[l].setOpacity(source.getLayerOpacity(l));
+                cells[l] = new TiledMapTileLayer.Cell[size * size];
+                for (int i = 0; i < size * size; i++) {
+                    cells[l][i] = new TiledMapTileLayer.Cell();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param loadRadius how many chunks around the player's chunk to keep loaded
+     */
+    public WorldStreamer(ChunkSource source, int loadRadius) {
+        this(source, loadRadius, 1);
+    }
+
+    /**
+     * @param workerCount threads building chunks; sources that generate rather
+     * than copy their chunks benefit from more than one
+     */
+    public WorldStreamer(ChunkSource source, int loadRadius, int workerCount) {
+        this.source = source;
+        this.loadRadius = loadRadius;
+        this.unloadRadius = loadRadius + 1;
+        this.chunkSize = source.getChunkSize();
+        this.chunkWidth = source.getChunkSize() * source.getTileWidth();
+        this.chunkHeight = source.getChunkSize() * source.getTileHeight();
+        this.tileSets = source.getTileSets();
+
+        String[] layerNames = source.getLayerNames();
+        groups = new MapGroupLayer[layerNames.length];
+        for (int l = 0; l < layerNames.length; l++) {
+            groups[l] = new MapGroupLayer();
+            groups[l].setName(layerNames[l]);
+            map.getLayers().add(groups[l]);
+        }
+
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the chunks around a point on the calling thread, so the first frame
+     * starts with solid ground and walls.
+     */
+    public void preload(float x, float y) {
+        int chunkX = toChunkX(x);
+        int chunkY = toChunkY(y);
+        for (int cy = chunkY - loadRadius; cy <= chunkY + loadRadius; cy++) {
+            for (int cx = chunkX - loadRadius; cx <= chunkX + loadRadius; cx++) {
+                if (isInside(cx, cy) && !loaded.containsKey(WorldChunk.key(cx, cy))) {
+                    install(source.loadChunk(cx, cy));
+                }
+            }
+        }
+        centerX = chunkX;
+        centerY = chunkY;
+        rebuildGrids();
+    }
+
+    /**
+     * Requests, installs and drops chunks around the player. Call once per frame.
+     */
+    public void update(float playerX, float playerY) {
+        int chunkX = toChunkX(playerX);
+        int chunkY = toChunkY(playerY);
+
+        Long failedKey;
+        while ((failedKey = failed.poll()) != null) {
+            pending.remove(failedKey); // Retried below if still wanted
+        }
+
+        if (chunkX != centerX || chunkY != centerY) {
+            centerX = chunkX;
+            centerY = chunkY;
+            unloadDistant();
+            gridsDirty = true; // The window follows the player's chunk
+        }
+        requestMissing();
+
+        // Install a few finished chunks; ones the player has already left behind are dropped
+        int installed = 0;
+        WorldChunk chunk;
+        while (installed < MAX_INSTALLS_PER_FRAME && (chunk = completed.poll()) != null) {
+            long key = WorldChunk.key(chunk.chunkX, chunk.chunkY);
+            pending.remove(key);
+            if (distance(chunk.chunkX, chunk.chunkY) > unloadRadius || loaded.containsKey(key)) continue;
+            install(chunk);
+            installed++;
+        }
+
+        if (gridsDirty) {
+            rebuildGrids();
+        }
+    }
+
+    /**
+     * Copies the blocked tiles of every loaded chunk into a fresh mask around the
+     * player's chunk. Loaded chunks always lie inside it, since anything beyond
+     * the unload radius has just been dropped.
+     */
+    private void rebuildGrids() {
+        int span = (2 * unloadRadius + 1) * chunkSize;
+        CollisionMask mask = new CollisionMask((centerX - unloadRadius) * chunkSize,
+            (centerY - unloadRadius) * chunkSize, span, span, source.getTileWidth(), source.getTileHeight());
+        mask.blockAll();
+        for (ChunkView view : loaded.values()) {
+            WorldChunk chunk = view.chunk;
+            int baseX = chunk.chunkX * chunkSize;
+            int baseY = chunk.chunkY * chunkSize;
+            for (int y = 0; y < chunkSize; y++) {
+                for (int x = 0; x < chunkSize; x++) {
+                    if (!chunk.isBlocked(x, y)) {
+                        mask.clearBlocked(baseX + x, baseY + y);
+                    }
+                }
+            }
+        }
+        collisionMask = mask;
+        navGrid = new NavGrid(mask);
+        gridsDirty = false;
+    }
+
+    private void requestMissing() {
+        // Nearest ring first, so the ground under the player arrives before the horizon
+        for (int ring = 0; ring <= loadRadius; ring++) {
+            for (int cy = centerY - ring; cy <= centerY + ring; cy++) {
+                for (int cx = centerX - ring; cx <= centerX + ring; cx++) {
+                    if (distance(cx, cy) != ring || !isInside(cx, cy)) continue;
+                    long key = WorldChunk.key(cx, cy);
+                    if (loaded.containsKey(key) || pending.containsKey(key)) continue;
+
+                    pending.put(key, Boolean.TRUE);
+                    final int requestX = cx;
+                    final int requestY = cy;
+                    workers.execute(() -> {
+                        try {
+                            completed.add(source.loadChunk(requestX, requestY));
+                        } catch (Exception e) {
+                            Gdx.app.error(TAG, "Failed to load chunk " + requestX + "," + requestY, e);
+                            failed.add(WorldChunk.key(requestX, requestY));
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private void unloadDistant() {
+        unloadKeys.clear();
+        for (LongMap.Entry<ChunkView> entry : loaded.entries()) {
+            WorldChunk chunk = entry.value.chunk;
+            if (distance(chunk.chunkX, chunk.chunkY) > unloadRadius) {
+                unloadKeys.add(entry.key);
+            }
+        }
+        for (int i = 0; i < unloadKeys.size; i++) {
+            ChunkView view = loaded.remove(unloadKeys.get(i));
+            for (int l = 0; l < groups.length; l++) {
+                groups[l].getLayers().remove(view.layers[l]);
+            }
+            view.chunk = null;
+            viewPool.free(view);
+        }
+        gridsDirty |= unloadKeys.size > 0;
+    }
+
+    private void install(WorldChunk chunk) {
+        ChunkView view = viewPool.obtain();
+        view.chunk = chunk;
+        int size = chunk.size;
+
+        for (int l = 0; l < groups.length; l++) {
+            TiledMapTileLayer layer = view.layers[l];
+            int[] packed = chunk.cells[l];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    int i = y * size + x;
+                    int value = packed[i];
+                    if (value == 0) {
+                        layer.setCell(x, y, null);
+                        continue;
+                    }
+                    TiledMapTileLayer.Cell cell = view.cells[l][i];
+                    cell.setTile(tileSets.getTile(WorldChunk.tileId(value)));
+                    cell.setFlipHorizontally(WorldChunk.isFlippedHorizontally(value));
+                    cell.setFlipVertically(WorldChunk.isFlippedVertically(value));
+                    cell.setRotation(WorldChunk.rotation(value));
+                    layer.setCell(x, y, cell);
+                }
+            }
+            // Tiled offsets point down, libGDX rows point up
+            layer.setOffsetX(chunk.chunkX * chunkWidth);
+            layer.setOffsetY(-chunk.chunkY * chunkHeight);
+            groups[l].getLayers().add(layer);
+        }
+        loaded.put(WorldChunk.key(chunk.chunkX, chunk.chunkY), view);
+        gridsDirty = true;
+    }
+
+    @Override
+    public Array<Rectangle> query(float x, float y, float width, float height, Array<Rectangle> out) {
+        int minX = toChunkX(x);
+        int minY = toChunkY(y);
+        int maxX = toChunkX(x + width);
+        int maxY = toChunkY(y + height);
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                ChunkView view = loaded.get(WorldChunk.key(cx, cy));
+                if (view == null) continue;
+                Array<Rectangle> obstacles = view.chunk.obstacles;
+                for (int i = 0; i < obstacles.size; i++) {
+                    Rectangle rect = obstacles.get(i);
+                    if (rect.x <= x + width && rect.x + rect.width >= x
+                        && rect.y <= y + height && rect.y + rect.height >= y) {
+                        out.add(rect);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public boolean overlapsAny(float x, float y, float width, float height) {
+        int minX = toChunkX(x);
+        int minY = toChunkY(y);
+        int maxX = toChunkX(x + width);
+        int maxY = toChunkY(y + height);
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                ChunkView view = loaded.get(WorldChunk.key(cx, cy));
+                if (view == null) continue;
+                Array<Rectangle> obstacles = view.chunk.obstacles;
+                for (int i = 0; i < obstacles.size; i++) {
+                    Rectangle rect = obstacles.get(i);
+                    if (rect.x < x + width && rect.x + rect.width > x
+                        && rect.y < y + height && rect.y + rect.height > y) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the loaded chunk at the given chunk coordinates, or null
+     */
+    public WorldChunk getChunk(int chunkX, int chunkY) {
+        ChunkView view = loaded.get(WorldChunk.key(chunkX, chunkY));
+        return view != null ? view.chunk : null;
+    }
+
+    /**
+     * Adds every loaded chunk to {@code out}.
+     *
+     * @return {@code out}
+     */
+    public Array<WorldChunk> getLoadedChunks(Array<WorldChunk> out) {
+        for (ChunkView view : loaded.values()) {
+            out.add(view.chunk);
+        }
+        return out;
+    }
+
+    /**
+     * @return blocked tiles around the player's chunk; replaced, not modified, when chunks come and go
+     */
+    public CollisionMask getCollisionMask() {
+        return collisionMask;
+    }
+
+    /**
+     * @return the tile graph over {@link #getCollisionMask()}; a new instance whenever the mask changes
+     */
+    public NavGrid getNavGrid() {
+        return navGrid;
+    }
+
+    /**
+     * @return a map holding the loaded chunks, for a tiled map renderer
+     */
+    public TiledMap getMap() {
+        return map;
+    }
+
+    /**
+     * @return world width in pixels, or positive infinity if the world never ends
+     */
+    public float getWorldWidth() {
+        int chunks = source.getWidthInChunks();
+        return chunks < 0 ? Float.POSITIVE_INFINITY : chunks * chunkWidth;
+    }
+
+    /**
+     * @return world height in pixels, or positive infinity if the world never ends
+     */
+    public float getWorldHeight() {
+        int chunks = source.getHeightInChunks();
+        return chunks < 0 ? Float.POSITIVE_INFINITY : chunks * chunkHeight;
+    }
+
+    public int getLoadedChunkCount() {
+        return loaded.size;
+    }
+
+    public int getPendingChunkCount() {
+        return pending.size;
+    }
+
+    public int toChunkX(float worldX) {
+        return (int) Math.floor(worldX / chunkWidth);
+    }
+
+    public int toChunkY(float worldY) {
+        return (int) Math.floor(worldY / chunkHeight);
+    }
+
+    private boolean isInside(int chunkX, int chunkY) {
+        int width = source.getWidthInChunks();
+        int height = source.getHeightInChunks();
+        return (width < 0 || (chunkX >= 0 && chunkX < width))
+            && (height < 0 || (chunkY >= 0 && chunkY < height));
+    }
+
+    private int distance(int chunkX, int chunkY) {
+        return Math.max(Math.abs(chunkX - centerX), Math.abs(chunkY - centerY));
+    }
+
+    @Override
+    public void dispose() {
+        workers.shutdownNow();
+        completed.clear();
+        // The map only borrows the source's tile sets, so disposing it frees nothing shared
+        map.dispose();
+    }
+}
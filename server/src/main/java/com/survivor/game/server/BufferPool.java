@@ -0,0 +1,50 @@
+package com.survivor.game.server;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Direct buffers for packet I/O, handed out and returned by the server loop so
+ * that steady-state traffic allocates nothing. Direct buffers let the channel
+ * read and write without an extra copy. Not thread-safe; one loop owns a pool.
+ */
+public class BufferPool {
+    private final int bufferSize;
+    private final Array<ByteBuffer> free;
+    private int created = 0;
+
+    public BufferPool(int bufferSize, int initialCount) {
+        this.bufferSize = bufferSize;
+        this.free = new Array<>(false, Math.max(initialCount, 4), ByteBuffer.class);
+        for (int i = 0; i < initialCount; i++) {
+            free.add(allocate());
+        }
+    }
+
+    /**
+     * @return a cleared buffer, new only if every pooled one is in use
+     */
+    public ByteBuffer obtain() {
+        ByteBuffer buffer = free.size > 0 ? free.pop() : allocate();
+        ((Buffer) buffer).clear();
+        return buffer;
+    }
+
+    public void free(ByteBuffer buffer) {
+        free.add(buffer);
+    }
+
+    private ByteBuffer allocate() {
+        created++;
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * @return buffers allocated over the pool's lifetime; stays flat once traffic is steady
+     */
+    public int getCreatedCount() {
+        return created;
+    }
+}
@@ -0,0 +1,77 @@
+package com.survivor.game.server;
+
+import java.net.SocketAddress;
+
+import com.survivor.game.NetProtocol;
+import com.survivor.game.SnapshotCodec;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * One connected client: where to send its snapshots, the room and player it
+ * belongs to, how recently it was heard from and how much time its inputs have
+ * claimed. It also keeps what each recent snapshot told the client, indexed by
+ * tick, so the one the client acknowledges can serve as the baseline for the next.
+ *
+ * Two threads share a session. The network thread owns what is read straight
+ * off the socket: when the client was last heard, its newest input and the time
+ * its inputs have claimed. The room's worker owns the player, the codec and the
+ * snapshot history. The network thread learns the player's id from
+ * {@link #playerId} and tells the worker the client is gone through {@link #closed}.
+ */
+class ClientSession {
+    private static final float MAX_INPUT_DELTA = 0.1f; // Longer frames, like a stall, are cut short and the client corrected
+    private static final double INPUT_TIME_SLACK = 0.25; // Jitter in when inputs arrive
+    final SocketAddress address;
+    final Room room;
+    final int handoffToken; // Non-zero if the client was sent here by another zone
+    volatile int playerId = -1; // Set by the worker once the player is in the world
+    volatile boolean closed = false; // Set by the network thread when the client leaves or times out
+
+    // Network thread
+    int lastInputSequence = 0;
+    long lastHeardNanos;
+    final long joinedNanos;
+    private double inputSeconds = 0; // Frame time of every input applied so far
+
+    // Room worker
+    ServerPlayer player;
+    final SnapshotCodec codec = new SnapshotCodec();
+    final WorldSnapshot[] sent = new WorldSnapshot[NetProtocol.SNAPSHOT_HISTORY];
+    int appliedInputSequence = 0; // Newest input applied to the player, echoed in snapshots
+    int ackedTick = -1; // Newest snapshot the client has said it received
+
+    ClientSession(SocketAddress address, Room room, int handoffToken, long now) {
+        this.address = address;
+        this.room = room;
+        this.handoffToken = handoffToken;
+        this.lastHeardNanos = now;
+        this.joinedNanos = now;
+        for (int i = 0; i < sent.length; i++) {
+            sent[i] = new WorldSnapshot();
+        }
+    }
+
+    /**
+     * Clamps an input's frame time so the inputs of a session never add up to
+     * more time than has really passed, give or take {@link #INPUT_TIME_SLACK};
+     * otherwise a client could move faster by claiming longer frames.
+     *
+     * @return the frame time to apply, possibly less than claimed
+     */
+    float claimInputTime(float delta, long now) {
+        if (!(delta > 0)) return 0; // Also rejects NaN
+        double available = (now - joinedNanos) / 1e9 + INPUT_TIME_SLACK - inputSeconds;
+        float granted = (float) Math.max(0, Math.min(Math.min(delta, MAX_INPUT_DELTA), available));
+        inputSeconds += granted;
+        return granted;
+    }
+
+    /**
+     * @return what the client holds for its acknowledged tick, or null if that is too old or unknown
+     */
+    WorldSnapshot baseline(int tick) {
+        if (ackedTick < 0 || tick - ackedTick >= sent.length) return null;
+        WorldSnapshot baseline = sent[ackedTick % sent.length];
+        return baseline.tick == ackedTick ? baseline : null;
+    }
+}
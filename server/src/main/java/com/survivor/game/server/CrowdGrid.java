@@ -0,0 +1,125 @@
+package com.survivor.game.server;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Neighbour lookup for enemy separation. Like {@link com.survivor.game.CombatQuery},
+ * enemies are binned once per tick into a uniform grid with a counting sort,
+ * here over the area they actually cover, as {@link InterestGrid} does, so a
+ * zone strip or a crowd far from the origin costs the same. Each enemy then
+ * only looks at the cells around it instead of at the whole horde.
+ *
+ * Cells hold indices into the enemy array as it was at {@link #rebuild}. Callers
+ * test the enemies' current positions, so enemies that moved since are found as
+ * long as the query reaches one step further than it needs to. Not thread-safe.
+ */
+class CrowdGrid {
+    private static final int MAX_COLUMNS = 256; // Sparse crowds get bigger cells instead of more of them
+
+    private final float minCellSize;
+    private float originX;
+    private float originY;
+    private float cellSize;
+    private int columns;
+    private int rows;
+    private int[] cellStart = new int[2]; // Entries of cell c are entries[cellStart[c] .. cellStart[c + 1])
+    private int[] cells = new int[64]; // Cell of each enemy
+    private int[] entries = new int[64]; // Enemy indices, grouped by cell
+
+    CrowdGrid(float cellSize) {
+        this.minCellSize = cellSize;
+    }
+
+    /**
+     * Bins every enemy by its centre. Call once per tick before enemies move,
+     * and don't add or remove enemies until done querying.
+     */
+    void rebuild(Array<ServerEnemy> enemies) {
+        int count = enemies.size;
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            ServerEnemy enemy = enemies.get(i);
+            minX = Math.min(minX, enemy.x);
+            minY = Math.min(minY, enemy.y);
+            maxX = Math.max(maxX, enemy.x);
+            maxY = Math.max(maxY, enemy.y);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        originX = minX;
+        originY = minY;
+        cellSize = Math.max(minCellSize, Math.max(maxX - minX, maxY - minY) / (MAX_COLUMNS - 1));
+        columns = (int) ((maxX - minX) / cellSize) + 1;
+        rows = (int) ((maxY - minY) / cellSize) + 1;
+
+        if (cellStart.length < columns * rows + 1) {
+            cellStart = new int[columns * rows + 1];
+        } else {
+            Arrays.fill(cellStart, 0, columns * rows + 1, 0);
+        }
+        if (cells.length < count) {
+            cells = new int[Math.max(count, cells.length * 2)];
+            entries = new int[cells.length];
+        }
+
+        for (int i = 0; i < count; i++) {
+            ServerEnemy enemy = enemies.get(i);
+            int cell = cellY(enemy.y) * columns + cellX(enemy.x);
+            cells[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 1; c <= columns * rows; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+        for (int i = 0; i < count; i++) {
+            entries[cellStart[cells[i]]++] = i;
+        }
+        // Placing advanced every start to the next cell's; shift them back
+        for (int c = columns * rows; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Finds an enemy other than {@code self} whose centre is within
+     * {@code radius} of the point, checking the cells {@code reach} around it.
+     *
+     * @param reach how far binned positions may be from the point; at least the radius plus one step
+     * @return the enemy, or null if there is none
+     */
+    ServerEnemy findNear(Array<ServerEnemy> enemies, ServerEnemy self, float x, float y, float radius, float reach) {
+        float radius2 = radius * radius;
+        int minX = cellX(x - reach);
+        int maxX = cellX(x + reach);
+        int minY = cellY(y - reach);
+        int maxY = cellY(y + reach);
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                int cell = cy * columns + cx;
+                for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+                    ServerEnemy other = enemies.get(entries[e]);
+                    if (other == self || other.health <= 0) continue;
+                    float dx = other.x - x;
+                    float dy = other.y - y;
+                    if (dx * dx + dy * dy < radius2) return other;
+                }
+            }
+        }
+        return null;
+    }
+
+    private int cellX(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - originX) / cellSize)));
+    }
+
+    private int cellY(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - originY) / cellSize)));
+    }
+}
@@ -0,0 +1,440 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.survivor.game.AdminServer;
+import com.survivor.game.CollisionMask;
+import com.survivor.game.GameMetrics;
+import com.survivor.game.MapManager;
+import com.survivor.game.NetProtocol;
+import com.survivor.game.SnapshotCodec;
+
+/**
+ * Authoritative host for co-op sessions, running any number of independent
+ * {@link Room}s in one process. This thread only does the networking: it blocks
+ * in {@link Selector#select} until a datagram arrives, keeps track of who is
+ * connected, and hands each client's input to its room. The rooms themselves
+ * are simulated by a fixed set of {@link RoomWorker} threads, each room pinned
+ * to one worker for its whole life.
+ *
+ * Clients name a room when they connect; the first one in creates it. New rooms
+ * are packed onto the first worker with spare time rather than spread evenly, so
+ * a quiet server keeps its rooms on a few threads sharing warm caches, and only
+ * spills onto the next worker once one is busy. A room that has been empty for
+ * {@link #ROOM_IDLE_NANOS} is closed.
+ *
+ * Clients never wait on each other: a slow or silent client only stops its own
+ * input from arriving, and is dropped after {@link #SESSION_TIMEOUT_NANOS}.
+ * Packets are read into pooled direct buffers and inputs cross to the workers
+ * through a lock-free {@link RoomInbox}, so nothing is allocated per packet
+ * beyond the sender address the JDK hands back from receive.
+ *
+ * A map too big for one game loop can be sharded across several server
+ * processes, one per zone, see {@link ZoneLayout}; such a server runs its rooms
+ * on a single worker and redirects players to the neighbouring zone's server as
+ * they cross into it.
+ *
+ * Each client is only sent what is around its own player, picked by the
+ * {@link InterestGrid}, as a delta against the newest snapshot it acknowledged,
+ * capped at one packet by its {@link SnapshotCodec}.
+ *
+ * Started with the {@code survivor.adminPort} system property, the server also
+ * answers on an {@link AdminServer}: {@code /metrics} for Prometheus, and
+ * {@code /world} for a summary of every room, or {@code /world?room=N} for
+ * everything in one, which that room's worker writes between ticks.
+ */
+public class GameServer implements Runnable {
+    private static final String TAG = "GameServer";
+    public static final int TICK_RATE = 30;
+    private static final long SESSION_TIMEOUT_NANOS = 5_000_000_000L;
+    private static final long ROOM_IDLE_NANOS = 60_000_000_000L;
+    private static final long HOUSEKEEPING_NANOS = 100_000_000L;
+    private static final long STATS_INTERVAL_NANOS = 10_000_000_000L;
+    private static final int MAX_ROOMS = 1024;
+    private static final float PACKING_LOAD = 0.5f; // A worker busier than this gets no new rooms while another has room
+    private static final int MAX_ROOMS_PER_WORKER = 64; // Rooms are placed before their cost shows up in the load
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final BufferPool buffers = new BufferPool(NetProtocol.MAX_PACKET_SIZE, 4);
+    private final RoomWorker[] workers;
+    private final IntMap<Room> rooms = new IntMap<>();
+    private final Array<Room> roomList = new Array<>(false, 16, Room.class);
+    private final ObjectMap<SocketAddress, ClientSession> sessions = new ObjectMap<>();
+    private final Array<ClientSession> sessionList = new Array<>(false, 8, ClientSession.class);
+    private final int maxPlayersPerRoom;
+    private volatile boolean running = true;
+    private volatile Room[] publishedRooms = new Room[0]; // Copy of roomList for the admin thread
+    private final AdminServer adminServer;
+    private final GameMetrics.Gauge sessionsMetric;
+    private final GameMetrics.Gauge roomsMetric;
+    private final GameMetrics.Gauge buffersMetric;
+
+    private long packetsIn = 0;
+    private long roomsOpened = 0;
+
+    public GameServer(int port, int maxPlayers, String mapPath) throws IOException {
+        this(port, maxPlayers, 1, mapPath);
+    }
+
+    /**
+     * @param maxPlayersPerRoom further connects to a full room are rejected
+     * @param workerCount threads simulating rooms; each loads its own copy of the map
+     */
+    public GameServer(int port, int maxPlayersPerRoom, int workerCount, String mapPath) throws IOException {
+        this(port, maxPlayersPerRoom, workerCount, mapPath, 0, 1);
+    }
+
+    /**
+     * @param port with more than one zone, the first zone's port; this one listens {@code zoneIndex} above it
+     * @param zoneIndex which strip of the map this process simulates
+     * @param zoneCount processes the map is sharded across; with more than one, a single worker is used
+     */
+    public GameServer(int port, int maxPlayersPerRoom, int workerCount, String mapPath, int zoneIndex, int zoneCount)
+            throws IOException {
+        this.maxPlayersPerRoom = maxPlayersPerRoom;
+        MapManager firstMap = new MapManager(mapPath, false);
+        ZoneNode zoneNode = null;
+        if (zoneCount > 1) {
+            CollisionMask mask = firstMap.getCollisionMask();
+            ZoneLayout layout = new ZoneLayout(zoneIndex, zoneCount, port, mask.getWidth() * mask.getTileWidth());
+            zoneNode = new ZoneNode(layout);
+            port = layout.portOf(zoneIndex);
+            workerCount = 1;
+        }
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(port));
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        workers = new RoomWorker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new RoomWorker(i, i == 0 ? firstMap : new MapManager(mapPath, false), channel, zoneNode);
+        }
+        Gdx.app.log(TAG, "Listening on UDP port " + getPort() + " for up to " + maxPlayersPerRoom
+            + " players per room on " + workerCount + " workers"
+            + (zoneCount > 1 ? ", as zone " + zoneIndex + " of " + zoneCount : ""));
+
+        GameMetrics metrics = GameMetrics.getShared();
+        metrics.watchGarbageCollection();
+        sessionsMetric = metrics.gauge("survivor_sessions", "Connected clients", null);
+        roomsMetric = metrics.gauge("survivor_rooms", "Open rooms", null);
+        buffersMetric = metrics.gauge("survivor_pool_size", "Slots in fixed-size pools", "pool=\"packet_buffers\"");
+        // Zones on one machine take consecutive admin ports, like their game ports
+        adminServer = AdminServer.startIfConfigured(metrics, zoneCount > 1 ? zoneIndex : 0);
+        if (adminServer != null) adminServer.setWorldSource(this::dumpWorld);
+    }
+
+    /**
+     * @return the bound port, useful when the server was given port 0
+     */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void run() {
+        for (RoomWorker worker : workers) {
+            worker.start();
+        }
+        long nextHousekeeping = System.nanoTime() + HOUSEKEEPING_NANOS;
+        long nextStats = System.nanoTime() + STATS_INTERVAL_NANOS;
+        try {
+            while (running) {
+                long wait = nextHousekeeping - System.nanoTime();
+                if (wait > 0) {
+                    // select(0) would block forever, so always wait at least a millisecond
+                    selector.select(Math.max(1, wait / 1_000_000L));
+                    selector.selectedKeys().clear();
+                    receive();
+                }
+
+                long now = System.nanoTime();
+                if (now >= nextHousekeeping) {
+                    expireSessions(now);
+                    closeIdleRooms(now);
+                    sessionsMetric.set(sessionList.size);
+                    roomsMetric.set(roomList.size);
+                    buffersMetric.set(buffers.getCreatedCount());
+                    nextHousekeeping = now + HOUSEKEEPING_NANOS;
+                }
+                if (now >= nextStats) {
+                    logStats();
+                    nextStats = now + STATS_INTERVAL_NANOS;
+                }
+            }
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Server loop failed", e);
+        } finally {
+            close();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void receive() throws IOException {
+        ByteBuffer buffer = buffers.obtain();
+        try {
+            while (true) {
+                ((Buffer) buffer).clear();
+                SocketAddress sender = channel.receive(buffer);
+                if (sender == null) break;
+                ((Buffer) buffer).flip();
+                packetsIn++;
+                handle(sender, buffer);
+            }
+        } finally {
+            buffers.free(buffer);
+        }
+    }
+
+    private void handle(SocketAddress sender, ByteBuffer packet) throws IOException {
+        int type = NetProtocol.readHeader(packet);
+        ClientSession session = sessions.get(sender);
+        if (session != null) {
+            session.lastHeardNanos = System.nanoTime();
+        }
+
+        switch (type) {
+            case NetProtocol.CONNECT:
+                if (session == null) {
+                    int roomId = packet.remaining() >= 4 ? packet.getInt() : 0;
+                    int handoffToken = packet.remaining() >= 4 ? packet.getInt() : 0;
+                    Room room = roomId >= 0 ? openRoom(roomId) : null;
+                    if (room == null || room.sessionCount >= maxPlayersPerRoom) {
+                        send(sender, NetProtocol.begin(buffers.obtain(), NetProtocol.REJECT));
+                        return;
+                    }
+                    session = new ClientSession(sender, room, handoffToken, System.nanoTime());
+                    sessions.put(sender, session);
+                    sessionList.add(session);
+                    room.sessionCount++;
+                    room.joining.add(session);
+                    room.worker.wake();
+                    return; // The worker welcomes the player once it is in the world
+                }
+                // Sent again for repeated connects, in case the first welcome was lost
+                int playerId = session.playerId;
+                if (playerId < 0) return; // Still joining
+                send(sender, NetProtocol.begin(buffers.obtain(), NetProtocol.WELCOME)
+                    .putShort((short) playerId).put((byte) TICK_RATE));
+                break;
+            case NetProtocol.INPUT:
+                if (session == null || packet.remaining() < NetProtocol.INPUT_SIZE - NetProtocol.HEADER_SIZE) return;
+                int sequence = packet.getInt();
+                if (sequence <= session.lastInputSequence) return; // Late or duplicated datagram
+                session.lastInputSequence = sequence;
+                int acked = packet.getInt();
+                int buttons = packet.get();
+                float delta = session.claimInputTime(packet.getFloat(), System.nanoTime());
+                float aimX = packet.getFloat();
+                float aimY = packet.getFloat();
+                session.room.inbox.offer(session, sequence, acked, buttons, delta, aimX, aimY);
+                break;
+            case NetProtocol.DISCONNECT:
+                if (session != null) {
+                    removeSession(session, "left");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return the room, created and placed on a worker if it wasn't open, or null if no more rooms fit
+     */
+    private Room openRoom(int id) {
+        Room room = rooms.get(id);
+        if (room != null) return room;
+        if (rooms.size >= MAX_ROOMS) return null;
+
+        long now = System.nanoTime();
+        room = new Room(id, place(), now ^ ((long) id << 32), now);
+        rooms.put(id, room);
+        roomList.add(room);
+        room.worker.add(room);
+        publishedRooms = roomList.toArray();
+        roomsOpened++;
+        Gdx.app.log(TAG, "Opened room " + id + " on worker " + room.worker.index);
+        return room;
+    }
+
+    /**
+     * First fit: the lowest-numbered worker with time to spare takes the room.
+     * If all are busy, the least loaded one does. Rooms never move afterwards,
+     * since their world, sessions and codecs live with the worker's thread.
+     */
+    private RoomWorker place() {
+        RoomWorker leastLoaded = workers[0];
+        for (RoomWorker worker : workers) {
+            if (worker.getLoad() < PACKING_LOAD && worker.assignedRooms < MAX_ROOMS_PER_WORKER) return worker;
+            if (worker.getLoad() < leastLoaded.getLoad()) leastLoaded = worker;
+        }
+        return leastLoaded;
+    }
+
+    private void expireSessions(long now) {
+        for (int i = sessionList.size - 1; i >= 0; i--) {
+            ClientSession session = sessionList.get(i);
+            if (now - session.lastHeardNanos > SESSION_TIMEOUT_NANOS) {
+                removeSession(session, "timed out");
+            }
+        }
+    }
+
+    private void closeIdleRooms(long now) {
+        for (int i = roomList.size - 1; i >= 0; i--) {
+            Room room = roomList.get(i);
+            if (room.sessionCount > 0 || now - room.emptySinceNanos < ROOM_IDLE_NANOS) continue;
+            room.closed = true;
+            room.worker.assignedRooms--;
+            room.worker.wake();
+            rooms.remove(room.id);
+            roomList.removeIndex(i);
+            publishedRooms = roomList.toArray();
+            Gdx.app.log(TAG, "Closed idle room " + room.id);
+        }
+    }
+
+    /**
+     * Sends a packet written into a pooled buffer, then returns the buffer to the pool.
+     */
+    private void send(SocketAddress address, ByteBuffer buffer) throws IOException {
+        ((Buffer) buffer).flip();
+        channel.send(buffer, address);
+        buffers.free(buffer);
+    }
+
+    private void removeSession(ClientSession session, String reason) {
+        sessions.remove(session.address);
+        sessionList.removeValue(session, true);
+        session.closed = true; // The worker takes the player out of the world on the room's next tick
+        Room room = session.room;
+        if (--room.sessionCount == 0) room.emptySinceNanos = System.nanoTime();
+        Gdx.app.log(TAG, "Client " + session.address + " " + reason + " room " + room.id);
+    }
+
+    private void logStats() {
+        int inputsDropped = 0;
+        for (int i = 0; i < roomList.size; i++) {
+            inputsDropped += roomList.get(i).inbox.getDropped();
+        }
+        Gdx.app.log(TAG, String.format("%d clients in %d rooms (%d opened so far); %d packets in, "
+                + "%d inputs dropped by full inboxes",
+            sessionList.size, roomList.size, roomsOpened, packetsIn, inputsDropped));
+        packetsIn = 0;
+    }
+
+    /**
+     * Answers the admin endpoint's /world on its thread. The summary only reads
+     * what rooms and workers publish; a single room is dumped by its worker.
+     */
+    private String dumpWorld(String query) throws Exception {
+        String roomId = AdminServer.queryParameter(query, "room");
+        Room[] rooms = publishedRooms;
+        if (roomId != null) {
+            for (Room room : rooms) {
+                if (String.valueOf(room.id).equals(roomId)) return AdminServer.dumpOn(room.worker, room::writeJson);
+            }
+            return null;
+        }
+
+        StringWriter text = new StringWriter();
+        JsonWriter json = new JsonWriter(text);
+        json.setOutputType(JsonWriter.OutputType.json);
+        json.object().set("port", getPort());
+        json.array("workers");
+        for (RoomWorker worker : workers) {
+            json.object().set("index", worker.index).set("load", worker.getLoad()).pop();
+        }
+        json.pop();
+        json.array("rooms");
+        for (Room room : rooms) {
+            json.object()
+                .set("id", room.id)
+                .set("worker", room.worker.index)
+                .set("tick", room.getTick())
+                .set("players", room.getPlayerCount())
+                .set("averageTickMillis", room.getAverageTickMillis())
+                .set("maxTickMillis", room.getMaxTickMillis())
+                .set("bytesPerSecond", room.getBytesPerSecond())
+                .pop();
+        }
+        json.pop();
+        json.pop();
+        json.flush();
+        return text.toString();
+    }
+
+    private void close() {
+        if (adminServer != null) adminServer.stop();
+        for (RoomWorker worker : workers) {
+            try {
+                worker.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Couldn't close the socket", e);
+        }
+        Gdx.app.log(TAG, "Stopped with " + roomList.size + " rooms open");
+    }
+
+    /**
+     * @return the open room with this id, or null
+     */
+    public Room getRoom(int id) {
+        return rooms.get(id);
+    }
+
+    /**
+     * @return the open rooms; only safe to read on the network thread or once the server has stopped
+     */
+    public Array<Room> getRooms() {
+        return roomList;
+    }
+
+    public int getSessionCount() {
+        return sessionList.size;
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * @return packet buffers allocated by the network thread and every worker; stays flat once traffic is steady
+     */
+    public int getBuffersCreated() {
+        int created = buffers.getCreatedCount();
+        for (RoomWorker worker : workers) {
+            created += worker.buffers.getCreatedCount();
+        }
+        return created;
+    }
+}
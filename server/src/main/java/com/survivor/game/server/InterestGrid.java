@@ -0,0 +1,205 @@
+package com.survivor.game.server;
+
+import java.util.Arrays;
+
+import com.survivor.game.NetProtocol;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * Area-of-interest filter: decides which entities of the tick's snapshot each
+ * client is told about, and how urgently.
+ *
+ * Like {@link com.survivor.game.CombatQuery}, the snapshot is binned once per
+ * tick into a uniform grid with a counting sort, here over the area the
+ * entities actually cover, so it works on the endless world as well as a fixed
+ * map. Each client then only visits the cells around its player: everything
+ * inside its view plus a margin, so entities are known a little before they
+ * walk on screen. Players are always included, for the minimap. Cost per client
+ * depends on how crowded its view is, not on the size of the world.
+ *
+ * Enemies get a send priority that falls off with distance from the player, so
+ * what is about to bite updates every tick and the edge of the screen less
+ * often when the packet is full. Not thread-safe; each {@link RoomWorker} has
+ * its own and shares it between the rooms it ticks.
+ */
+class InterestGrid {
+    private static final float CELL_SIZE = 256f;
+    private static final int MAX_COLUMNS = 256; // Sparse worlds get bigger cells instead of more of them
+    private static final float MAX_PRIORITY = 8f; // Enemy touching the player; the edge of the region is 1
+    private static final float PLAYER_PRIORITY = MAX_PRIORITY;
+
+    private final float halfWidth;
+    private final float halfHeight;
+
+    private float originX;
+    private float originY;
+    private float cellSize;
+    private int columns;
+    private int rows;
+    private int[] cellStart = new int[2]; // Entries of cell c are entries[cellStart[c] .. cellStart[c + 1])
+    private int[] cells = new int[64]; // Cell of each snapshot entity
+    private int[] entries = new int[64]; // Snapshot indices, grouped by cell, ascending within a cell
+    private int[] gathered = new int[64];
+    private int[] sortScratch = new int[64];
+    private final int[] radixCounts = new int[256];
+    private float[] priorities = new float[64];
+
+    /**
+     * @param viewHalfWidth half the width of a client's view, in world units
+     * @param viewHalfHeight half its height
+     * @param margin extra distance around the view that is still replicated
+     */
+    InterestGrid(float viewHalfWidth, float viewHalfHeight, float margin) {
+        halfWidth = viewHalfWidth + margin;
+        halfHeight = viewHalfHeight + margin;
+    }
+
+    /**
+     * Bins every entity of the snapshot. Call once per tick after capturing it.
+     */
+    void rebuild(WorldSnapshot snapshot) {
+        int count = snapshot.count;
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, snapshot.x[i]);
+            minY = Math.min(minY, snapshot.y[i]);
+            maxX = Math.max(maxX, snapshot.x[i]);
+            maxY = Math.max(maxY, snapshot.y[i]);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        originX = minX;
+        originY = minY;
+        cellSize = Math.max(CELL_SIZE, Math.max(maxX - minX, maxY - minY) / (MAX_COLUMNS - 1));
+        columns = (int) ((maxX - minX) / cellSize) + 1;
+        rows = (int) ((maxY - minY) / cellSize) + 1;
+
+        if (cellStart.length < columns * rows + 1) {
+            cellStart = new int[columns * rows + 1];
+        } else {
+            Arrays.fill(cellStart, 0, columns * rows + 1, 0);
+        }
+        if (cells.length < count) {
+            cells = new int[Math.max(count, cells.length * 2)];
+            entries = new int[cells.length];
+        }
+
+        // Count, prefix sum, then place; placing in index order keeps each cell sorted by id
+        for (int i = 0; i < count; i++) {
+            int cell = cellY(snapshot.y[i]) * columns + cellX(snapshot.x[i]);
+            cells[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 1; c <= columns * rows; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+        for (int i = 0; i < count; i++) {
+            entries[cellStart[cells[i]]++] = i;
+        }
+        // Placing advanced every start to the next cell's; shift them back
+        for (int c = columns * rows; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Fills {@code out} with the entities of {@code snapshot} a client whose
+     * player stands at the given point should know about, in id order, and
+     * their priorities in {@link #getPriorities}.
+     */
+    void gather(WorldSnapshot snapshot, float playerX, float playerY, WorldSnapshot out) {
+        int count = 0;
+        int minX = cellX(playerX - halfWidth);
+        int maxX = cellX(playerX + halfWidth);
+        int minY = cellY(playerY - halfHeight);
+        int maxY = cellY(playerY + halfHeight);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                int cell = y * columns + x;
+                for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+                    int i = entries[e];
+                    if (snapshot.kinds[i] == NetProtocol.KIND_PLAYER) continue; // Added below
+                    if (Math.abs(snapshot.x[i] - playerX) > halfWidth || Math.abs(snapshot.y[i] - playerY) > halfHeight) {
+                        continue;
+                    }
+                    if (count == gathered.length) gathered = Arrays.copyOf(gathered, count * 2);
+                    gathered[count++] = i;
+                }
+            }
+        }
+        // Players are few and always wanted; find them without the grid
+        for (int i = 0; i < snapshot.count; i++) {
+            if (snapshot.kinds[i] != NetProtocol.KIND_PLAYER) continue;
+            if (count == gathered.length) gathered = Arrays.copyOf(gathered, count * 2);
+            gathered[count++] = i;
+        }
+        // Snapshot indices are in id order, so sorting them keeps out sorted
+        sortIndices(count);
+
+        out.clear(snapshot.tick);
+        out.ensureCapacity(count);
+        if (priorities.length < count) priorities = new float[Math.max(count, priorities.length * 2)];
+        for (int k = 0; k < count; k++) {
+            int i = gathered[k];
+            out.add(snapshot, i);
+            if (snapshot.kinds[i] == NetProtocol.KIND_PLAYER) {
+                priorities[k] = PLAYER_PRIORITY;
+            } else {
+                // 1 at the corner of the region up to MAX_PRIORITY at the player
+                float dx = Math.abs(snapshot.x[i] - playerX) / halfWidth;
+                float dy = Math.abs(snapshot.y[i] - playerY) / halfHeight;
+                float nearness = 1f - Math.min(1f, (float) Math.sqrt((dx * dx + dy * dy) * 0.5f));
+                priorities[k] = 1f + (MAX_PRIORITY - 1f) * nearness * nearness;
+            }
+        }
+    }
+
+    /**
+     * Two-pass radix sort of the gathered indices, which are below 2^16 since a
+     * snapshot holds at most one entity per short id. Unlike Arrays.sort it never
+     * allocates, and it is linear in the number gathered.
+     */
+    private void sortIndices(int count) {
+        if (sortScratch.length < gathered.length) sortScratch = new int[gathered.length];
+        int[] from = gathered;
+        int[] to = sortScratch;
+        for (int shift = 0; shift < 16; shift += 8) {
+            Arrays.fill(radixCounts, 0);
+            for (int k = 0; k < count; k++) {
+                radixCounts[(from[k] >>> shift) & 0xFF]++;
+            }
+            for (int b = 0, position = 0; b < 256; b++) {
+                int n = radixCounts[b];
+                radixCounts[b] = position;
+                position += n;
+            }
+            for (int k = 0; k < count; k++) {
+                to[radixCounts[(from[k] >>> shift) & 0xFF]++] = from[k];
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        // An even number of passes leaves the result back in gathered
+    }
+
+    /**
+     * @return send priority of each entity the last {@link #gather} put in its output
+     */
+    float[] getPriorities() {
+        return priorities;
+    }
+
+    private int cellX(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - originX) / cellSize)));
+    }
+
+    private int cellY(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - originY) / cellSize)));
+    }
+}
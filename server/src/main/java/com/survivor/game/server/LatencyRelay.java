@@ -0,0 +1,84 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Forwards one client's datagrams to the server and back, holding each for half
+ * the round trip, so loopback tests see the delay a real connection has. Every
+ * relay has its own socket towards the server, which therefore sees each client
+ * at a different address. Test tool only: it copies every packet.
+ */
+class LatencyRelay {
+    private final DatagramChannel front; // Faces the client
+    private final DatagramChannel back; // Connected to the server
+    private final long delayNanos;
+    private final ArrayDeque<Delayed> toServer = new ArrayDeque<>();
+    private final ArrayDeque<Delayed> toClient = new ArrayDeque<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(2048);
+    private SocketAddress client;
+
+    LatencyRelay(InetSocketAddress server, long roundTripMillis) throws IOException {
+        delayNanos = roundTripMillis * 1_000_000L / 2;
+        front = DatagramChannel.open();
+        front.configureBlocking(false);
+        front.bind(new InetSocketAddress("127.0.0.1", 0));
+        back = DatagramChannel.open();
+        back.configureBlocking(false);
+        back.connect(server);
+    }
+
+    /**
+     * @return where the client should connect instead of the server
+     */
+    InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) front.getLocalAddress();
+    }
+
+    /**
+     * Reads whatever has arrived on either side and sends whatever is due.
+     */
+    void pump() throws IOException {
+        long now = System.nanoTime();
+        while (true) {
+            ((Buffer) buffer).clear();
+            SocketAddress sender = front.receive(buffer);
+            if (sender == null) break;
+            client = sender;
+            toServer.add(new Delayed(buffer, now + delayNanos));
+        }
+        while (true) {
+            ((Buffer) buffer).clear();
+            if (back.read(buffer) <= 0) break;
+            toClient.add(new Delayed(buffer, now + delayNanos));
+        }
+        while (!toServer.isEmpty() && toServer.peek().due <= now) {
+            back.write(ByteBuffer.wrap(toServer.poll().data));
+        }
+        while (!toClient.isEmpty() && toClient.peek().due <= now && client != null) {
+            front.send(ByteBuffer.wrap(toClient.poll().data), client);
+        }
+    }
+
+    void close() throws IOException {
+        front.close();
+        back.close();
+    }
+
+    private static class Delayed {
+        final byte[] data;
+        final long due;
+
+        Delayed(ByteBuffer buffer, long due) {
+            ((Buffer) buffer).flip();
+            data = new byte[buffer.remaining()];
+            buffer.get(data);
+            this.due = due;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.survivor.game.CollisionMask;
+import com.survivor.game.GameClient;
+import com.survivor.game.MapManager;
+import com.survivor.game.NetProtocol;
+import com.survivor.game.PlayerPredictor;
+import com.survivor.game.SweptAabbSolver;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * Hosts a server on a free loopback port and connects several bot clients to
+ * it, each wandering and swinging at 60 frames per second like a real client
+ * and predicting its own player against the same map. A round trip time puts a
+ * {@link LatencyRelay} between each client and the server.
+ * Clients are dealt round-robin into a number of rooms.
+ * Afterwards it reports what every client received, how often its prediction
+ * was corrected and how each room fared, and exits with status 1 if a client
+ * failed to join, missed too many snapshots or couldn't decode one.
+ * Run by the {@code loopbackTest} Gradle task.
+ * Arguments: [clients] [seconds] [round trip ms] [rooms] [worker threads].
+ */
+public class LoopbackClients {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final float MIN_SNAPSHOT_RATIO = 0.8f; // Loopback loses nothing, so this is generous
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        float seconds = args.length > 1 ? Float.parseFloat(args[1]) : 10f;
+        int roundTripMillis = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int roomCount = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int workerCount = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        ServerLauncher.initHeadless();
+        GameServer server = new GameServer(0, clientCount, workerCount, "map.tmx");
+        Thread serverThread = new Thread(server, "GameServer");
+        serverThread.start();
+
+        // Clients predict against their own copy of the map, as the game would
+        MapManager map = new MapManager("map.tmx", false);
+        CollisionMask mask = map.getCollisionMask();
+        float worldWidth = mask.getWidth() * mask.getTileWidth();
+        float worldHeight = mask.getHeight() * mask.getTileHeight();
+        SweptAabbSolver collider = new SweptAabbSolver(map.getObstacleIndex());
+
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+        GameClient[] clients = new GameClient[clientCount];
+        LatencyRelay[] relays = new LatencyRelay[roundTripMillis > 0 ? clientCount : 0];
+        int[] buttons = new int[clientCount];
+        int[] joinedAtTick = new int[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            if (relays.length > 0) {
+                relays[i] = new LatencyRelay(address, roundTripMillis);
+                clients[i] = new GameClient(relays[i].getAddress(), i % roomCount);
+            } else {
+                clients[i] = new GameClient(address, i % roomCount);
+            }
+            clients[i].getPredictor().setWorld(collider, worldWidth, worldHeight);
+        }
+        Thread relayThread = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    for (LatencyRelay relay : relays) {
+                        relay.pump();
+                    }
+                    Thread.sleep(1);
+                }
+            } catch (InterruptedException e) {
+                // Stopped
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "LatencyRelay");
+        if (relays.length > 0) relayThread.start();
+
+        long end = System.nanoTime() + (long) (seconds * 1e9f);
+        long nextFrame = System.nanoTime();
+        long lastFrame = nextFrame;
+        while (System.nanoTime() < end) {
+            long frameStart = System.nanoTime();
+            float delta = (frameStart - lastFrame) / 1e9f;
+            lastFrame = frameStart;
+            for (int i = 0; i < clientCount; i++) {
+                GameClient client = clients[i];
+                boolean wasConnected = client.isConnected();
+                client.update();
+                if (!wasConnected && client.isConnected()) {
+                    joinedAtTick[i] = server.getRoom(client.getRoomId()).getTick();
+                }
+
+                // Change direction now and then, swing whenever something is close
+                if (MathUtils.randomBoolean(0.02f)) {
+                    buttons[i] = MathUtils.random(15);
+                }
+                WorldSnapshot snapshot = client.getSnapshot();
+                PlayerPredictor predictor = client.getPredictor();
+                float x = predictor.getX();
+                float y = predictor.getY();
+                int attack = nearestEnemyWithin(snapshot, x, y, 60f) ? NetProtocol.BUTTON_ATTACK : 0;
+                client.sendInput(buttons[i] | attack, delta, x, y);
+            }
+            nextFrame += FRAME_NANOS;
+            long sleep = nextFrame - System.nanoTime();
+            if (sleep > 0) Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+        }
+
+        int[] finalTicks = new int[roomCount];
+        for (int r = 0; r < roomCount; r++) {
+            Room room = server.getRoom(r);
+            finalTicks[r] = room != null ? room.getTick() : 0;
+        }
+        boolean passed = true;
+        for (int i = 0; i < clientCount; i++) {
+            GameClient client = clients[i];
+            int expected = finalTicks[client.getRoomId()] - joinedAtTick[i];
+            float ratio = expected > 0 ? client.getSnapshotsReceived() / (float) expected : 0;
+            WorldSnapshot snapshot = client.getSnapshot();
+            PlayerPredictor predictor = client.getPredictor();
+            System.out.printf("Client %d: room %d player %d, %d of %d snapshots (%.0f%%, %d undecodable), last tick %d acked input %d, "
+                    + "%d entities; %d inputs in flight, %d corrections (largest %.2f)%n",
+                i, client.getRoomId(), client.getPlayerId(), client.getSnapshotsReceived(), expected, ratio * 100, client.getSnapshotsDropped(),
+                snapshot.tick, snapshot.ackedInput, snapshot.count, predictor.getPendingInputs(),
+                predictor.getCorrections(), predictor.getLargestCorrection());
+            if (!client.isConnected() || ratio < MIN_SNAPSHOT_RATIO || client.getSnapshotsDropped() > 0) passed = false;
+            client.dispose();
+        }
+
+        Thread.sleep(roundTripMillis); // Let the disconnects through the relays
+        relayThread.interrupt();
+        relayThread.join();
+        for (LatencyRelay relay : relays) {
+            relay.close();
+        }
+        server.stop();
+        serverThread.join();
+        for (int r = 0; r < roomCount; r++) {
+            Room room = server.getRoom(r);
+            if (room == null) continue;
+            ServerWorld world = room.getWorld();
+            System.out.printf("Room %d on worker %d: %d ticks, %d enemies alive, %d kills, "
+                    + "%d hits landed by lag compensation%n",
+                r, room.getWorkerIndex(), finalTicks[r], world.getEnemyCount(), world.getKills(),
+                world.getCompensatedHits());
+        }
+        System.out.printf("Server: %d rooms on %d workers, %d packet buffers allocated%n",
+            server.getRooms().size, server.getWorkerCount(), server.getBuffersCreated());
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean nearestEnemyWithin(WorldSnapshot snapshot, float x, float y, float radius) {
+        for (int i = 0; i < snapshot.count; i++) {
+            if (snapshot.kinds[i] == NetProtocol.KIND_ENEMY
+                && Math.abs(snapshot.x[i] - x) < radius && Math.abs(snapshot.y[i] - y) < radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.survivor.game.server;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Where an entity was over the last {@link #TICKS} ticks, for lag compensation.
+ * A fixed ring indexed by tick, so recording and looking up a tick are a single
+ * array access and memory per entity never grows. Each slot remembers which tick
+ * it holds, so a tick that has been overwritten, or that came before the entity
+ * existed, reads as missing.
+ */
+class PositionHistory {
+    static final int TICKS = 16; // Half a second at 30 ticks; a power of two so the slot is a mask
+    private static final int MASK = TICKS - 1;
+
+    private final int[] ticks = new int[TICKS];
+    private final float[] x = new float[TICKS];
+    private final float[] y = new float[TICKS];
+
+    PositionHistory() {
+        clear();
+    }
+
+    /**
+     * Forgets everything, for a pooled entity starting a new life.
+     */
+    void clear() {
+        Arrays.fill(ticks, -1);
+    }
+
+    void record(int tick, float entityX, float entityY) {
+        int slot = tick & MASK;
+        ticks[slot] = tick;
+        x[slot] = entityX;
+        y[slot] = entityY;
+    }
+
+    /**
+     * @return false if the tick is no longer, or was never, recorded
+     */
+    boolean sample(int tick, Vector2 out) {
+        int slot = tick & MASK;
+        if (tick < 0 || ticks[slot] != tick) return false;
+        out.set(x[slot], y[slot]);
+        return true;
+    }
+}
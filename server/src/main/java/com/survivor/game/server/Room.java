@@ -0,0 +1,353 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.survivor.game.GameEvents;
+import com.survivor.game.GameMetrics;
+import com.survivor.game.MapManager;
+import com.survivor.game.NetProtocol;
+import com.survivor.game.SnapshotCodec;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * One independent game: its own {@link ServerWorld}, players, enemies, random
+ * generator and tick clock. Clients pick a room when they connect. A room is
+ * pinned to one {@link RoomWorker} for its whole life and only that worker's
+ * thread touches its world and sessions; the network thread hands it new
+ * sessions through {@link #joining} and inputs through its {@link RoomInbox}.
+ *
+ * On a map sharded into zones, a room of the same id runs in every zone's
+ * process, and a player crossing a border is redirected to the room next door.
+ *
+ * A room without players doesn't tick at all. Its clock restarts when someone
+ * joins, so the only cost of an idle room is its memory, and the server closes
+ * it after a while.
+ *
+ * Tick times, traffic and entity counts go to {@link GameMetrics} under the
+ * room's id, and are dropped from there when the room closes.
+ */
+public class Room {
+    private static final String TAG = "Room";
+    private static final int MAX_TICKS_BEHIND = 5; // Beyond this the clock skips ahead instead of catching up
+    private static final long TICK_NANOS = 1_000_000_000L / GameServer.TICK_RATE;
+    private static final long HANDOFF_WAIT_NANOS = 1_000_000_000L; // For the neighbour's handoff to arrive after the client
+
+    final int id;
+    final RoomWorker worker;
+    final RoomInbox inbox = new RoomInbox();
+    final ConcurrentLinkedQueue<ClientSession> joining = new ConcurrentLinkedQueue<>();
+    volatile boolean closed = false;
+    private final long seed;
+
+    // Network thread
+    int sessionCount = 0;
+    long emptySinceNanos;
+
+    // Worker
+    private ServerWorld world;
+    private final Array<ClientSession> sessions = new Array<>(false, 8, ClientSession.class);
+    private final Array<ClientSession> awaitingHandoff = new Array<>(false, 4, ClientSession.class);
+    private ZoneNode zoneNode;
+    private long nextTickNanos;
+    private long tickNanosTotal = 0;
+    private long tickNanosMax = 0;
+    private int ticksSinceStats = 0;
+    private long bytesOut = 0;
+    private long entitiesDeferred = 0;
+    private String metricLabels;
+    private GameMetrics.Histogram tickMetric;
+    private GameMetrics.Counter bytesSentMetric;
+    private GameMetrics.Gauge playersMetric;
+    private GameMetrics.Gauge enemiesMetric;
+    private GameMetrics.Gauge enemyPoolInUseMetric;
+    private GameMetrics.Gauge enemyPoolSizeMetric;
+
+    // Published by the worker for anyone to read
+    private volatile int tick = 0;
+    private volatile int playerCount = 0;
+    private volatile float averageTickMillis = 0;
+    private volatile float maxTickMillis = 0;
+    private volatile float bytesPerSecond = 0;
+
+    Room(int id, RoomWorker worker, long seed, long now) {
+        this.id = id;
+        this.worker = worker;
+        this.seed = seed;
+        this.emptySinceNanos = now;
+    }
+
+    /**
+     * Builds the world on the worker's thread, against the map all its rooms share.
+     *
+     * @param zoneNode the links to the neighbouring zones, or null if the map isn't sharded
+     */
+    void start(MapManager map, ZoneNode zoneNode) {
+        world = new ServerWorld(map, seed);
+        this.zoneNode = zoneNode;
+        if (zoneNode != null) {
+            world.setZone(zoneNode, id);
+            zoneNode.addRoom(this);
+        }
+
+        GameMetrics metrics = GameMetrics.getShared();
+        metricLabels = "room=\"" + id + "\"";
+        tickMetric = metrics.histogram("survivor_tick_millis", "Time to simulate one tick and send its snapshots",
+            metricLabels, GameMetrics.MILLIS_BUCKETS);
+        bytesSentMetric = metrics.counter("survivor_bytes_sent_total", "Bytes sent over the network", metricLabels);
+        playersMetric = metrics.gauge("survivor_players", "Players in the world", metricLabels);
+        enemiesMetric = metrics.gauge("survivor_enemies", "Enemies alive in the world", metricLabels);
+        String poolLabels = "pool=\"enemies\"," + metricLabels;
+        enemyPoolInUseMetric = metrics.gauge("survivor_pool_in_use", "Slots taken in fixed-size pools", poolLabels);
+        enemyPoolSizeMetric = metrics.gauge("survivor_pool_size", "Slots in fixed-size pools", poolLabels);
+    }
+
+    /**
+     * Takes the room's series out of the metrics once it has closed. Called by its worker.
+     */
+    void stop() {
+        if (metricLabels == null) return; // Closed before it started
+        GameMetrics metrics = GameMetrics.getShared();
+        metrics.remove("survivor_tick_millis", metricLabels);
+        metrics.remove("survivor_bytes_sent_total", metricLabels);
+        metrics.remove("survivor_players", metricLabels);
+        metrics.remove("survivor_enemies", metricLabels);
+        metrics.remove("survivor_pool_in_use", "pool=\"enemies\"," + metricLabels);
+        metrics.remove("survivor_pool_size", "pool=\"enemies\"," + metricLabels);
+    }
+
+    /**
+     * Ticks the room if it is due, first letting in new players and applying
+     * the inputs that arrived since the last tick.
+     *
+     * @return when the room next needs the worker, or Long.MAX_VALUE while it is idle
+     */
+    long service(long now) {
+        if (sessions.size == 0) {
+            if (!inbox.isEmpty()) inbox.drain(this); // Stragglers from sessions already gone
+            if (joining.isEmpty() && awaitingHandoff.size == 0) return Long.MAX_VALUE;
+            nextTickNanos = now; // Waking up; tick straight away instead of catching up on the idle time
+        }
+        if (now < nextTickNanos) return nextTickNanos;
+
+        tick(1f / GameServer.TICK_RATE);
+        nextTickNanos += TICK_NANOS;
+        if (now - nextTickNanos > MAX_TICKS_BEHIND * TICK_NANOS) {
+            nextTickNanos = now + TICK_NANOS;
+        }
+        return sessions.size > 0 || awaitingHandoff.size > 0 ? nextTickNanos : Long.MAX_VALUE;
+    }
+
+    private void tick(float delta) {
+        long start = System.nanoTime();
+        GameEvents.Span tickEvent = GameEvents.tick(id, tick + 1);
+        GameEvents.Span phaseEvent = GameEvents.tickPhase("admit", id, tick + 1);
+
+        ClientSession session;
+        for (int i = awaitingHandoff.size - 1; i >= 0; i--) {
+            if (admit(awaitingHandoff.get(i), start)) awaitingHandoff.removeIndex(i);
+        }
+        while ((session = joining.poll()) != null) {
+            if (!admit(session, start)) awaitingHandoff.add(session);
+        }
+        inbox.drain(this);
+        for (int i = sessions.size - 1; i >= 0; i--) {
+            session = sessions.get(i);
+            if (session.closed) {
+                sessions.removeIndex(i);
+                world.removePlayer(session.player);
+                Gdx.app.log(TAG, "Room " + id + ": player " + session.playerId + " left");
+            }
+        }
+        playerCount = sessions.size;
+        playersMetric.set(sessions.size);
+        phaseEvent.close();
+        if (sessions.size == 0) {
+            tickEvent.close();
+            return;
+        }
+
+        phaseEvent = GameEvents.tickPhase("simulate", id, tick + 1);
+        world.update(delta);
+        int tick = this.tick + 1;
+        this.tick = tick;
+        phaseEvent.close();
+
+        WorldSnapshot snapshot = worker.snapshot;
+        WorldSnapshot visible = worker.visible;
+        InterestGrid interest = worker.interest;
+        phaseEvent = GameEvents.tickPhase("capture", id, tick);
+        world.capture(snapshot, tick);
+        interest.rebuild(snapshot);
+        phaseEvent.close();
+        phaseEvent = GameEvents.tickPhase("send", id, tick);
+        for (int i = 0; i < sessions.size; i++) {
+            session = sessions.get(i);
+            ServerPlayer player = session.player;
+            if (player.handedOffTo >= 0) {
+                // Until the client moves, every tick reminds it where to
+                send(session.address, NetProtocol.begin(worker.buffers.obtain(), NetProtocol.REDIRECT)
+                    .putShort((short) zoneNode.layout.portOf(player.handedOffTo)).putInt(player.handoffToken));
+                continue;
+            }
+            interest.gather(snapshot, player.getX(), player.getY(), visible);
+            WorldSnapshot baseline = session.baseline(tick);
+            ByteBuffer buffer = NetProtocol.begin(worker.buffers.obtain(), NetProtocol.SNAPSHOT)
+                .putInt(tick).putInt(baseline != null ? baseline.tick : -1)
+                .putInt(session.appliedInputSequence).putShort((short) player.getId());
+            buffer.putFloat(player.getX()).putFloat(player.getY())
+                .putFloat(player.getVelocity().x).putFloat(player.getVelocity().y)
+                .put((byte) (player.isAlive() ? 0 : NetProtocol.FLAG_DEAD));
+            SnapshotCodec codec = session.codec;
+            entitiesDeferred += codec.encode(visible, baseline, interest.getPriorities(), buffer, buffer.remaining() * 8,
+                session.sent[tick % session.sent.length]);
+            send(session.address, buffer);
+        }
+        phaseEvent.close();
+        tickEvent.close();
+
+        long elapsed = System.nanoTime() - start;
+        tickNanosTotal += elapsed;
+        tickNanosMax = Math.max(tickNanosMax, elapsed);
+        ticksSinceStats++;
+        tickMetric.record(elapsed / 1e6);
+        enemiesMetric.set(world.getEnemyCount());
+        enemyPoolInUseMetric.set(world.getEnemyCount());
+        enemyPoolSizeMetric.set(world.getEnemyCount() + world.getPooledEnemyCount());
+    }
+
+    private void send(SocketAddress address, ByteBuffer buffer) {
+        int sent = worker.send(address, buffer);
+        bytesOut += sent;
+        bytesSentMetric.add(sent);
+    }
+
+    /**
+     * Puts a new client's player into the world and welcomes it. A client sent
+     * here by another zone takes over the player that zone handed over, which
+     * may still be on its way.
+     *
+     * @return false to try again next tick
+     */
+    private boolean admit(ClientSession session, long now) {
+        if (session.closed) return true;
+        ServerPlayer player = null;
+        if (session.handoffToken != 0 && zoneNode != null) {
+            ZoneNode.PlayerArrival arrival = zoneNode.claim(session.handoffToken);
+            if (arrival == null && now - session.joinedNanos < HANDOFF_WAIT_NANOS) return false;
+            if (arrival != null && arrival.roomId == id) {
+                player = world.getBorder().receivePlayer(arrival);
+            } else if (arrival != null) {
+                zoneNode.release(arrival.roomId, arrival.id); // Handed over for another room; the client is confused
+            }
+        }
+        if (player == null) player = world.addPlayer();
+
+        session.player = player;
+        session.playerId = player.getId();
+        sessions.add(session);
+        Gdx.app.log(TAG, "Room " + id + ": player " + session.playerId + " joined from " + session.address);
+        send(session.address, NetProtocol.begin(worker.buffers.obtain(), NetProtocol.WELCOME)
+            .putShort((short) session.playerId).put((byte) GameServer.TICK_RATE));
+        return true;
+    }
+
+    /**
+     * Applies one input from the inbox, ignoring clients that have left.
+     */
+    void applyInput(ClientSession session, int sequence, int ackedTick, int buttons, float delta,
+                    float aimX, float aimY) {
+        if (session.player == null || session.closed || session.player.handedOffTo >= 0) return;
+        session.appliedInputSequence = sequence;
+        worker.inputsApplied++;
+        // Acks only move forward and never past what we've sent
+        if (ackedTick > session.ackedTick && ackedTick <= tick) session.ackedTick = ackedTick;
+        world.applyInput(session.player, buttons, aimX, aimY, delta, session.ackedTick);
+    }
+
+    /**
+     * Publishes the tick cost and traffic since the last call and starts over.
+     *
+     * @return a line for the log, or null if the room didn't tick
+     */
+    String publishStats(float seconds) {
+        if (ticksSinceStats == 0) {
+            averageTickMillis = 0;
+            maxTickMillis = 0;
+            bytesPerSecond = 0;
+            return null;
+        }
+        averageTickMillis = (float) (tickNanosTotal / 1e6 / ticksSinceStats);
+        maxTickMillis = (float) (tickNanosMax / 1e6);
+        bytesPerSecond = bytesOut / seconds;
+        String line = String.format("Room %d: %d players, %d enemies, %d kills; tick %.3f ms avg, %.3f ms max; "
+                + "%.1f KB/s out, %d entity updates deferred",
+            id, world.getPlayerCount(), world.getEnemyCount(), world.getKills(), averageTickMillis, maxTickMillis,
+            bytesPerSecond / 1024f, entitiesDeferred);
+        ZoneBorder border = world.getBorder();
+        if (border != null) {
+            line += String.format("; %d handed over, %d taken over", border.getHandoffsOut(), border.getHandoffsIn());
+        }
+        tickNanosTotal = 0;
+        tickNanosMax = 0;
+        ticksSinceStats = 0;
+        bytesOut = 0;
+        entitiesDeferred = 0;
+        return line;
+    }
+
+    /**
+     * Writes the room and its world as a JSON object for the admin endpoint. Runs on the worker.
+     */
+    void writeJson(JsonWriter json) throws IOException {
+        json.object().set("id", id).set("worker", worker.index).set("tick", tick);
+        if (world != null) world.writeJson(json);
+        json.pop();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * @return the worker thread the room is pinned to
+     */
+    public int getWorkerIndex() {
+        return worker.index;
+    }
+
+    /**
+     * @return milliseconds per tick over the last stats interval, 0 if the room was idle
+     */
+    public float getAverageTickMillis() {
+        return averageTickMillis;
+    }
+
+    public float getMaxTickMillis() {
+        return maxTickMillis;
+    }
+
+    public float getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return the room's world; only safe to read on its worker, or once the server has stopped
+     */
+    public ServerWorld getWorld() {
+        return world;
+    }
+}
@@ -0,0 +1,76 @@
+package com.survivor.game.server;
+
+/**
+ * Inputs on their way from the network thread to the worker running a room. A
+ * fixed ring of parallel arrays with one writer and one reader, so passing an
+ * input across threads takes no lock and allocates nothing. The writer fills a
+ * slot before publishing it through the volatile {@link #tail}, and the reader
+ * only frees it through {@link #head} once it has read it.
+ *
+ * A full inbox drops the input, which the client treats like a lost datagram.
+ */
+class RoomInbox {
+    private static final int CAPACITY = 1024; // Power of two; several ticks of input from a full room
+
+    private final ClientSession[] sessions = new ClientSession[CAPACITY];
+    private final int[] sequences = new int[CAPACITY];
+    private final int[] ackedTicks = new int[CAPACITY];
+    private final int[] buttons = new int[CAPACITY];
+    private final float[] deltas = new float[CAPACITY];
+    private final float[] aimX = new float[CAPACITY];
+    private final float[] aimY = new float[CAPACITY];
+    private volatile int head = 0; // Next slot to read; written by the reader only
+    private volatile int tail = 0; // Next slot to write; written by the writer only
+    private int dropped = 0;
+
+    /**
+     * Called by the network thread only.
+     *
+     * @return false if the inbox was full and the input dropped
+     */
+    boolean offer(ClientSession session, int sequence, int ackedTick, int inputButtons, float delta,
+                  float inputAimX, float inputAimY) {
+        int t = tail;
+        if (t - head == CAPACITY) {
+            dropped++;
+            return false;
+        }
+        int slot = t & (CAPACITY - 1);
+        sessions[slot] = session;
+        sequences[slot] = sequence;
+        ackedTicks[slot] = ackedTick;
+        buttons[slot] = inputButtons;
+        deltas[slot] = delta;
+        aimX[slot] = inputAimX;
+        aimY[slot] = inputAimY;
+        tail = t + 1;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * Hands every waiting input to the room, oldest first. Called by the worker only.
+     */
+    void drain(Room room) {
+        int h = head;
+        int t = tail;
+        while (h != t) {
+            int slot = h & (CAPACITY - 1);
+            room.applyInput(sessions[slot], sequences[slot], ackedTicks[slot], buttons[slot], deltas[slot],
+                aimX[slot], aimY[slot]);
+            sessions[slot] = null; // Don't keep a closed session alive
+            h++;
+        }
+        head = h;
+    }
+
+    /**
+     * @return inputs dropped because the worker fell behind; read on the network thread
+     */
+    int getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,218 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.survivor.game.GameMetrics;
+import com.survivor.game.HitchWatchdog;
+import com.survivor.game.MapManager;
+import com.survivor.game.NetProtocol;
+import com.survivor.game.SnapshotCodec;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * A thread that runs the rooms pinned to it, each on its own tick clock, one
+ * after another. Between ticks it parks until the earliest one is due, and with
+ * every room idle it parks until the network thread wakes it for a new player.
+ *
+ * The rooms on a worker share one copy of the map and one set of snapshot,
+ * interest and packet buffers. Only one room runs at a time, so sharing is safe,
+ * and rooms ticking back to back on the same core find that data still in cache.
+ *
+ * A zoned server, see {@link ZoneLayout}, has a single worker, which also polls
+ * the links to the neighbouring zones between ticks and flushes what its rooms
+ * wrote to them.
+ *
+ * Each pass over the rooms is a frame for the {@link HitchWatchdog}, recorded
+ * with the entities in the rooms it ticked and the inputs it applied.
+ *
+ * Other threads that need to look at a room's world, like the admin endpoint,
+ * {@link #execute} a task here; it runs between ticks, where the world is
+ * consistent.
+ */
+class RoomWorker implements Runnable, Executor {
+    private static final String TAG = "RoomWorker";
+    private static final long IDLE_PARK_NANOS = 1_000_000_000L; // Only a safety net; joins unpark the worker
+    private static final long LINK_POLL_NANOS = 1_000_000_000L / GameServer.TICK_RATE;
+    private static final long LOAD_WINDOW_NANOS = 1_000_000_000L;
+    private static final long STATS_INTERVAL_NANOS = 10_000_000_000L;
+    private static final float INTEREST_MARGIN = 4 * SnapshotCodec.TILE_SIZE;
+
+    final int index;
+    private final MapManager map;
+    private final DatagramChannel channel;
+    final ZoneNode zoneNode; // Null unless the map is sharded
+    final BufferPool buffers = new BufferPool(NetProtocol.MAX_PACKET_SIZE, 4);
+    final WorldSnapshot snapshot = new WorldSnapshot();
+    final WorldSnapshot visible = new WorldSnapshot(); // Part of the snapshot one client is sent
+    final InterestGrid interest =
+        new InterestGrid(ServerWorld.HALF_VIEW_WIDTH, ServerWorld.HALF_VIEW_HEIGHT, INTEREST_MARGIN);
+    private final ConcurrentLinkedQueue<Room> arrivals = new ConcurrentLinkedQueue<>();
+    private final Array<Room> rooms = new Array<>(false, 16, Room.class);
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final GameMetrics.Gauge buffersMetric;
+    private Thread thread;
+    private volatile boolean running = true;
+
+    int assignedRooms = 0; // Network thread; rooms placed here and not yet closed
+    int inputsApplied = 0; // Counted by the rooms during a pass, for the hitch watchdog
+    private long busyNanos = 0;
+    private volatile float load = 0;
+
+    RoomWorker(int index, MapManager map, DatagramChannel channel, ZoneNode zoneNode) {
+        this.index = index;
+        this.map = map;
+        this.channel = channel;
+        this.zoneNode = zoneNode;
+        GameMetrics metrics = GameMetrics.getShared();
+        String labels = "worker=\"" + index + "\"";
+        metrics.gauge("survivor_worker_load", "Share of the last second a worker spent running rooms", labels,
+            this::getLoad);
+        buffersMetric = metrics.gauge("survivor_pool_size", "Slots in fixed-size pools",
+            "pool=\"packet_buffers\"," + labels);
+    }
+
+    void start() {
+        thread = new Thread(this, "RoomWorker-" + index);
+        thread.start();
+    }
+
+    /**
+     * Pins a room to this worker. Called by the network thread.
+     */
+    void add(Room room) {
+        assignedRooms++;
+        arrivals.add(room);
+        wake();
+    }
+
+    /**
+     * Gets the worker out of its park, to let a player in or drop a closed room.
+     */
+    void wake() {
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Runs a task on this worker between ticks. Called from any thread.
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        wake();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        wake();
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        HitchWatchdog.Heartbeat heartbeat = HitchWatchdog.getShared().watch("worker-" + index, new String[0], null);
+        long nextLoad = System.nanoTime() + LOAD_WINDOW_NANOS;
+        long nextStats = System.nanoTime() + STATS_INTERVAL_NANOS;
+        while (running) {
+            heartbeat.beginFrame(System.nanoTime());
+            inputsApplied = 0;
+            Room arrived;
+            while ((arrived = arrivals.poll()) != null) {
+                arrived.start(map, zoneNode);
+                rooms.add(arrived);
+            }
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+
+            long now = System.nanoTime();
+            long wakeAt = now + IDLE_PARK_NANOS;
+            int entities = 0;
+            if (zoneNode != null) {
+                zoneNode.poll(now);
+                wakeAt = now + LINK_POLL_NANOS;
+            }
+            for (int i = rooms.size - 1; i >= 0; i--) {
+                Room room = rooms.get(i);
+                if (room.closed) {
+                    rooms.removeIndex(i);
+                    room.stop();
+                    if (zoneNode != null) zoneNode.removeRoom(room);
+                    continue;
+                }
+                wakeAt = Math.min(wakeAt, room.service(now));
+                ServerWorld world = room.getWorld();
+                entities += world.getPlayerCount() + world.getEnemyCount();
+            }
+            if (zoneNode != null) zoneNode.flush();
+            buffersMetric.set(buffers.getCreatedCount());
+            long end = System.nanoTime();
+            busyNanos += end - now;
+            heartbeat.endFrame(end, entities, inputsApplied);
+
+            if (end >= nextLoad) {
+                load = busyNanos / (float) (end - nextLoad + LOAD_WINDOW_NANOS);
+                busyNanos = 0;
+                nextLoad = end + LOAD_WINDOW_NANOS;
+            }
+            if (end >= nextStats) {
+                logStats();
+                nextStats = end + STATS_INTERVAL_NANOS;
+            }
+            wakeAt = Math.min(wakeAt, Math.min(nextLoad, nextStats));
+            if (wakeAt > end) LockSupport.parkNanos(this, wakeAt - end);
+        }
+        HitchWatchdog.getShared().unwatch(heartbeat);
+        if (zoneNode != null) zoneNode.close();
+    }
+
+    /**
+     * Sends a packet written into a pooled buffer, then returns the buffer to the
+     * pool. Workers share the server's channel, which serialises concurrent sends.
+     *
+     * @return bytes sent, 0 if the datagram was dropped
+     */
+    int send(SocketAddress address, ByteBuffer buffer) {
+        ((Buffer) buffer).flip();
+        int size = buffer.remaining();
+        try {
+            // A full socket buffer drops the datagram, same as the network would
+            if (channel.send(buffer, address) == 0) size = 0;
+        } catch (IOException e) {
+            Gdx.app.error(TAG, "Couldn't send to " + address, e);
+            size = 0;
+        } finally {
+            buffers.free(buffer);
+        }
+        return size;
+    }
+
+    private void logStats() {
+        int ticking = 0;
+        for (int i = 0; i < rooms.size; i++) {
+            String line = rooms.get(i).publishStats(STATS_INTERVAL_NANOS / 1e9f);
+            if (line == null) continue;
+            ticking++;
+            Gdx.app.log(TAG, line);
+        }
+        Gdx.app.log(TAG, String.format("Worker %d: %d rooms, %d ticking; %.1f%% busy, %d packet buffers",
+            index, rooms.size, ticking, load * 100, buffers.getCreatedCount()));
+        if (zoneNode != null) Gdx.app.log(TAG, "Worker " + index + ": " + zoneNode.stats());
+    }
+
+    /**
+     * @return the share of the last second spent running rooms, 0 to 1
+     */
+    float getLoad() {
+        return load;
+    }
+}
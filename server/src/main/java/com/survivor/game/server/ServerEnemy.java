@@ -0,0 +1,18 @@
+package com.survivor.game.server;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * A mushroom enemy as the server simulates it, with the same stats and chase
+ * behaviour as {@code BasicEnemy}. Instances are pooled by {@link ServerWorld}.
+ */
+public class ServerEnemy {
+    int id;
+    float x;
+    float y;
+    final Rectangle bounds = new Rectangle();
+    int health;
+    float attackTimer; // Time spent in reach since the last bite, as in BasicEnemy.canAttack
+    float attackFlash; // Counts down while the bite is showing
+    final PositionHistory history = new PositionHistory(); // Where clients saw it, for lag compensation
+}
@@ -0,0 +1,43 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.survivor.game.NetProtocol;
+
+/**
+ * Launches the headless dedicated server. Arguments: [port] [max players per room]
+ * [worker threads] [zone index] [zone count]. Workers default to one per core
+ * left over from the network thread. With a zone count above one, this process
+ * runs one strip of the map and listens on the port plus its zone index; start
+ * one process per zone, all with the same port.
+ */
+public class ServerLauncher {
+    private static final int DEFAULT_MAX_PLAYERS = 4;
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : NetProtocol.DEFAULT_PORT;
+        int maxPlayers = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_PLAYERS;
+        int workers = args.length > 2 ? Integer.parseInt(args[2])
+            : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int zoneIndex = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        int zoneCount = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        initHeadless();
+        GameServer server = new GameServer(port, maxPlayers, workers, "map.tmx", zoneIndex, zoneCount);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.run();
+    }
+
+    /**
+     * Sets up Gdx.app and Gdx.files without a window or GL context. The server
+     * drives its own loop, so the headless application's loop is switched off.
+     */
+    static void initHeadless() {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {}, configuration);
+    }
+}
@@ -0,0 +1,68 @@
+package com.survivor.game.server;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * A connected player as the server simulates it: position, health and the
+ * latest input the client sent. Mirrors the parts of {@code Player} that affect
+ * gameplay; animation state stays on the clients.
+ */
+public class ServerPlayer {
+    final int id;
+    float x;
+    float y;
+    final Vector2 velocity = new Vector2();
+    final Rectangle bounds = new Rectangle();
+    int health;
+
+    // Latest input from the client; movement is applied per input, attacks every tick until the next one arrives
+    int buttons;
+    float aimX;
+    float aimY;
+    int viewTick = -1; // Newest snapshot the client had when it sent the input, so what it was looking at
+
+    // First input with attack held since the last tick; inputs arrive faster than ticks, so a quick press is kept here
+    boolean attackLatched;
+    int attackViewTick = -1;
+    float attackAimX;
+    float attackAimY;
+
+    float attackCooldown;
+    float attackTimer; // Counts down while the swing is showing
+    float hitTimer; // Counts down while the player is invulnerable after a hit
+    float facingX = 0;
+    float facingY = -1;
+
+    // Set once the player has crossed into another zone, see ZoneLayout
+    int handedOffTo = -1;
+    int handoffToken;
+
+    ServerPlayer(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public Vector2 getVelocity() {
+        return velocity;
+    }
+
+    public int getHealth() {
+        return health;
+    }
+
+    public boolean isAlive() {
+        return health > 0;
+    }
+}
@@ -0,0 +1,646 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.survivor.game.BasicEnemy;
+import com.survivor.game.MapManager;
+import com.survivor.game.NetProtocol;
+import com.survivor.game.PlayerMotion;
+import com.survivor.game.SpawnDirector;
+import com.survivor.game.SweptAabbSolver;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * The co-op survival simulation the dedicated server runs, built from the same
+ * pieces as {@code GameScreen}: the compiled map's obstacles, the swept player
+ * collider and the wave-based {@link SpawnDirector}. Players, enemies and the
+ * melee swing use GameScreen's numbers; nothing here needs a GL context.
+ *
+ * Enemies spawn around a different player each time so everyone gets company,
+ * and chase whichever living player is closest. When every player is down the
+ * session restarts after a short pause.
+ *
+ * A world keeps all of its state, down to its own random generator, so many can
+ * run side by side as separate rooms. The map is only read, and worlds updated
+ * one after another on the same thread can share one.
+ *
+ * On a map sharded into zones, see {@link ZoneLayout}, a world only simulates
+ * its own strip: it hands players and enemies that cross a border to the
+ * neighbour through its {@link ZoneBorder}, and sees the neighbours' entities
+ * near the border as ghosts.
+ */
+public class ServerWorld {
+    private static final float PLAYER_SIZE = PlayerMotion.SIZE;
+    private static final int PLAYER_HEALTH = 100;
+    private static final float HIT_INVULNERABILITY = 1f; // Player.HIT_FLASH_DURATION
+    private static final float ATTACK_COOLDOWN = 0.5f;
+    private static final float ATTACK_DURATION = 0.45f;
+    private static final float ATTACK_RANGE = 40f;
+    private static final float ATTACK_ARC = 120f;
+    private static final int ATTACK_DAMAGE = 50;
+    private static final int MAX_REWIND_TICKS = 6; // 200 ms; clients further behind are judged as if they weren't
+
+    private static final float ENEMY_SIZE = 32f;
+    private static final float ENEMY_SPEED = BasicEnemy.DEFAULT_SPEED;
+    private static final int ENEMY_HEALTH = BasicEnemy.DEFAULT_HEALTH;
+    private static final int ENEMY_DAMAGE = BasicEnemy.DEFAULT_DAMAGE;
+    private static final float ENEMY_ATTACK_RADIUS = BasicEnemy.ATTACK_RADIUS;
+    private static final float ENEMY_ATTACK_COOLDOWN = BasicEnemy.ATTACK_COOLDOWN;
+    private static final float ENEMY_ATTACK_FLASH = 0.3f;
+    private static final float ENEMY_SEPARATION = BasicEnemy.SEPARATION;
+
+    // Half the view GameScreen shows on a 1920x1080 screen; enemies spawn just outside it
+    static final float HALF_VIEW_WIDTH = 480f;
+    static final float HALF_VIEW_HEIGHT = 270f;
+    private static final float SPAWN_SPREAD = 48f; // Players join this far apart around the map centre
+    private static final float RESTART_DELAY = 3f;
+
+    private final MapManager mapManager;
+    private final SweptAabbSolver collider;
+    private SpawnDirector spawnDirector;
+    private final float worldWidth;
+    private final float worldHeight;
+    private final Random random;
+
+    final Array<ServerPlayer> players = new Array<>(false, 8, ServerPlayer.class);
+    final Array<ServerEnemy> enemies = new Array<>(false, 64, ServerEnemy.class);
+    private final Array<ServerEnemy> enemyPool = new Array<>(false, 64, ServerEnemy.class);
+    private final CrowdGrid crowd = new CrowdGrid(ENEMY_SEPARATION * 2f);
+    private final Vector2 spawnPoint = new Vector2();
+    private final Vector2 resolvedMove = new Vector2();
+    private final Vector2 motionPosition = new Vector2();
+    private final Vector2 rewound = new Vector2();
+    private int capturedTick = -1;
+    private int compensatedHits = 0;
+    private int nextEntityId = 1;
+    private int firstEntityId = 1;
+    private int entityIdStride = 1;
+    private final boolean[] idInUse = new boolean[Short.MAX_VALUE + 1]; // Also held for this zone's entities while elsewhere
+    private ZoneLayout zone;
+    private ZoneBorder border;
+    private int spawnTurn = 0;
+    private int kills = 0;
+    private float restartTimer = 0;
+
+    public ServerWorld(String mapPath) {
+        this(new MapManager(mapPath, false), System.nanoTime());
+    }
+
+    /**
+     * @param mapManager loaded without textures; may be shared with worlds updated on the same thread
+     * @param seed for where enemies spawn
+     */
+    public ServerWorld(MapManager mapManager, long seed) {
+        this.mapManager = mapManager;
+        random = new Random(seed);
+        collider = new SweptAabbSolver(mapManager.getObstacleIndex());
+        spawnDirector = new SpawnDirector(mapManager.getNavGrid());
+        spawnDirector.setRandom(random);
+        worldWidth = mapManager.getCollisionMask().getWidth() * mapManager.getCollisionMask().getTileWidth();
+        worldHeight = mapManager.getCollisionMask().getHeight() * mapManager.getCollisionMask().getTileHeight();
+    }
+
+    /**
+     * Makes this world one zone of a sharded map, taking over its strip and its
+     * share of entity ids. Call before anything is added.
+     */
+    void setZone(ZoneNode node, int roomId) {
+        zone = node.layout;
+        border = new ZoneBorder(this, node, roomId);
+        firstEntityId = zone.firstId();
+        entityIdStride = zone.count;
+        nextEntityId = firstEntityId;
+    }
+
+    public ServerPlayer addPlayer() {
+        ServerPlayer player = new ServerPlayer(nextId());
+        respawn(player, players.size);
+        players.add(player);
+        return player;
+    }
+
+    public void removePlayer(ServerPlayer player) {
+        // A player handed to another zone is already gone from here
+        if (players.removeValue(player, true)) retire(player.id);
+    }
+
+    private void respawn(ServerPlayer player, int slot) {
+        float angle = slot * MathUtils.PI / 2f;
+        float centerX = zone != null ? zone.centerX() : worldWidth / 2f;
+        player.x = centerX + (slot == 0 ? 0 : MathUtils.cos(angle) * SPAWN_SPREAD);
+        player.y = worldHeight / 2f + (slot == 0 ? 0 : MathUtils.sin(angle) * SPAWN_SPREAD);
+        player.bounds.set(player.x - PLAYER_SIZE / 2f, player.y - PLAYER_SIZE / 2f, PLAYER_SIZE, PLAYER_SIZE);
+        player.velocity.setZero();
+        player.health = PLAYER_HEALTH;
+        player.attackCooldown = 0;
+        player.attackLatched = false;
+        player.attackTimer = 0;
+        player.hitTimer = 0;
+    }
+
+    /**
+     * Hands out ids in order, wrapping after Short.MAX_VALUE and skipping any
+     * still held: snapshots are sorted by id and need them unique. A zone only
+     * hands out every {@code count}th id, so zones never pick the same one.
+     */
+    private int nextId() {
+        int id = nextEntityId;
+        while (idInUse[id]) {
+            id = followingId(id);
+        }
+        idInUse[id] = true;
+        nextEntityId = followingId(id);
+        return id;
+    }
+
+    private int followingId(int id) {
+        return id > Short.MAX_VALUE - entityIdStride ? firstEntityId : id + entityIdStride;
+    }
+
+    /**
+     * Frees the id of an entity that is gone for good. An id from another zone
+     * is only borrowed, and goes back to that zone.
+     */
+    private void retire(int id) {
+        idInUse[id] = false;
+        if (zone != null && zone.homeOf(id) != zone.index) border.retire(id);
+    }
+
+    /**
+     * Frees an id of this zone's whose entity ended its life in another zone.
+     */
+    void releaseId(int id) {
+        idInUse[id] = false;
+    }
+
+    public void update(float delta) {
+        for (int i = 0; i < players.size; i++) {
+            updatePlayer(players.get(i), delta);
+        }
+
+        for (int i = enemies.size - 1; i >= 0; i--) {
+            ServerEnemy enemy = enemies.get(i);
+            if (enemy.health <= 0) {
+                kills++;
+                retire(enemy.id);
+                enemyPool.add(enemies.removeIndex(i));
+            }
+        }
+
+        // Bin the survivors so each one only checks the neighbours around it for crowding
+        crowd.rebuild(enemies);
+        for (int i = enemies.size - 1; i >= 0; i--) {
+            updateEnemy(enemies.get(i), delta);
+        }
+
+        spawnEnemies(delta);
+        if (zone != null) handOffCrossers();
+
+        if (players.size > 0 && countLivingPlayers() == 0) {
+            restartTimer += delta;
+            if (restartTimer >= RESTART_DELAY) restart();
+        } else {
+            restartTimer = 0;
+        }
+    }
+
+    /**
+     * Applies one client input as it arrives, moving the player by exactly the
+     * steps the client predicted with the same frame time.
+     *
+     * @param viewTick the newest snapshot the client had, which its attacks are judged against
+     */
+    public void applyInput(ServerPlayer player, int buttons, float aimX, float aimY, float delta, int viewTick) {
+        player.buttons = buttons;
+        player.viewTick = viewTick;
+        player.aimX = aimX;
+        player.aimY = aimY;
+        if ((buttons & NetProtocol.BUTTON_ATTACK) != 0 && !player.attackLatched) {
+            player.attackLatched = true;
+            player.attackViewTick = viewTick;
+            player.attackAimX = aimX;
+            player.attackAimY = aimY;
+        }
+        if (!player.isAlive()) return;
+
+        motionPosition.set(player.x, player.y);
+        PlayerMotion.step(motionPosition, player.velocity, buttons, player.bounds, collider, worldWidth, worldHeight,
+            delta, resolvedMove);
+        player.x = motionPosition.x;
+        player.y = motionPosition.y;
+
+        // Swings without an aim point go the way the keys point
+        float dirX = ((buttons & NetProtocol.BUTTON_RIGHT) != 0 ? 1 : 0) - ((buttons & NetProtocol.BUTTON_LEFT) != 0 ? 1 : 0);
+        float dirY = ((buttons & NetProtocol.BUTTON_UP) != 0 ? 1 : 0) - ((buttons & NetProtocol.BUTTON_DOWN) != 0 ? 1 : 0);
+        if (dirX != 0 || dirY != 0) {
+            float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+            player.facingX = dirX / length;
+            player.facingY = dirY / length;
+        }
+    }
+
+    private void updatePlayer(ServerPlayer player, float delta) {
+        player.attackCooldown -= delta;
+        player.attackTimer -= delta;
+        player.hitTimer -= delta;
+        boolean latched = player.attackLatched;
+        player.attackLatched = false;
+        if (!player.isAlive()) return;
+
+        // A press from any input since the last tick counts, judged by what that input saw
+        if (player.attackCooldown <= 0) {
+            if (latched) {
+                swing(player, player.attackAimX, player.attackAimY, player.attackViewTick);
+            } else if ((player.buttons & NetProtocol.BUTTON_ATTACK) != 0) {
+                swing(player, player.aimX, player.aimY, player.viewTick);
+            }
+        }
+    }
+
+    /**
+     * Melee swing towards the aim point, or the way the player last moved if the
+     * aim point is on top of them. Same reach and arc as GameScreen.
+     *
+     * Enemies are judged where they were in the snapshot the client was looking
+     * at when it swung, not where they are now, so a hit that looked right on
+     * screen counts despite the latency. How far back is capped by
+     * {@link #MAX_REWIND_TICKS} and the client only names a tick we sent it, so
+     * lag can't be faked into reaching further into the past.
+     */
+    private void swing(ServerPlayer player, float aimX, float aimY, int seenTick) {
+        player.attackCooldown = ATTACK_COOLDOWN;
+        player.attackTimer = ATTACK_DURATION;
+
+        float dirX = aimX - player.x;
+        float dirY = aimY - player.y;
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+        if (length < 1f) {
+            dirX = player.facingX;
+            dirY = player.facingY;
+        } else {
+            dirX /= length;
+            dirY /= length;
+        }
+        float minDot = MathUtils.cosDeg(ATTACK_ARC / 2f);
+        int viewTick = Math.min(capturedTick, Math.max(seenTick, capturedTick - MAX_REWIND_TICKS));
+
+        for (int i = 0; i < enemies.size; i++) {
+            ServerEnemy enemy = enemies.get(i);
+            if (enemy.health <= 0) continue;
+            // An enemy without history at that tick hadn't been sent yet, so the client couldn't see it
+            if (!enemy.history.sample(viewTick, rewound)) continue;
+            if (!inReach(player, rewound.x, rewound.y, dirX, dirY, minDot)) continue;
+            enemy.health -= ATTACK_DAMAGE;
+            if (!inReach(player, enemy.x, enemy.y, dirX, dirY, minDot)) compensatedHits++;
+        }
+
+        // Enemies across a zone border are judged where the neighbour last said they were
+        if (border == null) return;
+        for (int side = ZoneLayout.LEFT; side <= ZoneLayout.RIGHT; side++) {
+            WorldSnapshot ghosts = border.getGhosts(side);
+            for (int i = 0; i < ghosts.count; i++) {
+                if (border.isEnemy(side, i) && inReach(player, ghosts.x[i], ghosts.y[i], dirX, dirY, minDot)) {
+                    border.damageGhost(side, i, ATTACK_DAMAGE);
+                }
+            }
+        }
+    }
+
+    private static boolean inReach(ServerPlayer player, float enemyX, float enemyY, float dirX, float dirY, float minDot) {
+        // Nearest point of the enemy's box, as CombatQuery.queryArc measures reach
+        float half = ENEMY_SIZE / 2f;
+        float nearX = MathUtils.clamp(player.x, enemyX - half, enemyX + half) - player.x;
+        float nearY = MathUtils.clamp(player.y, enemyY - half, enemyY + half) - player.y;
+        if (nearX * nearX + nearY * nearY > ATTACK_RANGE * ATTACK_RANGE) return false;
+        return inArc(nearX, nearY, dirX, dirY, minDot) || inArc(enemyX - player.x, enemyY - player.y, dirX, dirY, minDot);
+    }
+
+    private static boolean inArc(float vx, float vy, float dirX, float dirY, float minDot) {
+        float length = (float) Math.sqrt(vx * vx + vy * vy);
+        return length == 0 || (vx * dirX + vy * dirY) / length >= minDot;
+    }
+
+    /**
+     * BasicEnemy's chase: head straight for the target, step aside from the first
+     * crowding neighbour, and bite once per second while in reach.
+     */
+    private void updateEnemy(ServerEnemy enemy, float delta) {
+        enemy.attackFlash -= delta;
+        ServerPlayer target = nearestLivingPlayer(enemy.x, enemy.y);
+        float targetX = target != null ? target.x : 0;
+        float targetY = target != null ? target.y : 0;
+
+        // A player just across a zone border counts too, if closer
+        int ghostSide = -1;
+        int ghostIndex = -1;
+        if (border != null) {
+            float nearest2 = target != null ? Vector2.dst2(enemy.x, enemy.y, targetX, targetY) : Float.MAX_VALUE;
+            for (int side = ZoneLayout.LEFT; side <= ZoneLayout.RIGHT; side++) {
+                WorldSnapshot ghosts = border.getGhosts(side);
+                for (int i = 0; i < ghosts.count; i++) {
+                    if (!border.isLivingPlayer(side, i)) continue;
+                    float distance2 = Vector2.dst2(enemy.x, enemy.y, ghosts.x[i], ghosts.y[i]);
+                    if (distance2 < nearest2) {
+                        nearest2 = distance2;
+                        ghostSide = side;
+                        ghostIndex = i;
+                        targetX = ghosts.x[i];
+                        targetY = ghosts.y[i];
+                    }
+                }
+            }
+        }
+        if (target == null && ghostIndex < 0) return;
+
+        float dirX = targetX - enemy.x;
+        float dirY = targetY - enemy.y;
+        float distance = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+        if (distance > 0) {
+            dirX /= distance;
+            dirY /= distance;
+        }
+        float step = ENEMY_SPEED * delta;
+        float newX = enemy.x + dirX * step;
+        float newY = enemy.y + dirY * step;
+
+        // Neighbours binned this tick have moved at most one step since
+        ServerEnemy other = crowd.findNear(enemies, enemy, newX, newY, ENEMY_SEPARATION, ENEMY_SEPARATION + step);
+        if (other != null) {
+            float awayX = enemy.x - other.x;
+            float awayY = enemy.y - other.y;
+            float awayLength = (float) Math.sqrt(awayX * awayX + awayY * awayY);
+            if (awayLength > 0) {
+                dirX += awayX / awayLength;
+                dirY += awayY / awayLength;
+                float length = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+                if (length > 0) {
+                    dirX /= length;
+                    dirY /= length;
+                }
+            }
+            newX = enemy.x + dirX * step;
+            newY = enemy.y + dirY * step;
+        }
+
+        enemy.x = newX;
+        enemy.y = newY;
+        enemy.bounds.setPosition(enemy.x - ENEMY_SIZE / 2f, enemy.y - ENEMY_SIZE / 2f);
+
+        if (Vector2.dst(enemy.x, enemy.y, targetX, targetY) <= ENEMY_ATTACK_RADIUS) {
+            enemy.attackTimer += delta;
+            if (enemy.attackTimer >= ENEMY_ATTACK_COOLDOWN) {
+                enemy.attackTimer = 0;
+                enemy.attackFlash = ENEMY_ATTACK_FLASH;
+                if (ghostIndex >= 0) {
+                    border.damageGhost(ghostSide, ghostIndex, ENEMY_DAMAGE);
+                } else {
+                    damage(target, ENEMY_DAMAGE);
+                }
+            }
+        }
+    }
+
+    private void damage(ServerPlayer player, int amount) {
+        if (player.hitTimer > 0 || player.health <= 0) return;
+        player.health = Math.max(0, player.health - amount);
+        player.hitTimer = HIT_INVULNERABILITY;
+    }
+
+    private ServerPlayer nearestLivingPlayer(float x, float y) {
+        ServerPlayer nearest = null;
+        float nearestDistance2 = Float.MAX_VALUE;
+        for (int i = 0; i < players.size; i++) {
+            ServerPlayer player = players.get(i);
+            if (!player.isAlive()) continue;
+            float distance2 = Vector2.dst2(x, y, player.x, player.y);
+            if (distance2 < nearestDistance2) {
+                nearestDistance2 = distance2;
+                nearest = player;
+            }
+        }
+        return nearest;
+    }
+
+    private void spawnEnemies(float delta) {
+        if (countLivingPlayers() == 0) return;
+        spawnDirector.update(delta);
+
+        // Take turns choosing whose surroundings the next enemy appears in
+        for (int attempt = 0; attempt < players.size; attempt++) {
+            ServerPlayer player = players.get(spawnTurn++ % players.size);
+            if (!player.isAlive()) continue;
+            while (spawnDirector.nextSpawn(player.x, player.y, HALF_VIEW_WIDTH, HALF_VIEW_HEIGHT,
+                enemies.size, spawnPoint)) {
+                // Across a zone border it's the neighbour's to spawn; the budget is spent either way
+                if (zone != null && zone.zoneOf(spawnPoint.x) != zone.index) continue;
+                addEnemy(nextId(), spawnPoint.x, spawnPoint.y, ENEMY_HEALTH, 0);
+            }
+            break;
+        }
+    }
+
+    private ServerEnemy addEnemy(int id, float x, float y, int health, float attackTimer) {
+        ServerEnemy enemy = enemyPool.size > 0 ? enemyPool.pop() : new ServerEnemy();
+        enemy.id = id;
+        enemy.x = x;
+        enemy.y = y;
+        enemy.bounds.set(enemy.x - ENEMY_SIZE / 2f, enemy.y - ENEMY_SIZE / 2f, ENEMY_SIZE, ENEMY_SIZE);
+        enemy.health = health;
+        enemy.attackTimer = attackTimer;
+        enemy.attackFlash = 0;
+        enemy.history.clear();
+        enemies.add(enemy);
+        return enemy;
+    }
+
+    /**
+     * Passes everything that has moved well into a neighbouring zone over to
+     * it. An enemy just goes; a player is left with a token to give its client,
+     * which the room sends it to reconnect to the neighbour with. An id from
+     * this zone stays held while its entity is away.
+     */
+    private void handOffCrossers() {
+        for (int i = enemies.size - 1; i >= 0; i--) {
+            ServerEnemy enemy = enemies.get(i);
+            int owner = zone.ownerAfterMove(enemy.x);
+            if (owner == zone.index || !border.handOffEnemy(enemy, owner)) continue;
+            if (zone.homeOf(enemy.id) != zone.index) idInUse[enemy.id] = false;
+            enemyPool.add(enemies.removeIndex(i));
+        }
+        for (int i = players.size - 1; i >= 0; i--) {
+            ServerPlayer player = players.get(i);
+            int owner = zone.ownerAfterMove(player.x);
+            if (owner == zone.index) continue;
+            int token = random.nextInt() | 1; // Never 0, which means a fresh join
+            if (!border.handOffPlayer(player, owner, token)) continue;
+            if (zone.homeOf(player.id) != zone.index) idInUse[player.id] = false;
+            player.handedOffTo = owner;
+            player.handoffToken = token;
+            players.removeIndex(i);
+        }
+    }
+
+    /**
+     * Takes over an enemy a neighbouring zone handed over.
+     */
+    void adoptEnemy(int id, float x, float y, int health, float attackTimer) {
+        idInUse[id] = true;
+        addEnemy(id, x, y, health, attackTimer);
+    }
+
+    /**
+     * Takes over a player a neighbouring zone handed over, as it was there.
+     */
+    ServerPlayer adoptPlayer(ZoneNode.PlayerArrival arrival) {
+        ServerPlayer player = new ServerPlayer(arrival.id);
+        idInUse[player.id] = true;
+        player.x = arrival.x;
+        player.y = arrival.y;
+        player.bounds.set(player.x - PLAYER_SIZE / 2f, player.y - PLAYER_SIZE / 2f, PLAYER_SIZE, PLAYER_SIZE);
+        player.velocity.set(arrival.velocityX, arrival.velocityY);
+        player.health = arrival.health;
+        player.hitTimer = arrival.hitTimer;
+        player.attackCooldown = arrival.attackCooldown;
+        player.facingX = arrival.facingX;
+        player.facingY = arrival.facingY;
+        players.add(player);
+        return player;
+    }
+
+    /**
+     * Applies damage a neighbouring zone dealt to one of our entities through its ghost.
+     */
+    void damageById(int id, int amount) {
+        for (int i = 0; i < players.size; i++) {
+            if (players.get(i).id == id) {
+                damage(players.get(i), amount);
+                return;
+            }
+        }
+        for (int i = 0; i < enemies.size; i++) {
+            if (enemies.get(i).id == id) {
+                enemies.get(i).health -= amount;
+                return;
+            }
+        }
+    }
+
+    private int countLivingPlayers() {
+        int living = 0;
+        for (int i = 0; i < players.size; i++) {
+            if (players.get(i).isAlive()) living++;
+        }
+        return living;
+    }
+
+    private void restart() {
+        for (int i = 0; i < enemies.size; i++) {
+            retire(enemies.get(i).id);
+        }
+        enemyPool.addAll(enemies);
+        enemies.clear();
+        for (int i = 0; i < players.size; i++) {
+            respawn(players.get(i), i);
+        }
+        spawnDirector = new SpawnDirector(mapManager.getNavGrid());
+        spawnDirector.setRandom(random);
+        kills = 0;
+        restartTimer = 0;
+    }
+
+    /**
+     * Fills {@code out} with every player and enemy, sorted by id for
+     * {@link com.survivor.game.SnapshotCodec}, and records where each enemy is
+     * shown at this tick for lag compensation. In a zone, this is also when the
+     * neighbours are sent what is near their border, and their ghosts added.
+     */
+    public void capture(WorldSnapshot out, int tick) {
+        capturedTick = tick;
+        out.clear(tick);
+        for (int i = 0; i < players.size; i++) {
+            ServerPlayer player = players.get(i);
+            int flags = (player.attackTimer > 0 ? NetProtocol.FLAG_ATTACKING : 0)
+                | (player.isAlive() ? 0 : NetProtocol.FLAG_DEAD);
+            out.add(player.id, NetProtocol.KIND_PLAYER, player.x, player.y, player.health, flags);
+        }
+        for (int i = 0; i < enemies.size; i++) {
+            ServerEnemy enemy = enemies.get(i);
+            int flags = enemy.attackFlash > 0 ? NetProtocol.FLAG_ATTACKING : 0;
+            out.add(enemy.id, NetProtocol.KIND_ENEMY, enemy.x, enemy.y, enemy.health, flags);
+            enemy.history.record(tick, enemy.x, enemy.y);
+        }
+        if (border == null) {
+            out.sortById();
+            return;
+        }
+        border.exchange(out, tick);
+        out.sortById();
+        out.dropRepeatedIds(); // A ghost of something handed over this tick
+    }
+
+    public int getPlayerCount() {
+        return players.size;
+    }
+
+    public int getEnemyCount() {
+        return enemies.size;
+    }
+
+    public int getKills() {
+        return kills;
+    }
+
+    /**
+     * @return enemies kept for reuse, on top of {@link #getEnemyCount} in use
+     */
+    public int getPooledEnemyCount() {
+        return enemyPool.size;
+    }
+
+    /**
+     * Writes the players and enemies as JSON members of the object {@code json} is in.
+     */
+    void writeJson(JsonWriter json) throws IOException {
+        json.set("kills", kills).set("restarting", restartTimer > 0);
+        json.array("players");
+        for (int i = 0; i < players.size; i++) {
+            ServerPlayer player = players.get(i);
+            json.object()
+                .set("id", player.id)
+                .set("x", player.x).set("y", player.y)
+                .set("health", player.health)
+                .set("handedOffTo", player.handedOffTo)
+                .pop();
+        }
+        json.pop();
+        json.array("enemies");
+        for (int i = 0; i < enemies.size; i++) {
+            ServerEnemy enemy = enemies.get(i);
+            json.object()
+                .set("id", enemy.id)
+                .set("x", enemy.x).set("y", enemy.y)
+                .set("health", enemy.health)
+                .pop();
+        }
+        json.pop();
+    }
+
+    /**
+     * @return hits that only landed because the enemy was judged where the client saw it
+     */
+    public int getCompensatedHits() {
+        return compensatedHits;
+    }
+
+    /**
+     * @return the link to the neighbouring zones, or null if the map isn't sharded
+     */
+    ZoneBorder getBorder() {
+        return border;
+    }
+}
@@ -0,0 +1,240 @@
+package com.survivor.game.server;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import com.survivor.game.NetProtocol;
+import com.survivor.game.SnapshotCodec;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * Measures {@link SnapshotCodec} on a synthetic world of 20, 500 and 5000
+ * entities: a few players and a horde that wanders at enemy speed, takes damage,
+ * dies and respawns under new ids. The world grows with the entity count so the
+ * crowd stays as dense as a real horde. Each count runs twice, once sending the
+ * whole world and once through the {@link InterestGrid} as the server does. Snapshots go through a simulated link with a
+ * few ticks of latency and some loss, so acks arrive late and baselines get
+ * missed the way they would over the internet. Every decoded snapshot is checked
+ * against what the server recorded as sent.
+ *
+ * Reports bytes per tick against the raw size of the same entities, encode and
+ * decode time per world entity, how many changed entities had to wait for a later
+ * packet, and how far the client's view lags the truth. With interest
+ * management the encode time includes binning and filtering the world. Run by the
+ * {@code snapshotBenchmark} Gradle task. Arguments: [ticks] [entity counts...].
+ */
+public class SnapshotBenchmark {
+    private static final int PLAYERS = 4;
+    private static final int LATENCY_TICKS = 3;
+    private static final float LOSS = 0.02f;
+    private static final int WARMUP_TICKS = 150;
+    private static final float SPEED = 60f / GameServer.TICK_RATE; // Enemy pixels per tick
+    private static final float SPACING = 100f; // World side grows with the square root of the count
+    private static final int RAW_ENTITY_SIZE = 14; // Id, kind, x, y, health, flags at their natural widths
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 900;
+        int[] counts = {20, 500, 5000};
+        if (args.length > 1) {
+            counts = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                counts[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.printf("%d ticks, %d ticks latency, %.0f%% loss, %d byte packets%n",
+            ticks, LATENCY_TICKS, LOSS * 100, NetProtocol.MAX_PACKET_SIZE);
+        boolean passed = true;
+        for (int count : counts) {
+            passed &= run(count, ticks, false);
+            passed &= run(count, ticks, true);
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run(int count, int ticks, boolean interestManaged) {
+        Random random = new Random(count);
+        float worldSize = (float) Math.sqrt(count) * SPACING;
+        int[] ids = new int[count];
+        int[] kinds = new int[count];
+        float[] x = new float[count];
+        float[] y = new float[count];
+        float[] headings = new float[count];
+        int[] health = new int[count];
+        boolean[] inUse = new boolean[Short.MAX_VALUE + 1];
+        int nextId = 1;
+        for (int i = 0; i < count; i++) {
+            inUse[nextId] = true;
+            ids[i] = nextId++;
+            kinds[i] = i < PLAYERS ? NetProtocol.KIND_PLAYER : NetProtocol.KIND_ENEMY;
+            x[i] = random.nextFloat() * worldSize;
+            y[i] = random.nextFloat() * worldSize;
+            headings[i] = random.nextFloat() * 6.2831855f;
+            health[i] = kinds[i] == NetProtocol.KIND_PLAYER ? 100 : 30;
+        }
+
+        WorldSnapshot current = new WorldSnapshot(count);
+        WorldSnapshot visible = new WorldSnapshot();
+        InterestGrid interest = new InterestGrid(ServerWorld.HALF_VIEW_WIDTH, ServerWorld.HALF_VIEW_HEIGHT,
+            4 * SnapshotCodec.TILE_SIZE);
+        SnapshotCodec serverCodec = new SnapshotCodec();
+        SnapshotCodec clientCodec = new SnapshotCodec();
+        WorldSnapshot[] sent = newHistory();
+        WorldSnapshot[] received = newHistory();
+        int[] ackInFlight = new int[LATENCY_TICKS];
+        int ackedTick = -1;
+        int clientTick = -1;
+        ByteBuffer packet = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_SIZE);
+
+        long bytes = 0;
+        int maxBytes = 0;
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        long deferred = 0;
+        long fullSnapshots = 0;
+        long inView = 0;
+        double error = 0;
+        int measured = 0;
+        boolean matched = true;
+
+        for (int tick = 1; tick <= ticks; tick++) {
+            step(random, kinds, x, y, headings, health, count, worldSize);
+            for (int i = PLAYERS; i < count; i++) {
+                // Deaths respawn elsewhere under a fresh id, like the pooled enemies on the server
+                if (random.nextFloat() < 0.002f) {
+                    // Ids wrap like the server's, skipping those still alive
+                    inUse[ids[i]] = false;
+                    while (inUse[nextId]) nextId = nextId == Short.MAX_VALUE ? 1 : nextId + 1;
+                    ids[i] = nextId;
+                    inUse[nextId] = true;
+                    nextId = nextId == Short.MAX_VALUE ? 1 : nextId + 1;
+                    x[i] = random.nextFloat() * worldSize;
+                    y[i] = random.nextFloat() * worldSize;
+                    health[i] = 30;
+                }
+            }
+            current.clear(tick);
+            for (int i = 0; i < count; i++) {
+                int flags = random.nextFloat() < 0.05f ? NetProtocol.FLAG_ATTACKING : 0;
+                current.add(ids[i], kinds[i], x[i], y[i], health[i], flags);
+            }
+            current.sortById();
+
+            // Acks take LATENCY_TICKS to arrive, and only move forward
+            int arrivingAck = ackInFlight[tick % LATENCY_TICKS];
+            if (arrivingAck > ackedTick) ackedTick = arrivingAck;
+            WorldSnapshot baseline = null;
+            if (ackedTick > 0 && tick - ackedTick < sent.length && sent[ackedTick % sent.length].tick == ackedTick) {
+                baseline = sent[ackedTick % sent.length];
+            }
+
+            ((Buffer) packet).clear();
+            ((Buffer) packet).position(NetProtocol.HEADER_SIZE + NetProtocol.SNAPSHOT_HEADER_SIZE);
+            WorldSnapshot record = sent[tick % sent.length];
+            long start = System.nanoTime();
+            // The client is the first player
+            WorldSnapshot encoded = current;
+            float[] priorities = null;
+            if (interestManaged) {
+                interest.rebuild(current);
+                interest.gather(current, x[0], y[0], visible);
+                encoded = visible;
+                priorities = interest.getPriorities();
+            }
+            int left = serverCodec.encode(encoded, baseline, priorities, packet, packet.remaining() * 8, record);
+            long encodeTime = System.nanoTime() - start;
+            int size = packet.position();
+            ((Buffer) packet).flip();
+            ((Buffer) packet).position(NetProtocol.HEADER_SIZE + NetProtocol.SNAPSHOT_HEADER_SIZE);
+
+            boolean delivered = random.nextFloat() >= LOSS;
+            long decoded = 0;
+            if (delivered) {
+                WorldSnapshot clientBaseline = baseline != null ? received[baseline.tick % received.length] : null;
+                if (clientBaseline != null && clientBaseline.tick != baseline.tick) {
+                    // The baseline was lost on the way; a real client drops this packet
+                    delivered = false;
+                } else {
+                    WorldSnapshot out = received[tick % received.length];
+                    start = System.nanoTime();
+                    clientCodec.decode(packet, clientBaseline, out, tick);
+                    decoded = System.nanoTime() - start;
+                    matched &= same(out, record);
+                    clientTick = tick;
+                }
+            }
+            ackInFlight[tick % LATENCY_TICKS] = clientTick;
+
+            if (tick > WARMUP_TICKS) {
+                measured++;
+                bytes += size;
+                maxBytes = Math.max(maxBytes, size);
+                encodeNanos += encodeTime;
+                inView += encoded.count;
+                decodeNanos += decoded;
+                deferred += left;
+                if (baseline == null) fullSnapshots++;
+                if (clientTick >= 0) error += averageError(encoded, received[clientTick % received.length]);
+            }
+        }
+
+        int raw = NetProtocol.HEADER_SIZE + NetProtocol.SNAPSHOT_HEADER_SIZE
+            + (int) (inView / measured) * RAW_ENTITY_SIZE;
+        System.out.printf("%5d entities, %-5s %5.0f sent: %6.1f bytes/tick avg, %4d max (raw %6d, %5.1fx smaller); "
+                + "encode %6.1f us/tick (%5.1f ns/entity), decode %5.1f ns/entity; %7.1f updates deferred/tick, "
+                + "%d full snapshots; client view %.1f px off on average%s%n",
+            count, interestManaged ? "AOI," : "all,", inView / (double) measured,
+            bytes / (double) measured, maxBytes, raw, raw / (bytes / (double) measured),
+            encodeNanos / 1e3 / measured, encodeNanos / (double) measured / count, decodeNanos / (double) measured / count,
+            deferred / (double) measured, fullSnapshots, error / measured, matched ? "" : " MISMATCH");
+        return matched && maxBytes <= NetProtocol.MAX_PACKET_SIZE;
+    }
+
+    private static void step(Random random, int[] kinds, float[] x, float[] y, float[] headings,
+            int[] health, int count, float worldSize) {
+        for (int i = 0; i < count; i++) {
+            headings[i] += (random.nextFloat() - 0.5f) * 0.3f;
+            float speed = kinds[i] == NetProtocol.KIND_PLAYER ? SPEED * 1.7f : SPEED;
+            x[i] = Math.max(0, Math.min(worldSize, x[i] + (float) Math.cos(headings[i]) * speed));
+            y[i] = Math.max(0, Math.min(worldSize, y[i] + (float) Math.sin(headings[i]) * speed));
+            if (random.nextFloat() < 0.01f) health[i] = Math.max(1, health[i] - 5);
+        }
+    }
+
+    private static WorldSnapshot[] newHistory() {
+        WorldSnapshot[] history = new WorldSnapshot[NetProtocol.SNAPSHOT_HISTORY];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = new WorldSnapshot();
+        }
+        return history;
+    }
+
+    private static boolean same(WorldSnapshot a, WorldSnapshot b) {
+        if (a.count != b.count) return false;
+        for (int i = 0; i < a.count; i++) {
+            if (a.ids[i] != b.ids[i] || a.kinds[i] != b.kinds[i] || a.x[i] != b.x[i] || a.y[i] != b.y[i]
+                || a.health[i] != b.health[i] || a.flags[i] != b.flags[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mean distance between each entity's true position and where the client has it, for entities it knows.
+     */
+    private static double averageError(WorldSnapshot truth, WorldSnapshot view) {
+        double total = 0;
+        int known = 0;
+        int v = 0;
+        for (int i = 0; i < truth.count; i++) {
+            while (v < view.count && view.ids[v] < truth.ids[i]) v++;
+            if (v == view.count) break;
+            if (view.ids[v] != truth.ids[i]) continue;
+            total += Math.hypot(truth.x[i] - view.x[v], truth.y[i] - view.y[v]);
+            known++;
+        }
+        return known > 0 ? total / known : 0;
+    }
+}
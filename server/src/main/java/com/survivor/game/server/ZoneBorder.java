@@ -0,0 +1,194 @@
+package com.survivor.game.server;
+
+import java.nio.ByteBuffer;
+
+import com.survivor.game.NetProtocol;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * Where a {@link ServerWorld} running one zone of a sharded map meets its
+ * neighbours, see {@link ZoneLayout}. Every tick it sends each neighbour what is
+ * near their shared border and keeps what the neighbours sent as ghosts: they
+ * are shown to clients like anything else, enemies chase ghost players, and
+ * players can hit ghost enemies, but whatever that does to them is sent to the
+ * zone that owns them as damage instead of applied here.
+ *
+ * It also writes the messages that hand an entity over when it crosses, and
+ * reads them when one arrives.
+ */
+class ZoneBorder {
+    private static final long GHOST_TIMEOUT_NANOS = 500_000_000L; // The neighbour's room stopped ticking
+    private static final int MIRROR_ENTRY_SIZE = 14;
+    private static final int MAX_MIRRORED = 2048;
+
+    private final ServerWorld world;
+    private final ZoneNode node;
+    private final ZoneLayout layout;
+    private final int roomId;
+    private final WorldSnapshot[] ghosts = { new WorldSnapshot(), new WorldSnapshot() }; // By side
+    private final long[] ghostsReceivedNanos = new long[2];
+    private int handoffsOut = 0;
+    private int handoffsIn = 0;
+
+    ZoneBorder(ServerWorld world, ZoneNode node, int roomId) {
+        this.world = world;
+        this.node = node;
+        this.layout = node.layout;
+        this.roomId = roomId;
+    }
+
+    /**
+     * Sends each neighbour the entities of {@code own} near its border, then adds
+     * the neighbours' ghosts to it.
+     *
+     * @param own holds only this zone's entities so far
+     */
+    void exchange(WorldSnapshot own, int tick) {
+        long now = System.nanoTime();
+        int ownCount = own.count;
+        for (int side = ZoneLayout.LEFT; side <= ZoneLayout.RIGHT; side++) {
+            ZoneLink link = node.link(side);
+            if (link != null && link.isConnected()) {
+                int mirrored = 0;
+                for (int i = 0; i < ownCount; i++) {
+                    if (layout.isMirrored(side, own.x[i])) mirrored++;
+                }
+                mirrored = Math.min(mirrored, MAX_MIRRORED);
+                ByteBuffer message = link.begin(ZoneNode.MIRROR, roomId, 6 + mirrored * MIRROR_ENTRY_SIZE);
+                if (message != null) {
+                    message.putInt(tick).putShort((short) mirrored);
+                    for (int i = 0, written = 0; i < ownCount && written < mirrored; i++) {
+                        if (!layout.isMirrored(side, own.x[i])) continue;
+                        message.putShort(own.ids[i]).put(own.kinds[i]).putFloat(own.x[i]).putFloat(own.y[i])
+                            .putShort(own.health[i]).put(own.flags[i]);
+                        written++;
+                    }
+                    link.end();
+                }
+            }
+
+            WorldSnapshot sideGhosts = ghosts[side];
+            if (now - ghostsReceivedNanos[side] > GHOST_TIMEOUT_NANOS) sideGhosts.count = 0;
+            for (int i = 0; i < sideGhosts.count; i++) {
+                if (sideGhosts.kinds[i] >= 0) own.add(sideGhosts, i);
+            }
+        }
+    }
+
+    void receiveMirror(int side, ByteBuffer message) {
+        WorldSnapshot sideGhosts = ghosts[side];
+        sideGhosts.clear(message.getInt());
+        int count = message.getShort();
+        sideGhosts.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            sideGhosts.add(message.getShort(), message.get(), message.getFloat(), message.getFloat(),
+                message.getShort(), message.get());
+        }
+        ghostsReceivedNanos[side] = System.nanoTime();
+    }
+
+    /**
+     * @return false if the neighbour can't be told, in which case the enemy stays here for now
+     */
+    boolean handOffEnemy(ServerEnemy enemy, int zone) {
+        ZoneLink link = node.link(layout.sideTowards(zone));
+        ByteBuffer message = link != null ? link.begin(ZoneNode.ENEMY, roomId, 16) : null;
+        if (message == null) return false;
+        message.putShort((short) enemy.id).putFloat(enemy.x).putFloat(enemy.y).putShort((short) enemy.health)
+            .putFloat(enemy.attackTimer);
+        link.end();
+        handoffsOut++;
+        return true;
+    }
+
+    /**
+     * @param token what the player's client will connect to the neighbour with
+     * @return false if the neighbour can't be told, in which case the player stays here for now
+     */
+    boolean handOffPlayer(ServerPlayer player, int zone, int token) {
+        ZoneLink link = node.link(layout.sideTowards(zone));
+        ByteBuffer message = link != null ? link.begin(ZoneNode.PLAYER, roomId, 44) : null;
+        if (message == null) return false;
+        message.putInt(token).putShort((short) player.id).putFloat(player.x).putFloat(player.y)
+            .putFloat(player.velocity.x).putFloat(player.velocity.y).putShort((short) player.health)
+            .putFloat(player.hitTimer).putFloat(player.attackCooldown).putFloat(player.facingX).putFloat(player.facingY);
+        link.end();
+        handoffsOut++;
+        return true;
+    }
+
+    void receiveEnemy(ByteBuffer message) {
+        int id = message.getShort();
+        forgetGhost(id);
+        world.adoptEnemy(id, message.getFloat(), message.getFloat(), message.getShort(), message.getFloat());
+        handoffsIn++;
+    }
+
+    ServerPlayer receivePlayer(ZoneNode.PlayerArrival arrival) {
+        forgetGhost(arrival.id);
+        handoffsIn++;
+        return world.adoptPlayer(arrival);
+    }
+
+    private void forgetGhost(int id) {
+        for (WorldSnapshot sideGhosts : ghosts) {
+            for (int i = 0; i < sideGhosts.count; i++) {
+                if (sideGhosts.ids[i] == id) sideGhosts.kinds[i] = -1; // Left in place but no longer a player or an enemy
+            }
+        }
+    }
+
+    /**
+     * Sends damage to the zone that owns ghost {@code index} on that side.
+     */
+    void damageGhost(int side, int index, int amount) {
+        ZoneLink link = node.link(side);
+        ByteBuffer message = link != null ? link.begin(ZoneNode.DAMAGE, roomId, 4) : null;
+        if (message == null) return;
+        message.putShort(ghosts[side].ids[index]).putShort((short) amount);
+        link.end();
+    }
+
+    void receiveDamage(ByteBuffer message) {
+        world.damageById(message.getShort(), message.getShort());
+    }
+
+    /**
+     * An entity from this zone died or left elsewhere, so its id is free again.
+     */
+    void receiveRelease(int id) {
+        world.releaseId(id);
+    }
+
+    /**
+     * Tells the entity's home zone that it is gone, unless that is this zone.
+     */
+    void retire(int id) {
+        node.release(roomId, id);
+    }
+
+    WorldSnapshot getGhosts(int side) {
+        return ghosts[side];
+    }
+
+    /**
+     * @return whether ghost {@code index} on that side is a living player
+     */
+    boolean isLivingPlayer(int side, int index) {
+        WorldSnapshot sideGhosts = ghosts[side];
+        return sideGhosts.kinds[index] == NetProtocol.KIND_PLAYER
+            && (sideGhosts.flags[index] & NetProtocol.FLAG_DEAD) == 0;
+    }
+
+    boolean isEnemy(int side, int index) {
+        return ghosts[side].kinds[index] == NetProtocol.KIND_ENEMY;
+    }
+
+    int getHandoffsOut() {
+        return handoffsOut;
+    }
+
+    int getHandoffsIn() {
+        return handoffsIn;
+    }
+}
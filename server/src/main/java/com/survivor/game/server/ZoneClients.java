@@ -0,0 +1,141 @@
+package com.survivor.game.server;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.survivor.game.CollisionMask;
+import com.survivor.game.GameClient;
+import com.survivor.game.MapManager;
+import com.survivor.game.NetProtocol;
+import com.survivor.game.PlayerPredictor;
+import com.survivor.game.SweptAabbSolver;
+import com.survivor.game.WorldSnapshot;
+
+/**
+ * Starts one server process per zone of a sharded map on this machine and
+ * connects bot clients to them, spread over the zones. The bots march left and
+ * right across the whole map, so they keep crossing borders and being handed
+ * from process to process.
+ * Afterwards it reports what every client received and how often it was
+ * handed over, and exits with status 1 if a client lost its connection, couldn't
+ * decode a snapshot or got too few, or if nobody was ever handed over.
+ * Each server's log goes to zone-N.log in the temporary directory.
+ * Run by the {@code zoneTest} Gradle task. Arguments: [zones] [clients] [seconds] [base port].
+ */
+public class ZoneClients {
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final float MARCH_SECONDS = 6f; // Each way; long enough to cross a zone
+    private static final long STARTUP_MILLIS = 3000;
+    private static final float MIN_SNAPSHOT_RATIO = 0.6f; // Every handover costs a round trip of snapshots
+
+    public static void main(String[] args) throws Exception {
+        int zoneCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int clientCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        float seconds = args.length > 2 ? Float.parseFloat(args[2]) : 20f;
+        int basePort = args.length > 3 ? Integer.parseInt(args[3]) : NetProtocol.DEFAULT_PORT + 100;
+
+        Process[] servers = new Process[zoneCount];
+        File logDirectory = new File(System.getProperty("java.io.tmpdir"));
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int zone = 0; zone < zoneCount; zone++) {
+            File log = new File(logDirectory, "zone-" + zone + ".log");
+            servers[zone] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ServerLauncher.class.getName(), String.valueOf(basePort), String.valueOf(clientCount), "1",
+                String.valueOf(zone), String.valueOf(zoneCount))
+                .redirectErrorStream(true).redirectOutput(log).start();
+            System.out.println("Zone " + zone + " on port " + (basePort + zone) + ", logging to " + log);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Process server : servers) {
+                server.destroy();
+            }
+        }));
+        Thread.sleep(STARTUP_MILLIS);
+
+        ServerLauncher.initHeadless();
+        // Clients predict against their own copy of the map, as the game would
+        MapManager map = new MapManager("map.tmx", false);
+        CollisionMask mask = map.getCollisionMask();
+        float worldWidth = mask.getWidth() * mask.getTileWidth();
+        float worldHeight = mask.getHeight() * mask.getTileHeight();
+        SweptAabbSolver collider = new SweptAabbSolver(map.getObstacleIndex());
+
+        GameClient[] clients = new GameClient[clientCount];
+        int[] vertical = new int[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = new GameClient(new InetSocketAddress("127.0.0.1", basePort + i % zoneCount));
+            clients[i].getPredictor().setWorld(collider, worldWidth, worldHeight);
+        }
+
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9f);
+        long nextFrame = start;
+        long lastFrame = start;
+        while (System.nanoTime() < end) {
+            long frameStart = System.nanoTime();
+            float delta = (frameStart - lastFrame) / 1e9f;
+            lastFrame = frameStart;
+            float elapsed = (frameStart - start) / 1e9f;
+            for (int i = 0; i < clientCount; i++) {
+                GameClient client = clients[i];
+                client.update();
+
+                // Half the bots start off to the right, half to the left; all drift up and down a little
+                boolean right = ((int) (elapsed / MARCH_SECONDS) + i) % 2 == 0;
+                if (MathUtils.randomBoolean(0.02f)) {
+                    vertical[i] = MathUtils.random(2) == 0 ? NetProtocol.BUTTON_UP
+                        : MathUtils.randomBoolean() ? NetProtocol.BUTTON_DOWN : 0;
+                }
+                PlayerPredictor predictor = client.getPredictor();
+                float x = predictor.getX();
+                float y = predictor.getY();
+                int attack = enemyWithin(client.getSnapshot(), x, y, 60f) ? NetProtocol.BUTTON_ATTACK : 0;
+                int buttons = (right ? NetProtocol.BUTTON_RIGHT : NetProtocol.BUTTON_LEFT) | vertical[i] | attack;
+                client.sendInput(buttons, delta, x, y);
+            }
+            nextFrame += FRAME_NANOS;
+            long sleep = nextFrame - System.nanoTime();
+            if (sleep > 0) Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+        }
+
+        boolean passed = true;
+        int redirects = 0;
+        int expected = (int) (seconds * GameServer.TICK_RATE);
+        for (int i = 0; i < clientCount; i++) {
+            GameClient client = clients[i];
+            float ratio = client.getSnapshotsReceived() / (float) expected;
+            PlayerPredictor predictor = client.getPredictor();
+            System.out.printf("Client %d: player %d at x %.0f, %d zone handovers, %d snapshots (%.0f%% of %d, "
+                    + "%d undecodable), %d entities; %d corrections (largest %.2f)%n",
+                i, client.getPlayerId(), predictor.getX(), client.getRedirects(), client.getSnapshotsReceived(),
+                ratio * 100, expected, client.getSnapshotsDropped(), client.getSnapshot().count,
+                predictor.getCorrections(), predictor.getLargestCorrection());
+            redirects += client.getRedirects();
+            if (!client.isConnected() || ratio < MIN_SNAPSHOT_RATIO || client.getSnapshotsDropped() > 0) passed = false;
+            client.dispose();
+        }
+        if (redirects == 0) passed = false;
+
+        Thread.sleep(200); // Let the disconnects arrive
+        for (Process server : servers) {
+            server.destroy();
+        }
+        for (Process server : servers) {
+            server.waitFor();
+        }
+        System.out.printf("%d zones, %d handovers in total%n", zoneCount, redirects);
+        System.out.println(passed ? "PASSED" : "FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean enemyWithin(WorldSnapshot snapshot, float x, float y, float radius) {
+        for (int i = 0; i < snapshot.count; i++) {
+            if (snapshot.kinds[i] == NetProtocol.KIND_ENEMY
+                && Math.abs(snapshot.x[i] - x) < radius && Math.abs(snapshot.y[i] - y) < radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
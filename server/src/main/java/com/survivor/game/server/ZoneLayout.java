@@ -0,0 +1,91 @@
+package com.survivor.game.server;
+
+import com.survivor.game.SnapshotCodec;
+
+/**
+ * How a map too big for one game loop is split between server processes: into
+ * vertical strips of equal width, one zone per process. Zone {@code i} takes
+ * clients on UDP port {@code basePort + i} and links to its neighbours over TCP
+ * on the same port number, see {@link ZoneNode}.
+ *
+ * An entity belongs to one zone at a time. It is handed to the neighbour once it
+ * is {@link #HANDOFF_MARGIN} past the border, so something standing on the line
+ * doesn't bounce between processes. Everything within {@link #MIRROR_WIDTH} of a
+ * border is also shown to the neighbour, which is as far as a player over there
+ * can see.
+ *
+ * Entity ids must stay unique across zones, so each zone hands out only the ids
+ * that leave its index as remainder, and an entity keeps its id wherever it goes.
+ */
+class ZoneLayout {
+    static final float HANDOFF_MARGIN = SnapshotCodec.TILE_SIZE;
+    static final float MIRROR_WIDTH = ServerWorld.HALF_VIEW_WIDTH + 4 * SnapshotCodec.TILE_SIZE;
+    static final int LEFT = 0;
+    static final int RIGHT = 1;
+
+    final int index;
+    final int count;
+    final int basePort;
+    final float zoneWidth;
+    final float minX;
+    final float maxX;
+
+    ZoneLayout(int index, int count, int basePort, float worldWidth) {
+        if (index < 0 || index >= count) throw new IllegalArgumentException("Zone " + index + " of " + count);
+        this.index = index;
+        this.count = count;
+        this.basePort = basePort;
+        this.zoneWidth = worldWidth / count;
+        this.minX = index * zoneWidth;
+        this.maxX = index == count - 1 ? Float.POSITIVE_INFINITY : minX + zoneWidth;
+    }
+
+    /**
+     * @return the zone an entity owned here at {@code x} should belong to; this one unless it is well past a border
+     */
+    int ownerAfterMove(float x) {
+        if (index > 0 && x < minX - HANDOFF_MARGIN) return zoneOf(x);
+        if (index < count - 1 && x > maxX + HANDOFF_MARGIN) return zoneOf(x);
+        return index;
+    }
+
+    int zoneOf(float x) {
+        return Math.max(0, Math.min(count - 1, (int) (x / zoneWidth)));
+    }
+
+    /**
+     * @return whether {@code x} is close enough to the border on that side for the neighbour to show it
+     */
+    boolean isMirrored(int side, float x) {
+        return side == LEFT ? index > 0 && x < minX + MIRROR_WIDTH : index < count - 1 && x > maxX - MIRROR_WIDTH;
+    }
+
+    /**
+     * @return the neighbour to pass things on to for them to reach {@code zone}
+     */
+    int sideTowards(int zone) {
+        return zone < index ? LEFT : RIGHT;
+    }
+
+    float centerX() {
+        return minX + zoneWidth / 2f;
+    }
+
+    int portOf(int zone) {
+        return basePort + zone;
+    }
+
+    /**
+     * @return the zone that handed out this id
+     */
+    int homeOf(int id) {
+        return id % count;
+    }
+
+    /**
+     * @return the lowest usable id with this zone as its home
+     */
+    int firstId() {
+        return index == 0 ? count : index;
+    }
+}
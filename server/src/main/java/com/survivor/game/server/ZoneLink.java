@@ -0,0 +1,174 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * A non-blocking TCP connection to a neighbouring zone's process, carrying
+ * length-prefixed messages for {@link ZoneNode}. TCP keeps them in order and
+ * doesn't lose any, which handoffs need: an entity leaves one zone the moment
+ * its message is written.
+ *
+ * Messages are written straight into one outgoing buffer and sent when the
+ * worker flushes, once per pass; incoming bytes collect in another until a whole
+ * message is there. If the neighbour falls so far behind that the outgoing
+ * buffer fills, new messages are dropped, as are any while the link is down.
+ */
+class ZoneLink {
+    private static final String TAG = "ZoneLink";
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long RECONNECT_NANOS = 1_000_000_000L;
+
+    final int zone;
+    private final InetSocketAddress connectTo; // Null on the accepting side
+    private SocketChannel channel;
+    private boolean connected = false;
+    private long nextConnectAttempt = 0;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int messageStart = -1;
+    private int dropped = 0;
+
+    /**
+     * @param connectTo the neighbour to keep connecting to, or null to wait for it to connect here
+     */
+    ZoneLink(int zone, InetSocketAddress connectTo) {
+        this.zone = zone;
+        this.connectTo = connectTo;
+    }
+
+    /**
+     * Starts, finishes or retries the connection as needed. Called every pass.
+     */
+    void maintain(long now) {
+        if (connected || connectTo == null) return;
+        try {
+            if (channel == null) {
+                if (now < nextConnectAttempt) return;
+                nextConnectAttempt = now + RECONNECT_NANOS;
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.connect(connectTo);
+            }
+            if (channel.finishConnect()) opened();
+        } catch (IOException e) {
+            closeChannel(); // Not up yet; try again shortly
+        }
+    }
+
+    /**
+     * Takes over a connection the neighbour made to us, replacing any old one.
+     */
+    void accept(SocketChannel accepted) throws IOException {
+        closeChannel();
+        accepted.configureBlocking(false);
+        accepted.socket().setTcpNoDelay(true);
+        channel = accepted;
+        opened();
+    }
+
+    private void opened() {
+        connected = true;
+        ((Buffer) out).clear();
+        ((Buffer) in).clear();
+        Gdx.app.log(TAG, "Linked to zone " + zone);
+    }
+
+    boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Starts a message. Write its body into the returned buffer, then call {@link #end}.
+     *
+     * @param maxBytes the most the body can take
+     * @return the buffer to write into, or null if the message has to be dropped
+     */
+    ByteBuffer begin(byte type, int roomId, int maxBytes) {
+        if (!connected || out.remaining() < 9 + maxBytes) {
+            dropped++;
+            return null;
+        }
+        messageStart = out.position();
+        return out.putInt(0).put(type).putInt(roomId);
+    }
+
+    void end() {
+        out.putInt(messageStart, out.position() - messageStart - 4);
+        messageStart = -1;
+    }
+
+    /**
+     * Sends as much of what was written as the socket takes.
+     */
+    void flush() {
+        if (!connected || out.position() == 0) return;
+        ((Buffer) out).flip();
+        try {
+            channel.write(out);
+        } catch (IOException e) {
+            lost(e);
+            return;
+        }
+        out.compact();
+    }
+
+    /**
+     * Reads what has arrived and hands every complete message to the node.
+     */
+    void receive(ZoneNode node) {
+        if (!connected) return;
+        try {
+            if (channel.read(in) < 0) {
+                lost(null);
+                return;
+            }
+        } catch (IOException e) {
+            lost(e);
+            return;
+        }
+        ((Buffer) in).flip();
+        while (in.remaining() >= 4 && in.remaining() >= 4 + in.getInt(in.position())) {
+            int length = in.getInt();
+            int end = in.position() + length;
+            byte type = in.get();
+            int roomId = in.getInt();
+            node.dispatch(this, type, roomId, in);
+            ((Buffer) in).position(end);
+        }
+        in.compact();
+    }
+
+    private void lost(IOException e) {
+        if (e != null) {
+            Gdx.app.error(TAG, "Lost the link to zone " + zone, e);
+        } else {
+            Gdx.app.log(TAG, "Zone " + zone + " closed the link");
+        }
+        closeChannel();
+    }
+
+    void closeChannel() {
+        connected = false;
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        channel = null;
+    }
+
+    /**
+     * @return messages dropped because the link was down or backed up
+     */
+    int getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,232 @@
+package com.survivor.game.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * This process's end of the links to its neighbouring zones, see
+ * {@link ZoneLayout}. Each zone connects to the one on its right and accepts
+ * the one on its left, over loopback TCP, retrying until the neighbour is up.
+ *
+ * Everything here runs on the room worker, which in a zoned server is the only
+ * one: it polls the links between ticks, hands incoming messages to the room
+ * they name, and the rooms' {@link ZoneBorder}s write outgoing ones during their
+ * ticks. A player handed over from a neighbour waits here, under the token its
+ * client was given, until the client connects with it.
+ */
+class ZoneNode {
+    private static final String TAG = "ZoneNode";
+    private static final long ARRIVAL_TIMEOUT_NANOS = 10_000_000_000L; // A client that never shows up
+
+    // Message types
+    static final byte MIRROR = 1; // Tick (int), count (short), then per entity id (short), kind (byte), x, y (floats), health (short), flags (byte)
+    static final byte ENEMY = 2; // Id (short), x, y (floats), health (short), attack timer (float)
+    static final byte PLAYER = 3; // Token (int), id (short), x, y, velocity x, y (floats), health (short), hit timer, attack cooldown, facing x, y (floats)
+    static final byte DAMAGE = 4; // Id (short), amount (short)
+    static final byte RELEASE = 5; // Id (short); the entity is gone and its home zone may hand the id out again
+
+    final ZoneLayout layout;
+    private final ServerSocketChannel acceptor;
+    private final ZoneLink[] links = new ZoneLink[2]; // By side, null at the ends of the map
+    private final IntMap<Room> rooms = new IntMap<>();
+    private final IntMap<PlayerArrival> arrivals = new IntMap<>();
+    private int enemiesDropped = 0;
+
+    ZoneNode(ZoneLayout layout) throws IOException {
+        this.layout = layout;
+        if (layout.index > 0) {
+            acceptor = ServerSocketChannel.open();
+            acceptor.configureBlocking(false);
+            acceptor.bind(new InetSocketAddress("127.0.0.1", layout.portOf(layout.index)));
+            links[ZoneLayout.LEFT] = new ZoneLink(layout.index - 1, null);
+        } else {
+            acceptor = null;
+        }
+        if (layout.index < layout.count - 1) {
+            links[ZoneLayout.RIGHT] = new ZoneLink(layout.index + 1,
+                new InetSocketAddress("127.0.0.1", layout.portOf(layout.index + 1)));
+        }
+    }
+
+    void addRoom(Room room) {
+        rooms.put(room.id, room);
+    }
+
+    void removeRoom(Room room) {
+        rooms.remove(room.id);
+    }
+
+    /**
+     * Connects, accepts and reads whatever the neighbours have sent.
+     */
+    void poll(long now) {
+        if (acceptor != null) {
+            try {
+                SocketChannel accepted = acceptor.accept();
+                if (accepted != null) links[ZoneLayout.LEFT].accept(accepted);
+            } catch (IOException e) {
+                Gdx.app.error(TAG, "Couldn't accept a zone link", e);
+            }
+        }
+        for (ZoneLink link : links) {
+            if (link == null) continue;
+            link.maintain(now);
+            link.receive(this);
+        }
+
+        // Forget players whose clients never came
+        IntMap.Keys tokens = arrivals.keys();
+        while (tokens.hasNext) {
+            int token = tokens.next();
+            PlayerArrival arrival = arrivals.get(token);
+            if (now - arrival.receivedNanos > ARRIVAL_TIMEOUT_NANOS) {
+                tokens.remove();
+                release(arrival.roomId, arrival.id);
+            }
+        }
+    }
+
+    void flush() {
+        for (ZoneLink link : links) {
+            if (link != null) link.flush();
+        }
+    }
+
+    /**
+     * @return the link on that side, or null if there is no neighbour there
+     */
+    ZoneLink link(int side) {
+        return links[side];
+    }
+
+    void dispatch(ZoneLink from, byte type, int roomId, ByteBuffer message) {
+        int side = from == links[ZoneLayout.LEFT] ? ZoneLayout.LEFT : ZoneLayout.RIGHT;
+        Room room = rooms.get(roomId);
+        ZoneBorder border = room != null ? room.getWorld().getBorder() : null;
+        switch (type) {
+            case MIRROR:
+                if (border != null) border.receiveMirror(side, message);
+                break;
+            case ENEMY:
+                if (border != null && room.getPlayerCount() > 0) {
+                    border.receiveEnemy(message);
+                } else {
+                    // Nobody is playing that room here, so there is no one for it to chase
+                    enemiesDropped++;
+                    release(roomId, message.getShort());
+                }
+                break;
+            case PLAYER:
+                PlayerArrival arrival = new PlayerArrival(roomId, message, System.nanoTime());
+                arrivals.put(arrival.token, arrival);
+                break;
+            case DAMAGE:
+                if (border != null) border.receiveDamage(message);
+                break;
+            case RELEASE:
+                int id = message.getShort();
+                if (layout.homeOf(id) != layout.index) {
+                    release(roomId, id); // Passing through on the way home
+                } else if (border != null) {
+                    border.receiveRelease(id);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Tells an entity's home zone that it is gone for good. Ids from this zone
+     * are released by the room itself.
+     */
+    void release(int roomId, int id) {
+        int home = layout.homeOf(id);
+        if (home == layout.index) {
+            Room room = rooms.get(roomId);
+            if (room != null) room.getWorld().getBorder().receiveRelease(id);
+            return;
+        }
+        ZoneLink link = links[layout.sideTowards(home)];
+        ByteBuffer message = link != null ? link.begin(RELEASE, roomId, 2) : null;
+        if (message == null) return;
+        message.putShort((short) id);
+        link.end();
+    }
+
+    /**
+     * @return the player handed over under this token, removed from the waiting list, or null
+     */
+    PlayerArrival claim(int token) {
+        return arrivals.remove(token);
+    }
+
+    void close() {
+        for (ZoneLink link : links) {
+            if (link != null) link.closeChannel();
+        }
+        if (acceptor != null) {
+            try {
+                acceptor.close();
+            } catch (IOException e) {
+                Gdx.app.error(TAG, "Couldn't close the zone listener", e);
+            }
+        }
+    }
+
+    String stats() {
+        int dropped = 0;
+        for (ZoneLink link : links) {
+            if (link != null) dropped += link.getDropped();
+        }
+        return String.format("zone %d of %d, left %s, right %s; %d players waiting for their client, "
+                + "%d link messages dropped, %d enemies dropped into empty rooms",
+            layout.index, layout.count, state(links[ZoneLayout.LEFT]), state(links[ZoneLayout.RIGHT]),
+            arrivals.size, dropped, enemiesDropped);
+    }
+
+    private static String state(ZoneLink link) {
+        return link == null ? "none" : link.isConnected() ? "linked" : "down";
+    }
+
+    /**
+     * A player on its way in from a neighbour, as the neighbour last had it.
+     */
+    static class PlayerArrival {
+        final int roomId;
+        final int token;
+        final int id;
+        final float x;
+        final float y;
+        final float velocityX;
+        final float velocityY;
+        final int health;
+        final float hitTimer;
+        final float attackCooldown;
+        final float facingX;
+        final float facingY;
+        final long receivedNanos;
+
+        PlayerArrival(int roomId, ByteBuffer message, long now) {
+            this.roomId = roomId;
+            token = message.getInt();
+            id = message.getShort();
+            x = message.getFloat();
+            y = message.getFloat();
+            velocityX = message.getFloat();
+            velocityY = message.getFloat();
+            health = message.getShort();
+            hitTimer = message.getFloat();
+            attackCooldown = message.getFloat();
+            facingX = message.getFloat();
+            facingY = message.getFloat();
+            receivedNanos = now;
+        }
+    }
+}